@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.record.path.paths;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.nifi.record.path.ArrayIndexFieldValue;
+import org.apache.nifi.record.path.FieldValue;
+import org.apache.nifi.record.path.RecordPathEvaluationContext;
+import org.apache.nifi.record.path.StandardFieldValue;
+import org.apache.nifi.record.path.util.Filters;
+import org.apache.nifi.serialization.record.DataType;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.serialization.record.type.ArrayDataType;
+
+/**
+ * An optimized form of an absolute RecordPath that consists only of child field references and single array indices, such as
+ * <code>/a/b[2]/c</code>. Rather than chaining a Stream through each segment, the path is walked directly, at most a single
+ * Stream is created per evaluation, and the RecordField that is selected by each step is resolved once per RecordSchema and cached.
+ * The results are the same as those of the chain of segments that this path replaces.
+ */
+public class DirectAccessPath extends RecordPathSegment {
+    private final List<Step> steps;
+    private volatile ResolvedField rootField;
+
+    private DirectAccessPath(final RecordPathSegment original, final List<Step> steps) {
+        super(original.getPath(), original.getParentPath(), original.isAbsolute());
+        this.steps = steps;
+    }
+
+    /**
+     * Returns a DirectAccessPath that is equivalent to the given path, if the given path consists only of child field references and single
+     * array indices that descend from the root of the Record. Otherwise, returns the given path unchanged.
+     *
+     * @param path the path to optimize
+     * @return an equivalent DirectAccessPath, or the given path if it cannot be optimized
+     */
+    public static RecordPathSegment optimize(final RecordPathSegment path) {
+        final List<Step> steps = new ArrayList<>();
+
+        RecordPathSegment segment = path;
+        while (segment != null && !(segment instanceof RootPath)) {
+            if (segment instanceof ChildFieldPath) {
+                steps.add(new ChildStep(((ChildFieldPath) segment).getChildName()));
+            } else if (segment instanceof ArrayIndexPath) {
+                steps.add(new IndexStep(((ArrayIndexPath) segment).getIndex()));
+            } else {
+                return path;
+            }
+
+            segment = segment.getParentPath();
+        }
+
+        if (segment == null || steps.isEmpty()) {
+            return path;
+        }
+
+        Collections.reverse(steps);
+        return new DirectAccessPath(path, steps);
+    }
+
+    @Override
+    public Stream<FieldValue> evaluate(final RecordPathEvaluationContext context) {
+        final Record record = context.getRecord();
+
+        FieldValue current = new StandardFieldValue(record, getRootField(record.getSchema()), null);
+        for (final Step step : steps) {
+            current = step.evaluate(current);
+            if (current == null) {
+                return Stream.empty();
+            }
+        }
+
+        return Stream.of(current);
+    }
+
+    private RecordField getRootField(final RecordSchema schema) {
+        ResolvedField resolved = rootField;
+        if (resolved == null || resolved.key != schema) {
+            resolved = new ResolvedField(schema, new RecordField("root", RecordFieldType.RECORD.getRecordDataType(schema)));
+            rootField = resolved;
+        }
+
+        return resolved.field;
+    }
+
+    private interface Step {
+        /**
+         * @param parent the value that is selected by the previous step
+         * @return the value that is selected by this step, or <code>null</code> if this step does not select any value
+         */
+        FieldValue evaluate(FieldValue parent);
+    }
+
+    /**
+     * Equivalent of {@link ChildFieldPath}
+     */
+    private static class ChildStep implements Step {
+        private final String childName;
+        private final RecordField missingField;
+        private volatile ResolvedField resolvedField;
+
+        private ChildStep(final String childName) {
+            this.childName = childName;
+            this.missingField = new RecordField(childName, RecordFieldType.CHOICE.getChoiceDataType(RecordFieldType.STRING.getDataType(), RecordFieldType.RECORD.getDataType()));
+        }
+
+        @Override
+        public FieldValue evaluate(final FieldValue parent) {
+            if (!Filters.isRecord(parent)) {
+                return new StandardFieldValue(null, missingField, parent);
+            }
+
+            final Record record = (Record) parent.getValue();
+            if (record == null) {
+                return new StandardFieldValue(null, missingField, parent);
+            }
+
+            final Object value = record.getValue(childName);
+            if (value == null) {
+                return new StandardFieldValue(null, missingField, parent);
+            }
+
+            final RecordField field = getField(record.getSchema());
+            if (field == null) {
+                return new StandardFieldValue(null, missingField, parent);
+            }
+
+            return new StandardFieldValue(value, field, parent);
+        }
+
+        private RecordField getField(final RecordSchema schema) {
+            ResolvedField resolved = resolvedField;
+            if (resolved == null || resolved.key != schema) {
+                resolved = new ResolvedField(schema, schema.getField(childName).orElse(null));
+                resolvedField = resolved;
+            }
+
+            return resolved.field;
+        }
+    }
+
+    /**
+     * Equivalent of {@link ArrayIndexPath}
+     */
+    private static class IndexStep implements Step {
+        private final int index;
+        private volatile ResolvedField elementField;
+
+        private IndexStep(final int index) {
+            this.index = index;
+        }
+
+        @Override
+        public FieldValue evaluate(final FieldValue parent) {
+            final RecordField arrayField = parent.getField();
+            if (arrayField.getDataType().getFieldType() != RecordFieldType.ARRAY) {
+                return null;
+            }
+
+            final Object[] values = (Object[]) parent.getValue();
+            if (values == null) {
+                return null;
+            }
+
+            final int arrayIndex = index < 0 ? values.length + index : index;
+            if (values.length <= arrayIndex) {
+                return null;
+            }
+
+            return new ArrayIndexFieldValue(values[arrayIndex], getElementField(arrayField), parent, arrayIndex);
+        }
+
+        private RecordField getElementField(final RecordField arrayField) {
+            ResolvedField resolved = elementField;
+            if (resolved == null || resolved.key != arrayField) {
+                final DataType elementDataType = ((ArrayDataType) arrayField.getDataType()).getElementType();
+                resolved = new ResolvedField(arrayField, new RecordField(arrayField.getFieldName(), elementDataType));
+                elementField = resolved;
+            }
+
+            return resolved.field;
+        }
+    }
+
+    /**
+     * Immutable pairing of the object that a field was resolved from and the resolved field, so that the cache can be updated atomically.
+     * Keys are compared by identity, as schemas are typically shared by all records that are read from the same source.
+     */
+    private static class ResolvedField {
+        private final Object key;
+        private final RecordField field;
+
+        private ResolvedField(final Object key, final RecordField field) {
+            this.key = key;
+            this.field = field;
+        }
+    }
+}
@@ -117,7 +117,7 @@ public class RecordPathCompiler {
                 return new FilterFunction(pathTree.getText(), filter, absolute);
         }
 
-        return parent;
+        return DirectAccessPath.optimize(parent);
     }
 
     public static RecordPathSegment buildPath(final Tree tree, final RecordPathSegment parent, final boolean absolute) {
@@ -421,6 +421,38 @@ public class TestRecordPath {
         assertEquals(record, fieldValue.getParentRecord().get());
     }
 
+    @Test
+    public void testDirectAccessPathAcrossSchemas() {
+        final RecordPath recordPath = RecordPath.compile("/accounts[-1]/balance");
+
+        final Map<String, Object> accountValues = new HashMap<>();
+        accountValues.put("id", 1);
+        accountValues.put("balance", 123.45D);
+        final Record accountRecord = new MapRecord(getAccountSchema(), accountValues);
+
+        final Map<String, Object> values = new HashMap<>();
+        values.put("accounts", new Object[] {new MapRecord(getAccountSchema(), new HashMap<>()), accountRecord});
+        final Record record = new MapRecord(new SimpleRecordSchema(getDefaultFields()), values);
+
+        final FieldValue fieldValue = recordPath.evaluate(record).getSelectedFields().findFirst().get();
+        assertEquals(123.45D, (Double) fieldValue.getValue(), 0.0D);
+        assertEquals(accountRecord, fieldValue.getParentRecord().get());
+
+        fieldValue.updateValue(99.9D);
+        assertEquals(99.9D, (Double) accountRecord.getValue("balance"), 0.0D);
+
+        // The same compiled path must resolve fields against a different schema in which the field is missing
+        final Record otherRecord = new MapRecord(new SimpleRecordSchema(Collections.singletonList(new RecordField("accounts",
+            RecordFieldType.ARRAY.getArrayDataType(RecordFieldType.STRING.getDataType())))), Collections.singletonMap("accounts", new Object[] {"a"}));
+        final FieldValue missing = recordPath.evaluate(otherRecord).getSelectedFields().findFirst().get();
+        assertNull(missing.getValue());
+        assertEquals("balance", missing.getField().getFieldName());
+
+        assertEquals(0L, RecordPath.compile("/numbers[3]").evaluate(otherRecord).getSelectedFields().count());
+        assertEquals(0L, RecordPath.compile("/accounts[5]/balance").evaluate(record).getSelectedFields().count());
+        assertEquals(accountRecord, RecordPath.compile("/accounts[1]/balance/..").evaluate(record).getSelectedFields().findFirst().get().getValue());
+    }
+
     @Test
     public void testSingleArrayRange() {
         final RecordSchema schema = new SimpleRecordSchema(getDefaultFields());
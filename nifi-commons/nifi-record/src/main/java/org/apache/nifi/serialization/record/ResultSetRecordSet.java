@@ -35,12 +35,10 @@ import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -50,7 +48,8 @@ public class ResultSetRecordSet implements RecordSet, Closeable {
     private static final int JDBC_DEFAULT_SCALE_VALUE = 0;
     private final ResultSet rs;
     private final RecordSchema schema;
-    private final Set<String> rsColumnNames;
+    private final Map<String, ColumnValueExtractor> columnExtractors;
+    private final ColumnValueExtractor[] fieldExtractors;
     private final int defaultPrecision;
     private final int defaultScale;
 
@@ -76,7 +75,7 @@ public class ResultSetRecordSet implements RecordSet, Closeable {
         this.defaultPrecision = defaultPrecision;
         this.defaultScale = defaultScale;
         this.rs = rs;
-        this.rsColumnNames = new HashSet<>();
+        this.columnExtractors = new HashMap<>();
         RecordSchema tempSchema;
         try {
             tempSchema = createSchema(rs, readerSchema, useLogicalTypes);
@@ -87,6 +86,7 @@ public class ResultSetRecordSet implements RecordSet, Closeable {
             tempSchema = createSchema(rs, readerSchema, useLogicalTypes);
         }
         this.schema = tempSchema;
+        this.fieldExtractors = createFieldExtractors(tempSchema);
     }
 
     @Override
@@ -132,22 +132,65 @@ public class ResultSetRecordSet implements RecordSet, Closeable {
     }
 
     protected Record createRecord(final ResultSet rs) throws SQLException {
+        final List<RecordField> fields = schema.getFields();
         final Map<String, Object> values = new HashMap<>(schema.getFieldCount());
 
-        for (final RecordField field : schema.getFields()) {
-            final String fieldName = field.getFieldName();
+        for (int i = 0; i < fieldExtractors.length; i++) {
+            final ColumnValueExtractor extractor = fieldExtractors[i];
+            final Object value = extractor == null ? null : extractor.extract(rs);
+            values.put(fields.get(i).getFieldName(), value);
+        }
 
-            final Object value;
-            if (rsColumnNames.contains(fieldName)) {
-                value = normalizeValue(rs.getObject(fieldName));
-            } else {
-                value = null;
-            }
+        return new MapRecord(schema, values);
+    }
 
-            values.put(fieldName, value);
+    private ColumnValueExtractor[] createFieldExtractors(final RecordSchema recordSchema) {
+        final List<RecordField> fields = recordSchema.getFields();
+        final ColumnValueExtractor[] extractors = new ColumnValueExtractor[fields.size()];
+        for (int i = 0; i < extractors.length; i++) {
+            extractors[i] = columnExtractors.get(fields.get(i).getFieldName());
         }
+        return extractors;
+    }
 
-        return new MapRecord(schema, values);
+    /**
+     * Chooses how values of a column are read, based on the column's SQL type, so that the per-row work is limited to an index-based
+     * lookup and only the normalization that the type can actually require. Columns are addressed by index rather than by label,
+     * which avoids a label search in the driver for every value.
+     */
+    private ColumnValueExtractor createColumnExtractor(final int columnIndex, final int sqlType) {
+        switch (sqlType) {
+            case Types.BIGINT:
+            case Types.BIT:
+            case Types.BOOLEAN:
+            case Types.CHAR:
+            case Types.DECIMAL:
+            case Types.DOUBLE:
+            case Types.FLOAT:
+            case Types.INTEGER:
+            case Types.LONGNVARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NUMERIC:
+            case Types.NVARCHAR:
+            case Types.REAL:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+            case Types.VARCHAR:
+                return resultSet -> resultSet.getObject(columnIndex);
+            case Types.DATE:
+                return resultSet -> normalizeDate(resultSet.getObject(columnIndex));
+            default:
+                return resultSet -> normalizeValue(resultSet.getObject(columnIndex));
+        }
+    }
+
+    private Object normalizeDate(final Object value) {
+        if (value instanceof java.sql.Date) {
+            return DataTypeUtils.convertDateToUTC((java.sql.Date) value);
+        }
+
+        return value;
     }
 
     @SuppressWarnings("rawtypes")
@@ -195,7 +238,7 @@ public class ResultSetRecordSet implements RecordSet, Closeable {
 
             final RecordField field = new RecordField(fieldName, dataType, nullable);
             fields.add(field);
-            rsColumnNames.add(metadata.getColumnLabel(column));
+            columnExtractors.putIfAbsent(fieldName, createColumnExtractor(column, sqlType));
         }
 
         return new SimpleRecordSchema(fields);
@@ -531,4 +574,8 @@ public class ResultSetRecordSet implements RecordSet, Closeable {
             return RecordFieldType.STRING;
         }
     }
+
+    private interface ColumnValueExtractor {
+        Object extract(ResultSet rs) throws SQLException;
+    }
 }
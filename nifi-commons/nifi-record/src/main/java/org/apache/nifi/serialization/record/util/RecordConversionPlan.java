@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.serialization.record.util;
+
+import org.apache.nifi.serialization.record.DataType;
+import org.apache.nifi.serialization.record.MapRecord;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.text.DateFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * A plan for converting Records of one schema into Records of another schema. Converting a Record with a plan produces the same
+ * values as calling {@link DataTypeUtils#convertType(Object, DataType, Supplier, Supplier, Supplier, String, Charset)} for each
+ * field of the target schema, but the decisions that depend only on the two schemas are made once, when the plan is compiled:
+ * </p>
+ *
+ * <ul>
+ *     <li>The field of the source schema that supplies each target field is resolved once, including aliases.</li>
+ *     <li>Values that are already of the Java type that the target field requires are passed through without conversion.</li>
+ *     <li>Date, Time and Timestamp formats are created at most once per thread rather than once per value.</li>
+ * </ul>
+ *
+ * <p>
+ * Decisions that depend on the value itself, such as choosing a sub-type of a CHOICE field, are still made for each value.
+ * A plan is thread-safe if its Date, Time and Timestamp format suppliers are. Use a {@link RecordConversionPlanCache} to reuse plans across Records.
+ * Record writers that walk the fields of their schema themselves, rather than converting whole Records, can use the converters that are returned by
+ * {@link #getFieldConversions()}.
+ * </p>
+ */
+public class RecordConversionPlan {
+    private final RecordSchema sourceSchema;
+    private final RecordSchema targetSchema;
+    private final FieldConversion[] conversions;
+    private final List<FieldConversion> conversionList;
+
+    private RecordConversionPlan(final RecordSchema sourceSchema, final RecordSchema targetSchema, final FieldConversion[] conversions) {
+        this.sourceSchema = sourceSchema;
+        this.targetSchema = targetSchema;
+        this.conversions = conversions;
+        this.conversionList = Collections.unmodifiableList(Arrays.asList(conversions));
+    }
+
+    /**
+     * Compiles a plan that uses the default Date, Time and Timestamp formats of {@link RecordFieldType}, as
+     * {@link DataTypeUtils#convertType(Object, DataType, String)} does
+     *
+     * @param sourceSchema the schema of the Records to convert
+     * @param targetSchema the schema of the converted Records
+     * @return the compiled plan
+     */
+    public static RecordConversionPlan compile(final RecordSchema sourceSchema, final RecordSchema targetSchema) {
+        return compile(sourceSchema, targetSchema, RecordFieldType.DATE.getDefaultFormat(), RecordFieldType.TIME.getDefaultFormat(),
+            RecordFieldType.TIMESTAMP.getDefaultFormat(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compiles a plan that uses the given formats
+     *
+     * @param sourceSchema the schema of the Records to convert
+     * @param targetSchema the schema of the converted Records
+     * @param dateFormat the format of Date values, or <code>null</code> if Dates are represented as milliseconds since epoch
+     * @param timeFormat the format of Time values, or <code>null</code> if Times are represented as milliseconds since epoch
+     * @param timestampFormat the format of Timestamp values, or <code>null</code> if Timestamps are represented as milliseconds since epoch
+     * @param charset the character set used to convert byte arrays to Strings
+     * @return the compiled plan
+     */
+    public static RecordConversionPlan compile(final RecordSchema sourceSchema, final RecordSchema targetSchema, final String dateFormat,
+                                               final String timeFormat, final String timestampFormat, final Charset charset) {
+        return compile(sourceSchema, targetSchema, createFormatSupplier(dateFormat), createFormatSupplier(timeFormat), createFormatSupplier(timestampFormat), charset);
+    }
+
+    /**
+     * Compiles a plan that obtains its formats from the given suppliers. A supplier may return <code>null</code> if values of that type are represented as
+     * milliseconds since epoch.
+     *
+     * @param sourceSchema the schema of the Records to convert
+     * @param targetSchema the schema of the converted Records
+     * @param dateFormatSupplier supplies the format of Date values
+     * @param timeFormatSupplier supplies the format of Time values
+     * @param timestampFormatSupplier supplies the format of Timestamp values
+     * @param charset the character set used to convert byte arrays to Strings
+     * @return the compiled plan
+     */
+    public static RecordConversionPlan compile(final RecordSchema sourceSchema, final RecordSchema targetSchema, final Supplier<DateFormat> dateFormatSupplier,
+                                               final Supplier<DateFormat> timeFormatSupplier, final Supplier<DateFormat> timestampFormatSupplier, final Charset charset) {
+        final List<RecordField> targetFields = targetSchema.getFields();
+        final FieldConversion[] conversions = new FieldConversion[targetFields.size()];
+        for (int i = 0; i < conversions.length; i++) {
+            final RecordField targetField = targetFields.get(i);
+            final RecordField sourceField = resolveSourceField(sourceSchema, targetField);
+            conversions[i] = new FieldConversion(sourceField, targetField, dateFormatSupplier, timeFormatSupplier, timestampFormatSupplier, charset);
+        }
+
+        return new RecordConversionPlan(sourceSchema, targetSchema, conversions);
+    }
+
+    private static RecordField resolveSourceField(final RecordSchema sourceSchema, final RecordField targetField) {
+        if (sourceSchema.getField(targetField.getFieldName()).isPresent()) {
+            return sourceSchema.getField(targetField.getFieldName()).get();
+        }
+
+        for (final String alias : targetField.getAliases()) {
+            if (sourceSchema.getField(alias).isPresent()) {
+                return sourceSchema.getField(alias).get();
+            }
+        }
+
+        // The Record may still hold an explicit value for the field, or the target field may have a default value
+        return targetField;
+    }
+
+    static Supplier<DateFormat> createFormatSupplier(final String pattern) {
+        if (pattern == null || pattern.isEmpty()) {
+            return () -> null;
+        }
+
+        // DateFormat is not thread-safe, so hold one instance per thread rather than creating one per value
+        final ThreadLocal<DateFormat> threadLocalFormat = ThreadLocal.withInitial(() -> DataTypeUtils.getDateFormat(pattern));
+        return threadLocalFormat::get;
+    }
+
+    /**
+     * Converts the given Record into a Record of the target schema
+     *
+     * @param record the Record to convert, which should be of the source schema of this plan
+     * @return a Record of the target schema, or <code>null</code> if the given Record is <code>null</code>
+     * @throws IllegalTypeConversionException if a value cannot be converted into the type of its target field
+     */
+    public Record convert(final Record record) {
+        if (record == null) {
+            return null;
+        }
+
+        final Map<String, Object> values = new LinkedHashMap<>(conversions.length * 2);
+        for (final FieldConversion conversion : conversions) {
+            final Object value = record.getValue(conversion.sourceField);
+            values.put(conversion.targetFieldName, conversion.convert(value));
+        }
+
+        return new MapRecord(targetSchema, values);
+    }
+
+    public RecordSchema getSourceSchema() {
+        return sourceSchema;
+    }
+
+    public RecordSchema getTargetSchema() {
+        return targetSchema;
+    }
+
+    /**
+     * @return the conversion of each field of the target schema, in the order of the target schema's fields
+     */
+    public List<FieldConversion> getFieldConversions() {
+        return conversionList;
+    }
+
+    /**
+     * The conversion of the values of one field of the target schema
+     */
+    public static class FieldConversion {
+        private final RecordField sourceField;
+        private final RecordField targetField;
+        private final String targetFieldName;
+        private final DataType targetDataType;
+        private final Class<?> passThroughClass;
+        private final Supplier<DateFormat> dateFormat;
+        private final Supplier<DateFormat> timeFormat;
+        private final Supplier<DateFormat> timestampFormat;
+        private final Charset charset;
+
+        private FieldConversion(final RecordField sourceField, final RecordField targetField, final Supplier<DateFormat> dateFormat,
+                                final Supplier<DateFormat> timeFormat, final Supplier<DateFormat> timestampFormat, final Charset charset) {
+            this.sourceField = sourceField;
+            this.targetField = targetField;
+            this.targetFieldName = targetField.getFieldName();
+            this.targetDataType = targetField.getDataType();
+            this.passThroughClass = getPassThroughClass(targetDataType.getFieldType());
+            this.dateFormat = dateFormat;
+            this.timeFormat = timeFormat;
+            this.timestampFormat = timestampFormat;
+            this.charset = charset;
+        }
+
+        public RecordField getSourceField() {
+            return sourceField;
+        }
+
+        public RecordField getTargetField() {
+            return targetField;
+        }
+
+        public DataType getTargetDataType() {
+            return targetDataType;
+        }
+
+        /**
+         * Converts the given value into the type of the target field
+         *
+         * @param value the value to convert
+         * @return the converted value, or <code>null</code> if the given value is <code>null</code>
+         * @throws IllegalTypeConversionException if the value cannot be converted into the type of the target field
+         */
+        public Object convert(final Object value) {
+            if (value == null) {
+                return null;
+            }
+
+            if (passThroughClass != null && passThroughClass == value.getClass()) {
+                return value;
+            }
+
+            return DataTypeUtils.convertType(value, targetDataType, dateFormat, timeFormat, timestampFormat, targetFieldName, charset);
+        }
+
+        /**
+         * Returns the Java type for which {@link DataTypeUtils#convertType(Object, DataType, Supplier, Supplier, Supplier, String, Charset)}
+         * returns a value equal to the given value, or <code>null</code> if there is no such type. DATE is excluded because conversion
+         * normalizes a Date to midnight of its day.
+         */
+        private static Class<?> getPassThroughClass(final RecordFieldType fieldType) {
+            switch (fieldType) {
+                case BOOLEAN:
+                    return Boolean.class;
+                case BYTE:
+                    return Byte.class;
+                case SHORT:
+                    return Short.class;
+                case INT:
+                    return Integer.class;
+                case LONG:
+                    return Long.class;
+                case FLOAT:
+                    return Float.class;
+                case DOUBLE:
+                    return Double.class;
+                case BIGINT:
+                    return BigInteger.class;
+                case DECIMAL:
+                    return BigDecimal.class;
+                case CHAR:
+                    return Character.class;
+                case STRING:
+                    return String.class;
+                case TIME:
+                    return Time.class;
+                case TIMESTAMP:
+                    return Timestamp.class;
+                default:
+                    return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.serialization.record.util;
+
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordSchema;
+
+import java.nio.charset.Charset;
+import java.text.DateFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A bounded, thread-safe cache of {@link RecordConversionPlan}s, keyed by source and target schema. All plans in the cache use the
+ * same Date, Time and Timestamp formats and character set. The most recently used plan is checked first by identity of the schemas,
+ * so that converting a stream of Records that share a schema does not require a map lookup per Record.
+ */
+public class RecordConversionPlanCache {
+    private final int maxSize;
+    private final Supplier<DateFormat> dateFormat;
+    private final Supplier<DateFormat> timeFormat;
+    private final Supplier<DateFormat> timestampFormat;
+    private final Charset charset;
+    private final Map<SchemaPair, RecordConversionPlan> plans;
+
+    private volatile RecordConversionPlan mostRecentPlan;
+
+    public RecordConversionPlanCache(final int maxSize, final String dateFormat, final String timeFormat, final String timestampFormat, final Charset charset) {
+        this(maxSize, RecordConversionPlan.createFormatSupplier(dateFormat), RecordConversionPlan.createFormatSupplier(timeFormat),
+            RecordConversionPlan.createFormatSupplier(timestampFormat), charset);
+    }
+
+    public RecordConversionPlanCache(final int maxSize, final Supplier<DateFormat> dateFormat, final Supplier<DateFormat> timeFormat, final Supplier<DateFormat> timestampFormat,
+                                     final Charset charset) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Maximum cache size must be at least 1");
+        }
+
+        this.maxSize = maxSize;
+        this.dateFormat = dateFormat;
+        this.timeFormat = timeFormat;
+        this.timestampFormat = timestampFormat;
+        this.charset = charset;
+        this.plans = new LinkedHashMap<SchemaPair, RecordConversionPlan>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<SchemaPair, RecordConversionPlan> eldest) {
+                return size() > RecordConversionPlanCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the plan for converting Records of the given source schema into Records of the given target schema, compiling it if necessary
+     *
+     * @param sourceSchema the schema of the Records to convert
+     * @param targetSchema the schema of the converted Records
+     * @return the conversion plan
+     */
+    public RecordConversionPlan getPlan(final RecordSchema sourceSchema, final RecordSchema targetSchema) {
+        final RecordConversionPlan recent = mostRecentPlan;
+        if (recent != null && recent.getSourceSchema() == sourceSchema && recent.getTargetSchema() == targetSchema) {
+            return recent;
+        }
+
+        final SchemaPair key = new SchemaPair(sourceSchema, targetSchema);
+        RecordConversionPlan plan;
+        synchronized (plans) {
+            plan = plans.get(key);
+        }
+
+        if (plan == null) {
+            // Compile outside of the lock. Two threads may compile the same plan concurrently, but the plans are equivalent.
+            plan = RecordConversionPlan.compile(sourceSchema, targetSchema, dateFormat, timeFormat, timestampFormat, charset);
+            synchronized (plans) {
+                plans.put(key, plan);
+            }
+        }
+
+        mostRecentPlan = plan;
+        return plan;
+    }
+
+    /**
+     * Converts the given Record into a Record of the given target schema, using the cached plan for the Record's schema
+     *
+     * @param record the Record to convert
+     * @param targetSchema the schema of the converted Record
+     * @return a Record of the target schema, or <code>null</code> if the given Record is <code>null</code>
+     * @throws IllegalTypeConversionException if a value cannot be converted into the type of its target field
+     */
+    public Record convert(final Record record, final RecordSchema targetSchema) {
+        if (record == null) {
+            return null;
+        }
+
+        return getPlan(record.getSchema(), targetSchema).convert(record);
+    }
+
+    public int size() {
+        synchronized (plans) {
+            return plans.size();
+        }
+    }
+
+    private static class SchemaPair {
+        private final RecordSchema source;
+        private final RecordSchema target;
+
+        private SchemaPair(final RecordSchema source, final RecordSchema target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof SchemaPair)) {
+                return false;
+            }
+
+            final SchemaPair other = (SchemaPair) obj;
+            return source.equals(other.source) && target.equals(other.target);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(source, target);
+        }
+    }
+}
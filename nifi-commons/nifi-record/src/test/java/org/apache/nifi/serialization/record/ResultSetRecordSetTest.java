@@ -272,24 +272,24 @@ public class ResultSetRecordSetTest {
         final BigDecimal bigDecimal4Value = new BigDecimal("1234567.089");
         final BigDecimal bigDecimal5Value = new BigDecimal("0.1234567");
 
-        when(resultSet.getObject(COLUMN_NAME_VARCHAR)).thenReturn(varcharValue);
-        when(resultSet.getObject(COLUMN_NAME_BIGINT)).thenReturn(bigintValue);
-        when(resultSet.getObject(COLUMN_NAME_ROWID)).thenReturn(rowidValue);
-        when(resultSet.getObject(COLUMN_NAME_BIT)).thenReturn(bitValue);
-        when(resultSet.getObject(COLUMN_NAME_BOOLEAN)).thenReturn(booleanValue);
-        when(resultSet.getObject(COLUMN_NAME_CHAR)).thenReturn(charValue);
-        when(resultSet.getObject(COLUMN_NAME_DATE)).thenReturn(dateValue);
-        when(resultSet.getObject(COLUMN_NAME_INTEGER)).thenReturn(integerValue);
-        when(resultSet.getObject(COLUMN_NAME_DOUBLE)).thenReturn(doubleValue);
-        when(resultSet.getObject(COLUMN_NAME_REAL)).thenReturn(realValue);
-        when(resultSet.getObject(COLUMN_NAME_FLOAT)).thenReturn(floatValue);
-        when(resultSet.getObject(COLUMN_NAME_SMALLINT)).thenReturn(smallintValue);
-        when(resultSet.getObject(COLUMN_NAME_TINYINT)).thenReturn(tinyintValue);
-        when(resultSet.getObject(COLUMN_NAME_BIG_DECIMAL_1)).thenReturn(bigDecimal1Value);
-        when(resultSet.getObject(COLUMN_NAME_BIG_DECIMAL_2)).thenReturn(bigDecimal2Value);
-        when(resultSet.getObject(COLUMN_NAME_BIG_DECIMAL_3)).thenReturn(bigDecimal3Value);
-        when(resultSet.getObject(COLUMN_NAME_BIG_DECIMAL_4)).thenReturn(bigDecimal4Value);
-        when(resultSet.getObject(COLUMN_NAME_BIG_DECIMAL_5)).thenReturn(bigDecimal5Value);
+        when(resultSet.getObject(1)).thenReturn(varcharValue);
+        when(resultSet.getObject(2)).thenReturn(bigintValue);
+        when(resultSet.getObject(3)).thenReturn(rowidValue);
+        when(resultSet.getObject(4)).thenReturn(bitValue);
+        when(resultSet.getObject(5)).thenReturn(booleanValue);
+        when(resultSet.getObject(6)).thenReturn(charValue);
+        when(resultSet.getObject(7)).thenReturn(dateValue);
+        when(resultSet.getObject(8)).thenReturn(integerValue);
+        when(resultSet.getObject(9)).thenReturn(doubleValue);
+        when(resultSet.getObject(10)).thenReturn(realValue);
+        when(resultSet.getObject(11)).thenReturn(floatValue);
+        when(resultSet.getObject(12)).thenReturn(smallintValue);
+        when(resultSet.getObject(13)).thenReturn(tinyintValue);
+        when(resultSet.getObject(14)).thenReturn(bigDecimal1Value);
+        when(resultSet.getObject(15)).thenReturn(bigDecimal2Value);
+        when(resultSet.getObject(16)).thenReturn(bigDecimal3Value);
+        when(resultSet.getObject(17)).thenReturn(bigDecimal4Value);
+        when(resultSet.getObject(18)).thenReturn(bigDecimal5Value);
 
         // when
         ResultSetRecordSet testSubject = new ResultSetRecordSet(resultSet, recordSchema);
@@ -318,6 +318,9 @@ public class ResultSetRecordSetTest {
         assertEquals(bigDecimal3Value, record.getValue(COLUMN_NAME_BIG_DECIMAL_3));
         assertEquals(bigDecimal4Value, record.getValue(COLUMN_NAME_BIG_DECIMAL_4));
         assertEquals(bigDecimal5Value, record.getValue(COLUMN_NAME_BIG_DECIMAL_5));
+
+        // Values are read by column index, without the driver having to resolve column labels for every row
+        Mockito.verify(resultSet, Mockito.never()).getObject(ArgumentMatchers.anyString());
     }
 
     @Test
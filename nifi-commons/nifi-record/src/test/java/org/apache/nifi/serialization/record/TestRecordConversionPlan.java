@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.serialization.record;
+
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.util.DataTypeUtils;
+import org.apache.nifi.serialization.record.util.IllegalTypeConversionException;
+import org.apache.nifi.serialization.record.util.RecordConversionPlan;
+import org.apache.nifi.serialization.record.util.RecordConversionPlanCache;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestRecordConversionPlan {
+
+    private RecordSchema getSourceSchema() {
+        return new SimpleRecordSchema(Arrays.asList(
+            new RecordField("id", RecordFieldType.STRING.getDataType()),
+            new RecordField("amount", RecordFieldType.STRING.getDataType()),
+            new RecordField("created", RecordFieldType.STRING.getDataType()),
+            new RecordField("updated", RecordFieldType.STRING.getDataType()),
+            new RecordField("label", RecordFieldType.INT.getDataType()),
+            new RecordField("old_name", RecordFieldType.STRING.getDataType()),
+            new RecordField("choice", RecordFieldType.STRING.getDataType())));
+    }
+
+    private RecordSchema getTargetSchema() {
+        return new SimpleRecordSchema(Arrays.asList(
+            new RecordField("id", RecordFieldType.INT.getDataType()),
+            new RecordField("amount", RecordFieldType.DECIMAL.getDecimalDataType(10, 2)),
+            new RecordField("created", RecordFieldType.DATE.getDataType()),
+            new RecordField("updated", RecordFieldType.TIMESTAMP.getDataType()),
+            new RecordField("label", RecordFieldType.STRING.getDataType()),
+            new RecordField("new_name", RecordFieldType.STRING.getDataType(), null, Collections.singleton("old_name")),
+            new RecordField("choice", RecordFieldType.CHOICE.getChoiceDataType(RecordFieldType.INT.getDataType(), RecordFieldType.STRING.getDataType())),
+            new RecordField("missing", RecordFieldType.STRING.getDataType(), "default")));
+    }
+
+    private Record getSourceRecord(final RecordSchema schema) {
+        final Map<String, Object> values = new HashMap<>();
+        values.put("id", "42");
+        values.put("amount", "12.34");
+        values.put("created", "2021-03-04");
+        values.put("updated", "2021-03-04 05:06:07");
+        values.put("label", 8);
+        values.put("old_name", "renamed");
+        values.put("choice", "17");
+        return new MapRecord(schema, values);
+    }
+
+    @Test
+    public void testConvertMatchesConvertType() {
+        final RecordSchema sourceSchema = getSourceSchema();
+        final RecordSchema targetSchema = getTargetSchema();
+        final Record source = getSourceRecord(sourceSchema);
+
+        final Record converted = RecordConversionPlan.compile(sourceSchema, targetSchema).convert(source);
+
+        assertSame(targetSchema, converted.getSchema());
+        assertEquals(42, converted.getValue("id"));
+        assertEquals(new BigDecimal("12.34"), converted.getValue("amount"));
+        assertEquals(DataTypeUtils.convertType("2021-03-04", RecordFieldType.DATE.getDataType(), "created"), converted.getValue("created"));
+        assertEquals(Date.class, converted.getValue("created").getClass());
+        assertEquals(DataTypeUtils.convertType("2021-03-04 05:06:07", RecordFieldType.TIMESTAMP.getDataType(), "updated"), converted.getValue("updated"));
+        assertEquals(Timestamp.class, converted.getValue("updated").getClass());
+        assertEquals("8", converted.getValue("label"));
+        assertEquals("renamed", converted.getValue("new_name"));
+        assertEquals(17, converted.getValue("choice"));
+        assertEquals("default", converted.getValue("missing"));
+    }
+
+    @Test
+    public void testPassThroughAndNullValues() {
+        final RecordSchema schema = new SimpleRecordSchema(Arrays.asList(
+            new RecordField("id", RecordFieldType.INT.getDataType()),
+            new RecordField("name", RecordFieldType.STRING.getDataType())));
+
+        final String name = new String("name");
+        final Map<String, Object> values = new HashMap<>();
+        values.put("name", name);
+        final Record converted = RecordConversionPlan.compile(schema, schema).convert(new MapRecord(schema, values));
+
+        assertNull(converted.getValue("id"));
+        assertSame(name, converted.getValue("name"));
+        assertNull(RecordConversionPlan.compile(schema, schema).convert(null));
+    }
+
+    @Test
+    public void testFieldConversions() {
+        final RecordSchema sourceSchema = getSourceSchema();
+        final RecordSchema targetSchema = getTargetSchema();
+        final SimpleDateFormat timestampFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        final RecordConversionPlan plan = RecordConversionPlan.compile(sourceSchema, targetSchema, () -> null, () -> null, () -> timestampFormat, StandardCharsets.UTF_8);
+
+        final List<RecordConversionPlan.FieldConversion> conversions = plan.getFieldConversions();
+        assertEquals(targetSchema.getFieldCount(), conversions.size());
+        for (int i = 0; i < conversions.size(); i++) {
+            assertSame(targetSchema.getFields().get(i), conversions.get(i).getTargetField());
+            assertEquals(targetSchema.getFields().get(i).getDataType(), conversions.get(i).getTargetDataType());
+        }
+
+        assertEquals("old_name", conversions.get(5).getSourceField().getFieldName());
+        assertEquals(42, conversions.get(0).convert("42"));
+        assertEquals(Timestamp.class, conversions.get(3).convert("2021-03-04 05:06:07").getClass());
+        assertNull(conversions.get(0).convert(null));
+    }
+
+    @Test
+    public void testIllegalConversion() {
+        final RecordSchema sourceSchema = getSourceSchema();
+        final Map<String, Object> values = new HashMap<>();
+        values.put("amount", "twelve");
+        final Record source = new MapRecord(sourceSchema, values);
+
+        final RecordConversionPlan plan = RecordConversionPlan.compile(sourceSchema, getTargetSchema());
+        assertThrows(IllegalTypeConversionException.class, () -> plan.convert(source));
+    }
+
+    @Test
+    public void testCacheReusesPlans() {
+        final RecordConversionPlanCache cache = new RecordConversionPlanCache(1, RecordFieldType.DATE.getDefaultFormat(), RecordFieldType.TIME.getDefaultFormat(),
+            RecordFieldType.TIMESTAMP.getDefaultFormat(), StandardCharsets.UTF_8);
+
+        final RecordSchema targetSchema = getTargetSchema();
+        final RecordConversionPlan plan = cache.getPlan(getSourceSchema(), targetSchema);
+        assertSame(plan, cache.getPlan(getSourceSchema(), targetSchema));
+        assertEquals(1, cache.size());
+
+        final RecordSchema otherSource = new SimpleRecordSchema(Collections.singletonList(new RecordField("id", RecordFieldType.LONG.getDataType())));
+        final Record otherRecord = new MapRecord(otherSource, Collections.singletonMap("id", 7L));
+        assertEquals(7, cache.convert(otherRecord, targetSchema).getValue("id"));
+        assertEquals(1, cache.size());
+
+        assertEquals(42, cache.convert(getSourceRecord(getSourceSchema()), targetSchema).getValue("id"));
+    }
+}
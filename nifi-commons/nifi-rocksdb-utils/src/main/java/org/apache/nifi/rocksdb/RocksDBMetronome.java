@@ -29,6 +29,7 @@ import org.rocksdb.Options;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -337,6 +338,23 @@ public class RocksDBMetronome implements Closeable {
         }
     }
 
+    /**
+     * Atomically apply all of the updates in the provided batch, optionally syncing the wal
+     *
+     * @param batch     the batch of updates to apply
+     * @param forceSync if true, sync the wal
+     * @throws RocksDBException thrown if there is an error in the underlying library.
+     */
+    public void write(final WriteBatch batch, final boolean forceSync) throws RocksDBException {
+        dbReadLock.lock();
+        try {
+            checkDbState();
+            rocksDB.write(getWriteOptions(forceSync), batch);
+        } finally {
+            dbReadLock.unlock();
+        }
+    }
+
     /**
      * Flushes the WAL and syncs to disk
      *
@@ -25,6 +25,7 @@ import org.junit.jupiter.api.condition.OS;
 import org.junit.jupiter.api.io.TempDir;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
 
 import java.io.File;
 import java.nio.charset.StandardCharsets;
@@ -121,6 +122,26 @@ public class TestRocksDBMetronome {
         }
     }
 
+    @Test
+    public void testWriteBatch(@TempDir Path temporaryFolder) throws Exception {
+        try (RocksDBMetronome db = new RocksDBMetronome.Builder()
+                .setStoragePath(newFolder(temporaryFolder))
+                .build()) {
+            db.initialize();
+
+            db.put(KEY, VALUE);
+
+            try (final WriteBatch batch = new WriteBatch()) {
+                batch.delete(KEY);
+                batch.put(KEY_2, VALUE_2);
+                db.write(batch, true);
+            }
+
+            assertNull(db.get(KEY));
+            assertArrayEquals(VALUE_2, db.get(KEY_2));
+        }
+    }
+
     @Test
     public void testPutGetConfiguration(@TempDir Path temporaryFolder) throws Exception {
         try (RocksDBMetronome db = new RocksDBMetronome.Builder()
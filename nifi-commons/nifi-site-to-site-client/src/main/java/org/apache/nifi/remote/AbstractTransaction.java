@@ -35,6 +35,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.CRC32;
 import java.util.zip.CheckedInputStream;
 import java.util.zip.CheckedOutputStream;
@@ -98,6 +99,21 @@ public abstract class AbstractTransaction implements Transaction {
         return state;
     }
 
+    /**
+     * @return the number of bytes of DataPacket content that have been sent or received in this Transaction so far
+     */
+    protected long getContentBytes() {
+        return contentBytes;
+    }
+
+    /**
+     * @param timeUnit unit of time for which to report the elapsed time
+     * @return the amount of time that has elapsed since this Transaction was created
+     */
+    protected long getElapsedTime(final TimeUnit timeUnit) {
+        return timeUnit.convert(System.nanoTime() - creationNanoTime, TimeUnit.NANOSECONDS);
+    }
+
     @Override
     public Peer getCommunicant() {
         return peer;
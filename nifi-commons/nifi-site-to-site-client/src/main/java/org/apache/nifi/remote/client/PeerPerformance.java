@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.remote.client;
+
+import org.apache.nifi.remote.PeerDescription;
+
+/**
+ * A point-in-time snapshot of the transaction performance that this client has observed for a specific peer. Latency and
+ * throughput are exponentially weighted moving averages over the transactions completed with the peer. The score is the factor
+ * (between 0 and 1) by which the {@link PeerSelector} scales the flowfile-based weight of the peer: the ratio of the peer's
+ * throughput to the highest throughput of all peers, where 1 indicates that the peer is the fastest or that its throughput is not
+ * known yet.
+ */
+public class PeerPerformance {
+
+    private final PeerDescription peerDescription;
+    private final long transactionCount;
+    private final long failureCount;
+    private final int consecutiveFailures;
+    private final double averageLatencyMillis;
+    private final double averageThroughputBytesPerSecond;
+    private final double score;
+    private final boolean circuitOpen;
+
+    public PeerPerformance(final PeerDescription peerDescription, final long transactionCount, final long failureCount, final int consecutiveFailures,
+                           final double averageLatencyMillis, final double averageThroughputBytesPerSecond, final double score, final boolean circuitOpen) {
+        this.peerDescription = peerDescription;
+        this.transactionCount = transactionCount;
+        this.failureCount = failureCount;
+        this.consecutiveFailures = consecutiveFailures;
+        this.averageLatencyMillis = averageLatencyMillis;
+        this.averageThroughputBytesPerSecond = averageThroughputBytesPerSecond;
+        this.score = score;
+        this.circuitOpen = circuitOpen;
+    }
+
+    public PeerDescription getPeerDescription() {
+        return peerDescription;
+    }
+
+    /**
+     * @return the number of transactions that were completed successfully with the peer
+     */
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    /**
+     * @return the number of transactions with the peer that failed
+     */
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * @return the number of transactions with the peer that failed since the last successful transaction
+     */
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * @return the average duration of a transaction with the peer in milliseconds, or <code>-1</code> if no transaction has completed
+     */
+    public double getAverageLatencyMillis() {
+        return averageLatencyMillis;
+    }
+
+    /**
+     * @return the average number of content bytes transferred per second, or <code>-1</code> if no transaction has been long enough to be sampled
+     */
+    public double getAverageThroughputBytesPerSecond() {
+        return averageThroughputBytesPerSecond;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * @return <code>true</code> if the peer is currently excluded from selection because it failed or was too slow
+     */
+    public boolean isCircuitOpen() {
+        return circuitOpen;
+    }
+
+    @Override
+    public String toString() {
+        return "PeerPerformance[hostname=" + peerDescription.getHostname() + ",port=" + peerDescription.getPort()
+                + ",transactions=" + transactionCount + ",failures=" + failureCount + ",averageLatencyMillis=" + averageLatencyMillis
+                + ",averageThroughputBytesPerSecond=" + averageThroughputBytesPerSecond + ",score=" + score + ",circuitOpen=" + circuitOpen + "]";
+    }
+}
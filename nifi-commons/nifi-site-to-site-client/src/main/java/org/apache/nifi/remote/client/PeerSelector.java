@@ -53,7 +53,11 @@ import org.slf4j.LoggerFactory;
  * nodes can be penalized for an amount of time (see {@link #penalize(Peer, long)}) to avoid
  * sending/receiving data from them. Attempts are made to balance communications ("busier"
  * nodes will {@code TransferDirection.SEND} more and {@code TransferDirection.RECEIVE} fewer
- * flowfiles from this instance).
+ * flowfiles from this instance). The weights are further scaled by the content throughput (bytes per
+ * second) of the transactions that this client has completed with each peer, so that slower peers are
+ * selected less often regardless of how much data each transaction carries, and peers that repeatedly
+ * fail or are far slower than the others are excluded for a period of time
+ * (see {@link #recordTransactionCompleted(PeerDescription, long, long)} and {@link #getPeerPerformance()}).
  */
 public class PeerSelector {
     private static final Logger logger = LoggerFactory.getLogger(PeerSelector.class);
@@ -61,6 +65,28 @@ public class PeerSelector {
     // The timeout for the peer status cache
     private static final long PEER_CACHE_MILLIS = TimeUnit.MILLISECONDS.convert(1, TimeUnit.MINUTES);
 
+    // The weight given to the most recent transaction in the moving averages of latency and throughput
+    private static final double PERFORMANCE_SMOOTHING_FACTOR = 0.3;
+
+    // The lowest factor by which a slow peer's weight is scaled, so that it continues to be sampled
+    private static final double MIN_PERFORMANCE_SCORE = 0.05;
+
+    // The number of consecutive failed transactions after which a peer is excluded from selection
+    static final int CIRCUIT_BREAKER_FAILURE_THRESHOLD = 3;
+
+    // Transactions shorter than this are dominated by the fixed cost of the protocol rather than by the rate at which the peer
+    // transfers content, so they do not contribute to the average throughput of the peer
+    static final long MIN_THROUGHPUT_SAMPLE_MILLIS = 100;
+
+    // A peer is excluded from selection if the highest average throughput of all peers exceeds its average throughput by this factor...
+    static final double CIRCUIT_BREAKER_SLOW_PEER_RATIO = 10.0;
+
+    // ...and its average transaction latency exceeds this, so that a peer is not excluded for being slow in absolute terms only
+    static final long CIRCUIT_BREAKER_MIN_LATENCY_MILLIS = 1000;
+
+    // The period of time for which a peer is excluded from selection
+    static final long CIRCUIT_BREAKER_OPEN_MILLIS = TimeUnit.MILLISECONDS.convert(30, TimeUnit.SECONDS);
+
     // The service which saves the peer state to persistent storage
     private final PeerPersistence peerPersistence;
 
@@ -70,6 +96,9 @@ public class PeerSelector {
     // Maps the peer description to a millisecond penalty expiration
     private final ConcurrentMap<PeerDescription, Long> peerPenaltyExpirations = new ConcurrentHashMap<>();
 
+    // Maps the peer description to the performance observed for the peer
+    private final ConcurrentMap<PeerDescription, PeerStatistics> peerStatistics = new ConcurrentHashMap<>();
+
     // The most recently fetched peer statuses
     private volatile PeerStatusCache peerStatusCache;
 
@@ -222,6 +251,7 @@ public class PeerSelector {
      */
     public void clear() {
         peerPenaltyExpirations.clear();
+        peerStatistics.clear();
     }
 
     /**
@@ -251,6 +281,105 @@ public class PeerSelector {
         return (expirationEnd != null && expirationEnd > System.currentTimeMillis());
     }
 
+    /**
+     * Returns {@code true} if this peer is currently excluded from selection because its recent transactions failed or were
+     * much slower than those of the other peers.
+     *
+     * @param peerStatus the peer status identifying the peer
+     * @return true if the circuit of this peer is open
+     */
+    public boolean isCircuitOpen(final PeerStatus peerStatus) {
+        final PeerStatistics statistics = peerStatistics.get(peerStatus.getPeerDescription());
+        return statistics != null && statistics.isCircuitOpen(System.currentTimeMillis());
+    }
+
+    /**
+     * Records a transaction that was completed successfully with the specified peer.
+     *
+     * @param peerDescription  the peer description (identifies the peer)
+     * @param durationMillis   the duration of the transaction
+     * @param bytesTransferred the number of content bytes sent or received in the transaction
+     */
+    public void recordTransactionCompleted(final PeerDescription peerDescription, final long durationMillis, final long bytesTransferred) {
+        final PeerStatistics statistics = peerStatistics.computeIfAbsent(peerDescription, key -> new PeerStatistics());
+        statistics.recordSuccess(durationMillis, bytesTransferred);
+
+        // Compare throughput rather than latency, so that a peer is not excluded for carrying larger batches than the others
+        final double averageLatency = statistics.getAverageLatencyMillis();
+        final double averageThroughput = statistics.getAverageThroughputBytesPerSecond();
+        final double highestThroughput = getHighestAverageThroughput();
+        if (averageLatency > CIRCUIT_BREAKER_MIN_LATENCY_MILLIS && averageThroughput >= 0
+                && averageThroughput * CIRCUIT_BREAKER_SLOW_PEER_RATIO < highestThroughput) {
+            statistics.openCircuit(System.currentTimeMillis() + CIRCUIT_BREAKER_OPEN_MILLIS);
+            warn(logger, eventReporter, "Excluding {}:{} from selection for {} seconds because its average throughput of {} bytes/sec is much lower than {} bytes/sec",
+                    peerDescription.getHostname(), peerDescription.getPort(), TimeUnit.MILLISECONDS.toSeconds(CIRCUIT_BREAKER_OPEN_MILLIS),
+                    (long) averageThroughput, (long) highestThroughput);
+        }
+    }
+
+    /**
+     * Records a transaction with the specified peer that failed.
+     *
+     * @param peerDescription the peer description (identifies the peer)
+     */
+    public void recordTransactionFailed(final PeerDescription peerDescription) {
+        final PeerStatistics statistics = peerStatistics.computeIfAbsent(peerDescription, key -> new PeerStatistics());
+        final int consecutiveFailures = statistics.recordFailure();
+
+        if (consecutiveFailures >= CIRCUIT_BREAKER_FAILURE_THRESHOLD) {
+            statistics.openCircuit(System.currentTimeMillis() + CIRCUIT_BREAKER_OPEN_MILLIS);
+            warn(logger, eventReporter, "Excluding {}:{} from selection for {} seconds because its last {} transactions failed",
+                    peerDescription.getHostname(), peerDescription.getPort(), TimeUnit.MILLISECONDS.toSeconds(CIRCUIT_BREAKER_OPEN_MILLIS), consecutiveFailures);
+        }
+    }
+
+    /**
+     * Returns the performance observed for each peer that this client has transferred data with.
+     *
+     * @return a snapshot of the performance of each peer
+     */
+    public List<PeerPerformance> getPeerPerformance() {
+        final long now = System.currentTimeMillis();
+        final double highestThroughput = getHighestAverageThroughput();
+
+        final List<PeerPerformance> performance = new ArrayList<>();
+        for (final Map.Entry<PeerDescription, PeerStatistics> entry : peerStatistics.entrySet()) {
+            performance.add(entry.getValue().toPeerPerformance(entry.getKey(), highestThroughput, now));
+        }
+        return performance;
+    }
+
+    /**
+     * Returns the highest average throughput of all peers, or {@code -1} if no transaction has been sampled.
+     *
+     * @return the highest average throughput in bytes per second
+     */
+    private double getHighestAverageThroughput() {
+        double highest = -1;
+        for (final PeerStatistics statistics : peerStatistics.values()) {
+            highest = Math.max(highest, statistics.getAverageThroughputBytesPerSecond());
+        }
+        return highest;
+    }
+
+    /**
+     * Returns the factor by which the weight of the peer is scaled: the ratio of the average throughput of this peer to the
+     * highest average throughput of all peers, bounded by {@code MIN_PERFORMANCE_SCORE} and 1. Peers whose throughput has
+     * not been sampled score 1.
+     *
+     * @param averageThroughput the average throughput of the peer
+     * @param highestThroughput the highest average throughput of all peers
+     * @return the performance score
+     */
+    private static double calculatePerformanceScore(final double averageThroughput, final double highestThroughput) {
+        if (averageThroughput < 0 || highestThroughput <= 0) {
+            return 1.0;
+        }
+
+        final double score = averageThroughput / highestThroughput;
+        return Math.max(MIN_PERFORMANCE_SCORE, Math.min(1.0, score));
+    }
+
     /**
      * Updates internal state map to penalize a PeerStatus that points to the
      * specified peer.
@@ -347,11 +476,16 @@ public class PeerSelector {
         long totalFlowFileCount = peerStatuses.stream().mapToLong(PeerStatus::getFlowFileCount).sum();
         logger.debug("Building weighted map of peers with total remote NiFi flowfile count: {}", totalFlowFileCount);
 
-        // For each node, calculate the relative weight and store it in the map
+        final double highestThroughput = getHighestAverageThroughput();
+
+        // For each node, calculate the relative weight, scaled by the observed performance of the node, and store it in the map
         for (final PeerStatus nodeInfo : peerStatuses) {
             final int flowFileCount = nodeInfo.getFlowFileCount();
             final double normalizedWeight = calculateNormalizedWeight(direction, totalFlowFileCount, flowFileCount, peerStatuses.size());
-            peerWorkloads.put(nodeInfo, normalizedWeight);
+
+            final PeerStatistics statistics = peerStatistics.get(nodeInfo.getPeerDescription());
+            final double score = statistics == null ? 1.0 : calculatePerformanceScore(statistics.getAverageThroughputBytesPerSecond(), highestThroughput);
+            peerWorkloads.put(nodeInfo, normalizedWeight * score);
         }
 
         return peerWorkloads;
@@ -432,6 +566,16 @@ public class PeerSelector {
                 .filter(e -> !isPenalized(e.getKey()))
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
 
+        // Exclude peers whose circuit is open, unless that would exclude every remaining peer
+        final Map<PeerStatus, Double> closedCircuitPeers = unpenalizedPeers.entrySet().stream()
+                .filter(e -> !isCircuitOpen(e.getKey()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        if (!closedCircuitPeers.isEmpty()) {
+            unpenalizedPeers = closedCircuitPeers;
+        } else if (!unpenalizedPeers.isEmpty()) {
+            logger.debug("The circuits of all unpenalized peers are open; selecting from them regardless");
+        }
+
         final double totalWeights = sumMapValues(unpenalizedPeers);
         logger.debug("Determining next available peer ({} peers with total weight {})", unpenalizedPeers.keySet().size(), totalWeights);
 
@@ -576,4 +720,74 @@ public class PeerSelector {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * The transaction performance observed for a single peer. Updates are synchronized on the instance, as transactions
+     * with the same peer may complete concurrently.
+     */
+    private static class PeerStatistics {
+        private long transactionCount;
+        private long failureCount;
+        private int consecutiveFailures;
+        private double averageLatencyMillis = -1;
+        private double averageThroughputBytesPerSecond = -1;
+        private long circuitOpenUntil;
+        private boolean resetAveragesOnNextSample;
+
+        synchronized void recordSuccess(final long durationMillis, final long bytesTransferred) {
+            transactionCount++;
+            consecutiveFailures = 0;
+
+            // After the circuit has been opened, the averages describe the peer's past performance rather than its current performance
+            if (resetAveragesOnNextSample) {
+                averageLatencyMillis = -1;
+                averageThroughputBytesPerSecond = -1;
+                resetAveragesOnNextSample = false;
+            }
+
+            averageLatencyMillis = updateAverage(averageLatencyMillis, durationMillis);
+            if (bytesTransferred > 0 && durationMillis >= MIN_THROUGHPUT_SAMPLE_MILLIS) {
+                final double throughput = bytesTransferred * 1000.0 / durationMillis;
+                averageThroughputBytesPerSecond = updateAverage(averageThroughputBytesPerSecond, throughput);
+            }
+        }
+
+        /**
+         * @return the updated number of consecutive failures
+         */
+        synchronized int recordFailure() {
+            failureCount++;
+            return ++consecutiveFailures;
+        }
+
+        synchronized void openCircuit(final long until) {
+            circuitOpenUntil = until;
+            consecutiveFailures = 0;
+            resetAveragesOnNextSample = true;
+        }
+
+        synchronized boolean isCircuitOpen(final long now) {
+            return circuitOpenUntil > now;
+        }
+
+        synchronized double getAverageLatencyMillis() {
+            return averageLatencyMillis;
+        }
+
+        synchronized double getAverageThroughputBytesPerSecond() {
+            return averageThroughputBytesPerSecond;
+        }
+
+        synchronized PeerPerformance toPeerPerformance(final PeerDescription peerDescription, final double highestThroughput, final long now) {
+            return new PeerPerformance(peerDescription, transactionCount, failureCount, consecutiveFailures, averageLatencyMillis,
+                    averageThroughputBytesPerSecond, calculatePerformanceScore(averageThroughputBytesPerSecond, highestThroughput), isCircuitOpen(now));
+        }
+
+        private static double updateAverage(final double average, final double sample) {
+            if (average < 0) {
+                return sample;
+            }
+            return PERFORMANCE_SMOOTHING_FACTOR * sample + (1 - PERFORMANCE_SMOOTHING_FACTOR) * average;
+        }
+    }
+}
@@ -25,7 +25,9 @@ import java.io.Serializable;
 import java.net.InetAddress;
 import java.security.KeyStore;
 import java.security.SecureRandom;
+import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import javax.net.ssl.KeyManagerFactory;
@@ -138,6 +140,17 @@ public interface SiteToSiteClient extends Closeable {
      */
     SiteToSiteClientConfig getConfig();
 
+    /**
+     * Returns the transaction latency, throughput and failures that this client has observed for each peer of the
+     * remote instance, along with the score that is used to weight the selection of the peer. This is intended for
+     * monitoring purposes.
+     *
+     * @return the observed performance of each peer, or an empty list if none has been observed
+     */
+    default List<PeerPerformance> getPeerPerformance() {
+        return Collections.emptyList();
+    }
+
     /**
      * <p>
      * The Builder is the mechanism by which all configuration is passed to the
@@ -21,6 +21,7 @@ import java.net.URI;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -34,6 +35,7 @@ import org.apache.nifi.remote.PeerStatus;
 import org.apache.nifi.remote.Transaction;
 import org.apache.nifi.remote.TransferDirection;
 import org.apache.nifi.remote.client.AbstractSiteToSiteClient;
+import org.apache.nifi.remote.client.PeerPerformance;
 import org.apache.nifi.remote.client.PeerSelector;
 import org.apache.nifi.remote.client.PeerStatusProvider;
 import org.apache.nifi.remote.client.SiteToSiteClientConfig;
@@ -205,7 +207,14 @@ public class HttpClient extends AbstractSiteToSiteClient implements PeerStatusPr
                     try {
                         super.close();
                     } finally {
-                        activeTransactions.remove(this);
+                        // Only record the outcome the first time that the transaction is closed
+                        if (activeTransactions.remove(this)) {
+                            if (state == TransactionState.TRANSACTION_COMPLETED) {
+                                peerSelector.recordTransactionCompleted(peer.getDescription(), getElapsedTime(TimeUnit.MILLISECONDS), getContentBytes());
+                            } else if (state == TransactionState.ERROR) {
+                                peerSelector.recordTransactionFailed(peer.getDescription());
+                            }
+                        }
                     }
                 }
             };
@@ -234,6 +243,11 @@ public class HttpClient extends AbstractSiteToSiteClient implements PeerStatusPr
         return siteInfoProvider.isWebInterfaceSecure();
     }
 
+    @Override
+    public List<PeerPerformance> getPeerPerformance() {
+        return peerSelector.getPeerPerformance();
+    }
+
     @Override
     public void close() throws IOException {
         taskExecutor.shutdown();
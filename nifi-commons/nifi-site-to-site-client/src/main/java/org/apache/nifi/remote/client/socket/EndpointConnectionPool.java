@@ -48,7 +48,9 @@ import org.apache.nifi.remote.PeerDescription;
 import org.apache.nifi.remote.PeerStatus;
 import org.apache.nifi.remote.RemoteDestination;
 import org.apache.nifi.remote.RemoteResourceInitiator;
+import org.apache.nifi.remote.TransactionCompletion;
 import org.apache.nifi.remote.TransferDirection;
+import org.apache.nifi.remote.client.PeerPerformance;
 import org.apache.nifi.remote.client.PeerPersistence;
 import org.apache.nifi.remote.client.PeerSelector;
 import org.apache.nifi.remote.client.PeerStatusProvider;
@@ -519,6 +521,18 @@ public class EndpointConnectionPool implements PeerStatusProvider {
         }
     }
 
+    public void recordTransactionCompleted(final Peer peer, final TransactionCompletion completion) {
+        peerSelector.recordTransactionCompleted(peer.getDescription(), completion.getDuration(TimeUnit.MILLISECONDS), completion.getBytesTransferred());
+    }
+
+    public void recordTransactionFailed(final Peer peer) {
+        peerSelector.recordTransactionFailed(peer.getDescription());
+    }
+
+    public List<PeerPerformance> getPeerPerformance() {
+        return peerSelector.getPeerPerformance();
+    }
+
     public void terminate(final EndpointConnection connection) {
         activeConnections.remove(connection);
         cleanup(connection.getSocketClientProtocol(), connection.getPeer());
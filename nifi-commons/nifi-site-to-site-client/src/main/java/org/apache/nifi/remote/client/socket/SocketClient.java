@@ -22,12 +22,14 @@ import org.apache.nifi.remote.Transaction;
 import org.apache.nifi.remote.TransactionCompletion;
 import org.apache.nifi.remote.TransferDirection;
 import org.apache.nifi.remote.client.AbstractSiteToSiteClient;
+import org.apache.nifi.remote.client.PeerPerformance;
 import org.apache.nifi.remote.client.SiteToSiteClientConfig;
 import org.apache.nifi.remote.protocol.DataPacket;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
@@ -150,7 +152,12 @@ public class SocketClient extends AbstractSiteToSiteClient {
             @Override
             public TransactionCompletion complete() throws IOException {
                 try {
-                    return transaction.complete();
+                    final TransactionCompletion completion = transaction.complete();
+                    pool.recordTransactionCompleted(connectionState.getPeer(), completion);
+                    return completion;
+                } catch (final IOException | RuntimeException e) {
+                    pool.recordTransactionFailed(connectionState.getPeer());
+                    throw e;
                 } finally {
                     final EndpointConnection state = connectionStateRef.get();
                     if (state != null) {
@@ -176,6 +183,10 @@ public class SocketClient extends AbstractSiteToSiteClient {
             @Override
             public void error() {
                 try {
+                    // A transaction that failed to complete has already been recorded and returned to the pool
+                    if (connectionStateRef.get() != null) {
+                        pool.recordTransactionFailed(connectionState.getPeer());
+                    }
                     transaction.error();
                 } finally {
                     final EndpointConnection state = connectionStateRef.get();
@@ -213,6 +224,11 @@ public class SocketClient extends AbstractSiteToSiteClient {
         };
     }
 
+    @Override
+    public List<PeerPerformance> getPeerPerformance() {
+        return pool.getPeerPerformance();
+    }
+
     @Override
     public void close() throws IOException {
         closed = true;
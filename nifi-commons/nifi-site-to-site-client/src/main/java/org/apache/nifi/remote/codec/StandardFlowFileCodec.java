@@ -29,24 +29,95 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * <p>
+ * The standard codec for FlowFiles that are transferred via Site-to-Site. Two versions of the encoding are supported:
+ * </p>
+ *
+ * <ul>
+ *     <li>Version 1 writes the number of attributes as an int, each attribute key and value as an int length followed by UTF-8 bytes,
+ *     and the size of the content as a long.</li>
+ *     <li>Version 2 writes all lengths and the content size as variable-length integers, and writes well-known attribute keys, such as
+ *     <code>filename</code> and <code>uuid</code>, as a single byte index into a fixed dictionary. The attributes are encoded into a buffer
+ *     that is reused across FlowFiles and written to the stream in a single call, and content is copied using a buffer that is reused as well.</li>
+ * </ul>
+ *
+ * <p>
+ * A newly created codec uses version 1 unless a different version is negotiated, so that peers that do not negotiate a codec version
+ * continue to interoperate. Because of the reused buffers, an instance of this class must not be used by multiple threads concurrently.
+ * </p>
+ */
 public class StandardFlowFileCodec implements FlowFileCodec {
 
     public static final int MAX_NUM_ATTRIBUTES = 25000;
 
     public static final String DEFAULT_FLOWFILE_PATH = "./";
 
+    /**
+     * The version of the codec that uses variable-length integers and the dictionary of well-known attribute keys
+     */
+    public static final int COMPACT_VERSION = 2;
+
+    /**
+     * Attribute keys that are encoded by index in version 2 of the codec. Index 0 indicates that the key is written literally.
+     * This list is part of the wire format: it must never be changed without introducing a new version of the codec.
+     */
+    private static final List<String> WELL_KNOWN_ATTRIBUTE_KEYS = Collections.unmodifiableList(Arrays.asList(
+        null,
+        "filename",
+        "path",
+        "absolute.path",
+        "mime.type",
+        "priority",
+        "uuid",
+        "discard.reason",
+        "alternate.identifier",
+        "fragment.identifier",
+        "fragment.index",
+        "fragment.count",
+        "segment.original.filename",
+        "record.count",
+        "s2s.host",
+        "s2s.address",
+        "s2s.port.id"));
+
+    private static final Map<String, Integer> WELL_KNOWN_ATTRIBUTE_INDICES;
+    static {
+        final Map<String, Integer> indices = new HashMap<>();
+        for (int i = 1; i < WELL_KNOWN_ATTRIBUTE_KEYS.size(); i++) {
+            indices.put(WELL_KNOWN_ATTRIBUTE_KEYS.get(i), i);
+        }
+        WELL_KNOWN_ATTRIBUTE_INDICES = Collections.unmodifiableMap(indices);
+    }
+
+    private static final int COPY_BUFFER_SIZE = 8192;
+
     private final VersionNegotiator versionNegotiator;
 
+    // Buffers that are reused for each FlowFile when using the compact version of the codec
+    private final GrowableBuffer headerBuffer = new GrowableBuffer();
+    private byte[] stringBuffer = new byte[256];
+    private byte[] copyBuffer;
+
     public StandardFlowFileCodec() {
-        versionNegotiator = new StandardVersionNegotiator(1);
+        versionNegotiator = new StandardVersionNegotiator(COMPACT_VERSION, 1);
+        versionNegotiator.setVersion(1);
     }
 
     @Override
     public void encode(final DataPacket dataPacket, final OutputStream encodedOut) throws IOException {
+        if (versionNegotiator.getVersion() >= COMPACT_VERSION) {
+            encodeCompact(dataPacket, encodedOut);
+            return;
+        }
+
         final DataOutputStream out = new DataOutputStream(encodedOut);
 
         final Map<String, String> attributes = dataPacket.getAttributes();
@@ -64,6 +135,10 @@ public class StandardFlowFileCodec implements FlowFileCodec {
 
     @Override
     public DataPacket decode(final InputStream stream) throws IOException, ProtocolException {
+        if (versionNegotiator.getVersion() >= COMPACT_VERSION) {
+            return decodeCompact(stream);
+        }
+
         final DataInputStream in = new DataInputStream(stream);
 
         final int numAttributes;
@@ -105,6 +180,198 @@ public class StandardFlowFileCodec implements FlowFileCodec {
         return new String(bytes, "UTF-8");
     }
 
+    private void encodeCompact(final DataPacket dataPacket, final OutputStream encodedOut) throws IOException {
+        final GrowableBuffer header = headerBuffer;
+        header.reset();
+
+        final Map<String, String> attributes = dataPacket.getAttributes();
+        header.writeVarLong(attributes.size());
+        for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+            final String key = entry.getKey();
+            final Integer keyIndex = WELL_KNOWN_ATTRIBUTE_INDICES.get(key);
+            if (keyIndex == null) {
+                header.writeVarLong(0);
+                header.writeString(key);
+            } else {
+                header.writeVarLong(keyIndex);
+            }
+
+            header.writeString(entry.getValue());
+        }
+
+        final long size = dataPacket.getSize();
+        header.writeVarLong(size);
+        encodedOut.write(header.bytes, 0, header.length);
+
+        if (copyBuffer == null) {
+            copyBuffer = new byte[COPY_BUFFER_SIZE];
+        }
+
+        final byte[] buffer = copyBuffer;
+        final InputStream in = dataPacket.getData();
+        int len;
+        while ((len = in.read(buffer)) > -1) {
+            encodedOut.write(buffer, 0, len);
+        }
+    }
+
+    private DataPacket decodeCompact(final InputStream stream) throws IOException, ProtocolException {
+        final int firstByte = stream.read();
+        if (firstByte < 0) {
+            // we're out of data.
+            return null;
+        }
+
+        final long numAttributes = readVarLong(stream, firstByte);
+        if (numAttributes > MAX_NUM_ATTRIBUTES) {
+            throw new ProtocolException("FlowFile exceeds maximum number of attributes with a total of " + numAttributes);
+        }
+
+        final Map<String, String> attributes = new HashMap<>((int) numAttributes);
+        for (int i = 0; i < numAttributes; i++) {
+            final int keyIndex = readLength(stream);
+            final String attrName;
+            if (keyIndex == 0) {
+                attrName = readCompactString(stream);
+            } else if (keyIndex < WELL_KNOWN_ATTRIBUTE_KEYS.size()) {
+                attrName = WELL_KNOWN_ATTRIBUTE_KEYS.get(keyIndex);
+            } else {
+                throw new ProtocolException("Received unknown attribute key index " + keyIndex);
+            }
+
+            final String attrValue = readCompactString(stream);
+            attributes.put(attrName, attrValue);
+        }
+
+        final long numBytes = readVarLong(stream, readByte(stream));
+        return new StandardDataPacket(attributes, stream, numBytes);
+    }
+
+    private String readCompactString(final InputStream in) throws IOException, ProtocolException {
+        final int numBytes = readLength(in);
+        if (numBytes > stringBuffer.length) {
+            stringBuffer = new byte[Math.max(numBytes, stringBuffer.length * 2)];
+        }
+
+        StreamUtils.read(in, stringBuffer, numBytes);
+        return new String(stringBuffer, 0, numBytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readLength(final InputStream in) throws IOException, ProtocolException {
+        final long length = readVarLong(in, readByte(in));
+        if (length > Integer.MAX_VALUE) {
+            throw new ProtocolException("Received invalid length of " + length);
+        }
+
+        return (int) length;
+    }
+
+    private static int readByte(final InputStream in) throws IOException {
+        final int value = in.read();
+        if (value < 0) {
+            throw new EOFException();
+        }
+        return value;
+    }
+
+    /**
+     * Reads an unsigned variable-length integer, 7 bits per byte with the high bit set on all but the last byte
+     */
+    private static long readVarLong(final InputStream in, final int firstByte) throws IOException, ProtocolException {
+        long value = firstByte & 0x7F;
+        int currentByte = firstByte;
+        int shift = 7;
+        while ((currentByte & 0x80) != 0) {
+            if (shift > 63) {
+                throw new ProtocolException("Received malformed variable-length integer");
+            }
+
+            currentByte = readByte(in);
+            value |= (long) (currentByte & 0x7F) << shift;
+            shift += 7;
+        }
+
+        return value;
+    }
+
+    /**
+     * A byte array that grows as needed and is reused for each FlowFile, so that encoding the attributes of a FlowFile does not
+     * require allocating a byte array per attribute.
+     */
+    private static class GrowableBuffer {
+        private byte[] bytes = new byte[1024];
+        private int length;
+
+        void reset() {
+            length = 0;
+        }
+
+        private void ensureCapacity(final int additional) {
+            final int required = length + additional;
+            if (required > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(required, bytes.length * 2));
+            }
+        }
+
+        void writeVarLong(final long value) {
+            ensureCapacity(10);
+            long remaining = value;
+            while ((remaining & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((remaining & 0x7F) | 0x80);
+                remaining >>>= 7;
+            }
+            bytes[length++] = (byte) remaining;
+        }
+
+        void writeString(final String value) {
+            final int numChars = value.length();
+            int numBytes = 0;
+            for (int i = 0; i < numChars; i++) {
+                final char c = value.charAt(i);
+                if (c < 0x80) {
+                    numBytes++;
+                } else if (c < 0x800) {
+                    numBytes += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < numChars && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    numBytes += 4;
+                    i++;
+                } else if (Character.isSurrogate(c)) {
+                    numBytes++; // unpaired surrogates are replaced with '?', as String.getBytes does
+                } else {
+                    numBytes += 3;
+                }
+            }
+
+            writeVarLong(numBytes);
+            ensureCapacity(numBytes);
+
+            final byte[] buffer = bytes;
+            int position = length;
+            for (int i = 0; i < numChars; i++) {
+                final char c = value.charAt(i);
+                if (c < 0x80) {
+                    buffer[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[position++] = (byte) (0xC0 | (c >> 6));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < numChars && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    buffer[position++] = (byte) '?';
+                } else {
+                    buffer[position++] = (byte) (0xE0 | (c >> 12));
+                    buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            length = position;
+        }
+    }
+
     @Override
     public List<Integer> getSupportedVersions() {
         return versionNegotiator.getSupportedVersions();
@@ -51,7 +51,8 @@ import org.slf4j.LoggerFactory;
 public class SocketClientProtocol implements ClientProtocol {
 
     // Version 6 added to support Zero-Leader Clustering, which was introduced in NiFi 1.0.0
-    private final VersionNegotiator versionNegotiator = new StandardVersionNegotiator(6, 5, 4, 3, 2, 1);
+    // Version 7 added to support negotiating the compact version of the StandardFlowFileCodec
+    private final VersionNegotiator versionNegotiator = new StandardVersionNegotiator(7, 6, 5, 4, 3, 2, 1);
 
     private RemoteDestination destination;
     private boolean useCompression = false;
@@ -248,6 +249,11 @@ public class SocketClientProtocol implements ClientProtocol {
         RequestType.NEGOTIATE_FLOWFILE_CODEC.writeRequestType(dos);
 
         FlowFileCodec codec = new StandardFlowFileCodec();
+        if (versionNegotiator.getVersion() >= 7) {
+            // Servers prior to protocol version 7 reject codec versions that they do not know rather than offering an alternative
+            codec.getVersionNegotiator().setVersion(StandardFlowFileCodec.COMPACT_VERSION);
+        }
+
         try {
             codec = (FlowFileCodec) RemoteResourceInitiator.initiateResourceNegotiation(codec, dis, dos);
         } catch (HandshakeException e) {
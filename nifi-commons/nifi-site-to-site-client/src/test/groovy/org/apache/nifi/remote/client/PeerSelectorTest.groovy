@@ -765,6 +765,170 @@ class PeerSelectorTest extends GroovyTestCase {
         assertDistributionPercentages(resultsFrequency, EXPECTED_PERCENTS, NUM_TIMES, 0.05)
     }
 
+    /**
+     * Test that the recorded transaction throughput scales the weights of the peers
+     */
+    @Test
+    void testRecordedThroughputShouldScaleWeights() {
+        // Arrange
+        def nodes = ["node1.nifi": 50, "node2.nifi": 50]
+        PeerSelector ps = buildPeerSelectorForCluster("throughput", nodes)
+        Set<PeerStatus> peerStatuses = ps.getPeerStatuses()
+        def node1 = peerStatuses.find { it.peerDescription.hostname == "node1.nifi" }
+        def node2 = peerStatuses.find { it.peerDescription.hostname == "node2.nifi" }
+
+        // Act
+        ps.recordTransactionCompleted(node1.peerDescription, 100, 1000)
+        ps.recordTransactionCompleted(node2.peerDescription, 400, 1000)
+        Map<PeerStatus, Double> destinationMap = ps.createDestinationMap(peerStatuses, TransferDirection.SEND)
+        logger.info("Destination map: ${destinationMap}")
+
+        // Assert
+        assert destinationMap[node1] == 50.0
+        assert destinationMap[node2] == 12.5
+        assert !ps.isCircuitOpen(node2)
+
+        def performance = ps.getPeerPerformance().collectEntries { [it.peerDescription.hostname, it] }
+        assert performance["node1.nifi"].score == 1.0
+        assert performance["node2.nifi"].score == 0.25
+        assert performance["node2.nifi"].averageLatencyMillis == 400.0
+        assert performance["node2.nifi"].averageThroughputBytesPerSecond == 2500.0
+    }
+
+    /**
+     * Test that consecutive failed transactions exclude a peer from selection
+     */
+    @Test
+    void testConsecutiveFailuresShouldOpenCircuit() {
+        // Arrange
+        final int NUM_TIMES = 100
+        def nodes = ["node1.nifi": 50, "node2.nifi": 50]
+        def peerStatuses = buildPeerStatuses(new ArrayList<String>(nodes.keySet()))
+        Map<PeerStatus, Double> weightMap = peerStatuses.collectEntries { [it, nodes[it.peerDescription.hostname] as double] }
+        def node1 = peerStatuses.find { it.peerDescription.hostname == "node1.nifi" }
+
+        PeerSelector ps = buildPeerSelectorForCluster("failures", nodes)
+
+        // Act
+        (PeerSelector.CIRCUIT_BREAKER_FAILURE_THRESHOLD - 1).times { ps.recordTransactionFailed(node1.peerDescription) }
+        assert !ps.isCircuitOpen(node1)
+        ps.recordTransactionFailed(node1.peerDescription)
+
+        Map<String, Integer> resultsFrequency = nodes.keySet().collectEntries { [it, 0] }
+        NUM_TIMES.times { int i ->
+            def nextPeer = ps.getAvailablePeerStatus(weightMap)
+            resultsFrequency[nextPeer.peerDescription.hostname]++
+        }
+        logger.info("Peer frequency results (${NUM_TIMES}): ${resultsFrequency}")
+
+        // Assert
+        assert ps.isCircuitOpen(node1)
+        assert resultsFrequency == ["node1.nifi": 0, "node2.nifi": NUM_TIMES]
+
+        def performance = ps.getPeerPerformance().first()
+        assert performance.circuitOpen
+        assert performance.failureCount == PeerSelector.CIRCUIT_BREAKER_FAILURE_THRESHOLD
+        assert performance.averageLatencyMillis == -1.0
+    }
+
+    /**
+     * Test that a peer which is much slower than the others is excluded from selection
+     */
+    @Test
+    void testSlowPeerShouldOpenCircuit() {
+        // Arrange
+        def nodes = ["node1.nifi": 50, "node2.nifi": 50]
+        def peerStatuses = buildPeerStatuses(new ArrayList<String>(nodes.keySet()))
+        def node1 = peerStatuses.find { it.peerDescription.hostname == "node1.nifi" }
+        def node2 = peerStatuses.find { it.peerDescription.hostname == "node2.nifi" }
+
+        PeerSelector ps = buildPeerSelectorForCluster("slow peer", nodes)
+
+        // Act
+        ps.recordTransactionCompleted(node1.peerDescription, 100, 1000)
+        ps.recordTransactionCompleted(node2.peerDescription, PeerSelector.CIRCUIT_BREAKER_MIN_LATENCY_MILLIS - 1, 1000)
+        assert !ps.isCircuitOpen(node2)
+        ps.recordTransactionCompleted(node2.peerDescription, 20_000, 1000)
+
+        // Assert
+        assert ps.isCircuitOpen(node2)
+        assert !ps.isCircuitOpen(node1)
+    }
+
+    /**
+     * Test that a peer whose transactions take longer only because they carry more data is neither excluded nor weighted down
+     */
+    @Test
+    void testLargeBatchPeerShouldNotBePenalized() {
+        // Arrange
+        def nodes = ["node1.nifi": 50, "node2.nifi": 50]
+        PeerSelector ps = buildPeerSelectorForCluster("large batches", nodes)
+        Set<PeerStatus> peerStatuses = ps.getPeerStatuses()
+        def node1 = peerStatuses.find { it.peerDescription.hostname == "node1.nifi" }
+        def node2 = peerStatuses.find { it.peerDescription.hostname == "node2.nifi" }
+
+        // Act
+        10.times {
+            // Both peers transfer 10,000 bytes/sec, but node2 carries 200 times as much data in each transaction
+            ps.recordTransactionCompleted(node1.peerDescription, 100, 1000)
+            ps.recordTransactionCompleted(node2.peerDescription, 20_000, 200_000)
+        }
+        Map<PeerStatus, Double> destinationMap = ps.createDestinationMap(peerStatuses, TransferDirection.RECEIVE)
+        logger.info("Destination map: ${destinationMap}")
+
+        // Assert
+        assert !ps.isCircuitOpen(node2)
+        assert destinationMap[node1] == destinationMap[node2]
+
+        def performance = ps.getPeerPerformance().collectEntries { [it.peerDescription.hostname, it] }
+        assert performance["node2.nifi"].averageLatencyMillis > PeerSelector.CIRCUIT_BREAKER_MIN_LATENCY_MILLIS * PeerSelector.CIRCUIT_BREAKER_SLOW_PEER_RATIO
+        assert performance["node2.nifi"].score == 1.0
+    }
+
+    /**
+     * Test that short transactions, whose duration is dominated by protocol overhead, do not lower the score of a peer
+     */
+    @Test
+    void testShortTransactionsShouldNotAffectThroughput() {
+        // Arrange
+        def nodes = ["node1.nifi": 50, "node2.nifi": 50]
+        PeerSelector ps = buildPeerSelectorForCluster("short transactions", nodes)
+        Set<PeerStatus> peerStatuses = ps.getPeerStatuses()
+        def node1 = peerStatuses.find { it.peerDescription.hostname == "node1.nifi" }
+        def node2 = peerStatuses.find { it.peerDescription.hostname == "node2.nifi" }
+
+        // Act
+        ps.recordTransactionCompleted(node1.peerDescription, 1000, 1_000_000)
+        ps.recordTransactionCompleted(node2.peerDescription, PeerSelector.MIN_THROUGHPUT_SAMPLE_MILLIS - 1, 10)
+
+        // Assert
+        def performance = ps.getPeerPerformance().collectEntries { [it.peerDescription.hostname, it] }
+        assert performance["node2.nifi"].averageThroughputBytesPerSecond == -1.0
+        assert performance["node2.nifi"].score == 1.0
+    }
+
+    /**
+     * Test that open circuits do not prevent selection when every available peer has an open circuit
+     */
+    @Test
+    void testGetAvailablePeerStatusShouldIgnoreCircuitsWhenAllAreOpen() {
+        // Arrange
+        def nodes = ["node1.nifi": 100]
+        def peerStatuses = buildPeerStatuses(new ArrayList<String>(nodes.keySet()))
+        Map<PeerStatus, Double> weightMap = peerStatuses.collectEntries { [it, nodes[it.peerDescription.hostname] as double] }
+        def node1 = peerStatuses.first()
+
+        PeerSelector ps = buildPeerSelectorForCluster("single open circuit", nodes)
+        PeerSelector.CIRCUIT_BREAKER_FAILURE_THRESHOLD.times { ps.recordTransactionFailed(node1.peerDescription) }
+
+        // Act
+        def nextPeer = ps.getAvailablePeerStatus(weightMap)
+
+        // Assert
+        assert ps.isCircuitOpen(node1)
+        assert nextPeer == node1
+    }
+
     // Copied legacy tests from TestPeerSelector
 
     /**
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.remote.codec;
+
+import org.apache.nifi.remote.exception.ProtocolException;
+import org.apache.nifi.remote.protocol.DataPacket;
+import org.apache.nifi.remote.util.StandardDataPacket;
+import org.apache.nifi.stream.io.StreamUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestStandardFlowFileCodec {
+
+    private StandardFlowFileCodec createCodec(final int version) {
+        final StandardFlowFileCodec codec = new StandardFlowFileCodec();
+        codec.getVersionNegotiator().setVersion(version);
+        return codec;
+    }
+
+    private DataPacket createDataPacket(final Map<String, String> attributes, final String contents) {
+        final byte[] bytes = contents.getBytes(StandardCharsets.UTF_8);
+        return new StandardDataPacket(attributes, new ByteArrayInputStream(bytes), bytes.length);
+    }
+
+    private Map<String, String> createAttributes(final int index) {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("uuid", "11111111-2222-3333-4444-55555555555" + index);
+        attributes.put("filename", "file-" + index + ".txt");
+        attributes.put("path", "./");
+        attributes.put("custom.attribute", "café 中文 😀");
+        attributes.put("empty", "");
+        attributes.put("large", String.join("", Collections.nCopies(2000, "x")));
+        return attributes;
+    }
+
+    private String readContents(final DataPacket packet) throws IOException {
+        final byte[] bytes = new byte[(int) packet.getSize()];
+        StreamUtils.read(packet.getData(), bytes, bytes.length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void assertRoundTrip(final int version) throws IOException {
+        final StandardFlowFileCodec encoder = createCodec(version);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < 3; i++) {
+            encoder.encode(createDataPacket(createAttributes(i), "contents " + i), out);
+        }
+
+        final StandardFlowFileCodec decoder = createCodec(version);
+        final InputStream in = new ByteArrayInputStream(out.toByteArray());
+        for (int i = 0; i < 3; i++) {
+            final DataPacket packet = decoder.decode(in);
+            assertEquals(createAttributes(i), packet.getAttributes());
+            assertEquals("contents " + i, readContents(packet));
+        }
+
+        assertNull(decoder.decode(in));
+    }
+
+    @Test
+    public void testDefaultsToOriginalVersion() {
+        assertEquals(1, new StandardFlowFileCodec().getVersionNegotiator().getVersion());
+        assertTrue(new StandardFlowFileCodec().getVersionNegotiator().isVersionSupported(StandardFlowFileCodec.COMPACT_VERSION));
+    }
+
+    @Test
+    public void testRoundTripVersion1() throws IOException {
+        assertRoundTrip(1);
+    }
+
+    @Test
+    public void testRoundTripCompactVersion() throws IOException {
+        assertRoundTrip(StandardFlowFileCodec.COMPACT_VERSION);
+    }
+
+    @Test
+    public void testCompactVersionIsSmaller() throws IOException {
+        final ByteArrayOutputStream original = new ByteArrayOutputStream();
+        createCodec(1).encode(createDataPacket(createAttributes(1), "contents"), original);
+
+        final ByteArrayOutputStream compact = new ByteArrayOutputStream();
+        createCodec(StandardFlowFileCodec.COMPACT_VERSION).encode(createDataPacket(createAttributes(1), "contents"), compact);
+
+        assertTrue(compact.size() < original.size());
+    }
+
+    @Test
+    public void testCompactVersionRejectsUnknownAttributeKeyIndex() {
+        final byte[] encoded = new byte[] {1, 127, 0, 0};
+        assertThrows(ProtocolException.class, () -> createCodec(StandardFlowFileCodec.COMPACT_VERSION).decode(new ByteArrayInputStream(encoded)));
+    }
+}
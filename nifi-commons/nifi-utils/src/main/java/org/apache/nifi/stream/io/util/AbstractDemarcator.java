@@ -104,6 +104,24 @@ abstract class AbstractDemarcator implements Closeable {
         this.maxDataSize = maxDataSize;
     }
 
+    /**
+     * Constructs an instance of demarcator with provided {@link InputStream},
+     * max buffer size and a buffer to read into. This allows a buffer to be
+     * reused across many streams rather than allocating a new one for each.
+     * The length of the provided buffer is also used as the size by which the
+     * buffer is expanded when necessary.
+     */
+    AbstractDemarcator(InputStream is, int maxDataSize, byte[] buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("'buffer' must not be null");
+        }
+        this.validate(is, maxDataSize, buffer.length);
+        this.is = is;
+        this.initialBufferSize = buffer.length;
+        this.buffer = buffer;
+        this.maxDataSize = maxDataSize;
+    }
+
     @Override
     public void close() throws IOException {
         this.is.close();
@@ -84,6 +84,39 @@ public class StreamDemarcator extends AbstractDemarcator {
         this.delimiterBytes = delimiterBytes;
     }
 
+    /**
+     * Constructs a new instance that reads into the provided buffer rather than
+     * allocating a new one. Once this demarcator is no longer in use, the buffer
+     * (which may have been expanded) can be obtained via {@link #getBuffer()}
+     * and supplied to another instance.
+     *
+     * @param is
+     *            instance of {@link InputStream} representing the data
+     * @param delimiterBytes
+     *            byte array representing delimiter bytes used to split the
+     *            input stream. Can be 'null'.
+     * @param maxDataSize
+     *            maximum size of data derived from the input stream.
+     * @param buffer
+     *            the buffer to read the {@link InputStream} into. Must not be
+     *            empty. Its contents will be overwritten.
+     */
+    public StreamDemarcator(InputStream is, byte[] delimiterBytes, int maxDataSize, byte[] buffer) {
+        super(is, maxDataSize, buffer);
+        this.validate(delimiterBytes);
+        this.delimiterBytes = delimiterBytes;
+    }
+
+    /**
+     * Returns the buffer that this demarcator reads into, so that it can be
+     * reused by another instance once this one is no longer in use.
+     *
+     * @return the current buffer
+     */
+    public byte[] getBuffer() {
+        return this.buffer;
+    }
+
     /**
      * Will read the next data token from the {@link InputStream} returning null
      * when it reaches the end of the stream.
@@ -28,6 +28,7 @@ import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
@@ -325,4 +326,26 @@ public class StreamDemarcatorTest {
         assertArrayEquals(third, new byte[] {'7', '8', '9'});
     }
 
+    @Test
+    public void testReuseBuffer() throws IOException {
+        byte[] buffer = new byte[4];
+
+        final ByteArrayInputStream first = new ByteArrayInputStream("first-token\nsecond".getBytes(StandardCharsets.UTF_8));
+        try (final StreamDemarcator scanner = new StreamDemarcator(first, "\n".getBytes(StandardCharsets.UTF_8), 1000, buffer)) {
+            assertArrayEquals("first-token".getBytes(StandardCharsets.UTF_8), scanner.nextToken());
+            assertArrayEquals("second".getBytes(StandardCharsets.UTF_8), scanner.nextToken());
+            assertNull(scanner.nextToken());
+            buffer = scanner.getBuffer();
+        }
+
+        // The expanded buffer, which still holds data from the previous stream, should be usable by the next demarcator
+        assertTrue(buffer.length > 4);
+        final ByteArrayInputStream second = new ByteArrayInputStream("A\nBC".getBytes(StandardCharsets.UTF_8));
+        try (final StreamDemarcator scanner = new StreamDemarcator(second, "\n".getBytes(StandardCharsets.UTF_8), 1000, buffer)) {
+            assertArrayEquals(new byte[] {'A'}, scanner.nextToken());
+            assertArrayEquals(new byte[] {'B', 'C'}, scanner.nextToken());
+            assertNull(scanner.nextToken());
+            assertSame(buffer, scanner.getBuffer());
+        }
+    }
 }
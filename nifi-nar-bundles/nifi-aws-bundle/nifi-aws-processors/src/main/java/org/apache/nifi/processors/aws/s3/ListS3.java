@@ -154,6 +154,11 @@ public class ListS3 extends AbstractS3Processor implements VerifiableProcessor {
         .required(true)
         .build();
 
+    public static final PropertyDescriptor TRACKING_STATE_PERSISTENCE = new PropertyDescriptor.Builder()
+        .fromPropertyDescriptor(ListedEntityTracker.TRACKING_STATE_PERSISTENCE)
+        .dependsOn(LISTING_STRATEGY, BY_ENTITIES)
+        .build();
+
     public static final PropertyDescriptor INITIAL_LISTING_TARGET = new PropertyDescriptor.Builder()
         .fromPropertyDescriptor(ListedEntityTracker.INITIAL_LISTING_TARGET)
         .dependsOn(LISTING_STRATEGY, BY_ENTITIES)
@@ -273,6 +278,7 @@ public class ListS3 extends AbstractS3Processor implements VerifiableProcessor {
     public static final List<PropertyDescriptor> properties = Collections.unmodifiableList(Arrays.asList(
         LISTING_STRATEGY,
         TRACKING_STATE_CACHE,
+        TRACKING_STATE_PERSISTENCE,
         INITIAL_LISTING_TARGET,
         TRACKING_TIME_WINDOW,
         BUCKET,
@@ -108,6 +108,7 @@ public class ListAzureBlobStorage extends AbstractListProcessor<BlobInfo> {
             PROP_PREFIX,
             AzureStorageUtils.PROXY_CONFIGURATION_SERVICE,
             ListedEntityTracker.TRACKING_STATE_CACHE,
+            ListedEntityTracker.TRACKING_STATE_PERSISTENCE,
             ListedEntityTracker.TRACKING_TIME_WINDOW,
             ListedEntityTracker.INITIAL_LISTING_TARGET
             ));
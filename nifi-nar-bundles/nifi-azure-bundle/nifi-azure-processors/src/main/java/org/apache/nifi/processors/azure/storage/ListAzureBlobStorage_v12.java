@@ -119,6 +119,11 @@ public class ListAzureBlobStorage_v12 extends AbstractListProcessor<BlobInfo> {
             .dependsOn(LISTING_STRATEGY, BY_ENTITIES)
             .build();
 
+    public static final PropertyDescriptor TRACKING_STATE_PERSISTENCE = new PropertyDescriptor.Builder()
+            .fromPropertyDescriptor(ListedEntityTracker.TRACKING_STATE_PERSISTENCE)
+            .dependsOn(LISTING_STRATEGY, BY_ENTITIES)
+            .build();
+
     public static final PropertyDescriptor TRACKING_TIME_WINDOW = new PropertyDescriptor.Builder()
             .fromPropertyDescriptor(ListedEntityTracker.TRACKING_TIME_WINDOW)
             .dependsOn(LISTING_STRATEGY, BY_ENTITIES)
@@ -136,6 +141,7 @@ public class ListAzureBlobStorage_v12 extends AbstractListProcessor<BlobInfo> {
             RECORD_WRITER,
             LISTING_STRATEGY,
             TRACKING_STATE_CACHE,
+            TRACKING_STATE_PERSISTENCE,
             TRACKING_TIME_WINDOW,
             INITIAL_LISTING_TARGET
     ));
@@ -59,6 +59,7 @@ import java.util.stream.Collectors;
 
 import static org.apache.nifi.processor.util.list.ListedEntityTracker.INITIAL_LISTING_TARGET;
 import static org.apache.nifi.processor.util.list.ListedEntityTracker.TRACKING_STATE_CACHE;
+import static org.apache.nifi.processor.util.list.ListedEntityTracker.TRACKING_STATE_PERSISTENCE;
 import static org.apache.nifi.processor.util.list.ListedEntityTracker.TRACKING_TIME_WINDOW;
 import static org.apache.nifi.processors.azure.AbstractAzureDataLakeStorageProcessor.ADLS_CREDENTIALS_SERVICE;
 import static org.apache.nifi.processors.azure.AbstractAzureDataLakeStorageProcessor.DIRECTORY;
@@ -139,6 +140,7 @@ public class ListAzureDataLakeStorage extends AbstractListProcessor<ADLSFileInfo
             RECORD_WRITER,
             LISTING_STRATEGY,
             TRACKING_STATE_CACHE,
+            TRACKING_STATE_PERSISTENCE,
             TRACKING_TIME_WINDOW,
             INITIAL_LISTING_TARGET));
 
@@ -26,6 +26,7 @@ import org.apache.nifi.annotation.behavior.WritesAttributes;
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.SeeAlso;
 import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnStopped;
 import org.apache.nifi.components.AllowableValue;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.components.resource.ResourceCardinality;
@@ -38,12 +39,14 @@ import org.apache.nifi.processor.ProcessorInitializationContext;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.ProcessException;
 import org.apache.nifi.processor.util.StandardValidators;
+import org.apache.nifi.processors.cybersecurity.matchers.FuzzyHashIndex;
 import org.apache.nifi.processors.cybersecurity.matchers.FuzzyHashMatcher;
 import org.apache.nifi.processors.cybersecurity.matchers.SSDeepHashMatcher;
 import org.apache.nifi.processors.cybersecurity.matchers.TLSHHashMatcher;
 import org.apache.nifi.util.StringUtils;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -113,6 +116,18 @@ public class CompareFuzzyHash extends AbstractFuzzyHashProcessor {
             .defaultValue(singleMatch.getValue())
             .build();
 
+    public static final PropertyDescriptor INDEX_HASH_LIST = new PropertyDescriptor.Builder()
+            .name("INDEX_HASH_LIST")
+            .displayName("Index Hash List")
+            .description("If true, the hash list file is loaded into an in-memory index the first time it is needed, and loaded again " +
+                    "whenever the file is modified, so that each hash is only compared with the entries of the list that could exceed the " +
+                    "<Match Threshold>. The matches are the same as when the file is read, but the index requires memory in proportion to " +
+                    "the size of the list. If false, the whole file is read and compared for every FlowFile.")
+            .required(true)
+            .allowableValues("true", "false")
+            .defaultValue("true")
+            .build();
+
     public static final Relationship REL_FOUND = new Relationship.Builder()
             .name("found")
             .description("Any FlowFile that is successfully matched to an existing hash will be sent to this Relationship.")
@@ -137,6 +152,7 @@ public class CompareFuzzyHash extends AbstractFuzzyHashProcessor {
         descriptors.add(ATTRIBUTE_NAME);
         descriptors.add(MATCH_THRESHOLD);
         descriptors.add(MATCHING_MODE);
+        descriptors.add(INDEX_HASH_LIST);
         this.descriptors = Collections.unmodifiableList(descriptors);
 
         final Set<Relationship> relationships = new HashSet<Relationship>();
@@ -146,6 +162,13 @@ public class CompareFuzzyHash extends AbstractFuzzyHashProcessor {
         this.relationships = Collections.unmodifiableSet(relationships);
     }
 
+    private volatile LoadedIndex loadedIndex;
+
+    @OnStopped
+    public void onStopped() {
+        loadedIndex = null;
+    }
+
     @Override
     public Set<Relationship> getRelationships() {
         return this.relationships;
@@ -202,37 +225,38 @@ public class CompareFuzzyHash extends AbstractFuzzyHashProcessor {
             return;
         }
 
-        double similarity = 0;
         double matchThreshold = context.getProperty(MATCH_THRESHOLD).asDouble();
 
         try {
             Map<String, Double> matched = new HashMap<>();
 
-            try (BufferedReader reader = fuzzyHashMatcher.getReader(context.getProperty(HASH_LIST_FILE).getValue())) {
-                String line = null;
-
-                while ((line = reader.readLine()) != null) {
-                    similarity = fuzzyHashMatcher.getSimilarity(inputHash, line);
-
-                    if (fuzzyHashMatcher.matchExceedsThreshold(similarity, matchThreshold)) {
-                        String match = fuzzyHashMatcher.getMatch(line);
-                        // A malformed file may cause a match with no filename
-                        // Because this would simply look odd, we ignore such entry and log
-                        if (!StringUtils.isEmpty(match)) {
-                            matched.put(match, similarity);
-                        } else {
-                            logger.error("Found a match against a malformed entry '{}'. Please inspect the contents of" +
-                                    "the {} file and ensure they are properly formatted",
-                                new Object[]{line, HASH_LIST_FILE.getDisplayName()});
-                        }
-                    }
+            final boolean singleMatchMode = Objects.equals(context.getProperty(MATCHING_MODE).getValue(), singleMatch.getValue());
+            final String hashListFile = context.getProperty(HASH_LIST_FILE).getValue();
+
+            if (context.getProperty(INDEX_HASH_LIST).asBoolean()) {
+                final FuzzyHashIndex index = getIndex(algorithm, hashListFile, fuzzyHashMatcher);
+                for (final String line : index.getCandidates(inputHash, matchThreshold)) {
+                    addMatch(fuzzyHashMatcher, inputHash, line, matchThreshold, matched);
 
                     // Check if single match is desired and if a match has been made
-                    if (Objects.equals(context.getProperty(MATCHING_MODE).getValue(), singleMatch.getValue()) && (matched.size() > 0)) {
-                        // and save time by breaking the outer loop
+                    if (singleMatchMode && (matched.size() > 0)) {
                         break;
                     }
                 }
+            } else {
+                try (BufferedReader reader = fuzzyHashMatcher.getReader(hashListFile)) {
+                    String line = null;
+
+                    while ((line = reader.readLine()) != null) {
+                        addMatch(fuzzyHashMatcher, inputHash, line, matchThreshold, matched);
+
+                        // Check if single match is desired and if a match has been made
+                        if (singleMatchMode && (matched.size() > 0)) {
+                            // and save time by breaking the outer loop
+                            break;
+                        }
+                    }
+                }
             }
 
             // Then by iterating over the hashmap of matches
@@ -262,6 +286,64 @@ public class CompareFuzzyHash extends AbstractFuzzyHashProcessor {
         }
     }
 
+    private void addMatch(final FuzzyHashMatcher fuzzyHashMatcher, final String inputHash, final String line, final double matchThreshold,
+                          final Map<String, Double> matched) {
+        final double similarity = fuzzyHashMatcher.getSimilarity(inputHash, line);
 
+        if (fuzzyHashMatcher.matchExceedsThreshold(similarity, matchThreshold)) {
+            String match = fuzzyHashMatcher.getMatch(line);
+            // A malformed file may cause a match with no filename
+            // Because this would simply look odd, we ignore such entry and log
+            if (!StringUtils.isEmpty(match)) {
+                matched.put(match, similarity);
+            } else {
+                getLogger().error("Found a match against a malformed entry '{}'. Please inspect the contents of" +
+                                "the {} file and ensure they are properly formatted",
+                        new Object[]{line, HASH_LIST_FILE.getDisplayName()});
+            }
+        }
+    }
+
+    private FuzzyHashIndex getIndex(final String algorithm, final String hashListFile, final FuzzyHashMatcher fuzzyHashMatcher) throws IOException {
+        final File file = new File(hashListFile);
+        LoadedIndex current = loadedIndex;
+        if (current != null && current.isCurrent(algorithm, file)) {
+            return current.index;
+        }
+
+        synchronized (this) {
+            current = loadedIndex;
+            if (current == null || !current.isCurrent(algorithm, file)) {
+                // Take the modification time before reading, so that a change made while reading causes the file to be read again
+                final long lastModified = file.lastModified();
+                final long length = file.length();
+                final FuzzyHashIndex index = fuzzyHashMatcher.createIndex(hashListFile);
+                getLogger().info("Loaded {} lines of {} into an index", new Object[]{index.size(), file});
+
+                current = new LoadedIndex(algorithm, file, lastModified, length, index);
+                loadedIndex = current;
+            }
+            return current.index;
+        }
+    }
 
+    private static class LoadedIndex {
+        private final String algorithm;
+        private final File file;
+        private final long lastModified;
+        private final long length;
+        private final FuzzyHashIndex index;
+
+        private LoadedIndex(final String algorithm, final File file, final long lastModified, final long length, final FuzzyHashIndex index) {
+            this.algorithm = algorithm;
+            this.file = file;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.index = index;
+        }
+
+        private boolean isCurrent(final String algorithm, final File file) {
+            return this.algorithm.equals(algorithm) && this.file.equals(file) && file.lastModified() == lastModified && file.length() == length;
+        }
+    }
 }
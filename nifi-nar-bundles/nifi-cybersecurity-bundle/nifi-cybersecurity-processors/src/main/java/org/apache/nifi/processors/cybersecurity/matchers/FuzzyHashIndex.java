@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.cybersecurity.matchers;
+
+import java.util.List;
+
+/**
+ * An in-memory index of a hash list that narrows down the entries a hash needs to be compared with.
+ */
+public interface FuzzyHashIndex {
+
+    /**
+     * Returns the lines of the hash list that may be similar enough to the given hash to exceed the given threshold, in the order
+     * in which they appear in the list. Lines that cannot exceed the threshold may be left out, but every line that can is returned,
+     * so comparing the returned lines gives the same matches as comparing every line of the list.
+     *
+     * @param inputHash a valid hash
+     * @param matchThreshold the threshold the similarity must exceed
+     * @return the lines that need to be compared with the hash
+     */
+    List<String> getCandidates(String inputHash, double matchThreshold);
+
+    /**
+     * @return the number of lines in the hash list
+     */
+    int size();
+}
@@ -23,6 +23,8 @@ public interface FuzzyHashMatcher {
 
     BufferedReader getReader(String source) throws IOException;
 
+    FuzzyHashIndex createIndex(String source) throws IOException;
+
     boolean matchExceedsThreshold(double similarity, double matchThreshold) ;
 
     double getSimilarity(String inputHash, String existingHash);
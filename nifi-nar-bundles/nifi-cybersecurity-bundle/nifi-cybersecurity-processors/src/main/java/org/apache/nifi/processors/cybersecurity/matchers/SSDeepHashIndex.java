@@ -0,0 +1,356 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.cybersecurity.matchers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of a list of ssdeep hashes.
+ * <p>
+ * SpamSum only compares hashes whose block sizes are equal or differ by a factor of two, and scores each comparison from the edit distance
+ * between the parts of the hashes that are compared, relative to their lengths. For a given threshold this bounds the edit distance that a
+ * similar entry may be from the input hash, and two strings within edit distance k of each other share at least
+ * {@code max(length) - q + 1 - k * q} of their q-grams. The index therefore holds the q-grams of each entry, grouped by block size and by the
+ * length of the compared parts, and only returns the entries of compatible block size and length that share enough q-grams with the input
+ * hash. When the threshold is too low for the q-grams to rule anything out, every entry of compatible block size and length is returned.
+ * </p>
+ * <p>
+ * The parts of the hashes that are compared, and the score calculated from their edit distance, follow {@code SpamSum.match(String, String)}.
+ * </p>
+ */
+class SSDeepHashIndex implements FuzzyHashIndex {
+    private static final int SPAMSUM_LENGTH = 64;
+    private static final int MIN_BLOCKSIZE = 3;
+    private static final int MAX_INDEXED_BLOCKSIZE = Integer.MAX_VALUE / 2;
+    private static final int GRAM_LENGTH = 2;
+
+    private final List<String> lines = new ArrayList<>();
+    // Entries that cannot be compared without an exception, or whose block size is out of the range that the index handles,
+    // are returned for every hash so that comparing them behaves as it would without the index
+    private final IntList unindexed = new IntList();
+    private final Map<Integer, Partition> wholeHashes = new HashMap<>();
+    private final Map<Integer, Partition> secondHashes = new HashMap<>();
+
+    SSDeepHashIndex(final BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            final int id = lines.size();
+            lines.add(line);
+
+            final ComparedHash hash;
+            try {
+                hash = ComparedHash.parse(line.split(",", 2)[0]);
+            } catch (final RuntimeException e) {
+                unindexed.add(id);
+                continue;
+            }
+
+            if (hash == null) {
+                // SpamSum scores entries without a block size as 0
+                continue;
+            }
+
+            if (hash.blockSize <= 0 || hash.blockSize > MAX_INDEXED_BLOCKSIZE) {
+                unindexed.add(id);
+                continue;
+            }
+
+            wholeHashes.computeIfAbsent(hash.blockSize, blockSize -> new Partition()).add(id, hash.whole);
+            secondHashes.computeIfAbsent(hash.blockSize, blockSize -> new Partition()).add(id, hash.second);
+        }
+
+        for (final Partition partition : wholeHashes.values()) {
+            partition.build();
+        }
+        for (final Partition partition : secondHashes.values()) {
+            partition.build();
+        }
+    }
+
+    @Override
+    public List<String> getCandidates(final String inputHash, final double matchThreshold) {
+        ComparedHash hash;
+        try {
+            hash = ComparedHash.parse(inputHash);
+        } catch (final RuntimeException e) {
+            hash = null;
+        }
+
+        // A threshold of 0 or less is exceeded by every entry, including those that SpamSum does not compare
+        if (matchThreshold <= 0 || hash == null || hash.blockSize <= 0 || hash.blockSize > MAX_INDEXED_BLOCKSIZE) {
+            return Collections.unmodifiableList(lines);
+        }
+
+        final int blockSize = hash.blockSize;
+        final IntList candidates = new IntList();
+        // Equal block sizes compare both the whole hashes and their second parts
+        addCandidates(wholeHashes.get(blockSize), hash.whole, blockSize, matchThreshold, candidates);
+        addCandidates(secondHashes.get(blockSize), hash.second, blockSize, matchThreshold, candidates);
+        // Otherwise the whole hash of the larger block size is compared with the second part of the other
+        if (blockSize % 2 == 0) {
+            addCandidates(secondHashes.get(blockSize / 2), hash.whole, blockSize, matchThreshold, candidates);
+        }
+        addCandidates(wholeHashes.get(blockSize * 2), hash.second, blockSize * 2, matchThreshold, candidates);
+        candidates.addAll(unindexed);
+
+        final int[] ids = candidates.toSortedDistinctArray();
+        final List<String> candidateLines = new ArrayList<>(ids.length);
+        for (final int id : ids) {
+            candidateLines.add(lines.get(id));
+        }
+        return candidateLines;
+    }
+
+    @Override
+    public int size() {
+        return lines.size();
+    }
+
+    private static void addCandidates(final Partition partition, final String hash, final int blockSize, final double matchThreshold, final IntList candidates) {
+        if (partition == null || hash.isEmpty() || hash.length() > SPAMSUM_LENGTH) {
+            return;
+        }
+
+        final int[] grams = getGrams(hash);
+        Arrays.sort(grams);
+
+        for (final Group group : partition.groups) {
+            if (group == null) {
+                continue;
+            }
+
+            final int maxDistance = getMaxDistance(hash.length(), group.length, blockSize, matchThreshold);
+            if (maxDistance < Math.abs(hash.length() - group.length)) {
+                continue;
+            }
+
+            final int sharedGrams = Math.max(hash.length(), group.length) - GRAM_LENGTH + 1 - maxDistance * GRAM_LENGTH;
+            if (sharedGrams <= 0) {
+                for (final int id : group.ids) {
+                    candidates.add(id);
+                }
+            } else {
+                group.addSharing(grams, sharedGrams, candidates);
+            }
+        }
+    }
+
+    /**
+     * @return the largest edit distance between two parts of the given lengths that SpamSum scores at or above the threshold, or -1 if none does
+     */
+    static int getMaxDistance(final int length, final int otherLength, final int blockSize, final double matchThreshold) {
+        // The score is capped for small block sizes
+        if ((long) (blockSize / MIN_BLOCKSIZE) * Math.min(length, otherLength) < matchThreshold) {
+            return -1;
+        }
+
+        int maxDistance = -1;
+        for (int distance = 0; distance <= Math.max(length, otherLength); distance++) {
+            int score = distance * SPAMSUM_LENGTH / (length + otherLength);
+            score = 100 * score / 64;
+            if (score >= 100 || 100 - score < matchThreshold) {
+                break;
+            }
+            maxDistance = distance;
+        }
+        return maxDistance;
+    }
+
+    private static int[] getGrams(final String value) {
+        final int[] grams = new int[Math.max(value.length() - GRAM_LENGTH + 1, 0)];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = value.charAt(i) << 16 | value.charAt(i + 1);
+        }
+        return grams;
+    }
+
+    /**
+     * The parts of an ssdeep hash that SpamSum compares.
+     */
+    private static final class ComparedHash {
+        private final int blockSize;
+        private final String whole;
+        private final String second;
+
+        private ComparedHash(final int blockSize, final String whole, final String second) {
+            this.blockSize = blockSize;
+            this.whole = whole;
+            this.second = second;
+        }
+
+        /**
+         * @return the parts of the hash that are compared, or null if the hash has no block size; throws the same exceptions that comparing the hash does
+         */
+        private static ComparedHash parse(final String hash) {
+            final String[] fields = hash.split(":", 2);
+            if (fields.length != 2) {
+                return null;
+            }
+
+            final int blockSize = Integer.parseInt(fields[0]);
+            final String whole = eliminateSequences(fields[1]);
+            final String second = ":" + whole.split(":")[1];
+            return new ComparedHash(blockSize, whole, second);
+        }
+
+        private static String eliminateSequences(final String value) {
+            final char[] original = value.toCharArray();
+            final char[] eliminated = value.toCharArray();
+
+            int length = 3;
+            for (int i = 3; i < original.length; i++) {
+                if (original[i] != original[i - 1] || original[i] != original[i - 2] || original[i] != original[i - 3]) {
+                    eliminated[length++] = original[i];
+                }
+            }
+            // Characters past the end of the eliminated sequence are left as they were, as SpamSum does
+            return new String(eliminated);
+        }
+    }
+
+    /**
+     * The compared parts of the entries of one block size, grouped by length.
+     */
+    private static final class Partition {
+        private final Group[] groups = new Group[SPAMSUM_LENGTH + 1];
+
+        private void add(final int id, final String value) {
+            // SpamSum scores parts longer than the maximum length as 0
+            if (value.isEmpty() || value.length() > SPAMSUM_LENGTH) {
+                return;
+            }
+
+            Group group = groups[value.length()];
+            if (group == null) {
+                group = new Group(value.length());
+                groups[value.length()] = group;
+            }
+            group.add(id, value);
+        }
+
+        private void build() {
+            for (final Group group : groups) {
+                if (group != null) {
+                    group.build();
+                }
+            }
+        }
+    }
+
+    /**
+     * The q-grams of compared parts of the same length, held as a sorted array of distinct q-grams, and for each q-gram the positions of the
+     * parts that contain it, repeated as many times as they contain it.
+     */
+    private static final class Group {
+        private final int length;
+        private IntList idList = new IntList();
+        private long[] gramPositions = new long[16];
+        private int gramPositionCount;
+
+        private int[] ids;
+        private int[] grams;
+        private int[] offsets;
+        private int[] positions;
+
+        private Group(final int length) {
+            this.length = length;
+        }
+
+        private void add(final int id, final String value) {
+            final int position = idList.size();
+            idList.add(id);
+
+            for (final int gram : getGrams(value)) {
+                if (gramPositionCount == gramPositions.length) {
+                    gramPositions = Arrays.copyOf(gramPositions, gramPositionCount * 2);
+                }
+                gramPositions[gramPositionCount++] = (long) gram << 32 | position;
+            }
+        }
+
+        private void build() {
+            ids = idList.toArray();
+            idList = null;
+
+            final long[] sorted = Arrays.copyOf(gramPositions, gramPositionCount);
+            gramPositions = null;
+            Arrays.sort(sorted);
+
+            final IntList distinctGrams = new IntList();
+            final IntList gramOffsets = new IntList();
+            positions = new int[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                final int gram = (int) (sorted[i] >>> 32);
+                if (i == 0 || gram != distinctGrams.get(distinctGrams.size() - 1)) {
+                    distinctGrams.add(gram);
+                    gramOffsets.add(i);
+                }
+                positions[i] = (int) sorted[i];
+            }
+            gramOffsets.add(sorted.length);
+
+            grams = distinctGrams.toArray();
+            offsets = gramOffsets.toArray();
+        }
+
+        /**
+         * Adds the ids of the parts that share at least the given number of q-grams, counting repeated q-grams, with the given sorted q-grams.
+         */
+        private void addSharing(final int[] sortedGrams, final int minimumShared, final IntList candidates) {
+            final int[] shared = new int[ids.length];
+
+            int i = 0;
+            while (i < sortedGrams.length) {
+                final int gram = sortedGrams[i];
+                int count = 0;
+                while (i < sortedGrams.length && sortedGrams[i] == gram) {
+                    count++;
+                    i++;
+                }
+
+                final int index = Arrays.binarySearch(grams, gram);
+                if (index < 0) {
+                    continue;
+                }
+
+                int j = offsets[index];
+                while (j < offsets[index + 1]) {
+                    final int position = positions[j];
+                    int otherCount = 0;
+                    while (j < offsets[index + 1] && positions[j] == position) {
+                        otherCount++;
+                        j++;
+                    }
+                    shared[position] += Math.min(count, otherCount);
+                }
+            }
+
+            for (int position = 0; position < shared.length; position++) {
+                if (shared[position] >= minimumShared) {
+                    candidates.add(ids[position]);
+                }
+            }
+        }
+    }
+}
@@ -53,6 +53,13 @@ public class SSDeepHashMatcher implements FuzzyHashMatcher {
         return reader;
     }
 
+    @Override
+    public FuzzyHashIndex createIndex(String source) throws IOException {
+        try (BufferedReader reader = getReader(source)) {
+            return new SSDeepHashIndex(reader);
+        }
+    }
+
     @Override
     public boolean matchExceedsThreshold(double similarity, double matchThreshold) {
         if (similarity >= matchThreshold) {
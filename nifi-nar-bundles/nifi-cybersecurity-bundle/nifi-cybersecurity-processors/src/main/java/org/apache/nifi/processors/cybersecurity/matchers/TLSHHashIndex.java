@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.cybersecurity.matchers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An index of a list of TLSH hashes.
+ * <p>
+ * The TLSH difference between two hashes is the sum of the differences of their L-values, Q ratios, checksums and bodies, none of which are
+ * negative, so the sum of the L-value and body differences is a lower bound of it. The index holds the entries in a bucket per L-value, so
+ * that only the buckets whose L-value difference is within the threshold are searched. Within a bucket the entries are sorted by the sum of
+ * the 2-bit codes of the first half of their body, which differs from that of the input hash by no more than the body difference, so only
+ * a range of each bucket is searched, and the body difference is calculated from the decoded bodies held by the index rather than by
+ * parsing each entry again.
+ * </p>
+ */
+class TLSHHashIndex implements FuzzyHashIndex {
+    private static final int HASH_BYTES = 35;
+    private static final int BODY_OFFSET = 3;
+    private static final int BODY_LENGTH = 32;
+    private static final int L_VALUE_RANGE = 256;
+    // The difference between each pair of body bytes, as the sum of the differences of their four 2-bit codes, where codes that
+    // differ by 3 count as 6
+    private static final byte[] BODY_DIFFERENCES = new byte[256 * 256];
+
+    static {
+        for (int value = 0; value < 256; value++) {
+            for (int other = 0; other < 256; other++) {
+                int difference = 0;
+                for (int shift = 0; shift < 8; shift += 2) {
+                    final int codeDifference = Math.abs((value >> shift & 3) - (other >> shift & 3));
+                    difference += codeDifference == 3 ? 6 : codeDifference;
+                }
+                BODY_DIFFERENCES[value << 8 | other] = (byte) difference;
+            }
+        }
+    }
+
+    private final List<String> lines = new ArrayList<>();
+    // Entries that the index cannot reason about are returned for every hash so that comparing them behaves as it would without the index
+    private final IntList unindexed = new IntList();
+    private final Bucket[] buckets = new Bucket[L_VALUE_RANGE];
+
+    TLSHHashIndex(final TLSHHashMatcher matcher, final BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            final int id = lines.size();
+            lines.add(line);
+
+            if (!matcher.isValidHash(line)) {
+                // The similarity of an invalid entry is NaN, which never exceeds the threshold
+                continue;
+            }
+
+            final IndexedHash hash = IndexedHash.parse(line.split("\t", 2)[0]);
+            if (hash == null) {
+                unindexed.add(id);
+                continue;
+            }
+
+            Bucket bucket = buckets[hash.lValue];
+            if (bucket == null) {
+                bucket = new Bucket();
+                buckets[hash.lValue] = bucket;
+            }
+            bucket.add(id, hash);
+        }
+
+        for (final Bucket bucket : buckets) {
+            if (bucket != null) {
+                bucket.build();
+            }
+        }
+    }
+
+    @Override
+    public List<String> getCandidates(final String inputHash, final double matchThreshold) {
+        final IndexedHash hash = IndexedHash.parse(inputHash);
+        if (hash == null) {
+            return Collections.unmodifiableList(lines);
+        }
+
+        final IntList candidates = new IntList();
+        for (int lValue = 0; lValue < L_VALUE_RANGE; lValue++) {
+            final Bucket bucket = buckets[lValue];
+            if (bucket == null) {
+                continue;
+            }
+
+            final int lValueDifference = getLValueDifference(hash.lValue, lValue);
+            if (lValueDifference > matchThreshold) {
+                continue;
+            }
+            bucket.addCandidates(hash, matchThreshold - lValueDifference, candidates);
+        }
+        candidates.addAll(unindexed);
+
+        final int[] ids = candidates.toSortedDistinctArray();
+        final List<String> candidateLines = new ArrayList<>(ids.length);
+        for (final int id : ids) {
+            candidateLines.add(lines.get(id));
+        }
+        return candidateLines;
+    }
+
+    @Override
+    public int size() {
+        return lines.size();
+    }
+
+    private static int getLValueDifference(final int lValue, final int otherLValue) {
+        final int absolute = Math.abs(lValue - otherLValue);
+        final int difference = Math.min(absolute, L_VALUE_RANGE - absolute);
+        return difference <= 1 ? difference : difference * 12;
+    }
+
+    /**
+     * The parts of a TLSH hash used by the index, decoded as the TLSH digest decodes them.
+     */
+    private static final class IndexedHash {
+        private final int lValue;
+        private final int firstHalfSum;
+        private final byte[] body;
+
+        private IndexedHash(final int lValue, final int firstHalfSum, final byte[] body) {
+            this.lValue = lValue;
+            this.firstHalfSum = firstHalfSum;
+            this.body = body;
+        }
+
+        /**
+         * @return the parts of the given hash, or null if it is not made up of hexadecimal bytes
+         */
+        private static IndexedHash parse(final String hash) {
+            if (hash.length() < HASH_BYTES * 2) {
+                return null;
+            }
+
+            final int[] bytes = new int[HASH_BYTES];
+            for (int i = 0; i < HASH_BYTES; i++) {
+                final int high = Character.digit(hash.charAt(i * 2), 16);
+                final int low = Character.digit(hash.charAt(i * 2 + 1), 16);
+                if (high < 0 || low < 0) {
+                    return null;
+                }
+                bytes[i] = high << 4 | low;
+            }
+
+            // The L-value is stored with its nibbles swapped
+            final int lValue = (bytes[1] & 0x0F) << 4 | (bytes[1] & 0xF0) >> 4;
+
+            final byte[] body = new byte[BODY_LENGTH];
+            int firstHalfSum = 0;
+            for (int i = 0; i < BODY_LENGTH; i++) {
+                final int value = bytes[BODY_OFFSET + i];
+                body[i] = (byte) value;
+                if (i < BODY_LENGTH / 2) {
+                    firstHalfSum += (value & 3) + (value >> 2 & 3) + (value >> 4 & 3) + (value >> 6 & 3);
+                }
+            }
+            return new IndexedHash(lValue, firstHalfSum, body);
+        }
+    }
+
+    /**
+     * The entries with the same L-value, sorted by the sum of the codes of the first half of their body.
+     */
+    private static final class Bucket {
+        private IntList idList = new IntList();
+        private IntList firstHalfSumList = new IntList();
+        private List<byte[]> bodyList = new ArrayList<>();
+
+        private int[] ids;
+        private int[] firstHalfSums;
+        private byte[] bodies;
+
+        private void add(final int id, final IndexedHash hash) {
+            idList.add(id);
+            firstHalfSumList.add(hash.firstHalfSum);
+            bodyList.add(hash.body);
+        }
+
+        private void build() {
+            // Entries of equal sums keep the order of the list
+            final long[] order = new long[idList.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = (long) firstHalfSumList.get(i) << 32 | i;
+            }
+            Arrays.sort(order);
+
+            ids = new int[order.length];
+            firstHalfSums = new int[order.length];
+            bodies = new byte[order.length * BODY_LENGTH];
+            for (int i = 0; i < order.length; i++) {
+                final int position = (int) order[i];
+                ids[i] = idList.get(position);
+                firstHalfSums[i] = firstHalfSumList.get(position);
+                System.arraycopy(bodyList.get(position), 0, bodies, i * BODY_LENGTH, BODY_LENGTH);
+            }
+
+            idList = null;
+            firstHalfSumList = null;
+            bodyList = null;
+        }
+
+        private void addCandidates(final IndexedHash hash, final double maxBodyDifference, final IntList candidates) {
+            // Each code differs by at least as much as its value, so the body difference is at least the difference of the sums
+            for (int i = lowerBound(hash.firstHalfSum - maxBodyDifference); i < ids.length && firstHalfSums[i] <= hash.firstHalfSum + maxBodyDifference; i++) {
+                if (isBodyWithin(hash.body, i * BODY_LENGTH, maxBodyDifference)) {
+                    candidates.add(ids[i]);
+                }
+            }
+        }
+
+        private boolean isBodyWithin(final byte[] body, final int offset, final double maxBodyDifference) {
+            int difference = 0;
+            for (int i = 0; i < BODY_LENGTH; i++) {
+                difference += BODY_DIFFERENCES[(body[i] & 0xFF) << 8 | bodies[offset + i] & 0xFF];
+                if (difference > maxBodyDifference) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int lowerBound(final double value) {
+            int low = 0;
+            int high = firstHalfSums.length;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (firstHalfSums[middle] < value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -48,6 +48,13 @@ public class TLSHHashMatcher implements FuzzyHashMatcher {
         return reader;
     }
 
+    @Override
+    public FuzzyHashIndex createIndex(String source) throws IOException {
+        try (BufferedReader reader = getReader(source)) {
+            return new TLSHHashIndex(this, reader);
+        }
+    }
+
     @Override
     public boolean matchExceedsThreshold(double similarity, double matchThreshold) {
         if (similarity <= matchThreshold) {
@@ -24,8 +24,16 @@ import org.apache.nifi.util.TestRunner;
 import org.apache.nifi.util.TestRunners;
 import org.junit.After;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
-
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -36,6 +44,9 @@ public class TestCompareFuzzyHash {
     String ssdeepInput = "48:c1xs8Z/m6H0eRH31S8p8bHENANkPrNy4tkPytwPyh2jTytxPythPytNdPytDgYyF:OuO/mg3HFSRHEb44RNMi6uHU2hcq3";
     String tlshInput = "EB519EA4A8F95171A2A409C1DEEB9872AF55C137E00A5289F1CCD0CE4F6CCD784BB4B7";
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     final CompareFuzzyHash proc = new CompareFuzzyHash();
     final private TestRunner runner = TestRunners.newTestRunner(proc);
 
@@ -110,6 +121,79 @@ public class TestCompareFuzzyHash {
         Assert.assertTrue(similarity >= matchingSimilarity);
     }
 
+    @Test
+    public void testSsdeepCompareFuzzyHashWithoutIndex() {
+        double matchingSimilarity = 80;
+        runner.setProperty(CompareFuzzyHash.HASH_ALGORITHM, CompareFuzzyHash.allowableValueSSDEEP.getValue());
+        runner.setProperty(CompareFuzzyHash.ATTRIBUTE_NAME, "fuzzyhash.value");
+        runner.setProperty(CompareFuzzyHash.HASH_LIST_FILE, "src/test/resources/ssdeep.list");
+        runner.setProperty(CompareFuzzyHash.MATCH_THRESHOLD, String.valueOf(matchingSimilarity));
+        runner.setProperty(CompareFuzzyHash.MATCHING_MODE, CompareFuzzyHash.multiMatch.getValue());
+        runner.setProperty(CompareFuzzyHash.INDEX_HASH_LIST, "false");
+
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("fuzzyhash.value", ssdeepInput);
+
+        runner.enqueue("bogus".getBytes(), attributes);
+        runner.run();
+
+        runner.assertQueueEmpty();
+        runner.assertAllFlowFilesTransferred(CompareFuzzyHash.REL_FOUND, 1);
+
+        final MockFlowFile outFile = runner.getFlowFilesForRelationship(CompareFuzzyHash.REL_FOUND).get(0);
+
+        outFile.assertAttributeEquals("fuzzyhash.value.0.match",
+                "\"nifi/nifi-nar-bundles/nifi-lumberjack-bundle/nifi-lumberjack-processors/pom.xml\""
+        );
+        outFile.assertAttributeEquals("fuzzyhash.value.1.match",
+                "\"nifi/nifi-nar-bundles/nifi-beats-bundle/nifi-beats-processors/pom.xml\""
+        );
+    }
+
+    @Test
+    public void testSsdeepCompareFuzzyHashReloadsModifiedHashList() throws IOException {
+        final File hashList = temporaryFolder.newFile("ssdeep.list");
+        Files.copy(Paths.get("src/test/resources/ssdeep.list"), hashList.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        double matchingSimilarity = 80;
+        runner.setProperty(CompareFuzzyHash.HASH_ALGORITHM, CompareFuzzyHash.allowableValueSSDEEP.getValue());
+        runner.setProperty(CompareFuzzyHash.ATTRIBUTE_NAME, "fuzzyhash.value");
+        runner.setProperty(CompareFuzzyHash.HASH_LIST_FILE, hashList.getAbsolutePath());
+        runner.setProperty(CompareFuzzyHash.MATCH_THRESHOLD, String.valueOf(matchingSimilarity));
+        runner.setProperty(CompareFuzzyHash.MATCHING_MODE, CompareFuzzyHash.multiMatch.getValue());
+
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("fuzzyhash.value", ssdeepInput);
+
+        runner.enqueue("bogus".getBytes(), attributes);
+        runner.run(1, false, true);
+        runner.assertAllFlowFilesTransferred(CompareFuzzyHash.REL_FOUND, 1);
+        runner.getFlowFilesForRelationship(CompareFuzzyHash.REL_FOUND).get(0).assertAttributeExists("fuzzyhash.value.1.match");
+        runner.clearTransferState();
+
+        // Keep only the header and the entry for the beats processors
+        final List<String> lines = Files.readAllLines(hashList.toPath());
+        final List<String> modified = new ArrayList<>();
+        modified.add(lines.get(0));
+        for (final String line : lines) {
+            if (line.contains("nifi-beats-processors")) {
+                modified.add(line);
+            }
+        }
+        Files.write(hashList.toPath(), modified);
+        Assert.assertTrue(hashList.setLastModified(hashList.lastModified() + 2000));
+
+        runner.enqueue("bogus".getBytes(), attributes);
+        runner.run(1, true, false);
+        runner.assertAllFlowFilesTransferred(CompareFuzzyHash.REL_FOUND, 1);
+
+        final MockFlowFile outFile = runner.getFlowFilesForRelationship(CompareFuzzyHash.REL_FOUND).get(0);
+        outFile.assertAttributeEquals("fuzzyhash.value.0.match",
+                "\"nifi/nifi-nar-bundles/nifi-beats-bundle/nifi-beats-processors/pom.xml\""
+        );
+        outFile.assertAttributeNotExists("fuzzyhash.value.1.match");
+    }
+
     @Test
     public void testSsdeepCompareFuzzyHashWithBlankHashList() {
         double matchingSimilarity = 80;
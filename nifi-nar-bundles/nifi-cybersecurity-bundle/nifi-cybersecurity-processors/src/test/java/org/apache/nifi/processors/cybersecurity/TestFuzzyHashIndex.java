@@ -0,0 +1,276 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.cybersecurity;
+
+import com.idealista.tlsh.TLSH;
+import info.debatty.java.spamsum.SpamSum;
+import org.apache.nifi.processors.cybersecurity.matchers.FuzzyHashIndex;
+import org.apache.nifi.processors.cybersecurity.matchers.FuzzyHashMatcher;
+import org.apache.nifi.processors.cybersecurity.matchers.SSDeepHashMatcher;
+import org.apache.nifi.processors.cybersecurity.matchers.TLSHHashMatcher;
+import org.apache.nifi.util.MockComponentLog;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestFuzzyHashIndex {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Random random = new Random(12345L);
+    private final String[] words = createWords(2000);
+
+    @Test
+    public void testSsdeepIndexReturnsEveryMatch() throws IOException {
+        final List<String> contents = createContents(300, 100, 20_000);
+        final List<String> lines = new ArrayList<>();
+        lines.add("ssdeep,1.1--blocksize:hash:hash,filename");
+        for (int i = 0; i < contents.size(); i++) {
+            lines.add(new SpamSum().HashString(contents.get(i)) + ",\"file-" + i + "\"");
+        }
+        // Entries that are malformed, or that SpamSum cannot compare
+        lines.add("96,MD9fHjsEuddrg31904l8bgx5ROg2MQZHZqpAlycowOsexbHDbk:MJwz/l2PqGqqbr2yk6pVgrwPV,\"comma\"");
+        lines.add("abc:def:ghi,\"no block size\"");
+        lines.add("3:,\"no hash\"");
+        lines.add("6:AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA:AAAAAAAAAA,\"sequences\"");
+        lines.add("-2147483645:abcdefghijklmnopqrstuvwxyz:abcdefghijklmnop,\"negative block size\"");
+        lines.add("6:hERjIfhRrlB63J0FDw1NBQmEH68xwMSELN:hZrlB62IwMS");
+
+        final List<String> queries = new ArrayList<>();
+        for (int i = 0; i < contents.size(); i += 5) {
+            queries.add(new SpamSum().HashString(mutate(contents.get(i), 0.02)));
+            queries.add(new SpamSum().HashString(mutate(contents.get(i), 0.2)));
+        }
+        queries.add("6:AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA:AAAAAAAAAA");
+        queries.add("6:hERjIfhRrlB63J0FDw1NBQmEH68xwMSELN:hZrlB62IwMS");
+
+        assertIndexReturnsEveryMatch(new SSDeepHashMatcher(new MockComponentLog("id", this)), lines, queries, new double[] {0, 1, 20, 50, 70, 80, 90, 95, 99, 100, 101});
+    }
+
+    @Test
+    public void testTlshIndexReturnsEveryMatch() throws IOException {
+        final List<String> contents = createContents(300, 600, 20_000);
+        final List<String> lines = new ArrayList<>();
+        for (int i = 0; i < contents.size(); i++) {
+            lines.add(new TLSH(contents.get(i)).hash() + "\tfile-" + i);
+        }
+        lines.add("    THERE SEEMS TO BE SOMETHING MISSING");
+        lines.add("EB519EA4A8F95171A2A409C1DEEB9872AF55C137E00A5289F1CCD0CE4F6CCD784BB4B7");
+
+        final List<String> queries = new ArrayList<>();
+        for (int i = 0; i < contents.size(); i += 5) {
+            queries.add(new TLSH(mutate(contents.get(i), 0.02)).hash());
+            queries.add(new TLSH(mutate(contents.get(i), 0.2)).hash());
+        }
+        queries.add("EB519EA4A8F95171A2A409C1DEEB9872AF55C137E00A5289F1CCD0CE4F6CCD784BB4B7");
+
+        assertIndexReturnsEveryMatch(new TLSHHashMatcher(new MockComponentLog("id", this)), lines, queries, new double[] {-1, 0, 10, 30, 50, 100, 200, 300});
+    }
+
+    @Test
+    @Ignore("Intended only for manual testing to determine performance before/after modifications")
+    public void testIndexPerformance() throws IOException {
+        final List<String> contents = createContents(100_000, 600, 5_000);
+        final List<String> ssdeepLines = new ArrayList<>();
+        final List<String> tlshLines = new ArrayList<>();
+        ssdeepLines.add("ssdeep,1.1--blocksize:hash:hash,filename");
+        for (int i = 0; i < contents.size(); i++) {
+            ssdeepLines.add(new SpamSum().HashString(contents.get(i)) + ",\"file-" + i + "\"");
+            tlshLines.add(new TLSH(contents.get(i)).hash() + "\tfile-" + i);
+        }
+
+        final List<String> ssdeepQueries = new ArrayList<>();
+        final List<String> tlshQueries = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final String content = mutate(contents.get(random.nextInt(contents.size())), 0.001);
+            ssdeepQueries.add(new SpamSum().HashString(content));
+            tlshQueries.add(new TLSH(content).hash());
+        }
+
+        measure("ssdeep", new SSDeepHashMatcher(new MockComponentLog("id", this)), ssdeepLines, ssdeepQueries, 80);
+        measure("TLSH", new TLSHHashMatcher(new MockComponentLog("id", this)), tlshLines, tlshQueries, 100);
+    }
+
+    private void measure(final String algorithm, final FuzzyHashMatcher matcher, final List<String> lines, final List<String> queries,
+                         final double matchThreshold) throws IOException {
+        final File file = writeLines(lines);
+
+        long start = System.nanoTime();
+        int linearMatches = 0;
+        for (final String query : queries) {
+            try (BufferedReader reader = matcher.getReader(file.getPath())) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (matcher.matchExceedsThreshold(matcher.getSimilarity(query, line), matchThreshold)) {
+                        linearMatches++;
+                    }
+                }
+            }
+        }
+        final long linearMillis = (System.nanoTime() - start) / 1_000_000;
+
+        start = System.nanoTime();
+        final FuzzyHashIndex index = matcher.createIndex(file.getPath());
+        final long loadMillis = (System.nanoTime() - start) / 1_000_000;
+
+        start = System.nanoTime();
+        int indexedMatches = 0;
+        for (final String query : queries) {
+            for (final String line : index.getCandidates(query, matchThreshold)) {
+                if (matcher.matchExceedsThreshold(matcher.getSimilarity(query, line), matchThreshold)) {
+                    indexedMatches++;
+                }
+            }
+        }
+        final long indexedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("%s: %d hashes compared with %d entries took %d millis (%d matches) reading the file, and %d millis (%d matches) " +
+                "with an index that took %d millis to load%n", algorithm, queries.size(), index.size(), linearMillis, linearMatches, indexedMillis, indexedMatches, loadMillis);
+    }
+
+    private void assertIndexReturnsEveryMatch(final FuzzyHashMatcher matcher, final List<String> lines, final List<String> queries,
+                                              final double[] thresholds) throws IOException {
+        final File file = writeLines(lines);
+        final FuzzyHashIndex index = matcher.createIndex(file.getPath());
+
+        final List<String> entries = new ArrayList<>();
+        try (BufferedReader reader = matcher.getReader(file.getPath())) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                entries.add(line);
+            }
+        }
+
+        int pruned = 0;
+        for (final String query : queries) {
+            for (final double threshold : thresholds) {
+                final List<String> candidates = index.getCandidates(query, threshold);
+                assertInListOrder(entries, candidates);
+                pruned += entries.size() - candidates.size();
+
+                final Set<String> candidateSet = new HashSet<>(candidates);
+
+                for (final String entry : entries) {
+                    boolean mustBeCompared;
+                    try {
+                        mustBeCompared = matcher.matchExceedsThreshold(matcher.getSimilarity(query, entry), threshold);
+                    } catch (final RuntimeException e) {
+                        // An entry that cannot be compared has to fail in the same way with the index
+                        mustBeCompared = true;
+                    }
+
+                    if (mustBeCompared && !candidateSet.contains(entry)) {
+                        fail("Index did not return '" + entry + "' for '" + query + "' with threshold " + threshold);
+                    }
+                }
+            }
+        }
+
+        assertTrue("Index did not rule out any entries", pruned > 0);
+    }
+
+    private static void assertInListOrder(final List<String> entries, final List<String> candidates) {
+        final Iterator<String> iterator = entries.iterator();
+        for (final String candidate : candidates) {
+            boolean found = false;
+            while (!found && iterator.hasNext()) {
+                found = iterator.next().equals(candidate);
+            }
+            assertTrue("Candidates are not in the order of the list", found);
+        }
+    }
+
+    private File writeLines(final List<String> lines) throws IOException {
+        final File file = folder.newFile();
+        Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private String[] createWords(final int count) {
+        final String[] created = new String[count];
+        for (int i = 0; i < count; i++) {
+            final char[] word = new char[3 + random.nextInt(8)];
+            for (int j = 0; j < word.length; j++) {
+                word[j] = (char) ('a' + random.nextInt(26));
+            }
+            created[i] = new String(word);
+        }
+        return created;
+    }
+
+    /**
+     * Creates contents of random lengths, each of which is followed by a few variations of itself so that the list holds similar entries.
+     */
+    private List<String> createContents(final int count, final int minLength, final int maxLength) {
+        final List<String> contents = new ArrayList<>(count);
+        while (contents.size() < count) {
+            final int length = minLength + random.nextInt(maxLength - minLength);
+            // Each content draws its words from a topic of its own
+            final String[] topic = new String[50];
+            for (int i = 0; i < topic.length; i++) {
+                topic[i] = words[random.nextInt(words.length)];
+            }
+
+            final StringBuilder builder = new StringBuilder(length + 16);
+            while (builder.length() < length) {
+                builder.append(topic[random.nextInt(topic.length)]).append(random.nextInt(10) == 0 ? '\n' : ' ');
+            }
+
+            final String content = builder.toString();
+            contents.add(content);
+            for (int i = random.nextInt(4); i > 0 && contents.size() < count; i--) {
+                contents.add(mutate(content, random.nextDouble() * 0.3));
+            }
+        }
+        return contents;
+    }
+
+    private String mutate(final String content, final double fraction) {
+        final StringBuilder builder = new StringBuilder(content);
+        final int changes = (int) (content.length() * fraction);
+        for (int i = 0; i < changes; i++) {
+            final int position = random.nextInt(builder.length());
+            switch (random.nextInt(3)) {
+                case 0:
+                    builder.setCharAt(position, (char) ('a' + random.nextInt(26)));
+                    break;
+                case 1:
+                    builder.insert(position, words[random.nextInt(words.length)]);
+                    break;
+                default:
+                    builder.deleteCharAt(position);
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -22,9 +22,12 @@ import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.Tags;
 import org.apache.nifi.annotation.lifecycle.OnScheduled;
 import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.components.ValidationContext;
+import org.apache.nifi.components.ValidationResult;
 import org.apache.nifi.expression.ExpressionLanguageScope;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.apache.nifi.lookup.RecordLookupService;
 import org.apache.nifi.processor.ProcessContext;
 import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.Relationship;
@@ -46,10 +49,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetAddress;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -59,8 +65,25 @@ import java.util.Set;
 @Tags({"geo", "enrich", "ip", "maxmind", "record"})
 @CapabilityDescription("Looks up geolocation information for an IP address and adds the geo information to FlowFile attributes. The "
         + "geo data is provided as a MaxMind database. This version uses the NiFi Record API to allow large scale enrichment of record-oriented data sets. "
-        + "Each field provided by the MaxMind database can be directed to a field of the user's choosing by providing a record path for that field configuration. ")
+        + "Each field provided by the MaxMind database can be directed to a field of the user's choosing by providing a record path for that field configuration. "
+        + "Each distinct IP address is looked up only once per FlowFile. The database may instead be provided by an IP Lookup Service, which can be shared by many "
+        + "processors and can cache the results of its lookups. ")
 public class GeoEnrichIPRecord extends AbstractEnrichIP {
+    public static final PropertyDescriptor DATABASE_FILE = new PropertyDescriptor.Builder()
+            .fromPropertyDescriptor(GEO_DATABASE_FILE)
+            .description("Path to Maxmind IP Enrichment Database File. Either this property or the IP Lookup Service must be set.")
+            .required(false)
+            .build();
+    public static final PropertyDescriptor IP_LOOKUP_SERVICE = new PropertyDescriptor.Builder()
+            .name("geo-enrich-ip-lookup-service")
+            .displayName("IP Lookup Service")
+            .description("A lookup service, such as the IPLookupService with Geo Enrichment enabled, that returns the geo information for the value of the key 'ip'. "
+                    + "A single service may be shared by many processors, so that the database is opened only once and the results of looking up frequently seen "
+                    + "IP addresses may be cached. When this service is used, the Accuracy Radius Record Path receives the accuracy radius of the location. "
+                    + "Either this property or the MaxMind Database File must be set.")
+            .required(false)
+            .identifiesControllerService(RecordLookupService.class)
+            .build();
     public static final PropertyDescriptor READER = new PropertyDescriptor.Builder()
             .name("geo-enrich-ip-record-reader")
             .displayName("Record Reader")
@@ -165,7 +188,7 @@ public class GeoEnrichIPRecord extends AbstractEnrichIP {
     ));
 
     private static final List<PropertyDescriptor> DESCRIPTORS = Collections.unmodifiableList(Arrays.asList(
-            GEO_DATABASE_FILE, READER, WRITER, SPLIT_FOUND_NOT_FOUND, IP_RECORD_PATH, GEO_CITY, GEO_ACCURACY, GEO_LATITUDE,
+            DATABASE_FILE, IP_LOOKUP_SERVICE, READER, WRITER, SPLIT_FOUND_NOT_FOUND, IP_RECORD_PATH, GEO_CITY, GEO_ACCURACY, GEO_LATITUDE,
             GEO_LONGITUDE, GEO_COUNTRY, GEO_COUNTRY_ISO, GEO_POSTAL_CODE
     ));
 
@@ -179,14 +202,39 @@ public class GeoEnrichIPRecord extends AbstractEnrichIP {
         return DESCRIPTORS;
     }
 
+    static final String IP_KEY = "ip";
+    static final int MAX_DEDUPLICATED_ADDRESSES = 10_000;
+
     protected volatile RecordReaderFactory readerFactory;
     protected volatile RecordSetWriterFactory writerFactory;
+    protected volatile RecordLookupService lookupService;
     protected boolean splitOutput;
 
+    @Override
+    protected Collection<ValidationResult> customValidate(ValidationContext validationContext) {
+        final List<ValidationResult> results = new ArrayList<>(super.customValidate(validationContext));
+
+        final boolean databaseFileSet = validationContext.getProperty(DATABASE_FILE).isSet();
+        if (databaseFileSet == validationContext.getProperty(IP_LOOKUP_SERVICE).isSet()) {
+            results.add(new ValidationResult.Builder()
+                    .subject(DATABASE_FILE.getDisplayName())
+                    .valid(false)
+                    .explanation("exactly one of " + DATABASE_FILE.getDisplayName() + " and " + IP_LOOKUP_SERVICE.getDisplayName() + " must be set")
+                    .build());
+        }
+
+        return results;
+    }
+
     @Override
     @OnScheduled
     public void onScheduled(ProcessContext context) throws IOException {
-        super.onScheduled(context);
+        lookupService = context.getProperty(IP_LOOKUP_SERVICE).asControllerService(RecordLookupService.class);
+        if (lookupService == null) {
+            super.onScheduled(context);
+        } else {
+            databaseReaderRef.set(null);
+        }
 
         readerFactory = context.getProperty(READER).asControllerService(RecordReaderFactory.class);
         writerFactory = context.getProperty(WRITER).asControllerService(RecordSetWriterFactory.class);
@@ -232,11 +280,19 @@ public class GeoEnrichIPRecord extends AbstractEnrichIP {
                 notFoundWriter.beginRecordSet();
             }
 
+            // The same IP addresses commonly recur throughout a FlowFile, so the location of each is remembered rather than looked up for every record
+            Map<String, GeoLocation> locations = new LinkedHashMap<String, GeoLocation>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, GeoLocation> eldest) {
+                    return size() > MAX_DEDUPLICATED_ADDRESSES;
+                }
+            };
+
             int foundCount = 0;
             int notFoundCount = 0;
             while ((record = reader.nextRecord()) != null) {
-                CityResponse response = geocode(ipPath, record, dbReader);
-                boolean wasEnriched = enrichRecord(response, record, paths);
+                GeoLocation location = geocode(ipPath, record, dbReader, locations);
+                boolean wasEnriched = enrichRecord(location, record, paths);
                 if (wasEnriched) {
                     targetRelationship = REL_FOUND;
                 }
@@ -293,7 +349,7 @@ public class GeoEnrichIPRecord extends AbstractEnrichIP {
         return retVal;
     }
 
-    private CityResponse geocode(RecordPath ipPath, Record record, DatabaseReader reader) throws Exception {
+    private GeoLocation geocode(RecordPath ipPath, Record record, DatabaseReader reader, Map<String, GeoLocation> locations) throws Exception {
         RecordPathResult result = ipPath.evaluate(record);
         Optional<FieldValue> ipField = result.getSelectedFields().findFirst();
         if (ipField.isPresent()) {
@@ -303,30 +359,57 @@ public class GeoEnrichIPRecord extends AbstractEnrichIP {
                 return null;
             }
             String realValue = val.toString();
-            InetAddress address = InetAddress.getByName(realValue);
+            if (locations.containsKey(realValue)) {
+                return locations.get(realValue);
+            }
 
-            return reader.city(address);
+            GeoLocation location = lookupService == null ? lookup(reader, realValue) : lookup(lookupService, realValue);
+            locations.put(realValue, location);
+            return location;
         } else {
             return null;
         }
     }
 
-    private boolean enrichRecord(CityResponse response, Record record, Map<PropertyDescriptor, RecordPath> cached) {
+    private GeoLocation lookup(DatabaseReader reader, String ipAddress) throws Exception {
+        InetAddress address = InetAddress.getByName(ipAddress);
+        CityResponse response = reader.city(address);
+        if (response == null || response.getCity() == null) {
+            return null;
+        }
+
+        return new GeoLocation(response.getCity().getName(), response.getCity().getConfidence(), response.getCountry().getName(),
+                response.getCountry().getIsoCode(), response.getLocation().getLatitude(), response.getLocation().getLongitude(), response.getPostal().getCode());
+    }
+
+    private GeoLocation lookup(RecordLookupService service, String ipAddress) throws Exception {
+        Optional<Record> result = service.lookup(Collections.singletonMap(IP_KEY, ipAddress));
+        if (!result.isPresent() || !(result.get().getValue("geo") instanceof Record)) {
+            return null;
+        }
+
+        // The fields of the geo record returned by the IPLookupService
+        Record geo = (Record) result.get().getValue("geo");
+        Object country = geo.getValue("country");
+        Record countryRecord = country instanceof Record ? (Record) country : null;
+        return new GeoLocation(geo.getValue("city"), geo.getValue("accuracy"), countryRecord == null ? null : countryRecord.getValue("name"),
+                countryRecord == null ? null : countryRecord.getValue("isoCode"), geo.getValue("latitude"), geo.getValue("longitude"), geo.getValue("postalCode"));
+    }
+
+    private boolean enrichRecord(GeoLocation location, Record record, Map<PropertyDescriptor, RecordPath> cached) {
         boolean retVal;
 
-        if (response == null) {
-            return false;
-        } else if (response.getCity() == null) {
+        if (location == null) {
             return false;
         }
 
-        boolean city = update(GEO_CITY, cached, record, response.getCity().getName());
-        boolean accuracy = update(GEO_ACCURACY, cached, record, response.getCity().getConfidence());
-        boolean country = update(GEO_COUNTRY, cached, record, response.getCountry().getName());
-        boolean iso = update(GEO_COUNTRY_ISO, cached, record, response.getCountry().getIsoCode());
-        boolean lat = update(GEO_LATITUDE, cached, record, response.getLocation().getLatitude());
-        boolean lon = update(GEO_LONGITUDE, cached, record, response.getLocation().getLongitude());
-        boolean postal = update(GEO_POSTAL_CODE, cached, record, response.getPostal().getCode());
+        boolean city = update(GEO_CITY, cached, record, location.city);
+        boolean accuracy = update(GEO_ACCURACY, cached, record, location.accuracy);
+        boolean country = update(GEO_COUNTRY, cached, record, location.country);
+        boolean iso = update(GEO_COUNTRY_ISO, cached, record, location.countryIso);
+        boolean lat = update(GEO_LATITUDE, cached, record, location.latitude);
+        boolean lon = update(GEO_LONGITUDE, cached, record, location.longitude);
+        boolean postal = update(GEO_POSTAL_CODE, cached, record, location.postalCode);
 
         retVal = (city || accuracy || country || iso || lat || lon || postal);
 
@@ -349,4 +432,24 @@ public class GeoEnrichIPRecord extends AbstractEnrichIP {
 
         return true;
     }
+
+    private static final class GeoLocation {
+        private final Object city;
+        private final Object accuracy;
+        private final Object country;
+        private final Object countryIso;
+        private final Object latitude;
+        private final Object longitude;
+        private final Object postalCode;
+
+        private GeoLocation(Object city, Object accuracy, Object country, Object countryIso, Object latitude, Object longitude, Object postalCode) {
+            this.city = city;
+            this.accuracy = accuracy;
+            this.country = country;
+            this.countryIso = countryIso;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.postalCode = postalCode;
+        }
+    }
 }
@@ -23,15 +23,24 @@ import org.apache.commons.io.IOUtils;
 import org.apache.nifi.annotation.lifecycle.OnScheduled;
 import org.apache.nifi.avro.AvroTypeUtil;
 import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.components.ValidationContext;
+import org.apache.nifi.components.ValidationResult;
+import org.apache.nifi.controller.AbstractControllerService;
 import org.apache.nifi.controller.ControllerService;
 import org.apache.nifi.json.JsonRecordSetWriter;
 import org.apache.nifi.json.JsonTreeReader;
+import org.apache.nifi.lookup.RecordLookupService;
 import org.apache.nifi.processor.ProcessContext;
 import org.apache.nifi.processors.maxmind.DatabaseReader;
 import org.apache.nifi.schema.access.SchemaAccessUtils;
 import org.apache.nifi.serialization.RecordReaderFactory;
 import org.apache.nifi.serialization.RecordSetWriterFactory;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.MapRecord;
 import org.apache.nifi.serialization.record.MockSchemaRegistry;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
 import org.apache.nifi.serialization.record.RecordSchema;
 import org.apache.nifi.util.MockFlowFile;
 import org.apache.nifi.util.TestRunner;
@@ -39,19 +48,30 @@ import org.apache.nifi.util.TestRunners;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Ignore;
 import org.junit.Test;
 
 import java.io.InputStream;
 import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.nifi.processors.GeoEnrichTestUtils.getFullCityResponse;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 public class TestGeoEnrichIPRecord {
     private TestRunner runner;
@@ -147,17 +167,206 @@ public class TestGeoEnrichIPRecord {
         Assert.assertNotNull(geo.get("lon"));
     }
 
+    @Test
+    public void testDuplicateAddressesLookedUpOnce() throws Exception {
+        enqueueRecords("1.2.3.4", "1.2.3.4", "5.6.7.8", "1.2.3.4");
+        runner.run();
+
+        runner.assertTransferCount(GeoEnrichIPRecord.REL_FOUND, 1);
+        verify(reader, times(1)).city(InetAddress.getByName("1.2.3.4"));
+        verify(reader, times(1)).city(InetAddress.getByName("5.6.7.8"));
+
+        // addresses are remembered only for the FlowFile in which they are seen
+        enqueueRecords("1.2.3.4");
+        runner.run();
+        verify(reader, times(2)).city(InetAddress.getByName("1.2.3.4"));
+    }
+
+    @Test
+    public void testEnrichWithLookupService() throws Exception {
+        final MockIPLookupService lookupService = new MockIPLookupService();
+        runner.addControllerService("lookup", lookupService);
+        runner.enableControllerService(lookupService);
+        runner.setProperty(GeoEnrichIPRecord.IP_LOOKUP_SERVICE, "lookup");
+
+        enqueueRecords("1.2.3.4", "1.2.3.4", "5.6.7.8");
+        runner.run();
+
+        runner.assertTransferCount(GeoEnrichIPRecord.REL_FOUND, 1);
+        Assert.assertEquals(2, lookupService.lookups.get());
+        verify(reader, times(0)).city(any(InetAddress.class));
+
+        MockFlowFile ff = runner.getFlowFilesForRelationship(GeoEnrichIPRecord.REL_FOUND).get(0);
+        List<Map<String, Object>> result = (List<Map<String, Object>>) new ObjectMapper().readValue(runner.getContentAsByteArray(ff), List.class);
+        Assert.assertEquals(3, result.size());
+
+        Map<String, Object> geo = (Map<String, Object>) result.get(0).get("geo");
+        Assert.assertEquals("Minneapolis", geo.get("city"));
+        Assert.assertEquals("1500", String.valueOf(geo.get("accuracy")));
+        Assert.assertEquals("United States of America", geo.get("country"));
+        Assert.assertEquals("US", geo.get("country_iso"));
+        Assert.assertEquals("55401", geo.get("country_postal"));
+        Assert.assertEquals("44.98", String.valueOf(geo.get("lat")));
+        Assert.assertEquals("93.2636", String.valueOf(geo.get("lon")));
+        Assert.assertNull(((Map<String, Object>) result.get(2).get("geo")).get("city"));
+    }
+
+    @Test
+    public void testDatabaseFileOrLookupServiceRequired() throws Exception {
+        final TestRunner validationRunner = TestRunners.newTestRunner(GeoEnrichIPRecord.class);
+        final ControllerService recordReader = new JsonTreeReader();
+        final ControllerService recordWriter = new JsonRecordSetWriter();
+        final ControllerService lookupService = new MockIPLookupService();
+        validationRunner.addControllerService("reader", recordReader);
+        validationRunner.addControllerService("writer", recordWriter);
+        validationRunner.addControllerService("lookup", lookupService);
+        validationRunner.enableControllerService(recordReader);
+        validationRunner.enableControllerService(recordWriter);
+        validationRunner.enableControllerService(lookupService);
+        validationRunner.setProperty(GeoEnrichIPRecord.READER, "reader");
+        validationRunner.setProperty(GeoEnrichIPRecord.WRITER, "writer");
+        validationRunner.setProperty(GeoEnrichIPRecord.IP_RECORD_PATH, "/ip_address");
+        validationRunner.assertNotValid();
+
+        validationRunner.setProperty(GeoEnrichIPRecord.IP_LOOKUP_SERVICE, "lookup");
+        validationRunner.assertValid();
+
+        validationRunner.setProperty(GeoEnrichIPRecord.DATABASE_FILE, "src/test/resources/avro/record_schema.avsc");
+        validationRunner.assertNotValid();
+    }
+
+    @Test
+    @Ignore("Intended only for manual testing to determine performance before/after modifications")
+    public void testSkewedAddressThroughput() throws Exception {
+        // Each lookup deserializes a full City response, much as the DatabaseReader does for every lookup of the database
+        final AtomicInteger databaseLookups = new AtomicInteger();
+        reader = mock(DatabaseReader.class, withSettings().stubOnly());
+        when(reader.city(any(InetAddress.class))).thenAnswer(invocation -> {
+            databaseLookups.incrementAndGet();
+            return getFullCityResponse();
+        });
+
+        final int distinctAddresses = 300_000;
+        final int flowFiles = 10;
+        final int recordsPerFlowFile = 10_000;
+
+        // Zipf distribution with an exponent of 1, as is typical of the addresses seen in network flow data
+        final double[] cumulative = new double[distinctAddresses];
+        double total = 0;
+        for (int i = 0; i < distinctAddresses; i++) {
+            total += 1D / (i + 1);
+            cumulative[i] = total;
+        }
+
+        final Random random = new Random(42L);
+        final String[][] skewed = new String[flowFiles][recordsPerFlowFile];
+        final String[][] distinct = new String[flowFiles][recordsPerFlowFile];
+        for (int i = 0; i < flowFiles; i++) {
+            for (int j = 0; j < recordsPerFlowFile; j++) {
+                int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+                rank = rank < 0 ? -rank - 1 : rank;
+                skewed[i][j] = toAddress(rank);
+                distinct[i][j] = toAddress(i * recordsPerFlowFile + j);
+            }
+        }
+
+        for (final String[][] addresses : Arrays.asList(distinct, skewed, distinct, skewed)) {
+            databaseLookups.set(0);
+            final long start = System.nanoTime();
+            for (final String[] flowFileAddresses : addresses) {
+                enqueueRecords(flowFileAddresses);
+            }
+            runner.run(flowFiles);
+            final long millis = (System.nanoTime() - start) / 1_000_000;
+            final int lookups = databaseLookups.get();
+
+            System.out.printf("%s addresses: enriched %d records with %d database lookups in %d millis (%d records/second)%n", addresses == skewed ? "Skewed" : "Distinct",
+                    flowFiles * recordsPerFlowFile, lookups, millis, flowFiles * recordsPerFlowFile * 1000L / Math.max(1, millis));
+            runner.clearTransferState();
+        }
+    }
+
+    private static String toAddress(final int index) {
+        return "10." + ((index >> 16) & 0xFF) + "." + ((index >> 8) & 0xFF) + "." + (index & 0xFF);
+    }
+
+    private void enqueueRecords(final String... addresses) {
+        final StringBuilder content = new StringBuilder("[");
+        for (int i = 0; i < addresses.length; i++) {
+            if (i > 0) {
+                content.append(',');
+            }
+            content.append("{\"message\": \"Hello\", \"ip_address\": \"").append(addresses[i]).append("\", \"geo\": {}}");
+        }
+        content.append(']');
+
+        runner.enqueue(content.toString().getBytes(StandardCharsets.UTF_8), Collections.singletonMap("schema.name", "record"));
+    }
+
+    private static class MockIPLookupService extends AbstractControllerService implements RecordLookupService {
+        private static final RecordSchema COUNTRY_SCHEMA = new SimpleRecordSchema(Arrays.asList(
+                new RecordField("name", RecordFieldType.STRING.getDataType()),
+                new RecordField("isoCode", RecordFieldType.STRING.getDataType())));
+        private static final RecordSchema GEO_SCHEMA = new SimpleRecordSchema(Arrays.asList(
+                new RecordField("city", RecordFieldType.STRING.getDataType()),
+                new RecordField("accuracy", RecordFieldType.INT.getDataType()),
+                new RecordField("latitude", RecordFieldType.DOUBLE.getDataType()),
+                new RecordField("longitude", RecordFieldType.DOUBLE.getDataType()),
+                new RecordField("postalCode", RecordFieldType.STRING.getDataType()),
+                new RecordField("country", RecordFieldType.RECORD.getRecordDataType(COUNTRY_SCHEMA))));
+        private static final RecordSchema CONTAINER_SCHEMA = new SimpleRecordSchema(Collections.singletonList(
+                new RecordField("geo", RecordFieldType.RECORD.getRecordDataType(GEO_SCHEMA))));
+
+        private final AtomicInteger lookups = new AtomicInteger();
+
+        @Override
+        public Optional<Record> lookup(final Map<String, Object> coordinates) {
+            lookups.incrementAndGet();
+            if (!"1.2.3.4".equals(coordinates.get("ip"))) {
+                return Optional.empty();
+            }
+
+            final Map<String, Object> country = new HashMap<>();
+            country.put("name", "United States of America");
+            country.put("isoCode", "US");
+
+            final Map<String, Object> geo = new HashMap<>();
+            geo.put("city", "Minneapolis");
+            geo.put("accuracy", 1500);
+            geo.put("latitude", 44.98D);
+            geo.put("longitude", 93.2636D);
+            geo.put("postalCode", "55401");
+            geo.put("country", new MapRecord(COUNTRY_SCHEMA, country));
+
+            return Optional.of(new MapRecord(CONTAINER_SCHEMA, Collections.singletonMap("geo", new MapRecord(GEO_SCHEMA, geo))));
+        }
+
+        @Override
+        public Set<String> getRequiredKeys() {
+            return Collections.singleton("ip");
+        }
+    }
+
     class TestableGeoEnrichIPRecord extends GeoEnrichIPRecord {
         TestableGeoEnrichIPRecord() {}
 
         @Override
         protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
             return Collections.unmodifiableList(Arrays.asList(
-                    READER, WRITER, IP_RECORD_PATH, SPLIT_FOUND_NOT_FOUND, GEO_CITY, GEO_ACCURACY, GEO_LATITUDE, GEO_LONGITUDE, GEO_COUNTRY, GEO_COUNTRY_ISO, GEO_POSTAL_CODE
+                    IP_LOOKUP_SERVICE, READER, WRITER, IP_RECORD_PATH, SPLIT_FOUND_NOT_FOUND, GEO_CITY, GEO_ACCURACY, GEO_LATITUDE, GEO_LONGITUDE, GEO_COUNTRY,
+                    GEO_COUNTRY_ISO, GEO_POSTAL_CODE
             ));
         }
+
+        @Override
+        protected Collection<ValidationResult> customValidate(ValidationContext validationContext) {
+            // the database reader is provided by the test rather than loaded from a file
+            return Collections.emptyList();
+        }
+
         @OnScheduled
         public void onScheduled(ProcessContext context) {
+            lookupService = context.getProperty(IP_LOOKUP_SERVICE).asControllerService(RecordLookupService.class);
             databaseReaderRef.set(reader);
             readerFactory = context.getProperty(READER).asControllerService(RecordReaderFactory.class);
             writerFactory = context.getProperty(WRITER).asControllerService(RecordSetWriterFactory.class);
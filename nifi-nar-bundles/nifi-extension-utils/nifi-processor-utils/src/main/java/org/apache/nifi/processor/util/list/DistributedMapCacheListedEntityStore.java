@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processor.util.list;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.nifi.distributed.cache.client.Deserializer;
+import org.apache.nifi.distributed.cache.client.DistributedMapCacheClient;
+import org.apache.nifi.distributed.cache.client.Serializer;
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.stream.io.GZIPOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * <p>
+ * A {@link ListedEntityStore} that stores tracked entities in a {@link DistributedMapCacheClient}.
+ * </p>
+ *
+ * <p>
+ * A full snapshot of the tracked entities is stored as a single Gzipped JSON entry, using the given cache key. If a maximum number of deltas
+ * is configured, a listing that does not require a new snapshot stores only the entities it added, updated or removed, as a delta entry with
+ * key '{cacheKey}::delta::{n}'. The number of deltas that apply on top of the snapshot is stored with key '{cacheKey}::delta-count'. This keeps the cost of
+ * persisting a listing proportional to the number of changed entities rather than to the number of tracked entities. Because the deltas are stored in
+ * the same cache as the snapshot, they are visible to whichever node becomes the Primary Node. The deltas are merged into a new snapshot once the maximum
+ * number of deltas is reached, or once the deltas hold more than half as many entities as are tracked.
+ * </p>
+ *
+ * <p>
+ * Changes remain pending until they have been written, either as part of a delta or of a snapshot. If writing a delta fails, its changes are included
+ * in the next delta, so that they are not lost even though the listing that made them has already been committed.
+ * </p>
+ */
+public class DistributedMapCacheListedEntityStore implements ListedEntityStore {
+
+    private static final String DELTA_KEY_FORMAT = "%s::delta::%d";
+    private static final String DELTA_COUNT_KEY_FORMAT = "%s::delta-count";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Serializer<String> stringSerializer = (v, o) -> o.write(v.getBytes(StandardCharsets.UTF_8));
+
+    private final Deserializer<String> stringDeserializer = v -> v == null || v.length == 0 ? null : new String(v, StandardCharsets.UTF_8);
+
+    private final Serializer<Map<String, ListedEntity>> listedEntitiesSerializer = (v, o) -> {
+        final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(o);
+        objectMapper.writeValue(gzipOutputStream, v);
+        // Finish writing gzip data without closing the underlying stream.
+        gzipOutputStream.finish();
+    };
+
+    private final Deserializer<Map<String, ListedEntity>> listedEntitiesDeserializer = v -> {
+        if (v == null || v.length == 0) {
+            return null;
+        }
+        try (final GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(v))) {
+            return objectMapper.readValue(in, new TypeReference<Map<String, ListedEntity>>() {});
+        }
+    };
+
+    private final DistributedMapCacheClient mapCacheClient;
+    private final String cacheKey;
+    private final int maxDeltas;
+    private final ComponentLog logger;
+
+    /*
+     * The number of deltas currently stored on top of the snapshot, which is null until it has been retrieved from the cache,
+     * and the number of entities that those deltas hold.
+     */
+    private Integer deltaCount;
+    private long deltaEntityCount;
+
+    // The changes that have not yet been written to the cache. An identifier is either updated or removed, never both.
+    private final Map<String, ListedEntity> pendingUpdates = new HashMap<>();
+    private final Set<String> pendingRemovals = new HashSet<>();
+
+    /**
+     * @param mapCacheClient the cache to store entities in
+     * @param cacheKey the key of the snapshot entry
+     * @param maxDeltas the maximum number of deltas to store before writing a new snapshot, or 0 to write a full snapshot on every listing
+     * @param logger the logger to use
+     */
+    public DistributedMapCacheListedEntityStore(final DistributedMapCacheClient mapCacheClient, final String cacheKey, final int maxDeltas, final ComponentLog logger) {
+        this.mapCacheClient = mapCacheClient;
+        this.cacheKey = cacheKey;
+        this.maxDeltas = maxDeltas;
+        this.logger = logger;
+    }
+
+    @Override
+    public Map<String, ListedEntity> fetchListedEntities() throws IOException {
+        final Map<String, ListedEntity> snapshot = mapCacheClient.get(cacheKey, stringSerializer, listedEntitiesDeserializer);
+        logger.debug("Fetched listed entities: {}={}", new Object[]{cacheKey, snapshot});
+
+        deltaCount = fetchDeltaCount();
+        deltaEntityCount = 0;
+        clearPendingChanges();
+        if (deltaCount == 0) {
+            return snapshot;
+        }
+
+        final Map<String, ListedEntity> listedEntities = snapshot == null ? new HashMap<>() : new HashMap<>(snapshot);
+        for (int i = 1; i <= deltaCount; i++) {
+            final String deltaKey = getDeltaKey(i);
+            final Map<String, ListedEntity> delta = mapCacheClient.get(deltaKey, stringSerializer, listedEntitiesDeserializer);
+            if (delta == null) {
+                logger.warn("Listed entities delta {} was not found in cache storage; entities that it recorded may be listed again", new Object[]{deltaKey});
+                continue;
+            }
+
+            logger.debug("Fetched listed entities delta: {}={}", new Object[]{deltaKey, delta});
+            applyDelta(listedEntities, delta);
+            deltaEntityCount += delta.size();
+        }
+
+        return listedEntities;
+    }
+
+    @Override
+    public void persistListedEntities(final Map<String, ListedEntity> listedEntities, final Map<String, ListedEntity> updatedEntities,
+                                      final Collection<String> removedIdentifiers) throws IOException {
+        if (deltaCount == null) {
+            deltaCount = fetchDeltaCount();
+        }
+
+        // Merge the changes into those that are still pending from a listing whose changes could not be written
+        for (final String identifier : removedIdentifiers) {
+            pendingUpdates.remove(identifier);
+            pendingRemovals.add(identifier);
+        }
+        for (final Map.Entry<String, ListedEntity> entry : updatedEntities.entrySet()) {
+            pendingRemovals.remove(entry.getKey());
+            pendingUpdates.put(entry.getKey(), entry.getValue());
+        }
+
+        final int changeCount = pendingUpdates.size() + pendingRemovals.size();
+        if (deltaCount >= maxDeltas || deltaEntityCount + changeCount > listedEntities.size() / 2) {
+            persistSnapshot(listedEntities);
+            return;
+        }
+
+        // A removed entity is recorded with a null value, so that it is removed from the snapshot when the delta is applied.
+        final Map<String, ListedEntity> delta = new HashMap<>(changeCount);
+        pendingRemovals.forEach(identifier -> delta.put(identifier, null));
+        delta.putAll(pendingUpdates);
+
+        final int deltaIndex = deltaCount + 1;
+        final String deltaKey = getDeltaKey(deltaIndex);
+        logger.debug("Persisting listed entities delta: {}={}", new Object[]{deltaKey, delta});
+        mapCacheClient.put(deltaKey, delta, stringSerializer, listedEntitiesSerializer);
+
+        // The delta only becomes visible once the count has been updated, so a failure before this point leaves the stored entities unchanged.
+        mapCacheClient.put(getDeltaCountKey(), String.valueOf(deltaIndex), stringSerializer, stringSerializer);
+        deltaCount = deltaIndex;
+        deltaEntityCount += changeCount;
+        clearPendingChanges();
+    }
+
+    @Override
+    public void clearListedEntities() throws IOException {
+        logger.debug("Removing listed entities from cache storage: {}", new Object[]{cacheKey});
+        mapCacheClient.remove(cacheKey, stringSerializer);
+        removeDeltas(deltaCount == null ? fetchDeltaCount() : deltaCount);
+        deltaCount = 0;
+        deltaEntityCount = 0;
+        clearPendingChanges();
+    }
+
+    private void persistSnapshot(final Map<String, ListedEntity> listedEntities) throws IOException {
+        logger.debug("Persisting listed entities: {}={}", new Object[]{cacheKey, listedEntities});
+        mapCacheClient.put(cacheKey, listedEntities, stringSerializer, listedEntitiesSerializer);
+        clearPendingChanges();
+
+        // If the deltas cannot be removed, they are applied to the new snapshot when fetched. At worst, this causes some entities to be listed again.
+        if (deltaCount > 0) {
+            removeDeltas(deltaCount);
+        }
+
+        deltaCount = 0;
+        deltaEntityCount = 0;
+    }
+
+    private void removeDeltas(final int count) throws IOException {
+        if (count == 0) {
+            return;
+        }
+
+        // Reset the count before removing the deltas so that a partially removed set of deltas is never applied.
+        mapCacheClient.remove(getDeltaCountKey(), stringSerializer);
+        for (int i = 1; i <= count; i++) {
+            mapCacheClient.remove(getDeltaKey(i), stringSerializer);
+        }
+    }
+
+    private void clearPendingChanges() {
+        pendingUpdates.clear();
+        pendingRemovals.clear();
+    }
+
+    private int fetchDeltaCount() throws IOException {
+        final String count = mapCacheClient.get(getDeltaCountKey(), stringSerializer, stringDeserializer);
+        if (count == null) {
+            return 0;
+        }
+
+        try {
+            return Integer.parseInt(count);
+        } catch (final NumberFormatException e) {
+            throw new IOException("Invalid listed entities delta count stored for " + cacheKey + ": " + count, e);
+        }
+    }
+
+    private void applyDelta(final Map<String, ListedEntity> listedEntities, final Map<String, ListedEntity> delta) {
+        for (final Map.Entry<String, ListedEntity> entry : delta.entrySet()) {
+            if (entry.getValue() == null) {
+                listedEntities.remove(entry.getKey());
+            } else {
+                listedEntities.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private String getDeltaKey(final int index) {
+        return String.format(DELTA_KEY_FORMAT, cacheKey, index);
+    }
+
+    private String getDeltaCountKey() {
+        return String.format(DELTA_COUNT_KEY_FORMAT, cacheKey);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processor.util.list;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Persists the entities tracked by {@link ListedEntityTracker} so that listing can resume across NiFi restarts and Primary Node changes.
+ */
+public interface ListedEntityStore {
+
+    /**
+     * Retrieves all of the entities that have previously been persisted.
+     *
+     * @return the persisted entities keyed by identifier, or <code>null</code> if nothing has been persisted yet
+     * @throws IOException if unable to retrieve the entities
+     */
+    Map<String, ListedEntity> fetchListedEntities() throws IOException;
+
+    /**
+     * Persists the result of a listing. An implementation may choose to write all of the tracked entities, or only those that
+     * changed since the previous call to this method.
+     *
+     * @param listedEntities all of the entities that are tracked after the listing
+     * @param updatedEntities the entities that were newly found or updated by the listing, keyed by identifier
+     * @param removedIdentifiers the identifiers of the entities that are no longer tracked
+     * @throws IOException if unable to persist the entities
+     */
+    void persistListedEntities(Map<String, ListedEntity> listedEntities, Map<String, ListedEntity> updatedEntities, Collection<String> removedIdentifiers) throws IOException;
+
+    /**
+     * Removes all persisted entities.
+     *
+     * @throws IOException if unable to remove the entities
+     */
+    void clearListedEntities() throws IOException;
+}
@@ -16,16 +16,12 @@
  */
 package org.apache.nifi.processor.util.list;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.nifi.components.AllowableValue;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.components.ValidationContext;
 import org.apache.nifi.components.ValidationResult;
 import org.apache.nifi.components.state.Scope;
-import org.apache.nifi.distributed.cache.client.Deserializer;
 import org.apache.nifi.distributed.cache.client.DistributedMapCacheClient;
-import org.apache.nifi.distributed.cache.client.Serializer;
 import org.apache.nifi.expression.ExpressionLanguageScope;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.logging.ComponentLog;
@@ -38,31 +34,27 @@ import org.apache.nifi.serialization.RecordSetWriter;
 import org.apache.nifi.serialization.RecordSetWriterFactory;
 import org.apache.nifi.serialization.WriteResult;
 import org.apache.nifi.serialization.record.RecordSchema;
-import org.apache.nifi.stream.io.GZIPOutputStream;
 import org.apache.nifi.util.StringUtils;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.zip.GZIPInputStream;
 
 import static java.lang.String.format;
 import static org.apache.nifi.processor.util.list.AbstractListProcessor.REL_SUCCESS;
 
 public class ListedEntityTracker<T extends ListableEntity> {
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
     protected volatile Map<String, ListedEntity> alreadyListedEntities;
 
     private static final String NOTE = "Used by 'Tracking Entities' strategy.";
@@ -78,6 +70,7 @@ public class ListedEntityTracker<T extends ListableEntity> {
                     " E.g. cluster wide cache key = 'ListedEntities::8dda2321-0164-1000-50fa-3042fe7d6a7b'," +
                     " per node cache key = 'ListedEntities::8dda2321-0164-1000-50fa-3042fe7d6a7b::nifi-node3'" +
                     " The stored cache content is Gzipped JSON string." +
+                    " With 'Incremental' state persistence, changes are additionally stored with keys '{cacheKey}::delta::{n}' and '{cacheKey}::delta-count'." +
                     " The cache key will be deleted when target listing configuration is changed." +
                     " %s", NOTE))
             .identifiesControllerService(DistributedMapCacheClient.class)
@@ -100,6 +93,26 @@ public class ListedEntityTracker<T extends ListableEntity> {
             .defaultValue("3 hours")
             .build();
 
+    public static final AllowableValue PERSISTENCE_FULL = new AllowableValue("full", "Full Snapshot",
+            "All tracked entities are written to the cache storage as a single entry whenever a listing finds new, updated or old entities.");
+    public static final AllowableValue PERSISTENCE_INCREMENTAL = new AllowableValue("incremental", "Incremental",
+            "Only the entities that a listing added, updated or removed are written to the cache storage, as a separate delta entry." +
+            " The deltas are periodically merged into a single entry holding all tracked entities." +
+            " This greatly reduces the amount of data written per listing when a large number of entities is tracked," +
+            " at the cost of reading several entries when restoring the tracked entities.");
+
+    public static final PropertyDescriptor TRACKING_STATE_PERSISTENCE = new PropertyDescriptor.Builder()
+            .name("et-state-persistence")
+            .displayName("Entity Tracking State Persistence")
+            .description(format("Specify how listed entities are written to the 'Entity Tracking State Cache'." +
+                    " Entities that were persisted using either option can be restored using the other, so this can be changed without resetting the listing." +
+                    " Either way, all tracked entities are held in memory while the processor runs; the cache storage does not provide an on-disk index that would" +
+                    " allow entities to be looked up without loading all of them, so the heap that is used grows with the number of entities tracked within the 'Tracking Time Window'." +
+                    " %s", NOTE))
+            .allowableValues(PERSISTENCE_FULL, PERSISTENCE_INCREMENTAL)
+            .defaultValue(PERSISTENCE_FULL.getValue())
+            .build();
+
     public static final AllowableValue INITIAL_LISTING_TARGET_ALL = new AllowableValue("all", "All Available",
             "Regardless of entities timestamp, all existing entities will be listed at the initial listing activity.");
     public static final AllowableValue INITIAL_LISTING_TARGET_WINDOW = new AllowableValue("window", "Tracking Time Window",
@@ -128,35 +141,23 @@ public class ListedEntityTracker<T extends ListableEntity> {
     static final Supplier<Long> DEFAULT_CURRENT_TIMESTAMP_SUPPLIER = System::currentTimeMillis;
     private final Supplier<Long> currentTimestampSupplier;
 
-    private final Serializer<String> stringSerializer = (v, o) -> o.write(v.getBytes(StandardCharsets.UTF_8));
-
-    private final Serializer<Map<String, ListedEntity>> listedEntitiesSerializer = (v, o) -> {
-        final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(o);
-        objectMapper.writeValue(gzipOutputStream, v);
-        // Finish writing gzip data without closing the underlying stream.
-        gzipOutputStream.finish();
-    };
-
-    private final Deserializer<Map<String, ListedEntity>> listedEntitiesDeserializer = v -> {
-        if (v == null || v.length == 0) {
-            return null;
-        }
-        try (final GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(v))) {
-            return objectMapper.readValue(in, new TypeReference<Map<String, ListedEntity>>() {});
-        }
-    };
+    /**
+     * The maximum number of deltas that are written on top of a full snapshot when using 'Incremental' persistence.
+     */
+    static final int MAX_INCREMENTAL_DELTAS = 100;
 
     private final String componentId;
     private final ComponentLog logger;
     private final RecordSchema recordSchema;
 
     /*
-     * The scope, nodeId and mapCacheClient being used at the previous trackEntities method execution is captured,
-     * so that it can be used when resetListedEntities is called.
+     * The store being used at the previous trackEntities method execution is captured,
+     * so that it can be used when clearListedEntities is called.
      */
-    private Scope scope;
-    private String nodeId;
+    private ListedEntityStore listedEntityStore;
     private DistributedMapCacheClient mapCacheClient;
+    private String cacheKey;
+    private String persistence;
 
     public ListedEntityTracker(final String componentId, final ComponentLog logger, final RecordSchema recordSchema) {
         this(componentId, logger, DEFAULT_CURRENT_TIMESTAMP_SUPPLIER, recordSchema);
@@ -199,7 +200,7 @@ public class ListedEntityTracker<T extends ListableEntity> {
     }
 
     private static final String CACHE_KEY_PREFIX = "ListedEntities";
-    private String getCacheKey() {
+    private String getCacheKey(final Scope scope, final String nodeId) {
         switch (scope) {
             case LOCAL:
                 return format("%s::%s::%s", CACHE_KEY_PREFIX, componentId, nodeId);
@@ -209,25 +210,23 @@ public class ListedEntityTracker<T extends ListableEntity> {
         throw new IllegalArgumentException("Unknown scope: " + scope);
     }
 
-    private void persistListedEntities(Map<String, ListedEntity> listedEntities) throws IOException {
-        final String cacheKey = getCacheKey();
-        logger.debug("Persisting listed entities: {}={}", new Object[]{cacheKey, listedEntities});
-        mapCacheClient.put(cacheKey, listedEntities, stringSerializer, listedEntitiesSerializer);
-    }
-
-    private Map<String, ListedEntity> fetchListedEntities() throws IOException {
-        final String cacheKey = getCacheKey();
-        final Map<String, ListedEntity> listedEntities = mapCacheClient.get(cacheKey, stringSerializer, listedEntitiesDeserializer);
-        logger.debug("Fetched listed entities: {}={}", new Object[]{cacheKey, listedEntities});
-        return listedEntities;
+    /**
+     * Creates the store that listed entities are persisted to. Sub-classes can override this method to persist listed entities elsewhere.
+     *
+     * @param mapCacheClient the configured 'Entity Tracking State Cache'
+     * @param cacheKey the key identifying the listed entities of this component
+     * @param persistence the configured 'Entity Tracking State Persistence'
+     * @return the store to use
+     */
+    protected ListedEntityStore createListedEntityStore(final DistributedMapCacheClient mapCacheClient, final String cacheKey, final String persistence) {
+        final int maxDeltas = PERSISTENCE_INCREMENTAL.getValue().equals(persistence) ? MAX_INCREMENTAL_DELTAS : 0;
+        return new DistributedMapCacheListedEntityStore(mapCacheClient, cacheKey, maxDeltas, logger);
     }
 
     public void clearListedEntities() throws IOException {
         alreadyListedEntities = null;
-        if (mapCacheClient != null) {
-            final String cacheKey = getCacheKey();
-            logger.debug("Removing listed entities from cache storage: {}", new Object[]{cacheKey});
-            mapCacheClient.remove(cacheKey, stringSerializer);
+        if (listedEntityStore != null) {
+            listedEntityStore.clearListedEntities();
         }
     }
 
@@ -238,19 +237,22 @@ public class ListedEntityTracker<T extends ListableEntity> {
                               Function<T, Map<String, String>> createAttributes) throws ProcessException {
 
         boolean initialListing = false;
-        mapCacheClient = context.getProperty(TRACKING_STATE_CACHE).asControllerService(DistributedMapCacheClient.class);
-        this.scope = scope;
-        if (Scope.LOCAL.equals(scope)) {
-            nodeId = context.getProperty(ListedEntityTracker.NODE_IDENTIFIER).evaluateAttributeExpressions().getValue();
-        } else {
-            nodeId = null;
+        final DistributedMapCacheClient mapCacheClient = context.getProperty(TRACKING_STATE_CACHE).asControllerService(DistributedMapCacheClient.class);
+        final String nodeId = Scope.LOCAL.equals(scope) ? context.getProperty(ListedEntityTracker.NODE_IDENTIFIER).evaluateAttributeExpressions().getValue() : null;
+        final String cacheKey = getCacheKey(scope, nodeId);
+        final String persistence = context.getProperty(TRACKING_STATE_PERSISTENCE).getValue();
+        if (listedEntityStore == null || mapCacheClient != this.mapCacheClient || !cacheKey.equals(this.cacheKey) || !Objects.equals(persistence, this.persistence)) {
+            listedEntityStore = createListedEntityStore(mapCacheClient, cacheKey, persistence);
+            this.mapCacheClient = mapCacheClient;
+            this.cacheKey = cacheKey;
+            this.persistence = persistence;
         }
 
         if (alreadyListedEntities == null || justElectedPrimaryNode) {
             logger.info(justElectedPrimaryNode ? "Just elected as Primary node, restoring already-listed entities." : "At the first onTrigger, restoring already-listed entities.");
 
             try {
-                final Map<String, ListedEntity> fetchedListedEntities = fetchListedEntities();
+                final Map<String, ListedEntity> fetchedListedEntities = listedEntityStore.fetchListedEntities();
                 if (fetchedListedEntities == null) {
                     this.alreadyListedEntities = new ConcurrentHashMap<>();
                     initialListing = true;
@@ -330,6 +332,15 @@ public class ListedEntityTracker<T extends ListableEntity> {
             createFlowFilesForEntities(context, session, updatedEntities, createAttributes);
         }
 
+        final Map<String, ListedEntity> updatedListedEntities = new HashMap<>(updatedEntities.size());
+        for (final T updatedEntity : updatedEntities) {
+            final ListedEntity listedEntity = alreadyListedEntities.get(updatedEntity.getIdentifier());
+            if (listedEntity != null) {
+                updatedListedEntities.put(updatedEntity.getIdentifier(), listedEntity);
+            }
+        }
+        final ListedEntityStore store = listedEntityStore;
+
         // Commit ProcessSession before persisting listed entities.
         // In case persisting listed entities failure, same entities may be listed again, but better than not listing.
         session.commitAsync(() -> {
@@ -337,7 +348,7 @@ public class ListedEntityTracker<T extends ListableEntity> {
                 logger.debug("Removed old entities count: {}, Updated entities count: {}", new Object[]{oldEntityIds.size(), updatedEntities.size()});
                 logger.trace("Removed old entities: {}, Updated entities: {}", new Object[]{oldEntityIds, updatedEntities});
 
-                persistListedEntities(alreadyListedEntities);
+                store.persistListedEntities(alreadyListedEntities, updatedListedEntities, oldEntityIds);
             } catch (IOException e) {
                 throw new ProcessException("Failed to persist already-listed entities due to " + e, e);
             }
@@ -557,6 +557,7 @@ public class TestAbstractListProcessor {
             properties.add(DISTRIBUTED_CACHE_SERVICE);
             properties.add(TARGET_SYSTEM_TIMESTAMP_PRECISION);
             properties.add(ListedEntityTracker.TRACKING_STATE_CACHE);
+            properties.add(ListedEntityTracker.TRACKING_STATE_PERSISTENCE);
             properties.add(ListedEntityTracker.TRACKING_TIME_WINDOW);
             properties.add(ListedEntityTracker.INITIAL_LISTING_TARGET);
             properties.add(RESET_STATE);
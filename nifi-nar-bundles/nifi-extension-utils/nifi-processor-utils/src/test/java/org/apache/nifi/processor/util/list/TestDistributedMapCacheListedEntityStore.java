@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processor.util.list;
+
+import org.apache.nifi.controller.AbstractControllerService;
+import org.apache.nifi.distributed.cache.client.Deserializer;
+import org.apache.nifi.distributed.cache.client.DistributedMapCacheClient;
+import org.apache.nifi.distributed.cache.client.Serializer;
+import org.apache.nifi.util.MockComponentLog;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class TestDistributedMapCacheListedEntityStore {
+    private static final String CACHE_KEY = "ListedEntities::component";
+    private static final int MAX_DELTAS = 3;
+
+    private SerializingCache cache;
+    private MockComponentLog logger;
+
+    @Before
+    public void setup() {
+        cache = new SerializingCache();
+        logger = new MockComponentLog("component", this);
+    }
+
+    @Test
+    public void testFullSnapshot() throws IOException {
+        final DistributedMapCacheListedEntityStore store = new DistributedMapCacheListedEntityStore(cache, CACHE_KEY, 0, logger);
+        assertNull(store.fetchListedEntities());
+
+        final Map<String, ListedEntity> entities = createEntities("a", "b", "c");
+        store.persistListedEntities(entities, createEntities("c"), Collections.emptyList());
+        assertEquals(Collections.singleton(CACHE_KEY), cache.stored.keySet());
+
+        assertEntitiesEqual(entities, new DistributedMapCacheListedEntityStore(cache, CACHE_KEY, 0, logger).fetchListedEntities());
+    }
+
+    @Test
+    public void testIncrementalDeltas() throws IOException {
+        final DistributedMapCacheListedEntityStore store = new DistributedMapCacheListedEntityStore(cache, CACHE_KEY, MAX_DELTAS, logger);
+        assertNull(store.fetchListedEntities());
+
+        // The first listing has nothing to apply a delta to, so a snapshot is written.
+        final Map<String, ListedEntity> entities = createEntities("a", "b", "c", "d", "e", "f", "g", "h", "i", "j");
+        store.persistListedEntities(entities, new HashMap<>(entities), Collections.emptyList());
+        assertEquals(Collections.singleton(CACHE_KEY), cache.stored.keySet());
+
+        // Subsequent listings write only what changed.
+        entities.putAll(createEntities("k"));
+        store.persistListedEntities(entities, createEntities("k"), Collections.emptyList());
+        entities.remove("a");
+        entities.put("b", new ListedEntity(5L, 10L));
+        store.persistListedEntities(entities, Collections.singletonMap("b", new ListedEntity(5L, 10L)), Collections.singletonList("a"));
+
+        assertTrue(cache.stored.containsKey(CACHE_KEY + "::delta::1"));
+        assertTrue(cache.stored.containsKey(CACHE_KEY + "::delta::2"));
+        assertEquals("2", new String(cache.stored.get(CACHE_KEY + "::delta-count"), StandardCharsets.UTF_8));
+
+        // A store that starts afresh, as happens when the Primary Node changes, restores the snapshot along with the deltas.
+        final DistributedMapCacheListedEntityStore restoredStore = new DistributedMapCacheListedEntityStore(cache, CACHE_KEY, MAX_DELTAS, logger);
+        assertEntitiesEqual(entities, restoredStore.fetchListedEntities());
+
+        // So does a store that only writes full snapshots.
+        assertEntitiesEqual(entities, new DistributedMapCacheListedEntityStore(cache, CACHE_KEY, 0, logger).fetchListedEntities());
+
+        // Once the maximum number of deltas is reached, the deltas are merged into a new snapshot.
+        entities.putAll(createEntities("l"));
+        restoredStore.persistListedEntities(entities, createEntities("l"), Collections.emptyList());
+        assertTrue(cache.stored.containsKey(CACHE_KEY + "::delta::3"));
+        entities.putAll(createEntities("m"));
+        restoredStore.persistListedEntities(entities, createEntities("m"), Collections.emptyList());
+        assertEquals(Collections.singleton(CACHE_KEY), cache.stored.keySet());
+
+        assertEntitiesEqual(entities, new DistributedMapCacheListedEntityStore(cache, CACHE_KEY, MAX_DELTAS, logger).fetchListedEntities());
+    }
+
+    @Test
+    public void testLargeDeltaWritesSnapshot() throws IOException {
+        final DistributedMapCacheListedEntityStore store = new DistributedMapCacheListedEntityStore(cache, CACHE_KEY, MAX_DELTAS, logger);
+        final Map<String, ListedEntity> entities = createEntities("a", "b");
+        store.persistListedEntities(entities, new HashMap<>(entities), Collections.emptyList());
+
+        // Deltas that hold more than half of the tracked entities are not worth writing.
+        entities.putAll(createEntities("c", "d", "e"));
+        store.persistListedEntities(entities, createEntities("c", "d", "e"), Collections.emptyList());
+        assertEquals(Collections.singleton(CACHE_KEY), cache.stored.keySet());
+        assertEntitiesEqual(entities, store.fetchListedEntities());
+    }
+
+    @Test
+    public void testFailedDeltaIncludedInNextDelta() throws IOException {
+        final DistributedMapCacheListedEntityStore store = new DistributedMapCacheListedEntityStore(cache, CACHE_KEY, MAX_DELTAS, logger);
+        final Map<String, ListedEntity> entities = createEntities("a", "b", "c", "d", "e", "f", "g", "h", "i", "j");
+        store.persistListedEntities(entities, new HashMap<>(entities), Collections.emptyList());
+
+        // The listing that adds 'k' and removes 'a' has already been committed when its changes fail to be written.
+        entities.putAll(createEntities("k"));
+        entities.remove("a");
+        cache.failPuts = true;
+        assertThrows(IOException.class, () -> store.persistListedEntities(entities, createEntities("k"), Collections.singletonList("a")));
+        cache.failPuts = false;
+
+        entities.putAll(createEntities("l"));
+        store.persistListedEntities(entities, createEntities("l"), Collections.emptyList());
+        assertEquals("1", new String(cache.stored.get(CACHE_KEY + "::delta-count"), StandardCharsets.UTF_8));
+
+        assertEntitiesEqual(entities, new DistributedMapCacheListedEntityStore(cache, CACHE_KEY, MAX_DELTAS, logger).fetchListedEntities());
+    }
+
+    @Test
+    public void testClear() throws IOException {
+        final DistributedMapCacheListedEntityStore store = new DistributedMapCacheListedEntityStore(cache, CACHE_KEY, MAX_DELTAS, logger);
+        final Map<String, ListedEntity> entities = createEntities("a", "b", "c", "d");
+        store.persistListedEntities(entities, new HashMap<>(entities), Collections.emptyList());
+        entities.putAll(createEntities("e"));
+        store.persistListedEntities(entities, createEntities("e"), Collections.emptyList());
+        assertFalse(cache.stored.isEmpty());
+
+        new DistributedMapCacheListedEntityStore(cache, CACHE_KEY, MAX_DELTAS, logger).clearListedEntities();
+        assertTrue(cache.stored.isEmpty());
+        assertNull(store.fetchListedEntities());
+    }
+
+    private Map<String, ListedEntity> createEntities(final String... identifiers) {
+        final Map<String, ListedEntity> entities = new HashMap<>();
+        Arrays.stream(identifiers).forEach(identifier -> entities.put(identifier, new ListedEntity(identifier.hashCode(), identifier.length())));
+        return entities;
+    }
+
+    private void assertEntitiesEqual(final Map<String, ListedEntity> expected, final Map<String, ListedEntity> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (final Map.Entry<String, ListedEntity> entry : expected.entrySet()) {
+            assertEquals(entry.getValue().getTimestamp(), actual.get(entry.getKey()).getTimestamp());
+            assertEquals(entry.getValue().getSize(), actual.get(entry.getKey()).getSize());
+        }
+    }
+
+    /**
+     * A cache that serializes keys and values, so that the serialized form of the listed entities is exercised.
+     */
+    private static class SerializingCache extends AbstractControllerService implements DistributedMapCacheClient {
+        private final Map<String, byte[]> stored = new HashMap<>();
+        private boolean failPuts = false;
+
+        @Override
+        public <K, V> boolean putIfAbsent(final K key, final V value, final Serializer<K> keySerializer, final Serializer<V> valueSerializer) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <K, V> V getAndPutIfAbsent(final K key, final V value, final Serializer<K> keySerializer, final Serializer<V> valueSerializer,
+                                          final Deserializer<V> valueDeserializer) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <K> boolean containsKey(final K key, final Serializer<K> keySerializer) throws IOException {
+            return stored.containsKey(serialize(key, keySerializer));
+        }
+
+        @Override
+        public <K, V> void put(final K key, final V value, final Serializer<K> keySerializer, final Serializer<V> valueSerializer) throws IOException {
+            if (failPuts) {
+                throw new IOException("Intentional failure for unit test");
+            }
+
+            stored.put(serialize(key, keySerializer), serialize(value, valueSerializer).getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        @Override
+        public <K, V> V get(final K key, final Serializer<K> keySerializer, final Deserializer<V> valueDeserializer) throws IOException {
+            return valueDeserializer.deserialize(stored.get(serialize(key, keySerializer)));
+        }
+
+        @Override
+        public <K> boolean remove(final K key, final Serializer<K> serializer) throws IOException {
+            return stored.remove(serialize(key, serializer)) != null;
+        }
+
+        @Override
+        public long removeByPattern(final String regex) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private <T> String serialize(final T value, final Serializer<T> serializer) throws IOException {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            serializer.serialize(value, out);
+            return new String(out.toByteArray(), StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -46,13 +46,17 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -89,6 +93,8 @@ public class FileSystemRepository implements ContentRepository {
     public static final long MIN_CLEANUP_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(1L);
     public static final long DEFAULT_CLEANUP_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1L);
     public static final String ARCHIVE_DIR_NAME = "archive";
+    public static final String DEDUPLICATION_DIR_NAME = "deduplicated";
+    public static final String DEDUPLICATION_ENABLED = "nifi.content.repository.deduplication.enabled";
     // 100 MB cap for the configurable NiFiProperties.MAX_APPENDABLE_CLAIM_SIZE property to prevent
     // unnecessarily large resource claim files
     public static final String APPENDABLE_CLAIM_LENGTH_CAP = "100 MB";
@@ -124,6 +130,7 @@ public class FileSystemRepository implements ContentRepository {
     private final long maxArchiveMillis;
     private final Map<String, Long> minUsableContainerBytesForArchive = new HashMap<>();
     private final boolean alwaysSync;
+    private final boolean deduplicateContent;
     private final ScheduledExecutorService containerCleanupExecutor;
 
     private ResourceClaimManager resourceClaimManager; // effectively final
@@ -147,6 +154,7 @@ public class FileSystemRepository implements ContentRepository {
         archiveData = false;
         maxArchiveMillis = 0;
         alwaysSync = false;
+        deduplicateContent = false;
         containerCleanupExecutor = null;
         nifiProperties = null;
         maxAppendableClaimLength = 0;
@@ -252,6 +260,7 @@ public class FileSystemRepository implements ContentRepository {
 
         this.alwaysSync = Boolean.parseBoolean(nifiProperties.getProperty("nifi.content.repository.always.sync"));
         LOG.info("Initializing FileSystemRepository with 'Always Sync' set to {}", alwaysSync);
+        this.deduplicateContent = Boolean.parseBoolean(nifiProperties.getProperty(DEDUPLICATION_ENABLED)) && isDeduplicationSupported(containers.values());
         initializeRepository();
 
         containerCleanupExecutor = new FlowEngine(containers.size(), "Cleanup FileSystemRepository Container", true);
@@ -305,6 +314,19 @@ public class FileSystemRepository implements ContentRepository {
         return Integer.parseInt(percentage) / 100D;
     }
 
+    private static boolean isDeduplicationSupported(final Collection<Path> containerPaths) throws IOException {
+        // Deduplicated content is shared through hard links, and the link count of a file tells whether content still references it
+        for (final Path containerPath : containerPaths) {
+            if (!Files.getFileStore(containerPath).supportsFileAttributeView("unix")) {
+                LOG.warn("Content deduplication is enabled but the file system of {} does not support hard link counts; will not deduplicate content", containerPath);
+                return false;
+            }
+        }
+
+        LOG.info("Initializing FileSystemRepository with content deduplication enabled");
+        return true;
+    }
+
     private synchronized void initializeRepository() throws IOException {
         final Map<String, Path> realPathMap = new HashMap<>();
         final ExecutorService executor = Executors.newFixedThreadPool(containers.size());
@@ -464,7 +486,7 @@ public class FileSystemRepository implements ContentRepository {
         if (Files.isDirectory(fileToRemove)) {
             final Path lastPathName = fileToRemove.subpath(1, fileToRemove.getNameCount());
             final String fileName = lastPathName.toFile().getName();
-            if (fileName.equals(ARCHIVE_DIR_NAME)) {
+            if (fileName.equals(ARCHIVE_DIR_NAME) || fileName.equals(DEDUPLICATION_DIR_NAME)) {
                 return;
             }
 
@@ -651,7 +673,8 @@ public class FileSystemRepository implements ContentRepository {
             // and when we call create(), it will remove it from the Queue, which means that no other
             // thread will get the same Claim until we've finished writing to it.
             final File file = getPath(resourceClaim).toFile();
-            ByteCountingOutputStream claimStream = new SynchronizedByteCountingOutputStream(new FileOutputStream(file, true), file.length());
+            final FileOutputStream fileOut = deduplicateContent ? new DigestingFileOutputStream(file) : new FileOutputStream(file, true);
+            ByteCountingOutputStream claimStream = new SynchronizedByteCountingOutputStream(fileOut, file.length());
             writableClaimStreams.put(resourceClaim, claimStream);
 
             incrementClaimantCount(resourceClaim, true);
@@ -1296,10 +1319,13 @@ public class FileSystemRepository implements ContentRepository {
                 // If so, then we call poll() to remove it
                 if (freed < toFree || getLastModTime(toDelete.toPath()) < removalTimeThreshold) {
                     toDelete = fileQueue.poll(); // remove the head of the queue, which is already stored in 'toDelete'
+
+                    // Deleting deduplicated content that is still shared, other than through the deduplication directory, does not free any space
+                    final boolean shared = deduplicateContent && Files.exists(toDelete.toPath()) && getLinkCount(toDelete.toPath()) > 2;
                     Files.deleteIfExists(toDelete.toPath());
                     containerState.decrementArchiveCount();
                     LOG.debug("Deleted archived ContentClaim with ID {} from Container {} because the archival size was exceeding the max configured size", toDelete.getName(), containerName);
-                    freed += fileSize;
+                    freed += shared ? 0L : fileSize;
                     deleteCount++;
                 }
 
@@ -1459,6 +1485,88 @@ public class FileSystemRepository implements ContentRepository {
         return oldestContainerArchive;
     }
 
+    private Path getDeduplicatedPath(final String containerName, final String contentHash) {
+        return containers.get(containerName).resolve(DEDUPLICATION_DIR_NAME).resolve(contentHash.substring(0, 2)).resolve(contentHash);
+    }
+
+    /**
+     * Shares the content of a Resource Claim that will no longer be written to with identical content that is already stored. Each distinct content is linked
+     * from the deduplication directory of its container, under the name of its SHA-256 hash. If content with the same hash is already linked there, the file
+     * of the Resource Claim is replaced with another link to it, so that only a single copy is stored. The Resource Claim's file remains an ordinary file
+     * that is read, archived and destroyed as before; the file system's link count keeps track of how many Resource Claims, including archived ones,
+     * share the content.
+     */
+    private void deduplicate(final ResourceClaim resourceClaim, final DigestingFileOutputStream claimFileStream) {
+        final Path claimPath = getPath(resourceClaim);
+        try {
+            if (claimFileStream.getBytesDigested() != Files.size(claimPath)) {
+                LOG.debug("Will not deduplicate {} because not all of its content was written by this stream", resourceClaim);
+                return;
+            }
+
+            final Path deduplicatedPath = getDeduplicatedPath(resourceClaim.getContainer(), claimFileStream.getContentHash());
+            Files.createDirectories(deduplicatedPath.getParent());
+            try {
+                Files.createLink(deduplicatedPath, claimPath);
+                LOG.debug("Content of {} is not stored yet; linked it as {}", resourceClaim, deduplicatedPath);
+            } catch (final FileAlreadyExistsException faee) {
+                if (Files.size(deduplicatedPath) != Files.size(claimPath)) {
+                    LOG.warn("Will not deduplicate {} because {} has the same hash but a different size", resourceClaim, deduplicatedPath);
+                    return;
+                }
+
+                // Replace the file atomically so that readers always find either the written copy or the shared one
+                final Path linkPath = claimPath.resolveSibling(resourceClaim.getId() + ".link");
+                Files.createLink(linkPath, deduplicatedPath);
+                Files.move(linkPath, claimPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                LOG.debug("Replaced content of {} with a link to identical content {}", resourceClaim, deduplicatedPath);
+            }
+        } catch (final IOException | UnsupportedOperationException e) {
+            LOG.warn("Failed to deduplicate content of {} due to {}", resourceClaim, e.toString());
+        }
+    }
+
+    private int getLinkCount(final Path path) throws IOException {
+        return (Integer) Files.getAttribute(path, "unix:nlink");
+    }
+
+    /**
+     * Removes the links from the deduplication directory to content that is no longer referenced by any Resource Claim or archived file. Until then, the
+     * space of content that is destroyed or expired from the archive is not actually freed.
+     */
+    // visible for testing
+    void destroyUnreferencedDeduplicatedContent(final String containerName, final Path containerPath) {
+        final Path deduplicationPath = containerPath.resolve(DEDUPLICATION_DIR_NAME);
+        if (!Files.exists(deduplicationPath)) {
+            return;
+        }
+
+        final AtomicLong filesDeleted = new AtomicLong(0L);
+        final AtomicLong bytesDeleted = new AtomicLong(0L);
+        try {
+            Files.walkFileTree(deduplicationPath, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                    if (getLinkCount(file) <= 1 && Files.deleteIfExists(file)) {
+                        filesDeleted.incrementAndGet();
+                        bytesDeleted.addAndGet(attrs.size());
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (final IOException ioe) {
+            LOG.warn("Failed to cleanup deduplicated content in {} due to {}", deduplicationPath, ioe.toString());
+            if (LOG.isDebugEnabled()) {
+                LOG.warn("", ioe);
+            }
+        }
+
+        if (filesDeleted.get() > 0) {
+            LOG.debug("Deleted {} files ({}) of deduplicated content from Container {} because no content references them anymore",
+                    filesDeleted.get(), FormatUtils.formatDataSize(bytesDeleted.get()), containerName);
+        }
+    }
+
     private class ArchiveOrDestroyDestructableClaims implements Runnable {
 
         @Override
@@ -1570,6 +1678,10 @@ public class FileSystemRepository implements ContentRepository {
         @Override
         public void run() {
             try {
+                if (deduplicateContent) {
+                    destroyUnreferencedDeduplicatedContent(containerName, containerPath);
+                }
+
                 if (oldestArchiveDate.get() > System.currentTimeMillis() - maxArchiveMillis) {
                     final Long minRequiredSpace = minUsableContainerBytesForArchive.get(containerName);
                     if (minRequiredSpace == null) {
@@ -1591,6 +1703,10 @@ public class FileSystemRepository implements ContentRepository {
 
                 try {
                     oldestContainerArchive = destroyExpiredArchives(containerName, containerPath);
+                    if (deduplicateContent) {
+                        // Free the space of deduplicated content whose last archived copy was just deleted
+                        destroyUnreferencedDeduplicatedContent(containerName, containerPath);
+                    }
 
                     final ContainerState containerState = containerStateMap.get(containerName);
                     containerState.signalCreationReady(); // indicate that we've finished cleaning up the archive.
@@ -1896,6 +2012,56 @@ public class FileSystemRepository implements ContentRepository {
         }
     }
 
+    /**
+     * Computes the SHA-256 hash of the content of a Resource Claim while it is written, so that it can be deduplicated without being read back.
+     */
+    private static class DigestingFileOutputStream extends FileOutputStream {
+        private final MessageDigest digest;
+        private long bytesDigested = 0L;
+
+        DigestingFileOutputStream(final File file) throws IOException {
+            super(file, true);
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (final NoSuchAlgorithmException e) {
+                super.close();
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            super.write(b);
+            digest.update((byte) b);
+            bytesDigested++;
+        }
+
+        @Override
+        public void write(final byte[] b) throws IOException {
+            write(b, 0, b.length);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            super.write(b, off, len);
+            digest.update(b, off, len);
+            bytesDigested += len;
+        }
+
+        long getBytesDigested() {
+            return bytesDigested;
+        }
+
+        String getContentHash() {
+            final byte[] hash = digest.digest();
+            final StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (final byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        }
+    }
+
     protected class ContentRepositoryOutputStream extends OutputStream {
         protected final StandardContentClaim scc;
 
@@ -2036,6 +2202,11 @@ public class FileSystemRepository implements ContentRepository {
 
                 bcos.close();
                 LOG.debug("Claim lenth >= max; Closing {}", this);
+
+                // The resource claim will not be written to again, so its content can be shared with identical content
+                if (recycle && bcos.getWrappedStream() instanceof DigestingFileOutputStream) {
+                    deduplicate(scc.getResourceClaim(), (DigestingFileOutputStream) bcos.getWrappedStream());
+                }
                 if (LOG.isTraceEnabled()) {
                     LOG.trace("Stack trace: ", new RuntimeException("Stack Trace for closing " + this));
                 }
@@ -0,0 +1,469 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.state.providers.local;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.components.state.Scope;
+import org.apache.nifi.components.state.StateMap;
+import org.apache.nifi.components.state.StateProviderInitializationContext;
+import org.apache.nifi.controller.state.StandardStateMap;
+import org.apache.nifi.controller.state.StateMapSerDe;
+import org.apache.nifi.controller.state.StateMapUpdate;
+import org.apache.nifi.controller.state.providers.AbstractStateProvider;
+import org.apache.nifi.processor.util.StandardValidators;
+import org.apache.nifi.rocksdb.RocksDBMetronome;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wali.MinimalLockingWriteAheadLog;
+import org.wali.UpdateType;
+import org.wali.WriteAheadRepository;
+
+/**
+ * Provides state management for local (standalone) state, backed by RocksDB. Each key of a component's state is stored as a separate
+ * entry, alongside an entry that holds the version of the component's state. An update writes the new version and only those keys
+ * that were added, changed or removed, as a single atomic batch, and updates to different components do not contend with one another.
+ * Unless Always Sync is enabled, the RocksDB write-ahead log is synchronized to disk periodically rather than on each update;
+ * when it is enabled, RocksDB synchronizes the updates that are made concurrently by different components together.
+ */
+public class RocksDBLocalStateProvider extends AbstractStateProvider {
+    private static final Logger logger = LoggerFactory.getLogger(RocksDBLocalStateProvider.class);
+
+    private static final StateMap EMPTY_STATE = new StandardStateMap(Collections.emptyMap(), -1L);
+
+    private final StateMapSerDe serde = new StateMapSerDe();
+    private final ConcurrentMap<String, ComponentProvider> componentProviders = new ConcurrentHashMap<>();
+
+    static final PropertyDescriptor PATH = new PropertyDescriptor.Builder()
+        .name("Directory")
+        .description("The directory where the Provider should store its data")
+        .addValidator(StandardValidators.NON_EMPTY_VALIDATOR)
+        .defaultValue("./state/local-rocksdb")
+        .required(true)
+        .build();
+
+    static final PropertyDescriptor ALWAYS_SYNC = new PropertyDescriptor.Builder()
+        .name("Always Sync")
+        .description("If set to true, a change to the state of a component will not complete until it has been synchronized to the disk. Changes that are made at the same " +
+                "time by different components are synchronized together. If it is false, changes are synchronized to the disk every Sync Period, and the changes made since " +
+                "the last synchronization could be lost if either there is a sudden power loss or the operating system crashes. The default value is false.")
+        .allowableValues("true", "false")
+        .defaultValue("false")
+        .required(true)
+        .build();
+
+    static final PropertyDescriptor SYNC_PERIOD = new PropertyDescriptor.Builder()
+        .name("Sync Period")
+        .description("The amount of time between synchronizations of the changes to components' state to the disk, when Always Sync is false.")
+        .addValidator(StandardValidators.TIME_PERIOD_VALIDATOR)
+        .defaultValue("10 millis")
+        .required(true)
+        .build();
+
+    static final PropertyDescriptor WRITE_AHEAD_LOG_PATH = new PropertyDescriptor.Builder()
+        .name("Write-Ahead Log Directory")
+        .description("The Directory of a Write-Ahead Local State Provider from which to import components' state. The state is imported only if this Provider does not " +
+                "yet hold any state, so that state can be migrated from a Write-Ahead Local State Provider by setting this property to its Directory the first time " +
+                "this Provider is used. The Write-Ahead Log itself is not modified.")
+        .addValidator(StandardValidators.NON_EMPTY_VALIDATOR)
+        .required(false)
+        .build();
+
+    private volatile boolean alwaysSync;
+    private RocksDBMetronome db;
+    private AtomicLong versionGenerator;
+
+    @Override
+    public synchronized void init(final StateProviderInitializationContext context) throws IOException {
+        alwaysSync = context.getProperty(ALWAYS_SYNC).asBoolean();
+        final long syncMillis = context.getProperty(SYNC_PERIOD).asTimePeriod(TimeUnit.MILLISECONDS);
+
+        final File basePath = new File(context.getProperty(PATH).getValue());
+        if (!basePath.exists() && !basePath.mkdirs()) {
+            throw new RuntimeException("Cannot Initialize Local State Provider because the 'Directory' property is set to \"" + basePath + "\", but that directory could not be created");
+        }
+
+        if (!basePath.isDirectory()) {
+            throw new RuntimeException("Cannot Initialize Local State Provider because the 'Directory' property is set to \"" + basePath + "\", but that is a file, rather than a directory");
+        }
+
+        if (!basePath.canWrite()) {
+            throw new RuntimeException("Cannot Initialize Local State Provider because the 'Directory' property is set to \"" + basePath + "\", but that directory cannot be written to");
+        }
+
+        if (!basePath.canRead()) {
+            throw new RuntimeException("Cannot Initialize Local State Provider because the 'Directory' property is set to \"" + basePath + "\", but that directory cannot be read");
+        }
+
+        // Components' state is small, so there is no need for the large write buffers that suit the FlowFile Repository
+        db = new RocksDBMetronome.Builder()
+            .setStoragePath(basePath.toPath())
+            .setPeriodicSyncEnabled(!alwaysSync)
+            .setSyncMillis(Math.max(1L, syncMillis))
+            .setWriteBufferSize(8 * 1024 * 1024)
+            .setParallelThreads(2)
+            .build();
+        db.initialize();
+
+        versionGenerator = new AtomicLong(-1L);
+        long maxRecordVersion = -1L;
+
+        // The entries of a component are contiguous, beginning with the entry that holds the version of its state
+        try (final RocksIterator iterator = db.getIterator()) {
+            String componentId = null;
+            long version = -1L;
+            Map<String, String> state = null;
+
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                final StateKey stateKey = StateKey.parse(iterator.key());
+                if (stateKey.isVersion()) {
+                    if (componentId != null) {
+                        componentProviders.put(componentId, new ComponentProvider(componentId, new StandardStateMap(state, version)));
+                    }
+
+                    componentId = stateKey.getComponentId();
+                    version = RocksDBMetronome.readLong(iterator.value());
+                    state = new HashMap<>();
+                    if (version > maxRecordVersion) {
+                        maxRecordVersion = version;
+                    }
+                } else if (stateKey.getComponentId().equals(componentId)) {
+                    state.put(stateKey.getKey(), decodeValue(iterator.value()));
+                } else {
+                    logger.warn("Ignoring state entry for component {} because no version was found for its state", stateKey.getComponentId());
+                }
+            }
+
+            if (componentId != null) {
+                componentProviders.put(componentId, new ComponentProvider(componentId, new StandardStateMap(state, version)));
+            }
+        }
+
+        final String writeAheadLogPath = context.getProperty(WRITE_AHEAD_LOG_PATH).getValue();
+        if (componentProviders.isEmpty() && writeAheadLogPath != null) {
+            maxRecordVersion = importWriteAheadLog(new File(writeAheadLogPath));
+        }
+
+        // As with the Write-Ahead Local State Provider, the version generator is only set once all of the state has been recovered.
+        versionGenerator.set(maxRecordVersion);
+    }
+
+    private long importWriteAheadLog(final File writeAheadLogPath) throws IOException {
+        if (!writeAheadLogPath.isDirectory()) {
+            logger.warn("Will not import state from the Write-Ahead Log at {} because it is not a directory", writeAheadLogPath);
+            return -1L;
+        }
+
+        final WriteAheadRepository<StateMapUpdate> writeAheadLog = new MinimalLockingWriteAheadLog<>(writeAheadLogPath.toPath(), 16, serde, null);
+        long maxRecordVersion = -1L;
+        try {
+            final Collection<StateMapUpdate> updates = writeAheadLog.recoverRecords();
+            for (final StateMapUpdate update : updates) {
+                if (update.getUpdateType() == UpdateType.DELETE) {
+                    continue;
+                }
+
+                final long recordVersion = update.getStateMap().getVersion();
+                if (recordVersion > maxRecordVersion) {
+                    maxRecordVersion = recordVersion;
+                }
+
+                final ComponentProvider componentProvider = new ComponentProvider(update.getComponentId(), EMPTY_STATE);
+                componentProvider.update(update.getStateMap());
+                componentProviders.put(update.getComponentId(), componentProvider);
+            }
+
+            db.forceSync();
+        } catch (final RocksDBException e) {
+            throw new IOException("Failed to sync the state imported from the Write-Ahead Log at " + writeAheadLogPath, e);
+        } finally {
+            writeAheadLog.shutdown();
+        }
+
+        logger.info("Imported the state of {} components from the Write-Ahead Log at {}", componentProviders.size(), writeAheadLogPath);
+        return maxRecordVersion;
+    }
+
+    @Override
+    public List<PropertyDescriptor> getSupportedPropertyDescriptors() {
+        final List<PropertyDescriptor> properties = new ArrayList<>();
+        properties.add(PATH);
+        properties.add(ALWAYS_SYNC);
+        properties.add(SYNC_PERIOD);
+        properties.add(WRITE_AHEAD_LOG_PATH);
+        return properties;
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        if (db == null) {
+            return;
+        }
+
+        try {
+            db.forceSync();
+        } catch (final Exception e) {
+            logger.warn("Failed to sync the state of components to disk while shutting down {}", this, e);
+        }
+
+        try {
+            db.close();
+        } catch (final IOException ioe) {
+            logger.warn("Failed to shut down {} successfully due to {}", this, ioe.toString());
+            logger.warn("", ioe);
+        }
+    }
+
+    private ComponentProvider getProvider(final String componentId) {
+        return componentProviders.computeIfAbsent(componentId, id -> new ComponentProvider(id, EMPTY_STATE));
+    }
+
+    @Override
+    public StateMap getState(final String componentId) throws IOException {
+        return getProvider(componentId).getState();
+    }
+
+    @Override
+    public void setState(final Map<String, String> state, final String componentId) throws IOException {
+        getProvider(componentId).setState(state);
+    }
+
+    @Override
+    public boolean replace(final StateMap oldValue, final Map<String, String> newValue, final String componentId) throws IOException {
+        return getProvider(componentId).replace(oldValue, newValue);
+    }
+
+    @Override
+    public void clear(final String componentId) throws IOException {
+        getProvider(componentId).clear();
+    }
+
+    @Override
+    public void onComponentRemoved(final String componentId) throws IOException {
+        final ComponentProvider componentProvider = componentProviders.remove(componentId);
+        if (componentProvider != null) {
+            componentProvider.remove();
+        }
+    }
+
+    @Override
+    public Scope[] getSupportedScopes() {
+        return new Scope[]{Scope.LOCAL};
+    }
+
+    private static byte[] encodeValue(final String value) {
+        if (value == null) {
+            return new byte[] {0};
+        }
+
+        final byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        final byte[] encoded = new byte[valueBytes.length + 1];
+        encoded[0] = 1;
+        System.arraycopy(valueBytes, 0, encoded, 1, valueBytes.length);
+        return encoded;
+    }
+
+    private static String decodeValue(final byte[] encoded) {
+        if (encoded[0] == 0) {
+            return null;
+        }
+
+        return new String(encoded, 1, encoded.length - 1, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The RocksDB key of an entry of a component's state. A key consists of the length of the component's identifier, the identifier itself,
+     * and then either a single byte of 0 for the entry that holds the version of the component's state, or a byte of 1 followed by the key
+     * of the state entry. The key of a state entry is itself preceded by a byte of 1, so that a {@code null} key, which is written as
+     * nothing at all, does not collide with an empty one.
+     */
+    private static class StateKey {
+        private static final byte VERSION = 0;
+        private static final byte ENTRY = 1;
+
+        private final String componentId;
+        private final boolean version;
+        private final String key;
+
+        private StateKey(final String componentId, final boolean version, final String key) {
+            this.componentId = componentId;
+            this.version = version;
+            this.key = key;
+        }
+
+        public String getComponentId() {
+            return componentId;
+        }
+
+        public boolean isVersion() {
+            return version;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public static byte[] prefix(final String componentId) {
+            final byte[] componentIdBytes = componentId.getBytes(StandardCharsets.UTF_8);
+            return ByteBuffer.allocate(4 + componentIdBytes.length).putInt(componentIdBytes.length).put(componentIdBytes).array();
+        }
+
+        public static byte[] versionKey(final byte[] prefix) {
+            final byte[] versionKey = Arrays.copyOf(prefix, prefix.length + 1);
+            versionKey[prefix.length] = VERSION;
+            return versionKey;
+        }
+
+        public static byte[] entryKey(final byte[] prefix, final String key) {
+            final byte[] keyBytes = key == null ? new byte[0] : key.getBytes(StandardCharsets.UTF_8);
+            final int keyLength = key == null ? 0 : keyBytes.length + 1;
+            final ByteBuffer buffer = ByteBuffer.allocate(prefix.length + 1 + keyLength).put(prefix).put(ENTRY);
+            if (key != null) {
+                buffer.put(ENTRY).put(keyBytes);
+            }
+            return buffer.array();
+        }
+
+        public static StateKey parse(final byte[] bytes) {
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            final int componentIdLength = buffer.getInt();
+            final String componentId = new String(bytes, 4, componentIdLength, StandardCharsets.UTF_8);
+            buffer.position(4 + componentIdLength);
+
+            if (buffer.get() == VERSION) {
+                return new StateKey(componentId, true, null);
+            }
+
+            if (!buffer.hasRemaining()) {
+                return new StateKey(componentId, false, null);
+            }
+
+            buffer.get();
+            return new StateKey(componentId, false, new String(bytes, buffer.position(), buffer.remaining(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private class ComponentProvider {
+        private final String componentId;
+        private final byte[] prefix;
+        private final byte[] versionKey;
+
+        private StateMap stateMap;
+
+        public ComponentProvider(final String componentId, final StateMap stateMap) {
+            this.componentId = componentId;
+            this.prefix = StateKey.prefix(componentId);
+            this.versionKey = StateKey.versionKey(prefix);
+            this.stateMap = stateMap;
+        }
+
+        public synchronized StateMap getState() {
+            return stateMap;
+        }
+
+        // synchronized because we need to ensure that the update of state in RocksDB and the update of the local stateMap variable are atomic.
+        public synchronized void setState(final Map<String, String> state) throws IOException {
+            // copy the state, as the caller may go on to modify it, and the entries that are persisted are determined by comparison with it
+            update(new StandardStateMap(new HashMap<>(state), versionGenerator.incrementAndGet()));
+        }
+
+        // see above explanation as to why this method is synchronized.
+        public synchronized boolean replace(final StateMap oldValue, final Map<String, String> newValue) throws IOException {
+            if (stateMap.getVersion() == -1L) {
+                // state has never been set so return false
+                return false;
+            }
+
+            if (stateMap != oldValue) {
+                return false;
+            }
+
+            update(new StandardStateMap(new HashMap<>(newValue), versionGenerator.incrementAndGet()));
+            return true;
+        }
+
+        public synchronized void clear() throws IOException {
+            update(new StandardStateMap(null, versionGenerator.incrementAndGet()));
+        }
+
+        public synchronized void remove() throws IOException {
+            try (final WriteBatch batch = new WriteBatch()) {
+                batch.delete(versionKey);
+                for (final String key : stateMap.toMap().keySet()) {
+                    batch.delete(StateKey.entryKey(prefix, key));
+                }
+
+                db.write(batch, alwaysSync);
+            } catch (final RocksDBException e) {
+                throw new IOException("Failed to remove the state of component " + componentId, e);
+            }
+        }
+
+        /**
+         * Writes the version of the updated state, along with those of its entries that differ from the current state, and
+         * deletes the entries that are no longer present, so that the amount written depends on how much of the state has changed.
+         */
+        private void update(final StateMap updatedStateMap) throws IOException {
+            final Map<String, String> currentState = stateMap.toMap();
+            final Map<String, String> updatedState = updatedStateMap.toMap();
+
+            try (final WriteBatch batch = new WriteBatch()) {
+                batch.put(versionKey, RocksDBMetronome.getBytes(updatedStateMap.getVersion()));
+
+                for (final Map.Entry<String, String> entry : updatedState.entrySet()) {
+                    final String key = entry.getKey();
+                    final String value = entry.getValue();
+                    if (!Objects.equals(value, currentState.get(key)) || !currentState.containsKey(key)) {
+                        batch.put(StateKey.entryKey(prefix, key), encodeValue(value));
+                    }
+                }
+
+                for (final String key : currentState.keySet()) {
+                    if (!updatedState.containsKey(key)) {
+                        batch.delete(StateKey.entryKey(prefix, key));
+                    }
+                }
+
+                db.write(batch, alwaysSync);
+            } catch (final RocksDBException e) {
+                throw new IOException("Failed to update the state of component " + componentId, e);
+            }
+
+            stateMap = updatedStateMap;
+        }
+    }
+}
@@ -56,6 +56,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
@@ -342,6 +343,95 @@ public class TestFileSystemRepository {
         assertFalse(Files.exists(claimPath));
     }
 
+    @Test
+    public void testDuplicateContentStoredOnce() throws IOException {
+        repository.shutdown();
+        final NiFiProperties deduplicatingProperties = NiFiProperties.createBasicNiFiProperties(TestFileSystemRepository.class.getResource("/conf/nifi.properties").getFile(),
+                Collections.singletonMap(FileSystemRepository.DEDUPLICATION_ENABLED, "true"));
+        repository = new FileSystemRepository(deduplicatingProperties);
+        repository.initialize(new StandardContentRepositoryContext(claimManager, EventReporter.NO_OP));
+
+        final int maxClaimLength = DataUnit.parseDataSize(nifiProperties.getMaxAppendableClaimSize(), DataUnit.B).intValue();
+        final byte[] content = new byte[maxClaimLength + 10];
+        new Random(1L).nextBytes(content);
+        final byte[] otherContent = Arrays.copyOf(content, content.length);
+        otherContent[0]++;
+
+        final ContentClaim claim1 = writeClaim(content);
+        final ContentClaim claim2 = writeClaim(content);
+        final ContentClaim claim3 = writeClaim(otherContent);
+
+        assertNotSame(claim1.getResourceClaim(), claim2.getResourceClaim());
+        assertTrue(Files.isSameFile(getPath(claim1), getPath(claim2)));
+        assertFalse(Files.isSameFile(getPath(claim1), getPath(claim3)));
+        assertArrayEquals(content, readClaim(claim1));
+        assertArrayEquals(content, readClaim(claim2));
+        assertArrayEquals(otherContent, readClaim(claim3));
+
+        // Stored content is destroyed once no claim references it anymore
+        final Path containerPath = getPath(claim1).getParent().getParent();
+        final Path deduplicationPath = containerPath.resolve(FileSystemRepository.DEDUPLICATION_DIR_NAME);
+        assertEquals(2, countFiles(deduplicationPath));
+
+        removeClaim(claim1);
+        repository.destroyUnreferencedDeduplicatedContent("default", containerPath);
+        assertEquals(2, countFiles(deduplicationPath));
+        assertArrayEquals(content, readClaim(claim2));
+
+        removeClaim(claim2);
+        removeClaim(claim3);
+        repository.destroyUnreferencedDeduplicatedContent("default", containerPath);
+        assertEquals(0, countFiles(deduplicationPath));
+    }
+
+    @Test
+    public void testSmallContentNotDeduplicated() throws IOException {
+        repository.shutdown();
+        final NiFiProperties deduplicatingProperties = NiFiProperties.createBasicNiFiProperties(TestFileSystemRepository.class.getResource("/conf/nifi.properties").getFile(),
+                Collections.singletonMap(FileSystemRepository.DEDUPLICATION_ENABLED, "true"));
+        repository = new FileSystemRepository(deduplicatingProperties);
+        repository.initialize(new StandardContentRepositoryContext(claimManager, EventReporter.NO_OP));
+
+        final ContentClaim claim1 = writeClaim("Hello".getBytes(StandardCharsets.UTF_8));
+        final ContentClaim claim2 = writeClaim("Hello".getBytes(StandardCharsets.UTF_8));
+
+        // Resource claims that are still appended to are never shared
+        assertEquals(claim1.getResourceClaim(), claim2.getResourceClaim());
+        assertFalse(Files.exists(getPath(claim1).getParent().getParent().resolve(FileSystemRepository.DEDUPLICATION_DIR_NAME)));
+        assertEquals("Hello", new String(readClaim(claim2), StandardCharsets.UTF_8));
+    }
+
+    private void removeClaim(final ContentClaim claim) {
+        assertEquals(0, repository.decrementClaimantCount(claim));
+        assertTrue(repository.remove(claim));
+    }
+
+    private ContentClaim writeClaim(final byte[] content) throws IOException {
+        final ContentClaim claim = repository.create(false);
+        try (final OutputStream out = repository.write(claim)) {
+            out.write(content);
+        }
+        return claim;
+    }
+
+    private byte[] readClaim(final ContentClaim claim) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (final InputStream in = repository.read(claim)) {
+            StreamUtils.copy(in, baos);
+        }
+        return baos.toByteArray();
+    }
+
+    private long countFiles(final Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return 0;
+        }
+
+        try (final Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile).count();
+        }
+    }
+
     private Path getPath(final ContentClaim claim) {
         try {
             final Method m = repository.getClass().getDeclaredMethod("getPath", ContentClaim.class);
@@ -0,0 +1,278 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.state.providers.local;
+
+import org.apache.commons.lang3.SystemUtils;
+import org.apache.nifi.attribute.expression.language.StandardPropertyValue;
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.components.PropertyValue;
+import org.apache.nifi.components.state.StateMap;
+import org.apache.nifi.components.state.StateProvider;
+import org.apache.nifi.components.state.StateProviderInitializationContext;
+import org.apache.nifi.controller.state.providers.AbstractTestStateProvider;
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.parameter.ParameterLookup;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestRocksDBLocalStateProvider extends AbstractTestStateProvider {
+    private String directory;
+    private StateProvider provider;
+
+    @BeforeClass
+    public static void setupClass() {
+        Assume.assumeTrue("Test only runs on *nix", !SystemUtils.IS_OS_WINDOWS);
+    }
+
+    @Before
+    public void setup() throws IOException {
+        directory = "target/rocksdb-local-state-provider/" + UUID.randomUUID().toString();
+        provider = createRocksDBProvider(directory, false, null);
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        provider.onComponentRemoved(componentId);
+        provider.shutdown();
+    }
+
+    @Override
+    protected StateProvider getProvider() {
+        return provider;
+    }
+
+    @Test
+    public void testStateRecoveredOnRestart() throws IOException {
+        provider.setState(Collections.singletonMap("abc", "xyz"), componentId);
+        provider.setState(Collections.singletonMap("abc", "123"), "other-component");
+        provider.setState(Collections.singletonMap("def", "456"), "other-component");
+        provider.setState(Collections.singletonMap("ghi", "789"), "removed-component");
+        provider.onComponentRemoved("removed-component");
+        final long version = provider.getState("other-component").getVersion();
+        provider.shutdown();
+
+        provider = createRocksDBProvider(directory, false, null);
+
+        assertEquals(Collections.singletonMap("abc", "xyz"), provider.getState(componentId).toMap());
+        final StateMap otherState = provider.getState("other-component");
+        assertEquals(Collections.singletonMap("def", "456"), otherState.toMap());
+        assertEquals(version, otherState.getVersion());
+        assertEquals(-1L, provider.getState("removed-component").getVersion());
+
+        // versions continue from those that were recovered
+        provider.setState(Collections.singletonMap("abc", "uvw"), componentId);
+        assertTrue(provider.getState(componentId).getVersion() > version);
+    }
+
+    @Test
+    public void testChangedEntriesRecoveredOnRestart() throws IOException {
+        final Map<String, String> state = new HashMap<>();
+        state.put("abc", "xyz");
+        state.put("def", "123");
+        state.put("ghi", "456");
+        state.put("", "empty");
+        provider.setState(state, componentId);
+
+        state.put("abc", "uvw");
+        state.remove("def");
+        state.put("jkl", null);
+        state.put(null, "no key");
+        provider.setState(state, componentId);
+        assertTrue(provider.replace(provider.getState(componentId), state, componentId));
+        provider.setState(Collections.singletonMap("abc", "xyz"), "cleared-component");
+        provider.clear("cleared-component");
+        final StateMap expected = provider.getState(componentId);
+        provider.shutdown();
+
+        provider = createRocksDBProvider(directory, false, null);
+
+        final StateMap recovered = provider.getState(componentId);
+        assertEquals(state, recovered.toMap());
+        assertEquals(expected.getVersion(), recovered.getVersion());
+        assertTrue(provider.getState("cleared-component").toMap().isEmpty());
+        assertTrue(provider.getState("cleared-component").getVersion() > -1L);
+    }
+
+    @Test
+    public void testAlwaysSync() throws IOException {
+        provider.shutdown();
+        provider = createRocksDBProvider(directory, true, null);
+
+        provider.setState(Collections.singletonMap("abc", "xyz"), componentId);
+        assertTrue(provider.replace(provider.getState(componentId), Collections.singletonMap("abc", "123"), componentId));
+        assertEquals(Collections.singletonMap("abc", "123"), provider.getState(componentId).toMap());
+    }
+
+    @Test
+    public void testImportFromWriteAheadLog() throws IOException {
+        final String writeAheadLogDirectory = "target/local-state-provider/" + UUID.randomUUID().toString();
+        final StateProvider writeAheadProvider = createWriteAheadProvider(writeAheadLogDirectory, false);
+        writeAheadProvider.setState(Collections.singletonMap("abc", "xyz"), componentId);
+        writeAheadProvider.setState(Collections.singletonMap("def", "123"), "other-component");
+        final long version = writeAheadProvider.getState("other-component").getVersion();
+        writeAheadProvider.shutdown();
+
+        provider.shutdown();
+        provider = createRocksDBProvider(directory + "-imported", false, writeAheadLogDirectory);
+
+        assertEquals(Collections.singletonMap("abc", "xyz"), provider.getState(componentId).toMap());
+        assertEquals(Collections.singletonMap("def", "123"), provider.getState("other-component").toMap());
+        assertEquals(version, provider.getState("other-component").getVersion());
+
+        // state is imported only while the provider holds none, so changes made since are kept on restart
+        provider.setState(Collections.singletonMap("abc", "uvw"), componentId);
+        provider.shutdown();
+        provider = createRocksDBProvider(directory + "-imported", false, writeAheadLogDirectory);
+        assertEquals(Collections.singletonMap("abc", "uvw"), provider.getState(componentId).toMap());
+    }
+
+    @Test
+    @Ignore("Intended only for manual testing to determine performance before/after modifications")
+    public void testSetStateThroughput() throws Exception {
+        provider.shutdown();
+
+        final int componentCount = 100;
+        final int stateSize = 1000;
+        final int updatesPerComponent = 200;
+        for (final boolean alwaysSync : new boolean[] {false, true}) {
+            final StateProvider writeAheadProvider = createWriteAheadProvider("target/local-state-provider/" + UUID.randomUUID().toString(), alwaysSync);
+            final long writeAheadMillis = measureSetState(writeAheadProvider, componentCount, stateSize, updatesPerComponent);
+            writeAheadProvider.shutdown();
+
+            provider = createRocksDBProvider("target/rocksdb-local-state-provider/" + UUID.randomUUID().toString(), alwaysSync, null);
+            final long rocksDbMillis = measureSetState(provider, componentCount, stateSize, updatesPerComponent);
+            provider.shutdown();
+
+            System.out.printf("Always Sync %s: %d updates of one key across %d components with %d keys each took %d millis with the Write-Ahead Log and %d millis with RocksDB%n",
+                alwaysSync, componentCount * updatesPerComponent, componentCount, stateSize, writeAheadMillis, rocksDbMillis);
+        }
+
+        provider = createRocksDBProvider(directory, false, null);
+    }
+
+    private long measureSetState(final StateProvider stateProvider, final int componentCount, final int stateSize, final int updatesPerComponent) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            final long start = System.nanoTime();
+            final List<Future<?>> futures = new ArrayList<>(componentCount);
+            for (int i = 0; i < componentCount; i++) {
+                final String component = "component-" + i;
+                futures.add(executor.submit(() -> {
+                    final Map<String, String> state = new HashMap<>();
+                    for (int j = 0; j < stateSize; j++) {
+                        state.put("key-" + j, UUID.randomUUID().toString());
+                    }
+
+                    for (int j = 0; j < updatesPerComponent; j++) {
+                        state.put("key-" + (j % stateSize), String.valueOf(j));
+                        stateProvider.setState(state, component);
+                    }
+                    return null;
+                }));
+            }
+
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static StateProvider createRocksDBProvider(final String directory, final boolean alwaysSync, final String writeAheadLogDirectory) throws IOException {
+        final Map<PropertyDescriptor, PropertyValue> properties = new HashMap<>();
+        properties.put(RocksDBLocalStateProvider.PATH, new StandardPropertyValue(directory, null, ParameterLookup.EMPTY));
+        properties.put(RocksDBLocalStateProvider.ALWAYS_SYNC, new StandardPropertyValue(String.valueOf(alwaysSync), null, ParameterLookup.EMPTY));
+        properties.put(RocksDBLocalStateProvider.SYNC_PERIOD, new StandardPropertyValue("10 millis", null, ParameterLookup.EMPTY));
+        properties.put(RocksDBLocalStateProvider.WRITE_AHEAD_LOG_PATH, new StandardPropertyValue(writeAheadLogDirectory, null, ParameterLookup.EMPTY));
+        return initialize(new RocksDBLocalStateProvider(), properties);
+    }
+
+    private static StateProvider createWriteAheadProvider(final String directory, final boolean alwaysSync) throws IOException {
+        final Map<PropertyDescriptor, PropertyValue> properties = new HashMap<>();
+        properties.put(WriteAheadLocalStateProvider.PATH, new StandardPropertyValue(directory, null, ParameterLookup.EMPTY));
+        properties.put(WriteAheadLocalStateProvider.ALWAYS_SYNC, new StandardPropertyValue(String.valueOf(alwaysSync), null, ParameterLookup.EMPTY));
+        properties.put(WriteAheadLocalStateProvider.CHECKPOINT_INTERVAL, new StandardPropertyValue("2 mins", null, ParameterLookup.EMPTY));
+        properties.put(WriteAheadLocalStateProvider.NUM_PARTITIONS, new StandardPropertyValue("16", null, ParameterLookup.EMPTY));
+        return initialize(new WriteAheadLocalStateProvider(), properties);
+    }
+
+    private static StateProvider initialize(final StateProvider stateProvider, final Map<PropertyDescriptor, PropertyValue> properties) throws IOException {
+        stateProvider.initialize(new StateProviderInitializationContext() {
+            @Override
+            public String getIdentifier() {
+                return "Unit Test Provider Initialization Context";
+            }
+
+            @Override
+            public Map<PropertyDescriptor, PropertyValue> getProperties() {
+                return Collections.unmodifiableMap(properties);
+            }
+
+            @Override
+            public Map<String, String> getAllProperties() {
+                final Map<String, String> propValueMap = new LinkedHashMap<>();
+                for (final Map.Entry<PropertyDescriptor, PropertyValue> entry : getProperties().entrySet()) {
+                    propValueMap.put(entry.getKey().getName(), entry.getValue().getValue());
+                }
+                return propValueMap;
+            }
+
+            @Override
+            public PropertyValue getProperty(final PropertyDescriptor property) {
+                final PropertyValue prop = properties.get(property);
+                if (prop == null) {
+                    return new StandardPropertyValue(null, null, ParameterLookup.EMPTY);
+                }
+                return prop;
+            }
+
+            @Override
+            public SSLContext getSSLContext() {
+                return null;
+            }
+
+            @Override
+            public ComponentLog getLogger() {
+                return null;
+            }
+        });
+        return stateProvider;
+    }
+}
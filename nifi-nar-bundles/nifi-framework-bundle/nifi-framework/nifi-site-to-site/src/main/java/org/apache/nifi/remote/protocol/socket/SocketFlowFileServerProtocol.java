@@ -49,7 +49,8 @@ public class SocketFlowFileServerProtocol extends AbstractFlowFileServerProtocol
     public static final String RESOURCE_NAME = "SocketFlowFileProtocol";
 
     // Version 6 added to support Zero-Leader Clustering, which was introduced in NiFi 1.0.0
-    private final VersionNegotiator versionNegotiator = new StandardVersionNegotiator(6, 5, 4, 3, 2, 1);
+    // Version 7 added to support negotiating the compact version of the StandardFlowFileCodec
+    private final VersionNegotiator versionNegotiator = new StandardVersionNegotiator(7, 6, 5, 4, 3, 2, 1);
 
     private PeerDescriptionModifier peerDescriptionModifier;
 
@@ -195,6 +195,11 @@ public class ListGCSBucket extends AbstractGCSProcessor {
         .required(true)
         .build();
 
+    public static final PropertyDescriptor TRACKING_STATE_PERSISTENCE = new PropertyDescriptor.Builder()
+        .fromPropertyDescriptor(ListedEntityTracker.TRACKING_STATE_PERSISTENCE)
+        .dependsOn(LISTING_STRATEGY, BY_ENTITIES)
+        .build();
+
     public static final PropertyDescriptor INITIAL_LISTING_TARGET = new PropertyDescriptor.Builder()
         .fromPropertyDescriptor(ListedEntityTracker.INITIAL_LISTING_TARGET)
         .dependsOn(LISTING_STRATEGY, BY_ENTITIES)
@@ -250,6 +255,7 @@ public class ListGCSBucket extends AbstractGCSProcessor {
         return ImmutableList.<PropertyDescriptor>builder()
             .add(LISTING_STRATEGY)
             .add(TRACKING_STATE_CACHE)
+            .add(TRACKING_STATE_PERSISTENCE)
             .add(INITIAL_LISTING_TARGET)
             .add(TRACKING_TIME_WINDOW)
             .add(BUCKET)
@@ -0,0 +1,738 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.jolt.record;
+
+import com.bazaarvoice.jolt.Defaultr;
+import com.bazaarvoice.jolt.Removr;
+import com.bazaarvoice.jolt.Shiftr;
+import com.bazaarvoice.jolt.chainr.spec.ChainrEntry;
+import org.apache.nifi.serialization.record.DataType;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.serialization.record.type.ArrayDataType;
+import org.apache.nifi.serialization.record.type.MapDataType;
+import org.apache.nifi.serialization.record.type.RecordDataType;
+import org.apache.nifi.serialization.record.util.DataTypeUtils;
+import org.apache.nifi.serialization.record.util.IllegalTypeConversionException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A Jolt Shift, Default or Remove specification, or a Chain made up only of those, compiled so that it can be applied to a
+ * {@link Record} without first converting the whole Record into Maps and Lists.
+ * <p>
+ * A Shift reads only the fields that its specification matches, and a Remove never converts the fields that it removes. The
+ * object produced is the same object that the Jolt transform produces for the converted Record, so it is turned back into
+ * Records exactly as before.
+ * </p>
+ * <p>
+ * Only literal keys and the {@code *} wildcard are supported, along with the {@code $} and {@code @} keys and output paths made up
+ * of literals and {@code &} references in a Shift. {@link #compile(String, Object)} returns {@code null} for any other
+ * specification. A Shift or Remove that must match against the elements of an array is not supported either; as this depends on
+ * the data, {@link #transform(Record)} returns {@link #UNSUPPORTED_INPUT} for such a Record, and the caller must fall back to the
+ * Jolt transform.
+ * </p>
+ */
+final class CompiledJoltTransform {
+
+    static final Object UNSUPPORTED_INPUT = new Object();
+
+    private static final String ROOT_KEY = "root";
+
+    private final List<Operation> operations;
+
+    private CompiledJoltTransform(final List<Operation> operations) {
+        this.operations = operations;
+    }
+
+    /**
+     * Compiles the given specification
+     *
+     * @param transformType the value of the Jolt Transformation DSL property
+     * @param specJson the parsed specification
+     * @return the compiled transform, or <code>null</code> if the specification contains operations or keys that cannot be compiled
+     */
+    static CompiledJoltTransform compile(final String transformType, final Object specJson) {
+        final List<Operation> operations = new ArrayList<>();
+        if (JoltTransformRecord.CHAINR.getValue().equals(transformType)) {
+            if (!(specJson instanceof List) || ((List<?>) specJson).isEmpty()) {
+                return null;
+            }
+
+            for (final Object entry : (List<?>) specJson) {
+                if (!(entry instanceof Map)) {
+                    return null;
+                }
+
+                final Object operationName = ((Map<?, ?>) entry).get("operation");
+                if (!(operationName instanceof String)) {
+                    return null;
+                }
+
+                final String operationClassName = ChainrEntry.STOCK_TRANSFORMS.getOrDefault(operationName, (String) operationName);
+                operations.add(compileOperation(operationClassName, ((Map<?, ?>) entry).get("spec")));
+            }
+        } else if (JoltTransformRecord.SHIFTR.getValue().equals(transformType)) {
+            operations.add(compileOperation(Shiftr.class.getName(), specJson));
+        } else if (JoltTransformRecord.DEFAULTR.getValue().equals(transformType)) {
+            operations.add(compileOperation(Defaultr.class.getName(), specJson));
+        } else if (JoltTransformRecord.REMOVR.getValue().equals(transformType)) {
+            operations.add(compileOperation(Removr.class.getName(), specJson));
+        } else {
+            return null;
+        }
+
+        return operations.contains(null) ? null : new CompiledJoltTransform(operations);
+    }
+
+    /**
+     * Applies the transform to the given Record
+     *
+     * @param record the Record to transform
+     * @return the transformed object, in the form produced by Jolt, or {@link #UNSUPPORTED_INPUT} if the Record must be transformed by Jolt instead
+     */
+    Object transform(final Record record) {
+        Object transformed = record;
+        for (final Operation operation : operations) {
+            transformed = operation.apply(transformed);
+            if (transformed == UNSUPPORTED_INPUT) {
+                break;
+            }
+        }
+
+        return transformed;
+    }
+
+    private static Operation compileOperation(final String operationClassName, final Object spec) {
+        if (!(spec instanceof Map)) {
+            return null;
+        }
+
+        final Map<?, ?> specMap = (Map<?, ?>) spec;
+        if (Shiftr.class.getName().equals(operationClassName)) {
+            // Shiftr walks the input with the root key pushed twice: once by the transform and once by the root specification
+            final ShiftNode root = compileShift(ShiftKeyType.LITERAL, specMap, 2);
+            return root == null ? null : new ShiftOperation(root);
+        } else if (Defaultr.class.getName().equals(operationClassName)) {
+            final DefaultNode root = compileDefault(specMap);
+            return root == null ? null : new DefaultOperation(root);
+        } else if (Removr.class.getName().equals(operationClassName)) {
+            final RemoveNode root = compileRemove(specMap);
+            return root == null ? null : new RemoveOperation(root);
+        }
+
+        return null;
+    }
+
+    private static ShiftNode compileShift(final ShiftKeyType keyType, final Map<?, ?> spec, final int depth) {
+        final ShiftNode node = new ShiftNode(keyType, null);
+        for (final Map.Entry<?, ?> entry : spec.entrySet()) {
+            if (!(entry.getKey() instanceof String)) {
+                return null;
+            }
+
+            final String key = (String) entry.getKey();
+            final ShiftKeyType childKeyType;
+            if ("*".equals(key)) {
+                childKeyType = ShiftKeyType.STAR;
+            } else if ("$".equals(key)) {
+                childKeyType = ShiftKeyType.DOLLAR;
+            } else if ("@".equals(key)) {
+                childKeyType = ShiftKeyType.AT;
+            } else if (isLiteral(key)) {
+                childKeyType = ShiftKeyType.LITERAL;
+            } else {
+                return null;
+            }
+
+            final ShiftNode child;
+            if (entry.getValue() instanceof Map) {
+                if (childKeyType == ShiftKeyType.DOLLAR || childKeyType == ShiftKeyType.AT) {
+                    return null;
+                }
+                child = compileShift(childKeyType, (Map<?, ?>) entry.getValue(), depth + 1);
+            } else {
+                child = compileShiftLeaf(childKeyType, entry.getValue(), depth + 1);
+            }
+
+            if (child == null) {
+                return null;
+            }
+
+            if (childKeyType == ShiftKeyType.STAR) {
+                node.starChild = child;
+            } else if (childKeyType == ShiftKeyType.LITERAL) {
+                node.literalChildren.put(key, child);
+            } else {
+                node.hasAtChild |= childKeyType == ShiftKeyType.AT;
+                node.specialChildren.add(child);
+            }
+        }
+
+        return node;
+    }
+
+    private static ShiftNode compileShiftLeaf(final ShiftKeyType keyType, final Object spec, final int depth) {
+        final List<Object> outputPathSpecs = new ArrayList<>();
+        if (spec instanceof List) {
+            outputPathSpecs.addAll((List<?>) spec);
+        } else {
+            outputPathSpecs.add(spec);
+        }
+
+        if (outputPathSpecs.isEmpty()) {
+            return null;
+        }
+
+        final List<OutputPath> outputPaths = new ArrayList<>();
+        for (final Object outputPathSpec : outputPathSpecs) {
+            if (!(outputPathSpec instanceof String)) {
+                return null;
+            }
+
+            final OutputPath outputPath = OutputPath.compile((String) outputPathSpec, depth);
+            if (outputPath == null) {
+                return null;
+            }
+            outputPaths.add(outputPath);
+        }
+
+        return new ShiftNode(keyType, outputPaths);
+    }
+
+    private static DefaultNode compileDefault(final Map<?, ?> spec) {
+        final DefaultNode node = new DefaultNode(true, null);
+        for (final Map.Entry<?, ?> entry : spec.entrySet()) {
+            if (!(entry.getKey() instanceof String)) {
+                return null;
+            }
+
+            final String key = (String) entry.getKey();
+            final boolean star = "*".equals(key);
+            if (!star && !isLiteral(key)) {
+                return null;
+            }
+
+            final DefaultNode child = entry.getValue() instanceof Map ? compileDefault((Map<?, ?>) entry.getValue()) : new DefaultNode(false, entry.getValue());
+            if (child == null) {
+                return null;
+            }
+
+            if (star) {
+                node.starChild = child;
+            } else {
+                node.literalChildren.put(key, child);
+            }
+        }
+
+        return node;
+    }
+
+    private static RemoveNode compileRemove(final Map<?, ?> spec) {
+        final RemoveNode node = new RemoveNode(new LinkedHashMap<>());
+        for (final Map.Entry<?, ?> entry : spec.entrySet()) {
+            if (!(entry.getKey() instanceof String) || !isLiteral((String) entry.getKey())) {
+                return null;
+            }
+
+            final RemoveNode child;
+            if (entry.getValue() instanceof Map) {
+                child = compileRemove((Map<?, ?>) entry.getValue());
+            } else if (entry.getValue() instanceof String) {
+                child = new RemoveNode(null);
+            } else {
+                child = null;
+            }
+
+            if (child == null) {
+                return null;
+            }
+            node.children.put((String) entry.getKey(), child);
+        }
+
+        return node;
+    }
+
+    private static boolean isLiteral(final String key) {
+        if (key.isEmpty() || !key.equals(key.trim())) {
+            return false;
+        }
+
+        for (int i = 0; i < key.length(); i++) {
+            switch (key.charAt(i)) {
+                case '*':
+                case '&':
+                case '@':
+                case '$':
+                case '#':
+                case '[':
+                case ']':
+                case '(':
+                case ')':
+                case '|':
+                case '.':
+                case '\\':
+                    return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the value of the given field as the Map route would see it once the Record had been converted into Maps and Lists,
+     * except that the value of a Record field is returned as the Record itself so that it is converted only if it is needed.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object getFieldValue(final Record record, final RecordField field) {
+        final Object value = record.getValue(field.getFieldName());
+        if (value == null) {
+            return null;
+        }
+
+        final DataType dataType = field.getDataType();
+        if (DataTypeUtils.isScalarValue(dataType, value)) {
+            return JoltTransformRecord.normalizeJoltObjects(value);
+        } else if (dataType instanceof RecordDataType) {
+            return (Record) value;
+        } else if (dataType instanceof MapDataType) {
+            return JoltTransformRecord.normalizeJoltObjects(DataTypeUtils.convertRecordMapToJavaMap((Map<String, Object>) value, ((MapDataType) dataType).getValueType()));
+        } else if (dataType instanceof ArrayDataType) {
+            return JoltTransformRecord.normalizeJoltObjects(DataTypeUtils.convertRecordArrayToJavaArray((Object[]) value, ((ArrayDataType) dataType).getElementType()));
+        }
+
+        throw new IllegalTypeConversionException("Cannot convert value [" + value + "] of type " + dataType.toString()
+                + " to Map for field " + field.getFieldName() + " because the type is not supported");
+    }
+
+    private static Object toJoltObject(final Object value) {
+        if (value instanceof Record) {
+            final Record record = (Record) value;
+            return JoltTransformRecord.normalizeJoltObjects(DataTypeUtils.convertRecordFieldtoObject(record, RecordFieldType.RECORD.getRecordDataType(record.getSchema())));
+        }
+
+        return value;
+    }
+
+    private static Optional<RecordField> getField(final RecordSchema schema, final String fieldName) {
+        // Schema lookups also match aliases, but only field names become keys of the converted Record
+        return schema.getField(fieldName).filter(field -> field.getFieldName().equals(fieldName));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copy(final Object value) {
+        if (value instanceof List) {
+            final List<Object> copy = new ArrayList<>();
+            for (final Object element : (List<Object>) value) {
+                copy.add(copy(element));
+            }
+            return copy;
+        } else if (value instanceof Map) {
+            final Map<Object, Object> copy = new LinkedHashMap<>();
+            ((Map<Object, Object>) value).forEach((k, v) -> copy.put(k, copy(v)));
+            return copy;
+        }
+
+        return value;
+    }
+
+    private interface Operation {
+        Object apply(Object input);
+    }
+
+    private enum ShiftKeyType {
+        LITERAL, STAR, DOLLAR, AT
+    }
+
+    private static final class ShiftNode {
+        private final ShiftKeyType keyType;
+        private final List<OutputPath> outputPaths;
+        private final Map<String, ShiftNode> literalChildren = new LinkedHashMap<>();
+        private final List<ShiftNode> specialChildren = new ArrayList<>();
+        private ShiftNode starChild;
+        private boolean hasAtChild;
+
+        private ShiftNode(final ShiftKeyType keyType, final List<OutputPath> outputPaths) {
+            this.keyType = keyType;
+            this.outputPaths = outputPaths;
+        }
+
+        private boolean isLeaf() {
+            return outputPaths != null;
+        }
+    }
+
+    private static final class OutputPath {
+        private final String[] literals;
+        private final int[] references;
+
+        private OutputPath(final String[] literals, final int[] references) {
+            this.literals = literals;
+            this.references = references;
+        }
+
+        private static OutputPath compile(final String outputPath, final int depth) {
+            final String[] segments = outputPath.split("\\.", -1);
+            final String[] literals = new String[segments.length + 1];
+            final int[] references = new int[segments.length + 1];
+
+            literals[0] = ROOT_KEY;
+            for (int i = 0; i < segments.length; i++) {
+                final String segment = segments[i];
+                if (segment.startsWith("&")) {
+                    final String index = segment.substring(1);
+                    if (!index.matches("\\d{0,3}")) {
+                        return null;
+                    }
+
+                    references[i + 1] = index.isEmpty() ? 0 : Integer.parseInt(index);
+                    if (references[i + 1] >= depth) {
+                        return null;
+                    }
+                } else if (isLiteral(segment)) {
+                    literals[i + 1] = segment;
+                } else {
+                    return null;
+                }
+            }
+
+            return new OutputPath(literals, references);
+        }
+
+        private String[] resolve(final List<String> walkedPath) {
+            final String[] keys = new String[literals.length];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = literals[i] == null ? walkedPath.get(walkedPath.size() - 1 - references[i]) : literals[i];
+            }
+            return keys;
+        }
+    }
+
+    private static final class ShiftOperation implements Operation {
+        private final ShiftNode root;
+
+        private ShiftOperation(final ShiftNode root) {
+            this.root = root;
+        }
+
+        @Override
+        public Object apply(final Object input) {
+            final Map<String, Object> output = new HashMap<>();
+            final List<String> walkedPath = new ArrayList<>();
+            walkedPath.add(ROOT_KEY);
+
+            if (!apply(root, ROOT_KEY, input, walkedPath, output)) {
+                return UNSUPPORTED_INPUT;
+            }
+
+            return output.get(ROOT_KEY);
+        }
+
+        private boolean apply(final ShiftNode node, final String inputKey, final Object input, final List<String> walkedPath, final Map<String, Object> output) {
+            if (node.isLeaf()) {
+                applyLeaf(node, inputKey, input, walkedPath, output);
+                return true;
+            }
+
+            // The input is written out as a whole, so convert it once and walk the converted form so that both refer to the same objects
+            final Object data = node.hasAtChild ? toJoltObject(input) : input;
+
+            walkedPath.add(inputKey);
+            for (final ShiftNode specialChild : node.specialChildren) {
+                applyLeaf(specialChild, inputKey, data, walkedPath, output);
+            }
+
+            boolean supported = true;
+            if (data instanceof Record) {
+                supported = applyChildren(node, (Record) data, walkedPath, output);
+            } else if (data instanceof Map) {
+                supported = applyChildren(node, (Map<?, ?>) data, walkedPath, output);
+            } else if (data instanceof List) {
+                supported = false;
+            } else if (data != null) {
+                // Jolt matches keys against the value of a scalar and passes nothing to the matching child
+                final String value = data.toString();
+                final ShiftNode child = node.literalChildren.getOrDefault(value, node.starChild);
+                supported = child == null || apply(child, value, null, walkedPath, output);
+            }
+
+            walkedPath.remove(walkedPath.size() - 1);
+            return supported;
+        }
+
+        private boolean applyChildren(final ShiftNode node, final Record record, final List<String> walkedPath, final Map<String, Object> output) {
+            final RecordSchema schema = record.getSchema();
+            if (schema == null) {
+                return false;
+            }
+
+            if (node.starChild == null) {
+                for (final Map.Entry<String, ShiftNode> entry : node.literalChildren.entrySet()) {
+                    final Optional<RecordField> field = getField(schema, entry.getKey());
+                    if (field.isPresent() && !apply(entry.getValue(), entry.getKey(), getFieldValue(record, field.get()), walkedPath, output)) {
+                        return false;
+                    }
+                }
+            } else {
+                for (final RecordField field : schema.getFields()) {
+                    final String fieldName = field.getFieldName();
+                    final ShiftNode child = node.literalChildren.getOrDefault(fieldName, node.starChild);
+                    if (!apply(child, fieldName, getFieldValue(record, field), walkedPath, output)) {
+                        return false;
+                    }
+                }
+            }
+
+            return true;
+        }
+
+        private boolean applyChildren(final ShiftNode node, final Map<?, ?> map, final List<String> walkedPath, final Map<String, Object> output) {
+            if (node.starChild == null) {
+                for (final Map.Entry<String, ShiftNode> entry : node.literalChildren.entrySet()) {
+                    if (map.containsKey(entry.getKey()) && !apply(entry.getValue(), entry.getKey(), map.get(entry.getKey()), walkedPath, output)) {
+                        return false;
+                    }
+                }
+            } else {
+                for (final Map.Entry<?, ?> entry : map.entrySet()) {
+                    final String key = (String) entry.getKey();
+                    final ShiftNode child = node.literalChildren.getOrDefault(key, node.starChild);
+                    if (!apply(child, key, entry.getValue(), walkedPath, output)) {
+                        return false;
+                    }
+                }
+            }
+
+            return true;
+        }
+
+        private void applyLeaf(final ShiftNode leaf, final String inputKey, final Object input, final List<String> walkedPath, final Map<String, Object> output) {
+            final String matchedKey;
+            final Object data;
+            switch (leaf.keyType) {
+                case DOLLAR:
+                    matchedKey = walkedPath.get(walkedPath.size() - 1);
+                    data = matchedKey;
+                    break;
+                case AT:
+                    matchedKey = walkedPath.get(walkedPath.size() - 1);
+                    data = toJoltObject(input);
+                    break;
+                default:
+                    matchedKey = inputKey;
+                    data = toJoltObject(input);
+                    break;
+            }
+
+            walkedPath.add(matchedKey);
+            for (final OutputPath outputPath : leaf.outputPaths) {
+                write(output, outputPath.resolve(walkedPath), data);
+            }
+            walkedPath.remove(walkedPath.size() - 1);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void write(final Map<String, Object> output, final String[] keys, final Object data) {
+            Map<String, Object> container = output;
+            for (int i = 0; i < keys.length - 1; i++) {
+                Object child = container.get(keys[i]);
+                if (child == null) {
+                    child = new LinkedHashMap<String, Object>();
+                    container.put(keys[i], child);
+                } else if (!(child instanceof Map)) {
+                    return;
+                }
+                container = (Map<String, Object>) child;
+            }
+
+            // As Jolt does, collect multiple values written to the same key into a List
+            final String key = keys[keys.length - 1];
+            final Object existing = container.get(key);
+            if (existing == null) {
+                container.put(key, data);
+            } else if (existing instanceof List) {
+                ((List<Object>) existing).add(data);
+            } else {
+                final List<Object> values = new ArrayList<>();
+                values.add(existing);
+                values.add(data);
+                container.put(key, values);
+            }
+        }
+    }
+
+    private static final class DefaultNode {
+        private final boolean composite;
+        private final Object literalValue;
+        private final Map<String, DefaultNode> literalChildren = new LinkedHashMap<>();
+        private DefaultNode starChild;
+
+        private DefaultNode(final boolean composite, final Object literalValue) {
+            this.composite = composite;
+            this.literalValue = literalValue;
+        }
+    }
+
+    private static final class DefaultOperation implements Operation {
+        private final DefaultNode root;
+
+        private DefaultOperation(final DefaultNode root) {
+            this.root = root;
+        }
+
+        @Override
+        public Object apply(final Object input) {
+            final Object data = input == null ? new HashMap<String, Object>() : toJoltObject(input);
+            if (!(data instanceof Map)) {
+                return UNSUPPORTED_INPUT;
+            }
+
+            applyChildren(root, data);
+            return data;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void applyChildren(final DefaultNode node, final Object container) {
+            if (!(container instanceof Map)) {
+                return;
+            }
+
+            final Map<String, Object> map = (Map<String, Object>) container;
+            for (final Map.Entry<String, DefaultNode> entry : node.literalChildren.entrySet()) {
+                applyChild(entry.getValue(), entry.getKey(), map);
+            }
+
+            // Jolt applies the wildcard after the literal keys, so it also matches any keys that they added
+            if (node.starChild != null) {
+                for (final String key : new ArrayList<>(map.keySet())) {
+                    applyChild(node.starChild, key, map);
+                }
+            }
+        }
+
+        private void applyChild(final DefaultNode child, final String key, final Map<String, Object> map) {
+            Object value = map.get(key);
+            if (!child.composite) {
+                if (value == null) {
+                    map.put(key, copy(child.literalValue));
+                }
+                return;
+            }
+
+            if (value == null) {
+                value = new LinkedHashMap<String, Object>();
+                map.put(key, value);
+            }
+            applyChildren(child, value);
+        }
+    }
+
+    private static final class RemoveNode {
+        private final Map<String, RemoveNode> children;
+
+        private RemoveNode(final Map<String, RemoveNode> children) {
+            this.children = children;
+        }
+
+        private boolean isLeaf() {
+            return children == null;
+        }
+    }
+
+    private static final class RemoveOperation implements Operation {
+        private final RemoveNode root;
+
+        private RemoveOperation(final RemoveNode root) {
+            this.root = root;
+        }
+
+        @Override
+        public Object apply(final Object input) {
+            if (input instanceof Record) {
+                return removeFrom(root, (Record) input);
+            } else if (input instanceof Map && !removeFrom(root, (Map<?, ?>) input)) {
+                return UNSUPPORTED_INPUT;
+            }
+
+            return input;
+        }
+
+        private Object removeFrom(final RemoveNode node, final Record record) {
+            final RecordSchema schema = record.getSchema();
+            if (schema == null) {
+                return UNSUPPORTED_INPUT;
+            }
+
+            // Build the converted Record without the removed fields rather than converting them only to discard them
+            final Map<String, Object> converted = new LinkedHashMap<>();
+            for (final RecordField field : schema.getFields()) {
+                final RemoveNode child = node.children.get(field.getFieldName());
+                if (child != null && child.isLeaf()) {
+                    continue;
+                }
+
+                Object value = getFieldValue(record, field);
+                if (child == null) {
+                    value = toJoltObject(value);
+                } else if (value instanceof Record) {
+                    value = removeFrom(child, (Record) value);
+                    if (value == UNSUPPORTED_INPUT) {
+                        return UNSUPPORTED_INPUT;
+                    }
+                } else if (value instanceof Map) {
+                    if (!removeFrom(child, (Map<?, ?>) value)) {
+                        return UNSUPPORTED_INPUT;
+                    }
+                } else if (value instanceof List) {
+                    return UNSUPPORTED_INPUT;
+                }
+
+                converted.put(field.getFieldName(), value);
+            }
+
+            return converted;
+        }
+
+        private boolean removeFrom(final RemoveNode node, final Map<?, ?> map) {
+            for (final Map.Entry<String, RemoveNode> entry : node.children.entrySet()) {
+                final RemoveNode child = entry.getValue();
+                if (child.isLeaf()) {
+                    map.remove(entry.getKey());
+                    continue;
+                }
+
+                final Object value = map.get(entry.getKey());
+                if (value instanceof Map) {
+                    if (!removeFrom(child, (Map<?, ?>) value)) {
+                        return false;
+                    }
+                } else if (value instanceof List) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
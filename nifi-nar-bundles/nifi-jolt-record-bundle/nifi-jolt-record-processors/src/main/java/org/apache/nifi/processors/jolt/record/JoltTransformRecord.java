@@ -200,7 +200,7 @@ public class JoltTransformRecord extends AbstractProcessor {
      * For some cases the key could be empty. It means that it represents default transform (e.g. for custom transform
      * when there is no jolt-record-spec specified).
      */
-    private LoadingCache<Optional<String>, JoltTransform> transformCache;
+    private LoadingCache<Optional<String>, CachedTransform> transformCache;
 
     static {
         final List<PropertyDescriptor> _properties = new ArrayList<>();
@@ -330,7 +330,7 @@ public class JoltTransformRecord extends AbstractProcessor {
                 logger.info("{} had no Records to transform", new Object[]{original});
             } else {
 
-                final JoltTransform transform = getTransform(context, original);
+                final CachedTransform transform = getTransform(context, original);
                 final List<Record >transformedFirstRecords = transform(firstRecord, transform);
 
                 if (transformedFirstRecords.isEmpty()) {
@@ -405,13 +405,15 @@ public class JoltTransformRecord extends AbstractProcessor {
         session.transfer(original, REL_ORIGINAL);
     }
 
-    private List<Record> transform(final Record record, final JoltTransform transform) {
-        Map<String, Object> recordMap = (Map<String, Object>) DataTypeUtils.convertRecordFieldtoObject(record, RecordFieldType.RECORD.getRecordDataType(record.getSchema()));
-
-        // JOLT expects arrays to be of type List where our Record code uses Object[].
-        // Make another pass of the transformed objects to change Object[] to List.
-        recordMap = (Map<String, Object>) normalizeJoltObjects(recordMap);
-        final Object transformedObject = transform(transform, recordMap);
+    private List<Record> transform(final Record record, final CachedTransform transform) {
+        // Apply the compiled transform directly to the Record where possible, and otherwise convert the Record so that JOLT can transform it
+        Object transformedObject = CompiledJoltTransform.UNSUPPORTED_INPUT;
+        if (transform.compiledTransform != null) {
+            transformedObject = transform.compiledTransform.transform(record);
+        }
+        if (transformedObject == CompiledJoltTransform.UNSUPPORTED_INPUT) {
+            transformedObject = transformAsMap(transform.joltTransform, record);
+        }
 
         // JOLT expects arrays to be of type List where our Record code uses Object[].
         // Make another pass of the transformed objects to change List to Object[].
@@ -435,7 +437,17 @@ public class JoltTransformRecord extends AbstractProcessor {
         return recordList;
     }
 
-    private JoltTransform getTransform(final ProcessContext context, final FlowFile flowFile) {
+    @SuppressWarnings("unchecked")
+    static Object transformAsMap(final JoltTransform transform, final Record record) {
+        Map<String, Object> recordMap = (Map<String, Object>) DataTypeUtils.convertRecordFieldtoObject(record, RecordFieldType.RECORD.getRecordDataType(record.getSchema()));
+
+        // JOLT expects arrays to be of type List where our Record code uses Object[].
+        // Make another pass of the transformed objects to change Object[] to List.
+        recordMap = (Map<String, Object>) normalizeJoltObjects(recordMap);
+        return transform(transform, recordMap);
+    }
+
+    private CachedTransform getTransform(final ProcessContext context, final FlowFile flowFile) {
         final Optional<String> specString;
         if (context.getProperty(JOLT_SPEC).isSet()) {
             specString = Optional.of(context.getProperty(JOLT_SPEC).evaluateAttributeExpressions(flowFile).getValue());
@@ -454,7 +466,7 @@ public class JoltTransformRecord extends AbstractProcessor {
                 .build(specString -> createTransform(context, specString.orElse(null)));
     }
 
-    private JoltTransform createTransform(final ProcessContext context, final String specString) throws Exception {
+    private CachedTransform createTransform(final ProcessContext context, final String specString) throws Exception {
         final Object specJson;
         if (context.getProperty(JOLT_SPEC).isSet() && !SORTR.getValue().equals(context.getProperty(JOLT_TRANSFORM).getValue())) {
             specJson = JsonUtils.jsonToObject(specString, DEFAULT_CHARSET);
@@ -462,11 +474,19 @@ public class JoltTransformRecord extends AbstractProcessor {
             specJson = null;
         }
 
-        if (CUSTOMR.getValue().equals(context.getProperty(JOLT_TRANSFORM).getValue())) {
-            return TransformFactory.getCustomTransform(Thread.currentThread().getContextClassLoader(), context.getProperty(CUSTOM_CLASS).getValue(), specJson);
-        } else {
-            return TransformFactory.getTransform(Thread.currentThread().getContextClassLoader(), context.getProperty(JOLT_TRANSFORM).getValue(), specJson);
+        final String transformType = context.getProperty(JOLT_TRANSFORM).getValue();
+        if (CUSTOMR.getValue().equals(transformType)) {
+            return new CachedTransform(TransformFactory.getCustomTransform(Thread.currentThread().getContextClassLoader(), context.getProperty(CUSTOM_CLASS).getValue(), specJson), null);
+        }
+
+        // Creating the JOLT transform first ensures that the specification is valid before it is compiled
+        final JoltTransform joltTransform = TransformFactory.getTransform(Thread.currentThread().getContextClassLoader(), transformType, specJson);
+        final CompiledJoltTransform compiledTransform = CompiledJoltTransform.compile(transformType, specJson);
+        if (compiledTransform == null) {
+            getLogger().debug("Specification cannot be compiled for direct execution against Records; all Records will be converted for transformation");
         }
+
+        return new CachedTransform(joltTransform, compiledTransform);
     }
 
     protected FilenameFilter getJarFilenameFilter() {
@@ -523,4 +543,14 @@ public class JoltTransformRecord extends AbstractProcessor {
             return o;
         }
     }
+
+    private static class CachedTransform {
+        private final JoltTransform joltTransform;
+        private final CompiledJoltTransform compiledTransform;
+
+        private CachedTransform(final JoltTransform joltTransform, final CompiledJoltTransform compiledTransform) {
+            this.joltTransform = joltTransform;
+            this.compiledTransform = compiledTransform;
+        }
+    }
 }
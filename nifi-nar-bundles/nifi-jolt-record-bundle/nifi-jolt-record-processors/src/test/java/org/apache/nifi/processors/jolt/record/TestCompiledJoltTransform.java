@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.jolt.record;
+
+import com.bazaarvoice.jolt.JoltTransform;
+import com.bazaarvoice.jolt.JsonUtils;
+import org.apache.nifi.components.AllowableValue;
+import org.apache.nifi.processors.jolt.record.util.TransformFactory;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.MapRecord;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TestCompiledJoltTransform {
+
+    private static final RecordSchema VALUE_SCHEMA = new SimpleRecordSchema(Arrays.asList(
+            new RecordField("value", RecordFieldType.INT.getDataType()),
+            new RecordField("max", RecordFieldType.INT.getDataType())));
+
+    private static final RecordSchema RATING_SCHEMA = new SimpleRecordSchema(Arrays.asList(
+            new RecordField("primary", RecordFieldType.RECORD.getRecordDataType(VALUE_SCHEMA)),
+            new RecordField("quality", RecordFieldType.RECORD.getRecordDataType(VALUE_SCHEMA))));
+
+    private static final RecordSchema SCHEMA = new SimpleRecordSchema(Arrays.asList(
+            new RecordField("id", RecordFieldType.INT.getDataType()),
+            new RecordField("name", RecordFieldType.STRING.getDataType(), Collections.singleton("alias")),
+            new RecordField("rating", RecordFieldType.RECORD.getRecordDataType(RATING_SCHEMA)),
+            new RecordField("tags", RecordFieldType.ARRAY.getArrayDataType(RecordFieldType.STRING.getDataType())),
+            new RecordField("attributes", RecordFieldType.MAP.getMapDataType(RecordFieldType.STRING.getDataType())),
+            new RecordField("missing", RecordFieldType.STRING.getDataType())));
+
+    @Test
+    public void testShift() throws Exception {
+        assertSameResult(JoltTransformRecord.SHIFTR, "{\"id\": \"identifier\", \"name\": \"person.name\", \"unknown\": \"x\"}");
+        assertSameResult(JoltTransformRecord.SHIFTR, "{\"rating\": {\"primary\": {\"value\": \"primaryRating\"}, \"quality\": \"quality\"}}");
+        assertSameResult(JoltTransformRecord.SHIFTR, "{\"rating\": {\"*\": {\"value\": \"ratings.&1\", \"$\": \"names\"}}}");
+        assertSameResult(JoltTransformRecord.SHIFTR, "{\"*\": \"all.&\"}");
+        assertSameResult(JoltTransformRecord.SHIFTR, "{\"rating\": {\"@\": \"copy\", \"primary\": \"primary\"}}");
+        assertSameResult(JoltTransformRecord.SHIFTR, "{\"id\": [\"a\", \"b.c\"], \"name\": \"a\", \"tags\": \"tags\", \"attributes\": \"attributes\"}");
+        assertSameResult(JoltTransformRecord.SHIFTR, "{\"name\": {\"John\": {\"$\": \"isJohn\"}, \"*\": {\"$\": \"other\"}}}");
+        assertSameResult(JoltTransformRecord.SHIFTR, "{\"attributes\": {\"*\": \"attributes.&\"}}");
+        assertSameResult(JoltTransformRecord.SHIFTR, "{\"missing\": \"missing\", \"rating\": {\"quality\": {\"max\": \"max\"}}}");
+        assertSameResult(JoltTransformRecord.SHIFTR, "{\"unknown\": \"x\"}");
+        assertSameResult(JoltTransformRecord.SHIFTR, "{\"alias\": \"x\"}");
+    }
+
+    @Test
+    public void testShiftFallsBackForArrays() throws IOException {
+        final CompiledJoltTransform compiledTransform = CompiledJoltTransform.compile(JoltTransformRecord.SHIFTR.getValue(),
+                JsonUtils.jsonToObject("{\"tags\": {\"*\": \"tag.&\"}}"));
+        assertNotNull(compiledTransform);
+        assertSame(CompiledJoltTransform.UNSUPPORTED_INPUT, compiledTransform.transform(createRecord()));
+    }
+
+    @Test
+    public void testDefault() throws Exception {
+        assertSameResult(JoltTransformRecord.DEFAULTR, "{\"id\": 5, \"missing\": \"now present\", \"added\": [1, {\"a\": \"b\"}]}");
+        assertSameResult(JoltTransformRecord.DEFAULTR, "{\"rating\": {\"quality\": {\"max\": 10}, \"other\": {\"value\": 1}}}");
+        assertSameResult(JoltTransformRecord.DEFAULTR, "{\"rating\": {\"*\": {\"max\": 100}}}");
+        assertSameResult(JoltTransformRecord.DEFAULTR, "{\"name\": {\"first\": \"a\"}, \"attributes\": {\"color\": \"blue\"}}");
+        assertSameResult(JoltTransformRecord.DEFAULTR, "{\"*\": \"value\"}");
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        assertSameResult(JoltTransformRecord.REMOVR, "{\"id\": \"\", \"unknown\": \"\"}");
+        assertSameResult(JoltTransformRecord.REMOVR, "{\"rating\": {\"quality\": {\"max\": \"\"}, \"primary\": \"\"}}");
+        assertSameResult(JoltTransformRecord.REMOVR, "{\"attributes\": {\"color\": \"\"}, \"name\": {\"first\": \"\"}}");
+        assertSameResult(JoltTransformRecord.REMOVR, new String(Files.readAllBytes(Paths.get("src/test/resources/TestJoltTransformRecord/removrSpec.json"))));
+    }
+
+    @Test
+    public void testRemoveFallsBackForArrays() throws IOException {
+        final CompiledJoltTransform compiledTransform = CompiledJoltTransform.compile(JoltTransformRecord.REMOVR.getValue(),
+                JsonUtils.jsonToObject("{\"tags\": {\"value\": \"\"}}"));
+        assertNotNull(compiledTransform);
+        assertSame(CompiledJoltTransform.UNSUPPORTED_INPUT, compiledTransform.transform(createRecord()));
+    }
+
+    @Test
+    public void testChain() throws Exception {
+        assertSameResult(JoltTransformRecord.CHAINR, new String(Files.readAllBytes(Paths.get("src/test/resources/TestJoltTransformRecord/chainrSpec.json"))));
+        assertSameResult(JoltTransformRecord.CHAINR, "[{\"operation\": \"remove\", \"spec\": {\"id\": \"\"}}, {\"operation\": \"shift\", \"spec\": {\"*\": \"&\"}},"
+                + " {\"operation\": \"com.bazaarvoice.jolt.Defaultr\", \"spec\": {\"id\": 0}}]");
+    }
+
+    @Test
+    public void testUnsupportedSpecifications() throws IOException {
+        assertNotCompiled(JoltTransformRecord.SHIFTR, "{\"rating\": {\"*\": {\"value\": \"ratings[]\"}}}");
+        assertNotCompiled(JoltTransformRecord.SHIFTR, "{\"rating\": {\"pri*\": \"primary\"}}");
+        assertNotCompiled(JoltTransformRecord.SHIFTR, "{\"id|name\": \"x\"}");
+        assertNotCompiled(JoltTransformRecord.SHIFTR, "{\"id\": \"&(0,1)\"}");
+        assertNotCompiled(JoltTransformRecord.SHIFTR, "{\"id\": \"@(1,name)\"}");
+        assertNotCompiled(JoltTransformRecord.SHIFTR, "{\"id\": \"&3\"}");
+        assertNotCompiled(JoltTransformRecord.SHIFTR, "{\"rating\": {\"#constant\": \"x\"}}");
+        assertNotCompiled(JoltTransformRecord.DEFAULTR, "{\"id|name\": 1}");
+        assertNotCompiled(JoltTransformRecord.DEFAULTR, "{\"tags[]\": [1]}");
+        assertNotCompiled(JoltTransformRecord.REMOVR, "{\"*\": \"\"}");
+        assertNotCompiled(JoltTransformRecord.CARDINALITY, "{\"id\": \"ONE\"}");
+        assertNotCompiled(JoltTransformRecord.MODIFIER_DEFAULTR, "{\"id\": \"=toString\"}");
+        assertNotCompiled(JoltTransformRecord.CHAINR, "[{\"operation\": \"shift\", \"spec\": {\"*\": \"&\"}}, {\"operation\": \"sort\"}]");
+    }
+
+    @Test
+    @Ignore("Intended only for manual testing to determine performance before/after modifications")
+    public void testPerformance() throws Exception {
+        final Object spec = JsonUtils.jsonToObject(new String(Files.readAllBytes(Paths.get("src/test/resources/TestJoltTransformRecord/chainrSpec.json"))));
+        final JoltTransform joltTransform = TransformFactory.getTransform(getClass().getClassLoader(), JoltTransformRecord.CHAINR.getValue(), spec);
+        final CompiledJoltTransform compiledTransform = CompiledJoltTransform.compile(JoltTransformRecord.CHAINR.getValue(), spec);
+        final Record record = createRecord();
+
+        for (int i = 0; i < 5; i++) {
+            final long start = System.nanoTime();
+            for (int j = 0; j < 1_000_000; j++) {
+                JoltTransformRecord.transformAsMap(joltTransform, record);
+            }
+            final long mapMillis = (System.nanoTime() - start) / 1_000_000;
+
+            final long compiledStart = System.nanoTime();
+            for (int j = 0; j < 1_000_000; j++) {
+                compiledTransform.transform(record);
+            }
+            final long compiledMillis = (System.nanoTime() - compiledStart) / 1_000_000;
+
+            System.out.println("Converted to Map: " + mapMillis + " millis, Compiled: " + compiledMillis + " millis");
+        }
+    }
+
+    private void assertSameResult(final AllowableValue transformType, final String specString) throws Exception {
+        final Object spec = JsonUtils.jsonToObject(specString);
+        final CompiledJoltTransform compiledTransform = CompiledJoltTransform.compile(transformType.getValue(), JsonUtils.jsonToObject(specString));
+        assertNotNull("Specification not compiled: " + specString, compiledTransform);
+
+        final JoltTransform joltTransform = TransformFactory.getTransform(getClass().getClassLoader(), transformType.getValue(), spec);
+        final Object expected = JoltTransformRecord.transformAsMap(joltTransform, createRecord());
+        assertEquals(specString, expected, compiledTransform.transform(createRecord()));
+    }
+
+    private void assertNotCompiled(final AllowableValue transformType, final String specString) throws IOException {
+        assertNull(specString, CompiledJoltTransform.compile(transformType.getValue(), JsonUtils.jsonToObject(specString)));
+    }
+
+    private Record createRecord() {
+        final Map<String, Object> primary = new HashMap<>();
+        primary.put("value", 3);
+        primary.put("max", 5);
+
+        final Map<String, Object> quality = new HashMap<>();
+        quality.put("value", 4);
+
+        final Map<String, Object> rating = new HashMap<>();
+        rating.put("primary", new MapRecord(VALUE_SCHEMA, primary));
+        rating.put("quality", new MapRecord(VALUE_SCHEMA, quality));
+
+        final Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("color", "red");
+        attributes.put("size", "large");
+
+        final Map<String, Object> values = new HashMap<>();
+        values.put("id", 42);
+        values.put("name", "John");
+        values.put("rating", new MapRecord(RATING_SCHEMA, rating));
+        values.put("tags", new Object[] {"a", "b"});
+        values.put("attributes", attributes);
+        return new MapRecord(SCHEMA, values);
+    }
+}
@@ -244,6 +244,19 @@ public class ConsumeKafkaRecord_2_6 extends AbstractProcessor implements Verifia
         .allowableValues(UTF8_ENCODING, HEX_ENCODING, DO_NOT_ADD_KEY_AS_ATTRIBUTE)
         .build();
 
+    static final PropertyDescriptor RECORD_PARSING_THREADS = new Builder()
+        .name("record-parsing-threads")
+        .displayName("Record Parsing Threads")
+        .description("The number of threads to use for parsing messages received from Kafka into Records. If greater than 1, the messages received by each poll are parsed "
+            + "by a pool of threads that is shared by all Concurrent Tasks. Messages from different partitions are parsed concurrently, while the messages of any one partition "
+            + "are still parsed in order. The parsed Records are then written by the Concurrent Task that polled Kafka. This allows parsing to use more CPU cores than there "
+            + "are Concurrent Tasks, which is useful when parsing is expensive, such as with Avro, and the number of consumers is limited by the number of partitions. "
+            + "Note that all Records of a poll are held in memory until they are written.")
+        .required(true)
+        .defaultValue("1")
+        .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+        .build();
+
     static final Relationship REL_SUCCESS = new Relationship.Builder()
             .name("success")
             .description("FlowFiles received from Kafka.  Depending on demarcation strategy it is a flow file per message or a bundle of messages grouped by topic and partition.")
@@ -288,6 +301,7 @@ public class ConsumeKafkaRecord_2_6 extends AbstractProcessor implements Verifia
         descriptors.add(HEADER_NAME_REGEX);
         descriptors.add(MAX_POLL_RECORDS);
         descriptors.add(COMMS_TIMEOUT);
+        descriptors.add(RECORD_PARSING_THREADS);
         DESCRIPTORS = Collections.unmodifiableList(descriptors);
 
         final Set<Relationship> rels = new HashSet<>();
@@ -409,6 +423,7 @@ public class ConsumeKafkaRecord_2_6 extends AbstractProcessor implements Verifia
 
         final boolean separateByKey = context.getProperty(SEPARATE_BY_KEY).asBoolean();
         final String keyEncoding = context.getProperty(KEY_ATTRIBUTE_ENCODING).getValue();
+        final int parsingThreads = context.getProperty(RECORD_PARSING_THREADS).asInteger();
 
         final int[] partitionsToConsume;
         try {
@@ -426,11 +441,11 @@ public class ConsumeKafkaRecord_2_6 extends AbstractProcessor implements Verifia
             }
 
             return new ConsumerPool(maxLeases, readerFactory, writerFactory, props, topics, maxUncommittedTime, securityProtocol,
-                bootstrapServers, log, honorTransactions, charset, headerNamePattern, separateByKey, keyEncoding, partitionsToConsume, commitOffsets);
+                bootstrapServers, log, honorTransactions, charset, headerNamePattern, separateByKey, keyEncoding, partitionsToConsume, commitOffsets, parsingThreads);
         } else if (topicType.equals(TOPIC_PATTERN.getValue())) {
             final Pattern topicPattern = Pattern.compile(topicListing.trim());
             return new ConsumerPool(maxLeases, readerFactory, writerFactory, props, topicPattern, maxUncommittedTime, securityProtocol,
-                bootstrapServers, log, honorTransactions, charset, headerNamePattern, separateByKey, keyEncoding, partitionsToConsume, commitOffsets);
+                bootstrapServers, log, honorTransactions, charset, headerNamePattern, separateByKey, keyEncoding, partitionsToConsume, commitOffsets, parsingThreads);
         } else {
             getLogger().error("Subscription type has an unknown value {}", new Object[] {topicType});
             return null;
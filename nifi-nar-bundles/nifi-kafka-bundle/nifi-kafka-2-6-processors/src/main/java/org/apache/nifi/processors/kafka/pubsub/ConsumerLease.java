@@ -30,6 +30,7 @@ import org.apache.nifi.flowfile.attributes.CoreAttributes;
 import org.apache.nifi.logging.ComponentLog;
 import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.schema.access.SchemaNotFoundException;
 import org.apache.nifi.serialization.MalformedRecordException;
 import org.apache.nifi.serialization.RecordReader;
 import org.apache.nifi.serialization.RecordReaderFactory;
@@ -54,10 +55,14 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -89,6 +94,7 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
     private final Pattern headerNamePattern;
     private final boolean separateByKey;
     private final boolean commitOffsets;
+    private final ExecutorService parsingExecutor;
     private boolean poisoned = false;
     //used for tracking demarcated flowfiles to their TopicPartition so we can append
     //to them on subsequent poll calls
@@ -111,7 +117,8 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
             final Charset headerCharacterSet,
             final Pattern headerNamePattern,
             final boolean separateByKey,
-            final boolean commitMessageOffsets) {
+            final boolean commitMessageOffsets,
+            final ExecutorService parsingExecutor) {
         this.maxWaitMillis = maxWaitMillis;
         this.kafkaConsumer = kafkaConsumer;
         this.demarcatorBytes = demarcatorBytes;
@@ -125,6 +132,7 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
         this.headerNamePattern = headerNamePattern;
         this.separateByKey = separateByKey;
         this.commitOffsets = commitMessageOffsets;
+        this.parsingExecutor = parsingExecutor;
     }
 
     /**
@@ -363,6 +371,11 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
     public abstract void yield();
 
     private void processRecords(final ConsumerRecords<byte[], byte[]> records) {
+        if (parsingExecutor != null && demarcatorBytes == null && readerFactory != null && writerFactory != null) {
+            processRecordsInParallel(records);
+            return;
+        }
+
         records.partitions().forEach(partition -> {
             List<ConsumerRecord<byte[], byte[]>> messages = records.records(partition);
             if (!messages.isEmpty()) {
@@ -389,6 +402,124 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
         });
     }
 
+    /**
+     * Parses the messages of each partition into Records using the parsing executor, so that the messages of different partitions are
+     * parsed concurrently while the messages of a single partition are parsed in order. The Records are then written to the session
+     * on this thread, one partition after another, because the session must not be accessed concurrently.
+     */
+    private void processRecordsInParallel(final ConsumerRecords<byte[], byte[]> records) {
+        final Map<TopicPartition, Future<List<ParsedMessage>>> parsedPartitions = new LinkedHashMap<>();
+        for (final TopicPartition partition : records.partitions()) {
+            final List<ConsumerRecord<byte[], byte[]>> messages = records.records(partition);
+            if (!messages.isEmpty()) {
+                parsedPartitions.put(partition, parsingExecutor.submit(() -> parseMessages(messages)));
+            }
+        }
+
+        try {
+            for (final Map.Entry<TopicPartition, Future<List<ParsedMessage>>> entry : parsedPartitions.entrySet()) {
+                final TopicPartition partition = entry.getKey();
+                final List<ConsumerRecord<byte[], byte[]>> messages = records.records(partition);
+                final long maxOffset = messages.stream()
+                        .mapToLong(ConsumerRecord::offset)
+                        .max()
+                        .getAsLong();
+
+                final List<ParsedMessage> parsedMessages;
+                try {
+                    parsedMessages = entry.getValue().get();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    rollback(partition);
+                    throw new ProcessException("Interrupted while waiting for messages from Kafka to be parsed", e);
+                } catch (final ExecutionException e) {
+                    rollback(partition);
+                    throw new ProcessException("Failed to parse messages from Kafka", e.getCause());
+                }
+
+                writeParsedRecordData(getProcessSession(), parsedMessages, partition);
+
+                totalMessages += messages.size();
+                uncommittedOffsetsMap.put(partition, new OffsetAndMetadata(maxOffset + 1L));
+            }
+        } finally {
+            parsedPartitions.values().forEach(future -> future.cancel(true));
+        }
+    }
+
+    private List<ParsedMessage> parseMessages(final List<ConsumerRecord<byte[], byte[]>> messages) {
+        final List<ParsedMessage> parsedMessages = new ArrayList<>(messages.size());
+        for (final ConsumerRecord<byte[], byte[]> consumerRecord : messages) {
+            final Map<String, String> attributes = getAttributes(consumerRecord);
+            final byte[] recordBytes = consumerRecord.value() == null ? new byte[0] : consumerRecord.value();
+
+            final RecordReader reader;
+            try {
+                reader = readerFactory.createRecordReader(attributes, new ByteArrayInputStream(recordBytes), recordBytes.length, logger);
+            } catch (final IOException e) {
+                // A comms failure means that the remaining messages of the partition cannot be parsed either, so stop here.
+                parsedMessages.add(new ParsedMessage(consumerRecord, attributes, Collections.emptyList(), e, true));
+                break;
+            } catch (final Exception e) {
+                parsedMessages.add(new ParsedMessage(consumerRecord, attributes, Collections.emptyList(), e, false));
+                continue;
+            }
+
+            final List<Record> parsedRecords = new ArrayList<>();
+            Exception parseFailure = null;
+            try (final RecordReader recordReader = reader) {
+                Record record;
+                while ((record = recordReader.nextRecord()) != null) {
+                    parsedRecords.add(record);
+                }
+            } catch (final IOException | MalformedRecordException | SchemaValidationException e) {
+                parseFailure = e;
+            }
+
+            parsedMessages.add(new ParsedMessage(consumerRecord, attributes, parsedRecords, parseFailure, false));
+        }
+
+        return parsedMessages;
+    }
+
+    private void writeParsedRecordData(final ProcessSession session, final List<ParsedMessage> parsedMessages, final TopicPartition topicPartition) {
+        RecordSetWriter writer = null;
+        try {
+            for (final ParsedMessage parsedMessage : parsedMessages) {
+                final ConsumerRecord<byte[], byte[]> consumerRecord = parsedMessage.consumerRecord;
+
+                if (parsedMessage.commsFailure) {
+                    yield();
+                    rollback(topicPartition);
+                    handleParseFailure(consumerRecord, session, parsedMessage.failure,
+                        "Failed to parse message from Kafka due to comms failure. Will roll back session and try again momentarily.");
+                    closeWriter(writer);
+                    return;
+                }
+
+                try {
+                    for (final Record record : parsedMessage.records) {
+                        writer = writeRecord(session, consumerRecord, parsedMessage.attributes, record, topicPartition);
+                    }
+                } catch (final IOException e) {
+                    handleParseFailure(consumerRecord, session, e);
+                    continue;
+                }
+
+                if (parsedMessage.failure != null) {
+                    handleParseFailure(consumerRecord, session, parsedMessage.failure);
+                }
+            }
+        } catch (final Exception e) {
+            logger.error("Failed to properly receive messages from Kafka. Will roll back session and any un-committed offsets from Kafka.", e);
+
+            closeWriter(writer);
+            rollback(topicPartition);
+
+            throw new ProcessException(e);
+        }
+    }
+
     private static String encodeKafkaKey(final byte[] key, final String encoding) {
         if (key == null) {
             return null;
@@ -593,49 +724,7 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
                     try {
                         Record record;
                         while ((record = reader.nextRecord()) != null) {
-                            // Determine the bundle for this record.
-                            final RecordSchema recordSchema = record.getSchema();
-                            final BundleInformation bundleInfo = new BundleInformation(topicPartition, recordSchema, attributes, separateByKey ? consumerRecord.key() : null);
-
-                            BundleTracker tracker = bundleMap.get(bundleInfo);
-                            if (tracker == null) {
-                                FlowFile flowFile = session.create();
-                                flowFile = session.putAllAttributes(flowFile, attributes);
-
-                                final OutputStream rawOut = session.write(flowFile);
-
-                                final RecordSchema writeSchema;
-                                try {
-                                    writeSchema = writerFactory.getSchema(flowFile.getAttributes(), recordSchema);
-                                } catch (final Exception e) {
-                                    logger.error("Failed to obtain Schema for FlowFile. Will roll back the Kafka message offsets.", e);
-
-                                    rollback(topicPartition);
-                                    yield();
-
-                                    throw new ProcessException(e);
-                                }
-
-                                writer = writerFactory.createWriter(logger, writeSchema, rawOut, flowFile);
-                                writer.beginRecordSet();
-
-                                tracker = new BundleTracker(consumerRecord, topicPartition, keyEncoding, writer);
-                                tracker.updateFlowFile(flowFile);
-                                bundleMap.put(bundleInfo, tracker);
-                            } else {
-                                writer = tracker.recordWriter;
-                            }
-
-                            try {
-                                writer.write(record);
-                            } catch (final RuntimeException re) {
-                                handleParseFailure(consumerRecord, session, re, "Failed to write message from Kafka using the configured Record Writer. "
-                                    + "Will route message as its own FlowFile to the 'parse.failure' relationship");
-                                continue;
-                            }
-
-                            tracker.incrementRecordCount(1L, consumerRecord.offset(), consumerRecord.leaderEpoch().orElse(null));
-                            session.adjustCounter("Records Received", 1L, false);
+                            writer = writeRecord(session, consumerRecord, attributes, record, topicPartition);
                         }
                     } catch (final IOException | MalformedRecordException | SchemaValidationException e) {
                         handleParseFailure(consumerRecord, session, e);
@@ -653,6 +742,60 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
         }
     }
 
+    /**
+     * Writes the given Record to the bundle that it belongs to, creating the bundle if necessary.
+     *
+     * @return the Record Writer of the bundle
+     */
+    private RecordSetWriter writeRecord(final ProcessSession session, final ConsumerRecord<byte[], byte[]> consumerRecord, final Map<String, String> attributes,
+                                        final Record record, final TopicPartition topicPartition) throws IOException, SchemaNotFoundException {
+        // Determine the bundle for this record.
+        final RecordSchema recordSchema = record.getSchema();
+        final BundleInformation bundleInfo = new BundleInformation(topicPartition, recordSchema, attributes, separateByKey ? consumerRecord.key() : null);
+
+        final RecordSetWriter writer;
+        BundleTracker tracker = bundleMap.get(bundleInfo);
+        if (tracker == null) {
+            FlowFile flowFile = session.create();
+            flowFile = session.putAllAttributes(flowFile, attributes);
+
+            final OutputStream rawOut = session.write(flowFile);
+
+            final RecordSchema writeSchema;
+            try {
+                writeSchema = writerFactory.getSchema(flowFile.getAttributes(), recordSchema);
+            } catch (final Exception e) {
+                logger.error("Failed to obtain Schema for FlowFile. Will roll back the Kafka message offsets.", e);
+
+                rollback(topicPartition);
+                yield();
+
+                throw new ProcessException(e);
+            }
+
+            writer = writerFactory.createWriter(logger, writeSchema, rawOut, flowFile);
+            writer.beginRecordSet();
+
+            tracker = new BundleTracker(consumerRecord, topicPartition, keyEncoding, writer);
+            tracker.updateFlowFile(flowFile);
+            bundleMap.put(bundleInfo, tracker);
+        } else {
+            writer = tracker.recordWriter;
+        }
+
+        try {
+            writer.write(record);
+        } catch (final RuntimeException re) {
+            handleParseFailure(consumerRecord, session, re, "Failed to write message from Kafka using the configured Record Writer. "
+                + "Will route message as its own FlowFile to the 'parse.failure' relationship");
+            return writer;
+        }
+
+        tracker.incrementRecordCount(1L, consumerRecord.offset(), consumerRecord.leaderEpoch().orElse(null));
+        session.adjustCounter("Records Received", 1L, false);
+        return writer;
+    }
+
     private void closeWriter(final RecordSetWriter writer) {
         try {
             if (writer != null) {
@@ -770,6 +913,26 @@ public abstract class ConsumerLease implements Closeable, ConsumerRebalanceListe
         }
     }
 
+    /**
+     * The result of parsing a single Kafka message on the parsing executor.
+     */
+    private static class ParsedMessage {
+        private final ConsumerRecord<byte[], byte[]> consumerRecord;
+        private final Map<String, String> attributes;
+        private final List<Record> records;
+        private final Exception failure;
+        private final boolean commsFailure;
+
+        private ParsedMessage(final ConsumerRecord<byte[], byte[]> consumerRecord, final Map<String, String> attributes, final List<Record> records,
+                              final Exception failure, final boolean commsFailure) {
+            this.consumerRecord = consumerRecord;
+            this.attributes = attributes;
+            this.records = records;
+            this.failure = failure;
+            this.commsFailure = commsFailure;
+        }
+    }
+
     private static class BundleInformation {
         private final TopicPartition topicPartition;
         private final RecordSchema schema;
@@ -46,7 +46,10 @@ import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -76,6 +79,7 @@ public class ConsumerPool implements Closeable {
     private final boolean separateByKey;
     private final int[] partitionsToConsume;
     private final boolean commitOffsets;
+    private final ExecutorService parsingExecutor;
     private final AtomicLong consumerCreatedCountRef = new AtomicLong();
     private final AtomicLong consumerClosedCountRef = new AtomicLong();
     private final AtomicLong leasesObtainedCountRef = new AtomicLong();
@@ -135,6 +139,7 @@ public class ConsumerPool implements Closeable {
         this.separateByKey = separateByKey;
         this.partitionsToConsume = partitionsToConsume;
         this.commitOffsets = commitOffsets;
+        this.parsingExecutor = null;
         enqueueAssignedPartitions(partitionsToConsume);
     }
 
@@ -172,6 +177,7 @@ public class ConsumerPool implements Closeable {
         this.separateByKey = separateByKey;
         this.partitionsToConsume = partitionsToConsume;
         this.commitOffsets = commitOffsets;
+        this.parsingExecutor = null;
         enqueueAssignedPartitions(partitionsToConsume);
     }
 
@@ -191,7 +197,8 @@ public class ConsumerPool implements Closeable {
             final boolean separateByKey,
             final String keyEncoding,
             final int[] partitionsToConsume,
-            final boolean commitOffsets) {
+            final boolean commitOffsets,
+            final int parsingThreads) {
         this.pooledLeases = new LinkedBlockingQueue<>();
         this.maxWaitMillis = maxWaitMillis;
         this.logger = logger;
@@ -210,6 +217,7 @@ public class ConsumerPool implements Closeable {
         this.keyEncoding = keyEncoding;
         this.partitionsToConsume = partitionsToConsume;
         this.commitOffsets = commitOffsets;
+        this.parsingExecutor = createParsingExecutor(parsingThreads);
         enqueueAssignedPartitions(partitionsToConsume);
     }
 
@@ -229,7 +237,8 @@ public class ConsumerPool implements Closeable {
             final boolean separateByKey,
             final String keyEncoding,
             final int[] partitionsToConsume,
-            final boolean commitOffsets) {
+            final boolean commitOffsets,
+            final int parsingThreads) {
         this.pooledLeases = new LinkedBlockingQueue<>();
         this.maxWaitMillis = maxWaitMillis;
         this.logger = logger;
@@ -248,9 +257,24 @@ public class ConsumerPool implements Closeable {
         this.keyEncoding = keyEncoding;
         this.partitionsToConsume = partitionsToConsume;
         this.commitOffsets = commitOffsets;
+        this.parsingExecutor = createParsingExecutor(parsingThreads);
         enqueueAssignedPartitions(partitionsToConsume);
     }
 
+    private static ExecutorService createParsingExecutor(final int parsingThreads) {
+        if (parsingThreads < 2) {
+            return null;
+        }
+
+        final AtomicInteger threadCounter = new AtomicInteger(0);
+        return Executors.newFixedThreadPool(parsingThreads, runnable -> {
+            final Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+            thread.setName("Kafka Record Parser-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
     public int getPartitionCount() {
         // If using regex for topic names, just return -1
         if (topics == null || topics.isEmpty()) {
@@ -580,6 +604,10 @@ public class ConsumerPool implements Closeable {
         leases.forEach((lease) -> {
             lease.close(true);
         });
+
+        if (parsingExecutor != null) {
+            parsingExecutor.shutdownNow();
+        }
     }
 
     private void closeConsumer(final Consumer<?, ?> consumer) {
@@ -610,7 +638,7 @@ public class ConsumerPool implements Closeable {
 
         private SimpleConsumerLease(final Consumer<byte[], byte[]> consumer, final List<TopicPartition> assignedPartitions) {
             super(maxWaitMillis, consumer, demarcatorBytes, keyEncoding, securityProtocol, bootstrapServers,
-                readerFactory, writerFactory, logger, headerCharacterSet, headerNamePattern, separateByKey, commitOffsets);
+                readerFactory, writerFactory, logger, headerCharacterSet, headerNamePattern, separateByKey, commitOffsets, parsingExecutor);
             this.consumer = consumer;
             this.assignedPartitions = assignedPartitions;
         }
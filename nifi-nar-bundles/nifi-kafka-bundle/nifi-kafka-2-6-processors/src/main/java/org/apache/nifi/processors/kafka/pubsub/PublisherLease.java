@@ -26,7 +26,8 @@ import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.FencedInstanceIdException;
 import org.apache.kafka.common.errors.ProducerFencedException;
-import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
 import org.apache.nifi.components.ConfigVerificationResult;
 import org.apache.nifi.components.ConfigVerificationResult.Outcome;
 import org.apache.nifi.flowfile.FlowFile;
@@ -74,6 +75,7 @@ public class PublisherLease implements Closeable {
     private volatile boolean activeTransaction = false;
 
     private InFlightMessageTracker tracker;
+    private byte[] demarcationBuffer;
 
     public PublisherLease(final Producer<byte[], byte[]> producer, final int maxMessageSize, final long maxAckWaitMillis, final ComponentLog logger,
         final boolean useTransactions, final Pattern attributeNameRegex, final Charset headerCharacterSet) {
@@ -152,14 +154,20 @@ public class PublisherLease implements Closeable {
                 return;
             }
 
-            try (final StreamDemarcator demarcator = new StreamDemarcator(flowFileContent, demarcatorBytes, maxMessageSize)) {
-                while ((messageContent = demarcator.nextToken()) != null) {
-                    publish(flowFile, messageKey, messageContent, topic, tracker, partition);
-
-                    if (tracker.isFailed(flowFile)) {
-                        // If we have a failure, don't try to send anything else.
-                        return;
+            // Every message demarcated from the FlowFile carries the same headers, so they are created only once.
+            final List<Header> headers = createHeaders(flowFile, Collections.emptyMap());
+            try (final StreamDemarcator demarcator = createDemarcator(flowFileContent, demarcatorBytes)) {
+                try {
+                    while ((messageContent = demarcator.nextToken()) != null) {
+                        publish(flowFile, headers, messageKey, messageContent, topic, tracker, partition);
+
+                        if (tracker.isFailed(flowFile)) {
+                            // If we have a failure, don't try to send anything else.
+                            return;
+                        }
                     }
+                } finally {
+                    retainDemarcationBuffer(demarcator.getBuffer());
                 }
             } catch (final TokenTooLargeException ttle) {
                 tracker.fail(flowFile, ttle);
@@ -171,6 +179,25 @@ public class PublisherLease implements Closeable {
         }
     }
 
+    private StreamDemarcator createDemarcator(final InputStream flowFileContent, final byte[] demarcatorBytes) {
+        if (demarcationBuffer == null) {
+            return new StreamDemarcator(flowFileContent, demarcatorBytes, maxMessageSize);
+        }
+
+        return new StreamDemarcator(flowFileContent, demarcatorBytes, maxMessageSize, demarcationBuffer);
+    }
+
+    /**
+     * Holds on to the buffer used to demarcate FlowFile content so that it can be reused for the next FlowFile, rather than
+     * allocating and growing a new buffer each time. A buffer that has grown beyond the max message size (which can happen when
+     * a message is too large) is not retained.
+     */
+    private void retainDemarcationBuffer(final byte[] buffer) {
+        if (buffer.length <= maxMessageSize) {
+            demarcationBuffer = buffer;
+        }
+    }
+
     void publish(final FlowFile flowFile, final RecordSet recordSet, final RecordSetWriterFactory writerFactory, final RecordSchema schema,
                  final String messageKeyField, final String topic, final Function<Record, Integer> partitioner) throws IOException {
         if (tracker == null) {
@@ -221,23 +248,25 @@ public class PublisherLease implements Closeable {
         }
     }
 
-    private void addHeaders(final FlowFile flowFile, final Map<String, String> additionalAttributes, final ProducerRecord<?, ?> record) {
+    private List<Header> createHeaders(final FlowFile flowFile, final Map<String, String> additionalAttributes) {
         if (attributeNameRegex == null) {
-            return;
+            return Collections.emptyList();
         }
 
-        final Headers headers = record.headers();
+        final List<Header> headers = new ArrayList<>();
         for (final Map.Entry<String, String> entry : flowFile.getAttributes().entrySet()) {
             if (attributeNameRegex.matcher(entry.getKey()).matches()) {
-                headers.add(entry.getKey(), entry.getValue().getBytes(headerCharacterSet));
+                headers.add(new RecordHeader(entry.getKey(), entry.getValue().getBytes(headerCharacterSet)));
             }
         }
 
         for (final Map.Entry<String, String> entry : additionalAttributes.entrySet()) {
             if (attributeNameRegex.matcher(entry.getKey()).matches()) {
-                headers.add(entry.getKey(), entry.getValue().getBytes(headerCharacterSet));
+                headers.add(new RecordHeader(entry.getKey(), entry.getValue().getBytes(headerCharacterSet)));
             }
         }
+
+        return headers;
     }
 
     protected void publish(final FlowFile flowFile, final byte[] messageKey, final byte[] messageContent, final String topic, final InFlightMessageTracker tracker, final Integer partition) {
@@ -246,10 +275,14 @@ public class PublisherLease implements Closeable {
 
     protected void publish(final FlowFile flowFile, final Map<String, String> additionalAttributes, final byte[] messageKey, final byte[] messageContent,
                            final String topic, final InFlightMessageTracker tracker, final Integer partition) {
+        publish(flowFile, createHeaders(flowFile, additionalAttributes), messageKey, messageContent, topic, tracker, partition);
+    }
+
+    private void publish(final FlowFile flowFile, final List<Header> headers, final byte[] messageKey, final byte[] messageContent,
+                         final String topic, final InFlightMessageTracker tracker, final Integer partition) {
 
         final Integer moddedPartition = partition == null ? null : Math.abs(partition) % (producer.partitionsFor(topic).size());
-        final ProducerRecord<byte[], byte[]> record = new ProducerRecord<>(topic, moddedPartition, messageKey, messageContent);
-        addHeaders(flowFile, additionalAttributes, record);
+        final ProducerRecord<byte[], byte[]> record = new ProducerRecord<>(topic, moddedPartition, null, messageKey, messageContent, headers);
 
         producer.send(record, new Callback() {
             @Override
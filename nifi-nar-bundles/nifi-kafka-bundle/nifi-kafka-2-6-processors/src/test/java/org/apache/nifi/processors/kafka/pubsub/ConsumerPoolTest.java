@@ -16,6 +16,7 @@
  */
 package org.apache.nifi.processors.kafka.pubsub;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
@@ -27,10 +28,23 @@ import org.apache.nifi.processor.ProcessContext;
 import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processors.kafka.pubsub.ConsumerPool.PoolStats;
 import org.apache.nifi.provenance.ProvenanceReporter;
+import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.RecordReaderFactory;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.MapRecord;
+import org.apache.nifi.serialization.record.MockRecordWriter;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.util.MockFlowFile;
+import org.apache.nifi.util.MockProcessSession;
+import org.apache.nifi.util.SharedSessionState;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
@@ -39,6 +53,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 import static org.junit.Assert.assertEquals;
@@ -47,6 +62,8 @@ import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -291,6 +308,73 @@ public class ConsumerPoolTest {
         assertEquals(1, stats.leasesObtainedCount);
     }
 
+    @Test
+    public void validateRecordPoolParsesPartitionsConcurrently() throws Exception {
+        final RecordReaderFactory readerFactory = mock(RecordReaderFactory.class);
+        when(readerFactory.createRecordReader(anyMap(), any(InputStream.class), anyLong(), any())).thenAnswer(invocation -> {
+            final String value = IOUtils.toString(invocation.getArgument(1, InputStream.class), StandardCharsets.UTF_8);
+            return new SingleValueRecordReader(value);
+        });
+
+        final ConsumerPool recordPool = new ConsumerPool(
+                1,
+                readerFactory,
+                new MockRecordWriter(null, false),
+                Collections.emptyMap(),
+                Collections.singletonList("nifi"),
+                100L,
+                "ssl",
+                "localhost",
+                logger,
+                true,
+                StandardCharsets.UTF_8,
+                null,
+                false,
+                KafkaProcessorUtils.UTF8_ENCODING.getValue(),
+                null,
+                true,
+                4) {
+            @Override
+            protected Consumer<byte[], byte[]> createKafkaConsumer() {
+                return consumer;
+            }
+        };
+
+        final Map<TopicPartition, List<ConsumerRecord<byte[], byte[]>>> recordsByPartition = new HashMap<>();
+        for (int partition = 0; partition < 8; partition++) {
+            final byte[][] values = new byte[50][];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = (partition + "-" + i).getBytes(StandardCharsets.UTF_8);
+            }
+            final ConsumerRecords<byte[], byte[]> partitionRecords = createConsumerRecords("foo", partition, 0L, values);
+            partitionRecords.partitions().forEach(topicPartition -> recordsByPartition.put(topicPartition, partitionRecords.records(topicPartition)));
+        }
+
+        when(consumer.poll(any(Duration.class))).thenReturn(new ConsumerRecords<>(recordsByPartition), createConsumerRecords("nifi", 0, 0L, new byte[][]{}));
+        when(consumer.groupMetadata()).thenReturn(new ConsumerGroupMetadata("group"));
+
+        final ConsumeKafkaRecord_2_6 processor = new ConsumeKafkaRecord_2_6();
+        final MockProcessSession session = new MockProcessSession(new SharedSessionState(processor, new AtomicLong()), processor);
+        try (final ConsumerLease lease = recordPool.obtainConsumer(session, mockContext)) {
+            lease.poll();
+            lease.commit();
+        }
+        recordPool.close();
+
+        // Each partition is written to its own FlowFile, with the messages of the partition in order.
+        final List<MockFlowFile> flowFiles = session.getFlowFilesForRelationship(ConsumeKafkaRecord_2_6.REL_SUCCESS);
+        assertEquals(8, flowFiles.size());
+        for (final MockFlowFile flowFile : flowFiles) {
+            final String partition = flowFile.getAttribute(KafkaProcessorUtils.KAFKA_PARTITION);
+            final StringBuilder expectedContent = new StringBuilder();
+            for (int i = 0; i < 50; i++) {
+                expectedContent.append(partition).append("-").append(i).append("\n");
+            }
+            flowFile.assertContentEquals(expectedContent.toString());
+            flowFile.assertAttributeEquals("record.count", "50");
+        }
+    }
+
     @Test
     public void validatePoolConsumerFails() throws Exception {
 
@@ -326,4 +410,34 @@ public class ConsumerPoolTest {
         return new ConsumerRecords(map);
     }
 
+
+    private static class SingleValueRecordReader implements RecordReader {
+        private static final RecordSchema SCHEMA = new SimpleRecordSchema(Collections.singletonList(new RecordField("value", RecordFieldType.STRING.getDataType())));
+
+        private String value;
+
+        SingleValueRecordReader(final String value) {
+            this.value = value;
+        }
+
+        @Override
+        public Record nextRecord(final boolean coerceTypes, final boolean dropUnknownFields) {
+            if (value == null) {
+                return null;
+            }
+
+            final Record record = new MapRecord(SCHEMA, Collections.singletonMap("value", value));
+            value = null;
+            return record;
+        }
+
+        @Override
+        public RecordSchema getSchema() {
+            return SCHEMA;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
 }
@@ -21,6 +21,7 @@ import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.errors.ProducerFencedException;
+import org.apache.kafka.common.header.Header;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.logging.ComponentLog;
 import org.apache.nifi.processors.kafka.pubsub.util.MockRecordParser;
@@ -46,8 +47,12 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -245,6 +250,51 @@ public class TestPublisherLease {
         verify(producer, times(1)).flush();
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDemarcatedMessagesAcrossFlowFiles() throws IOException {
+        final PublisherLease lease = new PublisherLease(producer, 1024 * 1024, 1000L, logger, false, Pattern.compile("attr.*"), StandardCharsets.UTF_8);
+
+        final List<ProducerRecord<byte[], byte[]>> records = new ArrayList<>();
+        doAnswer(invocation -> {
+            records.add(invocation.getArgument(0));
+            return null;
+        }).when(producer).send(any(ProducerRecord.class), any(Callback.class));
+
+        // Use messages that are larger than the default demarcation buffer so that the buffer must grow and is then reused
+        final String firstMessage = createMessage('a', 20_000);
+        final String secondMessage = createMessage('b', 12_000);
+        final String thirdMessage = createMessage('c', 30_000);
+        final byte[] demarcatorBytes = "\n".getBytes(StandardCharsets.UTF_8);
+
+        final MockFlowFile firstFlowFile = new MockFlowFile(1L);
+        firstFlowFile.putAttributes(Collections.singletonMap("attr.name", "first"));
+        final byte[] firstContent = (firstMessage + "\n" + secondMessage).getBytes(StandardCharsets.UTF_8);
+        lease.publish(firstFlowFile, new ByteArrayInputStream(firstContent), null, demarcatorBytes, "unit-test", null);
+
+        final MockFlowFile secondFlowFile = new MockFlowFile(2L);
+        secondFlowFile.putAttributes(Collections.singletonMap("attr.name", "second"));
+        final byte[] secondContent = (thirdMessage + "\n" + secondMessage + "\n").getBytes(StandardCharsets.UTF_8);
+        lease.publish(secondFlowFile, new ByteArrayInputStream(secondContent), null, demarcatorBytes, "unit-test", null);
+
+        assertEquals(4, records.size());
+        final String[] expectedValues = {firstMessage, secondMessage, thirdMessage, secondMessage};
+        final String[] expectedHeaders = {"first", "first", "second", "second"};
+        for (int i = 0; i < records.size(); i++) {
+            final ProducerRecord<byte[], byte[]> record = records.get(i);
+            assertEquals(expectedValues[i], new String(record.value(), StandardCharsets.UTF_8));
+
+            final Header header = record.headers().lastHeader("attr.name");
+            assertEquals(expectedHeaders[i], new String(header.value(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private String createMessage(final char character, final int length) {
+        final char[] chars = new char[length];
+        Arrays.fill(chars, character);
+        return new String(chars);
+    }
+
     @Test
     public void testRecordsSentToRecordWriterAndThenToProducer() throws IOException, SchemaNotFoundException, MalformedRecordException {
         final PoisonCountingLease lease = new PoisonCountingLease();
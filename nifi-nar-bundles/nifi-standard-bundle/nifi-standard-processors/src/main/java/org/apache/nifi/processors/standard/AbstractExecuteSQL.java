@@ -240,16 +240,7 @@ public abstract class AbstractExecuteSQL extends AbstractProcessor {
 
         SqlWriter sqlWriter = configureSqlWriter(session, context, fileToProcess);
 
-        String selectQuery;
-        if (context.getProperty(SQL_SELECT_QUERY).isSet()) {
-            selectQuery = context.getProperty(SQL_SELECT_QUERY).evaluateAttributeExpressions(fileToProcess).getValue();
-        } else {
-            // If the query is not set, then an incoming flow file is required, and expected to contain a valid SQL select query.
-            // If there is no incoming connection, onTrigger will not be called as the processor will fail when scheduled.
-            final StringBuilder queryContents = new StringBuilder();
-            session.read(fileToProcess, in -> queryContents.append(IOUtils.toString(in, Charset.defaultCharset())));
-            selectQuery = queryContents.toString();
-        }
+        String selectQuery = getSelectQuery(context, session, fileToProcess);
 
         int resultCount = 0;
         try (final Connection con = dbcpService.getConnection(fileToProcess == null ? Collections.emptyMap() : fileToProcess.getAttributes())) {
@@ -450,26 +441,43 @@ public abstract class AbstractExecuteSQL extends AbstractProcessor {
                 }
             }
         } catch (final ProcessException | SQLException e) {
-            //If we had at least one result then it's OK to drop the original file, but if we had no results then
-            //  pass the original flow file down the line to trigger downstream processors
-            if (fileToProcess == null) {
-                // This can happen if any exceptions occur while setting up the connection, statement, etc.
-                logger.error("Unable to execute SQL select query {} due to {}. No FlowFile to route to failure",
+            handleQueryFailure(context, session, fileToProcess, selectQuery, e);
+        }
+    }
+
+    protected String getSelectQuery(final ProcessContext context, final ProcessSession session, final FlowFile fileToProcess) {
+        if (context.getProperty(SQL_SELECT_QUERY).isSet()) {
+            return context.getProperty(SQL_SELECT_QUERY).evaluateAttributeExpressions(fileToProcess).getValue();
+        }
+
+        // If the query is not set, then an incoming flow file is required, and expected to contain a valid SQL select query.
+        // If there is no incoming connection, onTrigger will not be called as the processor will fail when scheduled.
+        final StringBuilder queryContents = new StringBuilder();
+        session.read(fileToProcess, in -> queryContents.append(IOUtils.toString(in, Charset.defaultCharset())));
+        return queryContents.toString();
+    }
+
+    protected void handleQueryFailure(final ProcessContext context, final ProcessSession session, FlowFile fileToProcess, final String selectQuery, final Exception e) {
+        final ComponentLog logger = getLogger();
+        //If we had at least one result then it's OK to drop the original file, but if we had no results then
+        //  pass the original flow file down the line to trigger downstream processors
+        if (fileToProcess == null) {
+            // This can happen if any exceptions occur while setting up the connection, statement, etc.
+            logger.error("Unable to execute SQL select query {} due to {}. No FlowFile to route to failure",
+                    new Object[]{selectQuery, e});
+            context.yield();
+        } else {
+            if (context.hasIncomingConnection()) {
+                logger.error("Unable to execute SQL select query {} for {} due to {}; routing to failure",
+                        new Object[]{selectQuery, fileToProcess, e});
+                fileToProcess = session.penalize(fileToProcess);
+            } else {
+                logger.error("Unable to execute SQL select query {} due to {}; routing to failure",
                         new Object[]{selectQuery, e});
                 context.yield();
-            } else {
-                if (context.hasIncomingConnection()) {
-                    logger.error("Unable to execute SQL select query {} for {} due to {}; routing to failure",
-                            new Object[]{selectQuery, fileToProcess, e});
-                    fileToProcess = session.penalize(fileToProcess);
-                } else {
-                    logger.error("Unable to execute SQL select query {} due to {}; routing to failure",
-                            new Object[]{selectQuery, e});
-                    context.yield();
-                }
-                session.putAttribute(fileToProcess,RESULT_ERROR_MESSAGE,e.getMessage());
-                session.transfer(fileToProcess, REL_FAILURE);
             }
+            session.putAttribute(fileToProcess,RESULT_ERROR_MESSAGE,e.getMessage());
+            session.transfer(fileToProcess, REL_FAILURE);
         }
     }
 
@@ -16,15 +16,18 @@
  */
 package org.apache.nifi.processors.standard;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.InvalidJsonException;
 import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.PathNotFoundException;
 import com.jayway.jsonpath.spi.json.JacksonJsonProvider;
 import com.jayway.jsonpath.spi.json.JsonProvider;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -97,6 +100,66 @@ public abstract class AbstractJsonPathProcessor extends AbstractProcessor {
         return contextHolder.get();
     }
 
+    /**
+     * Establishes a reader for the given JsonPaths against the content of the FlowFile. When a streaming form of every path is provided, all of
+     * the paths are evaluated in a single pass over the content without materializing the document. Otherwise, the document is parsed into a
+     * {@link DocumentContext}.
+     *
+     * @param processSession session
+     * @param flowFile flow file whose content is evaluated
+     * @param streamingJsonPaths the streaming form of each JsonPath that will be read, or {@code null} if any of them cannot be streamed
+     * @return a reader returning the same results as {@link DocumentContext#read(JsonPath, com.jayway.jsonpath.Predicate...)}
+     */
+    static JsonPathReader establishJsonPathReader(final ProcessSession processSession, final FlowFile flowFile, final Map<JsonPath, StreamingJsonPath> streamingJsonPaths) {
+        if (streamingJsonPaths == null) {
+            final DocumentContext documentContext = validateAndEstablishJsonContext(processSession, flowFile);
+            return documentContext::read;
+        }
+
+        final List<JsonPath> jsonPaths = new ArrayList<>(streamingJsonPaths.keySet());
+        final List<StreamingJsonPath> paths = new ArrayList<>(jsonPaths.size());
+        final List<List<Object>> matches = new ArrayList<>(jsonPaths.size());
+        for (final JsonPath jsonPath : jsonPaths) {
+            paths.add(streamingJsonPaths.get(jsonPath));
+            matches.add(new ArrayList<>());
+        }
+
+        final StreamingJsonPath.Evaluation evaluation = evaluateStreaming(processSession, flowFile, paths, (pathIndex, value) -> {
+            final List<Object> pathMatches = matches.get(pathIndex);
+            // the parsed document would retain only the last value of a duplicated property
+            if (paths.get(pathIndex).isDefinite()) {
+                pathMatches.clear();
+            }
+            pathMatches.add(value);
+        });
+
+        return jsonPath -> {
+            final int pathIndex = jsonPaths.indexOf(jsonPath);
+            final StreamingJsonPath path = paths.get(pathIndex);
+            if (!evaluation.isFound(pathIndex, path)) {
+                throw new PathNotFoundException("No results for path: " + jsonPath.getPath());
+            }
+
+            final List<Object> pathMatches = matches.get(pathIndex);
+            return path.isDefinite() ? pathMatches.get(0) : pathMatches;
+        };
+    }
+
+    static StreamingJsonPath.Evaluation evaluateStreaming(final ProcessSession processSession, final FlowFile flowFile, final List<StreamingJsonPath> paths,
+                                                          final StreamingJsonPath.MatchHandler handler) {
+        final AtomicReference<StreamingJsonPath.Evaluation> evaluationHolder = new AtomicReference<>(null);
+        processSession.read(flowFile, in -> {
+            try {
+                evaluationHolder.set(StreamingJsonPath.evaluate(in, paths, STRICT_PROVIDER_CONFIGURATION, handler));
+            } catch (final JsonProcessingException e) {
+                // Route invalid content in the same manner as a failure to parse the document
+                throw new InvalidJsonException(e);
+            }
+        });
+
+        return evaluationHolder.get();
+    }
+
     /**
      * Determines the context by which JsonSmartJsonProvider would treat the value. {@link java.util.Map} and {@link java.util.List} objects can be rendered as JSON elements, everything else is
      * treated as a scalar.
@@ -116,6 +179,13 @@ public abstract class AbstractJsonPathProcessor extends AbstractProcessor {
         return JSON_PROVIDER.toJson(jsonPathResult);
     }
 
+    /**
+     * Reads the result of a JsonPath from a FlowFile's content
+     */
+    interface JsonPathReader {
+        Object read(JsonPath jsonPath);
+    }
+
     abstract static class JsonPathValidator implements Validator {
 
         @Override
@@ -131,20 +131,22 @@ public abstract class AbstractRouteRecord<T> extends AbstractProcessor {
 
                         final RecordSchema writeSchema = writerFactory.getSchema(originalAttributes, firstRecord.getSchema());
 
-                        final Set<Relationship> firstRecordRelationships = route(firstRecord, writeSchema, original, context, flowFileContext);
-                        for (final Relationship relationship : firstRecordRelationships) {
-                            writeRecord(firstRecord, relationship, writers, session, original, originalAttributes, writerFactory);
-                        }
+                        final int batchSize = getRecordBatchSize(context);
+                        final List<Record> batch = new ArrayList<>(Math.min(batchSize, 1000));
+                        batch.add(firstRecord);
 
                         Record record;
                         while ((record = reader.nextRecord()) != null) {
-                            final Set<Relationship> relationships = route(record, writeSchema, original, context, flowFileContext);
-                            numRecords.incrementAndGet();
-
-                            for (final Relationship relationship : relationships) {
-                                writeRecord(record, relationship, writers, session, original, originalAttributes, writerFactory);
+                            if (batch.size() >= batchSize) {
+                                routeBatch(batch, writeSchema, writers, session, original, originalAttributes, writerFactory, context, flowFileContext);
+                                batch.clear();
                             }
+
+                            batch.add(record);
+                            numRecords.incrementAndGet();
                         }
+
+                        routeBatch(batch, writeSchema, writers, session, original, originalAttributes, writerFactory, context, flowFileContext);
                     } catch (final SchemaNotFoundException | MalformedRecordException e) {
                         throw new ProcessException("Could not parse incoming data", e);
                     }
@@ -213,6 +215,17 @@ public abstract class AbstractRouteRecord<T> extends AbstractProcessor {
         getLogger().info("Successfully processed {}, creating {} derivative FlowFiles and processing {} records", new Object[] {flowFile, writers.size(), numRecords});
     }
 
+    private void routeBatch(final List<Record> batch, final RecordSchema writeSchema, final Map<Relationship, Tuple<FlowFile, RecordSetWriter>> writers, final ProcessSession session,
+                            final FlowFile original, final Map<String, String> originalAttributes, final RecordSetWriterFactory writerFactory, final ProcessContext context,
+                            final T flowFileContext) throws IOException, SchemaNotFoundException {
+        final List<Set<Relationship>> batchRelationships = route(batch, writeSchema, original, context, flowFileContext);
+        for (int i = 0; i < batch.size(); i++) {
+            for (final Relationship relationship : batchRelationships.get(i)) {
+                writeRecord(batch.get(i), relationship, writers, session, original, originalAttributes, writerFactory);
+            }
+        }
+    }
+
     private void writeRecord(final Record record, final Relationship relationship, final Map<Relationship, Tuple<FlowFile, RecordSetWriter>> writers, final ProcessSession session,
                              final FlowFile original, final Map<String, String> originalAttributes, final RecordSetWriterFactory writerFactory) throws IOException, SchemaNotFoundException {
         final RecordSetWriter recordSetWriter;
@@ -237,6 +250,28 @@ public abstract class AbstractRouteRecord<T> extends AbstractProcessor {
 
     protected abstract Set<Relationship> route(Record record, RecordSchema writeSchema, FlowFile flowFile, ProcessContext context, T flowFileContext);
 
+    /**
+     * Determines the Relationships to which each of the given Records should be routed. Records are routed in batches of up to
+     * {@link #getRecordBatchSize(ProcessContext)} Records, in the order in which they are read; the default implementation routes each Record in turn.
+     *
+     * @return the Relationships for each of the given Records, in the same order as the Records
+     */
+    protected List<Set<Relationship>> route(final List<Record> records, final RecordSchema writeSchema, final FlowFile flowFile, final ProcessContext context,
+                                            final T flowFileContext) {
+        final List<Set<Relationship>> relationships = new ArrayList<>(records.size());
+        for (final Record record : records) {
+            relationships.add(route(record, writeSchema, flowFile, context, flowFileContext));
+        }
+        return relationships;
+    }
+
+    /**
+     * @return the maximum number of Records to pass to {@link #route(List, RecordSchema, FlowFile, ProcessContext, Object)} at once
+     */
+    protected int getRecordBatchSize(final ProcessContext context) {
+        return 1;
+    }
+
     protected abstract boolean isRouteOriginal();
 
     protected abstract T getFlowFileContext(FlowFile flowFile, ProcessContext context);
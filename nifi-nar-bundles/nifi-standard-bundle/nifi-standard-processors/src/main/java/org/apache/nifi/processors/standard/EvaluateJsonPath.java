@@ -56,7 +56,6 @@ import org.apache.nifi.processor.ProcessorInitializationContext;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.ProcessException;
 
-import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.InvalidJsonException;
 import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.PathNotFoundException;
@@ -150,6 +149,7 @@ public class EvaluateJsonPath extends AbstractJsonPathProcessor {
     private volatile String returnType;
     private volatile String pathNotFound;
     private volatile String nullDefaultValue;
+    private volatile Map<String, StreamingJsonPath> streamingJsonPaths;
 
     @Override
     protected void init(final ProcessorInitializationContext context) {
@@ -256,6 +256,20 @@ public class EvaluateJsonPath extends AbstractJsonPathProcessor {
         }
         pathNotFound = processContext.getProperty(PATH_NOT_FOUND).getValue();
         nullDefaultValue = NULL_REPRESENTATION_MAP.get(representationOption);
+
+        // Stream the content when every expression can be evaluated in a single pass
+        Map<String, StreamingJsonPath> streamingPaths = new HashMap<>();
+        for (final Map.Entry<PropertyDescriptor, String> entry : processContext.getProperties().entrySet()) {
+            if (entry.getKey().isDynamic()) {
+                final StreamingJsonPath streamingPath = StreamingJsonPath.compile(entry.getValue());
+                if (streamingPath == null) {
+                    streamingPaths = null;
+                    break;
+                }
+                streamingPaths.put(entry.getKey().getName(), streamingPath);
+            }
+        }
+        streamingJsonPaths = streamingPaths;
     }
 
     @OnUnscheduled
@@ -272,15 +286,6 @@ public class EvaluateJsonPath extends AbstractJsonPathProcessor {
 
         final ComponentLog logger = getLogger();
 
-        DocumentContext documentContext;
-        try {
-            documentContext = validateAndEstablishJsonContext(processSession, flowFile);
-        } catch (InvalidJsonException e) {
-            logger.error("FlowFile {} did not have valid JSON content.", new Object[]{flowFile});
-            processSession.transfer(flowFile, REL_FAILURE);
-            return;
-        }
-
         Set<Map.Entry<String, JsonPath>> attributeJsonPathEntries = attributeToJsonPathEntrySetQueue.poll();
         if (attributeJsonPathEntries == null) {
             attributeJsonPathEntries = processContext.getProperties().entrySet().stream()
@@ -290,6 +295,24 @@ public class EvaluateJsonPath extends AbstractJsonPathProcessor {
         }
 
         try {
+            final Map<String, StreamingJsonPath> streamingPaths = streamingJsonPaths;
+            Map<JsonPath, StreamingJsonPath> jsonPathStreamingPaths = null;
+            if (streamingPaths != null) {
+                jsonPathStreamingPaths = new HashMap<>(attributeJsonPathEntries.size());
+                for (final Map.Entry<String, JsonPath> attributeJsonPathEntry : attributeJsonPathEntries) {
+                    jsonPathStreamingPaths.put(attributeJsonPathEntry.getValue(), streamingPaths.get(attributeJsonPathEntry.getKey()));
+                }
+            }
+
+            final JsonPathReader jsonPathReader;
+            try {
+                jsonPathReader = establishJsonPathReader(processSession, flowFile, jsonPathStreamingPaths);
+            } catch (InvalidJsonException e) {
+                logger.error("FlowFile {} did not have valid JSON content.", new Object[]{flowFile});
+                processSession.transfer(flowFile, REL_FAILURE);
+                return;
+            }
+
             // We'll only be using this map if destinationIsAttribute == true
             final Map<String, String> jsonPathResults = destinationIsAttribute ? new HashMap<>(attributeJsonPathEntries.size()) : Collections.EMPTY_MAP;
 
@@ -299,7 +322,7 @@ public class EvaluateJsonPath extends AbstractJsonPathProcessor {
 
                 Object result;
                 try {
-                    Object potentialResult = documentContext.read(jsonPathExp);
+                    Object potentialResult = jsonPathReader.read(jsonPathExp);
                     if (returnType.equals(RETURN_TYPE_SCALAR) && !isJsonScalar(potentialResult)) {
                         logger.error("Unable to return a scalar value for the expression {} for FlowFile {}. Evaluated value was {}. Transferring to {}.",
                                 new Object[]{jsonPathExp.getPath(), flowFile.getId(), potentialResult.toString(), REL_FAILURE.getName()});
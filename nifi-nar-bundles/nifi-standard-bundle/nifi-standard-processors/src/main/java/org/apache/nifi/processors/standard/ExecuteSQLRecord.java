@@ -16,6 +16,7 @@
  */
 package org.apache.nifi.processors.standard;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.nifi.annotation.behavior.EventDriven;
 import org.apache.nifi.annotation.behavior.InputRequirement;
 import org.apache.nifi.annotation.behavior.InputRequirement.Requirement;
@@ -25,21 +26,49 @@ import org.apache.nifi.annotation.behavior.WritesAttribute;
 import org.apache.nifi.annotation.behavior.WritesAttributes;
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnScheduled;
+import org.apache.nifi.annotation.lifecycle.OnStopped;
 import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.components.ValidationContext;
+import org.apache.nifi.components.ValidationResult;
+import org.apache.nifi.expression.ExpressionLanguageScope;
 import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
 import org.apache.nifi.processor.ProcessContext;
 import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.processor.util.StandardValidators;
 import org.apache.nifi.processors.standard.sql.RecordSqlWriter;
 import org.apache.nifi.processors.standard.sql.SqlWriter;
 import org.apache.nifi.serialization.RecordSetWriterFactory;
+import org.apache.nifi.util.StopWatch;
 import org.apache.nifi.util.db.JdbcCommon;
 
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.apache.nifi.util.db.JdbcProperties.DEFAULT_PRECISION;
 import static org.apache.nifi.util.db.JdbcProperties.DEFAULT_SCALE;
@@ -56,7 +85,8 @@ import static org.apache.nifi.util.db.JdbcProperties.USE_AVRO_LOGICAL_TYPES;
         + "select query, and the query may use the ? to escape parameters. In this case, the parameters to use must exist as FlowFile attributes "
         + "with the naming convention sql.args.N.type and sql.args.N.value, where N is a positive integer. The sql.args.N.type is expected to be "
         + "a number indicating the JDBC Type. The content of the FlowFile is expected to be in UTF-8 format. "
-        + "FlowFile attribute 'executesql.row.count' indicates how many rows were selected.")
+        + "FlowFile attribute 'executesql.row.count' indicates how many rows were selected. If a Partition Column is set and the Partition Count is greater than one, "
+        + "the range of values of the Partition Column is split into that many ranges, which are fetched concurrently, each over its own database connection.")
 @ReadsAttributes({
         @ReadsAttribute(attribute = "sql.args.N.type", description = "Incoming FlowFiles are expected to be parametrized SQL statements. The type of each Parameter is specified as an integer "
                 + "that represents the JDBC Type of the parameter."),
@@ -96,11 +126,14 @@ import static org.apache.nifi.util.db.JdbcProperties.USE_AVRO_LOGICAL_TYPES;
                 + "FlowFiles were produced"),
         @WritesAttribute(attribute = "input.flowfile.uuid", description = "If the processor has an incoming connection, outgoing FlowFiles will have this attribute "
                 + "set to the value of the input FlowFile's UUID. If there is no incoming connection, the attribute will not be added."),
+        @WritesAttribute(attribute = "executesql.partition.index", description = "If the result set is fetched in partitions, the zero based index of the "
+                + "partition (range of Partition Column values) whose rows are contained in this FlowFile."),
         @WritesAttribute(attribute = "mime.type", description = "Sets the mime.type attribute to the MIME Type specified by the Record Writer."),
         @WritesAttribute(attribute = "record.count", description = "The number of records output by the Record Writer.")
 })
 public class ExecuteSQLRecord extends AbstractExecuteSQL {
 
+    public static final String RESULT_PARTITION_INDEX = "executesql.partition.index";
 
     public static final PropertyDescriptor RECORD_WRITER_FACTORY = new PropertyDescriptor.Builder()
             .name("esqlrecord-record-writer")
@@ -120,6 +153,32 @@ public class ExecuteSQLRecord extends AbstractExecuteSQL {
             .required(true)
             .build();
 
+    public static final PropertyDescriptor PARTITION_COLUMN = new PropertyDescriptor.Builder()
+            .name("esqlrecord-partition-column")
+            .displayName("Partition Column")
+            .description("The name of a numeric column returned by the select query, used to fetch the result set in partitions when the Partition Count is greater "
+                    + "than one. The range between the minimum and maximum values of the column is split into equally sized ranges, and the rows of each range are "
+                    + "fetched concurrently, each over its own connection from the Database Connection Pooling Service. Rows with a null value are fetched with "
+                    + "the first range. A column with an index, such as the primary key, should be chosen. The rows of different ranges are not ordered relative to "
+                    + "each other, and the Pre-Query and Post-Query are executed on every connection.")
+            .required(false)
+            .addValidator(StandardValidators.NON_EMPTY_VALIDATOR)
+            .expressionLanguageSupported(ExpressionLanguageScope.VARIABLE_REGISTRY)
+            .build();
+
+    public static final PropertyDescriptor PARTITION_COUNT = new PropertyDescriptor.Builder()
+            .name("esqlrecord-partition-count")
+            .displayName("Partition Count")
+            .description("The number of ranges of Partition Column values that are fetched concurrently. Each range uses its own database connection, so the "
+                    + "Database Connection Pooling Service must allow this many connections for every concurrent task. When set to one, or when no Partition Column "
+                    + "is set, the result set is fetched over a single connection.")
+            .defaultValue("1")
+            .required(true)
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
+    private volatile ExecutorService partitionExecutor;
+
     public ExecuteSQLRecord() {
         final Set<Relationship> r = new HashSet<>();
         r.add(REL_SUCCESS);
@@ -141,6 +200,8 @@ public class ExecuteSQLRecord extends AbstractExecuteSQL {
         pds.add(OUTPUT_BATCH_SIZE);
         pds.add(FETCH_SIZE);
         pds.add(AUTO_COMMIT);
+        pds.add(PARTITION_COLUMN);
+        pds.add(PARTITION_COUNT);
         propDescriptors = Collections.unmodifiableList(pds);
     }
 
@@ -161,4 +222,430 @@ public class ExecuteSQLRecord extends AbstractExecuteSQL {
 
         return new RecordSqlWriter(recordSetWriterFactory, options, maxRowsPerFlowFile, fileToProcess == null ? Collections.emptyMap() : fileToProcess.getAttributes());
     }
+
+    @Override
+    protected Collection<ValidationResult> customValidate(final ValidationContext validationContext) {
+        final List<ValidationResult> results = new ArrayList<>();
+        final int partitionCount = validationContext.getProperty(PARTITION_COUNT).asInteger();
+        final String maxRowsPerFlowFile = validationContext.getProperty(MAX_ROWS_PER_FLOW_FILE).getValue();
+        if (validationContext.getProperty(PARTITION_COLUMN).isSet() && partitionCount > 1
+                && !validationContext.isExpressionLanguagePresent(maxRowsPerFlowFile) && "0".equals(maxRowsPerFlowFile)) {
+            // Partitions are written in chunks of Max Rows Per Flow File rows, which are held in memory until they are written to the content repository
+            results.add(new ValidationResult.Builder()
+                    .subject(MAX_ROWS_PER_FLOW_FILE.getDisplayName())
+                    .valid(false)
+                    .explanation("it must be greater than zero when the result set is fetched in partitions")
+                    .build());
+        }
+        return results;
+    }
+
+    @OnScheduled
+    public void setupPartitionExecutor(final ProcessContext context) {
+        if (!context.getProperty(PARTITION_COLUMN).isSet()) {
+            return;
+        }
+
+        final int partitionCount = context.getProperty(PARTITION_COUNT).asInteger();
+        if (partitionCount > 1) {
+            partitionExecutor = Executors.newFixedThreadPool(partitionCount * context.getMaxConcurrentTasks(), runnable -> {
+                final Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+                thread.setName("ExecuteSQLRecord[" + getIdentifier() + "] Partition Fetch " + thread.getName());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @OnStopped
+    public void shutdownPartitionExecutor() {
+        if (partitionExecutor != null) {
+            partitionExecutor.shutdownNow();
+            partitionExecutor = null;
+        }
+    }
+
+    @Override
+    public void onTrigger(final ProcessContext context, final ProcessSession session) throws ProcessException {
+        final ExecutorService executor = partitionExecutor;
+        if (executor == null) {
+            super.onTrigger(context, session);
+            return;
+        }
+
+        FlowFile fileToProcess = null;
+        if (context.hasIncomingConnection()) {
+            fileToProcess = session.get();
+
+            // If we have no FlowFile, and all incoming connections are self-loops then we can continue on.
+            // However, if we have no FlowFile and we have connections coming from other Processors, then
+            // we know that we should run only if we have a FlowFile.
+            if (fileToProcess == null && context.hasNonLoopConnection()) {
+                return;
+            }
+        }
+
+        final String selectQuery = getSelectQuery(context, session, fileToProcess);
+        final PartitionedFetch fetch = new PartitionedFetch(context, session, fileToProcess, selectQuery);
+        try {
+            fetch.run(executor);
+        } catch (final ProcessException | SQLException e) {
+            fetch.cancel();
+            handleQueryFailure(context, session, fetch.getFileToProcess(), selectQuery, e);
+        }
+    }
+
+    /**
+     * Splits the range of values of the Partition Column into the given number of ranges and returns the condition selecting the rows of each range. The
+     * first range also selects rows with a null value, and the first and last ranges are open-ended so that every row of the result set is selected once.
+     */
+    static List<String> getPartitionConditions(final String partitionColumn, final BigDecimal minValue, final BigDecimal maxValue, final int partitionCount) {
+        if (minValue == null || maxValue == null) {
+            // No row has a value, so all of them are in the first partition
+            return Collections.singletonList(partitionColumn + " IS NULL");
+        }
+
+        final BigInteger lowerBound = minValue.setScale(0, RoundingMode.FLOOR).toBigIntegerExact();
+        final BigInteger span = maxValue.setScale(0, RoundingMode.CEILING).toBigIntegerExact().subtract(lowerBound);
+        final List<BigInteger> boundaries = new ArrayList<>(partitionCount - 1);
+        for (int i = 1; i < partitionCount; i++) {
+            final BigInteger boundary = lowerBound.add(span.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(partitionCount)));
+            // Small ranges cannot be split into as many partitions as requested, which results in duplicate boundaries
+            if (boundary.compareTo(lowerBound) > 0 && (boundaries.isEmpty() || boundary.compareTo(boundaries.get(boundaries.size() - 1)) > 0)) {
+                boundaries.add(boundary);
+            }
+        }
+
+        if (boundaries.isEmpty()) {
+            return Collections.singletonList(null);
+        }
+
+        final List<String> conditions = new ArrayList<>(boundaries.size() + 1);
+        conditions.add("(" + partitionColumn + " < " + boundaries.get(0) + " OR " + partitionColumn + " IS NULL)");
+        for (int i = 1; i < boundaries.size(); i++) {
+            conditions.add(partitionColumn + " >= " + boundaries.get(i - 1) + " AND " + partitionColumn + " < " + boundaries.get(i));
+        }
+        conditions.add(partitionColumn + " >= " + boundaries.get(boundaries.size() - 1));
+        return conditions;
+    }
+
+    /**
+     * Fetches the result set of a single select query in partitions. The partitions are read concurrently by the partition executor, each over its own
+     * connection and into its own Record Writer, and the serialized chunks of up to Max Rows Per Flow File records are handed over to the thread that owns the
+     * process session, which creates the outgoing FlowFiles from them.
+     */
+    private class PartitionedFetch {
+        private final ProcessContext context;
+        private final ProcessSession session;
+        private final String selectQuery;
+        private final Map<String, String> inputFileAttributes;
+        private final String inputFileUUID;
+        private final boolean hasInputFile;
+        private final String partitionColumn;
+        private final int partitionCount;
+        private final int queryTimeout;
+        private final int maxRowsPerFlowFile;
+        private final int outputBatchSize;
+        private final Integer fetchSize;
+        private final boolean autoCommit;
+        private final List<String> preQueries;
+        private final List<String> postQueries;
+
+        private final AtomicBoolean cancelled = new AtomicBoolean(false);
+        private final List<Future<?>> partitionFutures = new ArrayList<>();
+        private final List<FlowFile> resultSetFlowFiles = new ArrayList<>();
+        private BlockingQueue<PartitionChunk> chunks;
+        private FlowFile fileToProcess;
+
+        PartitionedFetch(final ProcessContext context, final ProcessSession session, final FlowFile fileToProcess, final String selectQuery) {
+            this.context = context;
+            this.session = session;
+            this.fileToProcess = fileToProcess;
+            this.selectQuery = selectQuery;
+            this.inputFileAttributes = fileToProcess == null ? Collections.emptyMap() : fileToProcess.getAttributes();
+            this.inputFileUUID = fileToProcess == null ? null : fileToProcess.getAttribute(CoreAttributes.UUID.key());
+            this.hasInputFile = fileToProcess != null;
+            this.partitionColumn = context.getProperty(PARTITION_COLUMN).evaluateAttributeExpressions().getValue();
+            this.partitionCount = context.getProperty(PARTITION_COUNT).asInteger();
+            this.queryTimeout = context.getProperty(QUERY_TIMEOUT).evaluateAttributeExpressions(fileToProcess).asTimePeriod(TimeUnit.SECONDS).intValue();
+            this.maxRowsPerFlowFile = context.getProperty(MAX_ROWS_PER_FLOW_FILE).evaluateAttributeExpressions(fileToProcess).asInteger();
+            final Integer outputBatchSizeField = context.getProperty(OUTPUT_BATCH_SIZE).evaluateAttributeExpressions(fileToProcess).asInteger();
+            this.outputBatchSize = outputBatchSizeField == null ? 0 : outputBatchSizeField;
+            this.fetchSize = context.getProperty(FETCH_SIZE).evaluateAttributeExpressions(fileToProcess).asInteger();
+            this.autoCommit = context.getProperty(AUTO_COMMIT).asBoolean();
+            this.preQueries = getQueries(context.getProperty(SQL_PRE_QUERY).evaluateAttributeExpressions(fileToProcess).getValue());
+            this.postQueries = getQueries(context.getProperty(SQL_POST_QUERY).evaluateAttributeExpressions(fileToProcess).getValue());
+        }
+
+        FlowFile getFileToProcess() {
+            return fileToProcess;
+        }
+
+        void run(final ExecutorService executor) throws SQLException {
+            final List<String> conditions = queryPartitionConditions();
+            chunks = new ArrayBlockingQueue<>(2 * conditions.size());
+
+            final StopWatch executionTime = new StopWatch(true);
+            for (int i = 0; i < conditions.size(); i++) {
+                final String condition = conditions.get(i);
+                final String partitionQuery = condition == null ? selectQuery : "SELECT * FROM (" + selectQuery + ") nifi_partition WHERE " + condition;
+                // Record Writers keep the state of the result set they write, so every partition needs its own
+                final SqlWriter sqlWriter = configureSqlWriter(session, context, fileToProcess);
+                final int partitionIndex = i;
+                partitionFutures.add(executor.submit(() -> fetchPartition(partitionIndex, partitionQuery, sqlWriter)));
+            }
+
+            final String fragmentId = UUID.randomUUID().toString();
+            int fragmentIndex = 0;
+            int remainingPartitions = conditions.size();
+            PartitionChunk emptyChunk = null;
+            while (remainingPartitions > 0) {
+                final PartitionChunk chunk;
+                try {
+                    chunk = chunks.take();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ProcessException("Interrupted while waiting for the partitions of the result set to be fetched", e);
+                }
+
+                if (chunk.isLast()) {
+                    if (chunk.failure instanceof SQLException) {
+                        throw (SQLException) chunk.failure;
+                    } else if (chunk.failure instanceof ProcessException) {
+                        throw (ProcessException) chunk.failure;
+                    } else if (chunk.failure != null) {
+                        throw new ProcessException(chunk.failure);
+                    }
+                    remainingPartitions--;
+                    continue;
+                }
+
+                // Like a fragmented result set, a partition ends with an empty chunk if its row count is a multiple of Max Rows Per Flow File. An empty
+                // result is written only if none of the partitions has any rows.
+                if (chunk.rowCount == 0) {
+                    if (emptyChunk == null) {
+                        emptyChunk = chunk;
+                    }
+                    continue;
+                }
+
+                transferChunk(chunk, fragmentId, fragmentIndex++, executionTime);
+            }
+
+            if (fragmentIndex == 0 && emptyChunk != null) {
+                transferChunk(emptyChunk, fragmentId, fragmentIndex++, executionTime);
+            }
+
+            // If we are splitting results but not outputting batches, set count on all FlowFiles
+            if (outputBatchSize == 0 && maxRowsPerFlowFile > 0) {
+                for (int i = 0; i < resultSetFlowFiles.size(); i++) {
+                    resultSetFlowFiles.set(i, session.putAttribute(resultSetFlowFiles.get(i), FRAGMENT_COUNT, Integer.toString(fragmentIndex)));
+                }
+            }
+
+            session.transfer(resultSetFlowFiles, REL_SUCCESS);
+            resultSetFlowFiles.clear();
+            if (fileToProcess != null) {
+                session.remove(fileToProcess);
+                fileToProcess = null;
+            }
+        }
+
+        void cancel() {
+            cancelled.set(true);
+            partitionFutures.forEach(future -> future.cancel(true));
+            session.remove(resultSetFlowFiles);
+            resultSetFlowFiles.clear();
+        }
+
+        private List<String> queryPartitionConditions() throws SQLException {
+            if (partitionColumn == null) {
+                return Collections.singletonList(null);
+            }
+
+            final String boundsQuery = "SELECT MIN(" + partitionColumn + "), MAX(" + partitionColumn + ") FROM (" + selectQuery + ") nifi_partition_bounds";
+            try (final Connection con = dbcpService.getConnection(inputFileAttributes)) {
+                con.setAutoCommit(autoCommit);
+                executePreQueries(con);
+                try (final PreparedStatement st = con.prepareStatement(boundsQuery)) {
+                    st.setQueryTimeout(queryTimeout); // timeout in seconds
+                    if (hasInputFile) {
+                        JdbcCommon.setParameters(st, inputFileAttributes);
+                    }
+                    getLogger().debug("Executing query {}", new Object[]{boundsQuery});
+
+                    try (final ResultSet resultSet = st.executeQuery()) {
+                        resultSet.next();
+                        return getPartitionConditions(partitionColumn, toBigDecimal(resultSet.getObject(1)), toBigDecimal(resultSet.getObject(2)),
+                                partitionCount);
+                    }
+                } finally {
+                    if (!con.getAutoCommit()) {
+                        con.commit();
+                    }
+                }
+            }
+        }
+
+        private BigDecimal toBigDecimal(final Object value) {
+            if (value == null) {
+                return null;
+            }
+            if (!(value instanceof Number)) {
+                throw new ProcessException("Partition Column " + partitionColumn + " must be numeric but its values are of type " + value.getClass().getName());
+            }
+            return new BigDecimal(value.toString());
+        }
+
+        private void executePreQueries(final Connection con) throws SQLException {
+            final Pair<String, SQLException> failure = executeConfigStatements(con, preQueries);
+            if (failure != null) {
+                throw failure.getRight();
+            }
+        }
+
+        private void fetchPartition(final int partitionIndex, final String partitionQuery, final SqlWriter sqlWriter) {
+            Exception failure = null;
+            try (final Connection con = dbcpService.getConnection(inputFileAttributes)) {
+                con.setAutoCommit(autoCommit);
+                try (final PreparedStatement st = con.prepareStatement(partitionQuery)) {
+                    if (fetchSize != null && fetchSize > 0) {
+                        try {
+                            st.setFetchSize(fetchSize);
+                        } catch (SQLException se) {
+                            // Not all drivers support this, just log the error (at debug level) and move on
+                            getLogger().debug("Cannot set fetch size to {} due to {}", new Object[]{fetchSize, se.getLocalizedMessage()}, se);
+                        }
+                    }
+                    st.setQueryTimeout(queryTimeout); // timeout in seconds
+
+                    executePreQueries(con);
+                    if (hasInputFile) {
+                        JdbcCommon.setParameters(st, inputFileAttributes);
+                    }
+                    getLogger().debug("Executing query {}", new Object[]{partitionQuery});
+
+                    final StopWatch executionTime = new StopWatch(true);
+                    try (final ResultSet resultSet = st.executeQuery()) {
+                        final long executionTimeElapsed = executionTime.getElapsed(TimeUnit.MILLISECONDS);
+
+                        long rowCount;
+                        do {
+                            final StopWatch fetchTime = new StopWatch(true);
+                            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                            rowCount = sqlWriter.writeResultSet(resultSet, out, getLogger(), null);
+                            final PartitionChunk chunk = new PartitionChunk(partitionIndex, out.toByteArray(), rowCount, sqlWriter.getAttributesToAdd(),
+                                    executionTimeElapsed, fetchTime.getElapsed(TimeUnit.MILLISECONDS), null);
+                            if (!offer(chunk)) {
+                                return;
+                            }
+                        } while (maxRowsPerFlowFile > 0 && rowCount == maxRowsPerFlowFile);
+                    }
+                }
+
+                final Pair<String, SQLException> postQueryFailure = executeConfigStatements(con, postQueries);
+                if (postQueryFailure != null) {
+                    throw postQueryFailure.getRight();
+                }
+
+                // If the auto commit is set to false, commit() is called for consistency
+                if (!con.getAutoCommit()) {
+                    con.commit();
+                }
+            } catch (final Exception e) {
+                failure = e;
+            }
+
+            offer(new PartitionChunk(partitionIndex, null, -1, null, 0, 0, failure));
+        }
+
+        /**
+         * Hands a chunk over to the session thread, waiting for room in the queue for as long as the fetch has not been cancelled.
+         */
+        private boolean offer(final PartitionChunk chunk) {
+            try {
+                while (!cancelled.get()) {
+                    if (chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+
+        private void transferChunk(final PartitionChunk chunk, final String fragmentId, final int fragmentIndex, final StopWatch executionTime) {
+            FlowFile resultSetFF = fileToProcess == null ? session.create() : session.create(fileToProcess);
+            resultSetFF = session.putAllAttributes(resultSetFF, inputFileAttributes);
+            resultSetFF = session.write(resultSetFF, out -> out.write(chunk.content));
+
+            final Map<String, String> attributesToAdd = new HashMap<>();
+            attributesToAdd.put(RESULT_ROW_COUNT, String.valueOf(chunk.rowCount));
+            attributesToAdd.put(RESULT_QUERY_DURATION, String.valueOf(chunk.executionTimeElapsed + chunk.fetchTimeElapsed));
+            attributesToAdd.put(RESULT_QUERY_EXECUTION_TIME, String.valueOf(chunk.executionTimeElapsed));
+            attributesToAdd.put(RESULT_QUERY_FETCH_TIME, String.valueOf(chunk.fetchTimeElapsed));
+            attributesToAdd.put(RESULTSET_INDEX, "0");
+            attributesToAdd.put(RESULT_PARTITION_INDEX, String.valueOf(chunk.partitionIndex));
+            if (inputFileUUID != null) {
+                attributesToAdd.put(INPUT_FLOWFILE_UUID, inputFileUUID);
+            }
+            attributesToAdd.putAll(chunk.attributes);
+            if (maxRowsPerFlowFile > 0) {
+                attributesToAdd.put(FRAGMENT_ID, fragmentId);
+                attributesToAdd.put(FRAGMENT_INDEX, String.valueOf(fragmentIndex));
+            }
+            resultSetFF = session.putAllAttributes(resultSetFF, attributesToAdd);
+            session.adjustCounter("Records Written", chunk.rowCount, false);
+
+            getLogger().info("{} contains {} records; transferring to 'success'", new Object[]{resultSetFF, chunk.rowCount});
+
+            // Report a FETCH event if there was an incoming flow file, or a RECEIVE event otherwise
+            final long elapsed = executionTime.getElapsed(TimeUnit.MILLISECONDS);
+            if (context.hasIncomingConnection()) {
+                session.getProvenanceReporter().fetch(resultSetFF, "Retrieved " + chunk.rowCount + " rows", elapsed);
+            } else {
+                session.getProvenanceReporter().receive(resultSetFF, "Retrieved " + chunk.rowCount + " rows", elapsed);
+            }
+            resultSetFlowFiles.add(resultSetFF);
+
+            // If we've reached the batch size, send out the flow files
+            if (outputBatchSize > 0 && resultSetFlowFiles.size() >= outputBatchSize) {
+                session.transfer(resultSetFlowFiles, REL_SUCCESS);
+                // Need to remove the original input file if it exists
+                if (fileToProcess != null) {
+                    session.remove(fileToProcess);
+                    fileToProcess = null;
+                }
+
+                session.commitAsync();
+                resultSetFlowFiles.clear();
+            }
+        }
+    }
+
+    private static class PartitionChunk {
+        private final int partitionIndex;
+        private final byte[] content;
+        private final long rowCount;
+        private final Map<String, String> attributes;
+        private final long executionTimeElapsed;
+        private final long fetchTimeElapsed;
+        private final Exception failure;
+
+        PartitionChunk(final int partitionIndex, final byte[] content, final long rowCount, final Map<String, String> attributes, final long executionTimeElapsed,
+                       final long fetchTimeElapsed, final Exception failure) {
+            this.partitionIndex = partitionIndex;
+            this.content = content;
+            this.rowCount = rowCount;
+            this.attributes = attributes;
+            this.executionTimeElapsed = executionTimeElapsed;
+            this.fetchTimeElapsed = fetchTimeElapsed;
+            this.failure = failure;
+        }
+
+        boolean isLast() {
+            return content == null;
+        }
+    }
 }
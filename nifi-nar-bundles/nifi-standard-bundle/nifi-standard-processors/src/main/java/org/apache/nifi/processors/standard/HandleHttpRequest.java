@@ -82,11 +82,16 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
 
 import static javax.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
@@ -323,7 +328,8 @@ public class HandleHttpRequest extends AbstractProcessor {
 
     private volatile Server server;
     private volatile boolean ready;
-    private volatile BlockingQueue<HttpRequestContainer> containerQueue;
+    private volatile ContainerQueue<HttpRequestContainer> containerQueue;
+    private final AtomicLong rejectedRequestCount = new AtomicLong(0L);
     private final AtomicBoolean initialized = new AtomicBoolean(false);
     private final AtomicBoolean runOnPrimary = new AtomicBoolean(false);
     private final AtomicReference<Set<String>> parameterToAttributesReference = new AtomicReference<>(null);
@@ -348,7 +354,7 @@ public class HandleHttpRequest extends AbstractProcessor {
             return;
         }
         runOnPrimary.set(context.getExecutionNode().equals(ExecutionNode.PRIMARY));
-        this.containerQueue = new LinkedBlockingQueue<>(context.getProperty(CONTAINER_QUEUE_SIZE).asInteger());
+        this.containerQueue = new ContainerQueue<>(context.getProperty(CONTAINER_QUEUE_SIZE).asInteger());
         final String host = context.getProperty(HOSTNAME).getValue();
         final int port = context.getProperty(PORT).evaluateAttributeExpressions().asInteger();
         final SSLContextService sslService = context.getProperty(SSL_CONTEXT).asControllerService(SSLContextService.class);
@@ -492,6 +498,7 @@ public class HandleHttpRequest extends AbstractProcessor {
                 if (added) {
                     getLogger().debug("Request Queued: Method [{}] URI [{}] Address [{}]", method, requestUri, request.getRemoteAddr());
                 } else {
+                    rejectedRequestCount.incrementAndGet();
                     sendError(SC_SERVICE_UNAVAILABLE, "Request Queue Full", container);
                 }
             }
@@ -566,7 +573,10 @@ public class HandleHttpRequest extends AbstractProcessor {
             getLogger().debug("No Pending Requests Queued");
         } else {
             final List<HttpRequestContainer> pendingContainers = new ArrayList<>();
-            containerQueue.drainTo(pendingContainers);
+            HttpRequestContainer pendingContainer;
+            while ((pendingContainer = containerQueue.poll()) != null) {
+                pendingContainers.add(pendingContainer);
+            }
             getLogger().warn("Pending Requests Queued [{}]", pendingContainers.size());
             for (final HttpRequestContainer container : pendingContainers) {
                 sendError(SC_SERVICE_UNAVAILABLE, "Stopping Server", container);
@@ -605,7 +615,12 @@ public class HandleHttpRequest extends AbstractProcessor {
             throw new ProcessException("Failed to initialize the server", e);
         }
 
-        HttpRequestContainer container;
+        final long rejected = rejectedRequestCount.getAndSet(0L);
+        if (rejected > 0) {
+            session.adjustCounter("Requests Rejected: Queue Full", rejected, false);
+        }
+
+        final HttpRequestContainer container;
         try {
             container = containerQueue.poll(2, TimeUnit.MILLISECONDS);
         } catch (final InterruptedException e1) {
@@ -823,6 +838,11 @@ public class HandleHttpRequest extends AbstractProcessor {
         }
 
         session.remove(flowFile);
+        session.adjustCounter("Requests Rejected: HTTP Context Map Full", 1, false);
+        final int outstanding = contextMap.getOutstandingRequestCount();
+        if (outstanding >= 0) {
+            getLogger().warn("Request from {} rejected: HTTP Context Map has {} outstanding requests", request.getRemoteAddr(), outstanding);
+        }
         sendError(SC_SERVICE_UNAVAILABLE, "Request Registration Failed", container);
         return false;
     }
@@ -881,6 +901,96 @@ public class HandleHttpRequest extends AbstractProcessor {
         }
     }
 
+    /**
+     * Bounded queue of pending requests. Jetty threads offer requests and Processor threads poll them without contending on a
+     * shared lock, while the size counter enforces the configured Container Queue Size. A Processor thread that finds the queue
+     * empty waits for a bounded time; only then is a lock taken, and an offering thread signals it only when a thread is waiting.
+     */
+    static class ContainerQueue<E> {
+        private final Queue<E> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger(0);
+        private final AtomicInteger waitingPollers = new AtomicInteger(0);
+        private final Lock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final int capacity;
+
+        ContainerQueue(final int capacity) {
+            this.capacity = capacity;
+        }
+
+        boolean offer(final E element) {
+            int current;
+            do {
+                current = size.get();
+                if (current >= capacity) {
+                    return false;
+                }
+            } while (!size.compareAndSet(current, current + 1));
+
+            queue.offer(element);
+
+            if (waitingPollers.get() > 0) {
+                lock.lock();
+                try {
+                    notEmpty.signal();
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            return true;
+        }
+
+        E poll() {
+            final E element = queue.poll();
+            if (element != null) {
+                size.decrementAndGet();
+            }
+            return element;
+        }
+
+        /**
+         * Retrieves the head of the queue, waiting up to the given time for an element to become available
+         *
+         * @return the head of the queue, or <code>null</code> if the queue is still empty when the time has elapsed
+         */
+        E poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+            final E element = poll();
+            if (element != null) {
+                return element;
+            }
+
+            long remainingNanos = unit.toNanos(timeout);
+            waitingPollers.incrementAndGet();
+            try {
+                lock.lockInterruptibly();
+                try {
+                    // The queue is checked again after registering as a waiting poller, so that an element offered concurrently is not missed
+                    E polled;
+                    while ((polled = poll()) == null) {
+                        if (remainingNanos <= 0L) {
+                            return null;
+                        }
+                        remainingNanos = notEmpty.awaitNanos(remainingNanos);
+                    }
+                    return polled;
+                } finally {
+                    lock.unlock();
+                }
+            } finally {
+                waitingPollers.decrementAndGet();
+            }
+        }
+
+        int size() {
+            return size.get();
+        }
+
+        boolean isEmpty() {
+            return size.get() == 0;
+        }
+    }
+
     private static class HttpRequestContainer {
         private final HttpServletRequest request;
         private final HttpServletResponse response;
@@ -45,8 +45,11 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -56,8 +59,11 @@ import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.X509TrustManager;
 
 import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.ConnectionPool;
 import okhttp3.Credentials;
+import okhttp3.Dispatcher;
 import okhttp3.Handshake;
 import okhttp3.Headers;
 import okhttp3.MediaType;
@@ -516,6 +522,28 @@ public class InvokeHTTP extends AbstractProcessor {
             )
             .build();
 
+    public static final PropertyDescriptor REQUEST_BATCH_SIZE = new PropertyDescriptor.Builder()
+            .name("request-batch-size")
+            .displayName("Request Batch Size")
+            .description("The maximum number of FlowFiles to process in a single invocation of the Processor. When greater than 1, the requests for "
+                    + "all FlowFiles in the batch are sent concurrently and each response is processed as soon as it is received. Request content "
+                    + "is buffered in memory before it is sent, so batching should not be used for large FlowFiles.")
+            .required(true)
+            .defaultValue("1")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
+    public static final PropertyDescriptor MAX_IN_FLIGHT_REQUESTS = new PropertyDescriptor.Builder()
+            .name("max-in-flight-requests")
+            .displayName("Maximum In-Flight Requests")
+            .description("The maximum number of batched requests that may be executing at the same time, across all concurrent tasks of the Processor. "
+                    + "Additional requests wait until an outstanding request completes. When HTTP/2 is used, concurrent requests to the same host are "
+                    + "multiplexed over a shared connection. Only applies when Request Batch Size is greater than 1.")
+            .required(true)
+            .defaultValue("64")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
     private static final ProxySpec[] PROXY_SPECS = {ProxySpec.HTTP_AUTH, ProxySpec.SOCKS};
     public static final PropertyDescriptor PROXY_CONFIGURATION_SERVICE
             = ProxyConfiguration.createProxyConfigPropertyDescriptor(true, PROXY_SPECS);
@@ -532,6 +560,8 @@ public class InvokeHTTP extends AbstractProcessor {
             PROP_FOLLOW_REDIRECTS,
             DISABLE_HTTP2_PROTOCOL,
             FLOW_FILE_NAMING_STRATEGY,
+            REQUEST_BATCH_SIZE,
+            MAX_IN_FLIGHT_REQUESTS,
             PROP_ATTRIBUTES_TO_SEND,
             PROP_USERAGENT,
             PROP_BASIC_AUTH_USERNAME,
@@ -824,6 +854,13 @@ public class InvokeHTTP extends AbstractProcessor {
             okHttpClientBuilder.sslSocketFactory(socketFactory, trustManager);
         }
 
+        // Limit the number of batched requests executing concurrently through the asynchronous dispatcher
+        final int maxInFlightRequests = context.getProperty(MAX_IN_FLIGHT_REQUESTS).asInteger();
+        final Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxInFlightRequests);
+        dispatcher.setMaxRequestsPerHost(maxInFlightRequests);
+        okHttpClientBuilder.dispatcher(dispatcher);
+
         setAuthenticator(okHttpClientBuilder, context);
 
         useChunked = context.getProperty(PROP_USE_CHUNKED_ENCODING).asBoolean();
@@ -869,6 +906,15 @@ public class InvokeHTTP extends AbstractProcessor {
     public void onTrigger(ProcessContext context, ProcessSession session) throws ProcessException {
         OkHttpClient okHttpClient = okHttpClientAtomicReference.get();
 
+        final int batchSize = context.getProperty(REQUEST_BATCH_SIZE).asInteger();
+        if (batchSize > 1) {
+            final List<FlowFile> requestFlowFiles = session.get(batchSize);
+            if (!requestFlowFiles.isEmpty()) {
+                invokeAsync(context, session, okHttpClient, requestFlowFiles);
+                return;
+            }
+        }
+
         FlowFile requestFlowFile = session.get();
 
         // Checking to see if the property to put the body of the response in an attribute was set
@@ -886,23 +932,18 @@ public class InvokeHTTP extends AbstractProcessor {
             }
         }
 
-        // Setting some initial variables
-        final int maxAttributeSize = context.getProperty(PROP_PUT_ATTRIBUTE_MAX_LENGTH).asInteger();
-        final ComponentLog logger = getLogger();
-
         // Every request/response cycle has a unique transaction id which will be stored as a flowfile attribute.
         final UUID txId = UUID.randomUUID();
 
-        FlowFile responseFlowFile = null;
         try {
             // read the url property from the context
             final String urlProperty = trimToEmpty(context.getProperty(PROP_URL).evaluateAttributeExpressions(requestFlowFile).getValue());
             final URL url = new URL(urlProperty);
 
-            Request httpRequest = configureRequest(context, session, requestFlowFile, url);
+            Request httpRequest = configureRequest(context, session, requestFlowFile, url, false);
 
             // log request
-            logRequest(logger, httpRequest);
+            logRequest(getLogger(), httpRequest);
 
             // emit send provenance event if successfully sent to the server
             if (httpRequest.body() != null) {
@@ -912,151 +953,227 @@ public class InvokeHTTP extends AbstractProcessor {
             final long startNanos = System.nanoTime();
 
             try (Response responseHttp = okHttpClient.newCall(httpRequest).execute()) {
-                // output the raw response headers (DEBUG level only)
-                logResponse(logger, url, responseHttp);
-
-                // store the status code and message
-                int statusCode = responseHttp.code();
-                String statusMessage = responseHttp.message();
-
-                // Create a map of the status attributes that are always written to the request and response FlowFiles
-                Map<String, String> statusAttributes = new HashMap<>();
-                statusAttributes.put(STATUS_CODE, String.valueOf(statusCode));
-                statusAttributes.put(STATUS_MESSAGE, statusMessage);
-                statusAttributes.put(REQUEST_URL, url.toExternalForm());
-                statusAttributes.put(REQUEST_DURATION, Long.toString(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)));
-                statusAttributes.put(RESPONSE_URL, responseHttp.request().url().toString());
-                statusAttributes.put(TRANSACTION_ID, txId.toString());
-
-                if (requestFlowFile != null) {
-                    requestFlowFile = session.putAllAttributes(requestFlowFile, statusAttributes);
-                }
+                processResponse(context, session, requestFlowFile, url, httpRequest, responseHttp, startNanos, txId);
+            }
+        } catch (final Exception e) {
+            handleException(context, session, requestFlowFile, e);
+        }
+    }
 
-                // If the property to add the response headers to the request flowfile is true then add them
-                if (context.getProperty(PROP_ADD_HEADERS_TO_REQUEST).asBoolean() && requestFlowFile != null) {
-                    // write the response headers as attributes
-                    // this will overwrite any existing flowfile attributes
-                    requestFlowFile = session.putAllAttributes(requestFlowFile, convertAttributesFromHeaders(responseHttp));
+    /**
+     * Sends a request for each FlowFile through the asynchronous dispatcher of the client and processes the responses in the order in which they
+     * are received. The ProcessSession is only accessed from the calling thread: request content is buffered before the call is enqueued and
+     * completed responses are handed back to this thread for processing.
+     */
+    private void invokeAsync(final ProcessContext context, final ProcessSession session, final OkHttpClient okHttpClient, final List<FlowFile> requestFlowFiles) {
+        final BlockingQueue<AsyncResponse> completedResponses = new LinkedBlockingQueue<>();
+        final AtomicBoolean abandoned = new AtomicBoolean(false);
+        final List<Call> calls = new ArrayList<>(requestFlowFiles.size());
+
+        for (final FlowFile requestFlowFile : requestFlowFiles) {
+            try {
+                final String urlProperty = trimToEmpty(context.getProperty(PROP_URL).evaluateAttributeExpressions(requestFlowFile).getValue());
+                final URL url = new URL(urlProperty);
+
+                final Request httpRequest = configureRequest(context, session, requestFlowFile, url, true);
+                logRequest(getLogger(), httpRequest);
+
+                if (httpRequest.body() != null) {
+                    session.getProvenanceReporter().send(requestFlowFile, url.toExternalForm(), true);
                 }
 
-                boolean outputBodyToRequestAttribute = (!isSuccess(statusCode) || putToAttribute) && requestFlowFile != null;
-                boolean outputBodyToResponseContent = (isSuccess(statusCode) && !putToAttribute) || context.getProperty(PROP_OUTPUT_RESPONSE_REGARDLESS).asBoolean();
-                ResponseBody responseBody = responseHttp.body();
-                boolean bodyExists = responseBody != null && !context.getProperty(IGNORE_RESPONSE_CONTENT).asBoolean();
-
-                InputStream responseBodyStream = null;
-                SoftLimitBoundedByteArrayOutputStream outputStreamToRequestAttribute = null;
-                TeeInputStream teeInputStream = null;
-                try {
-                    responseBodyStream = bodyExists ? responseBody.byteStream() : null;
-                    if (responseBodyStream != null && outputBodyToRequestAttribute && outputBodyToResponseContent) {
-                        outputStreamToRequestAttribute = new SoftLimitBoundedByteArrayOutputStream(maxAttributeSize);
-                        teeInputStream = new TeeInputStream(responseBodyStream, outputStreamToRequestAttribute);
+                final AsyncResponse asyncResponse = new AsyncResponse(requestFlowFile, url, httpRequest);
+                final Call call = okHttpClient.newCall(httpRequest);
+                call.enqueue(new Callback() {
+                    @Override
+                    public void onFailure(final Call failedCall, final IOException e) {
+                        asyncResponse.failure = e;
+                        completedResponses.add(asyncResponse);
                     }
 
-                    if (outputBodyToResponseContent) {
-                        /*
-                         * If successful and putting to response flowfile, store the response body as the flowfile payload
-                         * we include additional flowfile attributes including the response headers and the status codes.
-                         */
+                    @Override
+                    public void onResponse(final Call completedCall, final Response response) {
+                        asyncResponse.response = response;
+                        completedResponses.add(asyncResponse);
 
-                        // clone the flowfile to capture the response
-                        if (requestFlowFile != null) {
-                            responseFlowFile = session.create(requestFlowFile);
-                        } else {
-                            responseFlowFile = session.create();
+                        // close responses that arrive after the batch was abandoned, unless already closed while draining
+                        if (abandoned.get() && completedResponses.remove(asyncResponse)) {
+                            asyncResponse.close();
                         }
+                    }
+                });
+                calls.add(call);
+            } catch (final Exception e) {
+                handleException(context, session, requestFlowFile, e);
+            }
+        }
 
-                        // write attributes to response flowfile
-                        responseFlowFile = session.putAllAttributes(responseFlowFile, statusAttributes);
+        for (int i = 0; i < calls.size(); i++) {
+            final AsyncResponse asyncResponse;
+            try {
+                asyncResponse = completedResponses.take();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abandoned.set(true);
+                calls.forEach(Call::cancel);
+                AsyncResponse pendingResponse;
+                while ((pendingResponse = completedResponses.poll()) != null) {
+                    pendingResponse.close();
+                }
+                throw new ProcessException("Interrupted while waiting for HTTP responses", e);
+            }
 
-                        // write the response headers as attributes
-                        // this will overwrite any existing flowfile attributes
-                        responseFlowFile = session.putAllAttributes(responseFlowFile, convertAttributesFromHeaders(responseHttp));
+            if (asyncResponse.failure != null) {
+                handleException(context, session, asyncResponse.requestFlowFile, asyncResponse.failure);
+                continue;
+            }
 
-                        // update FlowFile's filename attribute with an extracted value from the remote URL
-                        if (FlowFileNamingStrategy.URL_PATH.equals(getFlowFileNamingStrategy(context)) && GET_METHOD.equals(httpRequest.method())) {
-                            String fileName = getFileNameFromUrl(url);
-                            if (fileName != null) {
-                                responseFlowFile = session.putAttribute(responseFlowFile, CoreAttributes.FILENAME.key(), fileName);
-                            }
-                        }
+            try (Response responseHttp = asyncResponse.response) {
+                processResponse(context, session, asyncResponse.requestFlowFile, asyncResponse.url, asyncResponse.request,
+                        responseHttp, asyncResponse.startNanos, UUID.randomUUID());
+            }
+        }
+    }
 
-                        // transfer the message body to the payload
-                        // can potentially be null in edge cases
-                        if (bodyExists) {
-                            // write content type attribute to response flowfile if it is available
-                            final MediaType contentType = responseBody.contentType();
-                            if (contentType != null) {
-                                responseFlowFile = session.putAttribute(responseFlowFile, CoreAttributes.MIME_TYPE.key(), contentType.toString());
-                            }
-                            if (teeInputStream != null) {
-                                responseFlowFile = session.importFrom(teeInputStream, responseFlowFile);
-                            } else {
-                                responseFlowFile = session.importFrom(responseBodyStream, responseFlowFile);
-                            }
-
-                            // emit provenance event
-                            final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
-                            if (requestFlowFile != null) {
-                                session.getProvenanceReporter().fetch(responseFlowFile, url.toExternalForm(), millis);
-                            } else {
-                                session.getProvenanceReporter().receive(responseFlowFile, url.toExternalForm(), millis);
-                            }
-                        }
+    private void processResponse(final ProcessContext context, final ProcessSession session, FlowFile requestFlowFile, final URL url,
+                                 final Request httpRequest, final Response responseHttp, final long startNanos, final UUID txId) {
+        // Checking to see if the property to put the body of the response in an attribute was set
+        final boolean putToAttribute = context.getProperty(PROP_PUT_OUTPUT_IN_ATTRIBUTE).isSet();
+        final int maxAttributeSize = context.getProperty(PROP_PUT_ATTRIBUTE_MAX_LENGTH).asInteger();
+
+        FlowFile responseFlowFile = null;
+        try {
+            // output the raw response headers (DEBUG level only)
+            logResponse(getLogger(), url, responseHttp);
+
+            // store the status code and message
+            int statusCode = responseHttp.code();
+            String statusMessage = responseHttp.message();
+
+            // Create a map of the status attributes that are always written to the request and response FlowFiles
+            Map<String, String> statusAttributes = new HashMap<>();
+            statusAttributes.put(STATUS_CODE, String.valueOf(statusCode));
+            statusAttributes.put(STATUS_MESSAGE, statusMessage);
+            statusAttributes.put(REQUEST_URL, url.toExternalForm());
+            statusAttributes.put(REQUEST_DURATION, Long.toString(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)));
+            statusAttributes.put(RESPONSE_URL, responseHttp.request().url().toString());
+            statusAttributes.put(TRANSACTION_ID, txId.toString());
+
+            if (requestFlowFile != null) {
+                requestFlowFile = session.putAllAttributes(requestFlowFile, statusAttributes);
+            }
+
+            // If the property to add the response headers to the request flowfile is true then add them
+            if (context.getProperty(PROP_ADD_HEADERS_TO_REQUEST).asBoolean() && requestFlowFile != null) {
+                // write the response headers as attributes
+                // this will overwrite any existing flowfile attributes
+                requestFlowFile = session.putAllAttributes(requestFlowFile, convertAttributesFromHeaders(responseHttp));
+            }
+
+            boolean outputBodyToRequestAttribute = (!isSuccess(statusCode) || putToAttribute) && requestFlowFile != null;
+            boolean outputBodyToResponseContent = (isSuccess(statusCode) && !putToAttribute) || context.getProperty(PROP_OUTPUT_RESPONSE_REGARDLESS).asBoolean();
+            ResponseBody responseBody = responseHttp.body();
+            boolean bodyExists = responseBody != null && !context.getProperty(IGNORE_RESPONSE_CONTENT).asBoolean();
+
+            InputStream responseBodyStream = null;
+            SoftLimitBoundedByteArrayOutputStream outputStreamToRequestAttribute = null;
+            TeeInputStream teeInputStream = null;
+            try {
+                responseBodyStream = bodyExists ? responseBody.byteStream() : null;
+                if (responseBodyStream != null && outputBodyToRequestAttribute && outputBodyToResponseContent) {
+                    outputStreamToRequestAttribute = new SoftLimitBoundedByteArrayOutputStream(maxAttributeSize);
+                    teeInputStream = new TeeInputStream(responseBodyStream, outputStreamToRequestAttribute);
+                }
+
+                if (outputBodyToResponseContent) {
+                    /*
+                     * If successful and putting to response flowfile, store the response body as the flowfile payload
+                     * we include additional flowfile attributes including the response headers and the status codes.
+                     */
+
+                    // clone the flowfile to capture the response
+                    if (requestFlowFile != null) {
+                        responseFlowFile = session.create(requestFlowFile);
+                    } else {
+                        responseFlowFile = session.create();
                     }
 
-                    // if not successful and request flowfile is not null, store the response body into a flowfile attribute
-                    if (outputBodyToRequestAttribute && bodyExists) {
-                        String attributeKey = context.getProperty(PROP_PUT_OUTPUT_IN_ATTRIBUTE).evaluateAttributeExpressions(requestFlowFile).getValue();
-                        if (attributeKey == null) {
-                            attributeKey = RESPONSE_BODY;
+                    // write attributes to response flowfile
+                    responseFlowFile = session.putAllAttributes(responseFlowFile, statusAttributes);
+
+                    // write the response headers as attributes
+                    // this will overwrite any existing flowfile attributes
+                    responseFlowFile = session.putAllAttributes(responseFlowFile, convertAttributesFromHeaders(responseHttp));
+
+                    // update FlowFile's filename attribute with an extracted value from the remote URL
+                    if (FlowFileNamingStrategy.URL_PATH.equals(getFlowFileNamingStrategy(context)) && GET_METHOD.equals(httpRequest.method())) {
+                        String fileName = getFileNameFromUrl(url);
+                        if (fileName != null) {
+                            responseFlowFile = session.putAttribute(responseFlowFile, CoreAttributes.FILENAME.key(), fileName);
                         }
-                        byte[] outputBuffer;
-                        int size;
+                    }
 
-                        if (outputStreamToRequestAttribute != null) {
-                            outputBuffer = outputStreamToRequestAttribute.getBuffer();
-                            size = outputStreamToRequestAttribute.size();
+                    // transfer the message body to the payload
+                    // can potentially be null in edge cases
+                    if (bodyExists) {
+                        // write content type attribute to response flowfile if it is available
+                        final MediaType contentType = responseBody.contentType();
+                        if (contentType != null) {
+                            responseFlowFile = session.putAttribute(responseFlowFile, CoreAttributes.MIME_TYPE.key(), contentType.toString());
+                        }
+                        if (teeInputStream != null) {
+                            responseFlowFile = session.importFrom(teeInputStream, responseFlowFile);
                         } else {
-                            outputBuffer = new byte[maxAttributeSize];
-                            size = StreamUtils.fillBuffer(responseBodyStream, outputBuffer, false);
+                            responseFlowFile = session.importFrom(responseBodyStream, responseFlowFile);
                         }
-                        String bodyString = new String(outputBuffer, 0, size, getCharsetFromMediaType(responseBody.contentType()));
-                        requestFlowFile = session.putAttribute(requestFlowFile, attributeKey, bodyString);
 
+                        // emit provenance event
                         final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
-                        session.getProvenanceReporter().modifyAttributes(requestFlowFile, "The " + attributeKey + " has been added. The value of which is the body of a http call to "
-                                + url.toExternalForm() + ". It took " + millis + "millis,");
-                    }
-                } finally {
-                    if (outputStreamToRequestAttribute != null) {
-                        outputStreamToRequestAttribute.close();
-                    }
-                    if (teeInputStream != null) {
-                        teeInputStream.close();
-                    } else if (responseBodyStream != null) {
-                        responseBodyStream.close();
+                        if (requestFlowFile != null) {
+                            session.getProvenanceReporter().fetch(responseFlowFile, url.toExternalForm(), millis);
+                        } else {
+                            session.getProvenanceReporter().receive(responseFlowFile, url.toExternalForm(), millis);
+                        }
                     }
                 }
 
-                route(requestFlowFile, responseFlowFile, session, context, statusCode);
+                // if not successful and request flowfile is not null, store the response body into a flowfile attribute
+                if (outputBodyToRequestAttribute && bodyExists) {
+                    String attributeKey = context.getProperty(PROP_PUT_OUTPUT_IN_ATTRIBUTE).evaluateAttributeExpressions(requestFlowFile).getValue();
+                    if (attributeKey == null) {
+                        attributeKey = RESPONSE_BODY;
+                    }
+                    byte[] outputBuffer;
+                    int size;
 
-            }
-        } catch (final Exception e) {
-            // penalize or yield
-            if (requestFlowFile != null) {
-                logger.error("Routing to {} due to exception: {}", new Object[]{REL_FAILURE.getName(), e}, e);
-                requestFlowFile = session.penalize(requestFlowFile);
-                requestFlowFile = session.putAttribute(requestFlowFile, EXCEPTION_CLASS, e.getClass().getName());
-                requestFlowFile = session.putAttribute(requestFlowFile, EXCEPTION_MESSAGE, e.getMessage());
-                // transfer original to failure
-                session.transfer(requestFlowFile, REL_FAILURE);
-            } else {
-                logger.error("Yielding processor due to exception encountered as a source processor: {}", e);
-                context.yield();
+                    if (outputStreamToRequestAttribute != null) {
+                        outputBuffer = outputStreamToRequestAttribute.getBuffer();
+                        size = outputStreamToRequestAttribute.size();
+                    } else {
+                        outputBuffer = new byte[maxAttributeSize];
+                        size = StreamUtils.fillBuffer(responseBodyStream, outputBuffer, false);
+                    }
+                    String bodyString = new String(outputBuffer, 0, size, getCharsetFromMediaType(responseBody.contentType()));
+                    requestFlowFile = session.putAttribute(requestFlowFile, attributeKey, bodyString);
+
+                    final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                    session.getProvenanceReporter().modifyAttributes(requestFlowFile, "The " + attributeKey + " has been added. The value of which is the body of a http call to "
+                            + url.toExternalForm() + ". It took " + millis + "millis,");
+                }
+            } finally {
+                if (outputStreamToRequestAttribute != null) {
+                    outputStreamToRequestAttribute.close();
+                }
+                if (teeInputStream != null) {
+                    teeInputStream.close();
+                } else if (responseBodyStream != null) {
+                    responseBodyStream.close();
+                }
             }
 
+            route(requestFlowFile, responseFlowFile, session, context, statusCode);
+        } catch (final Exception e) {
+            handleException(context, session, requestFlowFile, e);
 
             // cleanup response flowfile, if applicable
             if (responseFlowFile != null) {
@@ -1065,7 +1182,24 @@ public class InvokeHTTP extends AbstractProcessor {
         }
     }
 
-    private Request configureRequest(final ProcessContext context, final ProcessSession session, final FlowFile requestFlowFile, URL url) {
+    private void handleException(final ProcessContext context, final ProcessSession session, FlowFile requestFlowFile, final Exception e) {
+        final ComponentLog logger = getLogger();
+
+        // penalize or yield
+        if (requestFlowFile != null) {
+            logger.error("Routing to {} due to exception: {}", new Object[]{REL_FAILURE.getName(), e}, e);
+            requestFlowFile = session.penalize(requestFlowFile);
+            requestFlowFile = session.putAttribute(requestFlowFile, EXCEPTION_CLASS, e.getClass().getName());
+            requestFlowFile = session.putAttribute(requestFlowFile, EXCEPTION_MESSAGE, e.getMessage());
+            // transfer original to failure
+            session.transfer(requestFlowFile, REL_FAILURE);
+        } else {
+            logger.error("Yielding processor due to exception encountered as a source processor: {}", e);
+            context.yield();
+        }
+    }
+
+    private Request configureRequest(final ProcessContext context, final ProcessSession session, final FlowFile requestFlowFile, URL url, final boolean bufferContent) {
         final Request.Builder requestBuilder = new Request.Builder();
 
         requestBuilder.url(url);
@@ -1092,15 +1226,15 @@ public class InvokeHTTP extends AbstractProcessor {
                 requestBuilder.get();
                 break;
             case POST_METHOD:
-                RequestBody requestBody = getRequestBodyToSend(session, context, requestFlowFile);
+                RequestBody requestBody = getRequestBodyToSend(session, context, requestFlowFile, bufferContent);
                 requestBuilder.post(requestBody);
                 break;
             case PUT_METHOD:
-                requestBody = getRequestBodyToSend(session, context, requestFlowFile);
+                requestBody = getRequestBodyToSend(session, context, requestFlowFile, bufferContent);
                 requestBuilder.put(requestBody);
                 break;
             case PATCH_METHOD:
-                requestBody = getRequestBodyToSend(session, context, requestFlowFile);
+                requestBody = getRequestBodyToSend(session, context, requestFlowFile, bufferContent);
                 requestBuilder.patch(requestBody);
                 break;
             case HEAD_METHOD:
@@ -1122,7 +1256,7 @@ public class InvokeHTTP extends AbstractProcessor {
     }
 
     private RequestBody getRequestBodyToSend(final ProcessSession session, final ProcessContext context,
-                                             final FlowFile requestFlowFile) {
+                                             final FlowFile requestFlowFile, final boolean bufferContent) {
 
         boolean sendBody = context.getProperty(PROP_SEND_BODY).asBoolean();
 
@@ -1141,6 +1275,9 @@ public class InvokeHTTP extends AbstractProcessor {
             }
         }
 
+        // Asynchronous requests are written from OkHttp threads, which must not access the ProcessSession
+        final byte[] bufferedContent = bufferContent && sendBody ? readContent(session, requestFlowFile) : null;
+
         RequestBody requestBody = new RequestBody() {
             @Nullable
             @Override
@@ -1149,8 +1286,12 @@ public class InvokeHTTP extends AbstractProcessor {
             }
 
             @Override
-            public void writeTo(BufferedSink sink) {
-                session.exportTo(requestFlowFile, sink.outputStream());
+            public void writeTo(BufferedSink sink) throws IOException {
+                if (bufferedContent == null) {
+                    session.exportTo(requestFlowFile, sink.outputStream());
+                } else {
+                    sink.write(bufferedContent);
+                }
             }
 
             @Override
@@ -1183,6 +1324,16 @@ public class InvokeHTTP extends AbstractProcessor {
         return RequestBody.create(new byte[0], null);
     }
 
+    private byte[] readContent(final ProcessSession session, final FlowFile requestFlowFile) {
+        if (requestFlowFile.getSize() > Integer.MAX_VALUE) {
+            throw new ProcessException(String.format("%s is too large to buffer for an asynchronous request", requestFlowFile));
+        }
+
+        final byte[] content = new byte[(int) requestFlowFile.getSize()];
+        session.read(requestFlowFile, in -> StreamUtils.fillBuffer(in, content));
+        return content;
+    }
+
     private void setHeaderProperties(final ProcessContext context, final Request.Builder requestBuilder, final FlowFile requestFlowFile) {
         // check if we should send the a Date header with the request
         if (context.getProperty(PROP_DATE_HEADER).asBoolean()) {
@@ -1362,4 +1513,25 @@ public class InvokeHTTP extends AbstractProcessor {
 
         return fileName;
     }
+
+    private static class AsyncResponse {
+        private final FlowFile requestFlowFile;
+        private final URL url;
+        private final Request request;
+        private final long startNanos = System.nanoTime();
+        private volatile Response response;
+        private volatile IOException failure;
+
+        private AsyncResponse(final FlowFile requestFlowFile, final URL url, final Request request) {
+            this.requestFlowFile = requestFlowFile;
+            this.url = url;
+            this.request = request;
+        }
+
+        private void close() {
+            if (response != null) {
+                response.close();
+            }
+        }
+    }
 }
@@ -50,6 +50,8 @@ import org.apache.nifi.util.Tuple;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileStore;
 import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
@@ -76,11 +78,21 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiPredicate;
 import java.util.function.Supplier;
@@ -242,6 +254,31 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
         .defaultValue("100000")
         .build();
 
+    public static final PropertyDescriptor TRAVERSAL_THREADS = new Builder()
+        .name("traversal-threads")
+        .displayName("Directory Traversal Threads")
+        .description("The number of threads to use for listing subdirectories of the Input Directory concurrently. Listing directories concurrently can significantly reduce the time " +
+            "that it takes to perform a listing of a large directory tree, especially on network file systems, where each directory listing incurs network latency.")
+        .required(true)
+        .addValidator(POSITIVE_INTEGER_VALIDATOR)
+        .expressionLanguageSupported(VARIABLE_REGISTRY)
+        .defaultValue("1")
+        .dependsOn(RECURSE, "true")
+        .build();
+
+    public static final PropertyDescriptor SKIP_UNCHANGED_DIRECTORIES = new Builder()
+        .name("skip-unchanged-directories")
+        .displayName("Skip Unchanged Directories")
+        .description("Whether or not to skip reading the contents of directories whose last modified time has not changed since the previous listing and is older than the oldest file " +
+            "that may need to be listed. The last modified time of a directory changes when a file is added to, removed from, or renamed within the directory, but not when an existing " +
+            "file is modified in place. Therefore, this option should only be used when files are added to the Input Directory as new files (for example, by writing to a temporary file and " +
+            "then renaming it) rather than being modified after being written. The subdirectories of a directory that is skipped are still checked.")
+        .required(true)
+        .allowableValues("true", "false")
+        .defaultValue("false")
+        .dependsOn(RECURSE, "true")
+        .build();
+
     public static final PropertyDescriptor MAX_DISK_OPERATION_TIME = new Builder()
         .name("max-operation-time")
         .displayName("Max Disk Operation Time")
@@ -276,6 +313,9 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
     private volatile PerformanceTracker performanceTracker;
     private volatile long performanceLoggingTimestamp = System.currentTimeMillis();
     private final AtomicReference<BiPredicate<Path, BasicFileAttributes>> fileFilterRef = new AtomicReference<>();
+    private final ConcurrentMap<Path, DirectoryListing> directoryListingCache = new ConcurrentHashMap<>();
+    private volatile ForkJoinPool traversalPool;
+    private volatile boolean skipUnchangedDirectories;
 
     public static final String FILE_CREATION_TIME_ATTRIBUTE = "file.creationTime";
     public static final String FILE_LAST_MODIFY_TIME_ATTRIBUTE = "file.lastModifiedTime";
@@ -304,9 +344,12 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
         properties.add(IGNORE_HIDDEN_FILES);
         properties.add(TARGET_SYSTEM_TIMESTAMP_PRECISION);
         properties.add(ListedEntityTracker.TRACKING_STATE_CACHE);
+        properties.add(ListedEntityTracker.TRACKING_STATE_PERSISTENCE);
         properties.add(ListedEntityTracker.TRACKING_TIME_WINDOW);
         properties.add(ListedEntityTracker.INITIAL_LISTING_TARGET);
         properties.add(ListedEntityTracker.NODE_IDENTIFIER);
+        properties.add(TRAVERSAL_THREADS);
+        properties.add(SKIP_UNCHANGED_DIRECTORIES);
         properties.add(TRACK_PERFORMANCE);
         properties.add(MAX_TRACKED_FILES);
         properties.add(MAX_DISK_OPERATION_TIME);
@@ -352,6 +395,19 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
         }
         fileFilterRef.set(createFileFilter(context, performanceTracker, true));
 
+        final boolean recurse = context.getProperty(RECURSE).asBoolean();
+        final int traversalThreads = context.getProperty(TRAVERSAL_THREADS).evaluateAttributeExpressions().asInteger();
+        skipUnchangedDirectories = recurse && context.getProperty(SKIP_UNCHANGED_DIRECTORIES).asBoolean();
+        directoryListingCache.clear();
+        if (recurse && (traversalThreads > 1 || skipUnchangedDirectories)) {
+            traversalPool = new ForkJoinPool(traversalThreads, pool -> {
+                final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("ListFile Directory Traversal [UUID=" + getIdentifier() + "]-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+        }
+
         final long millisToKeepStats = TimeUnit.MINUTES.toMillis(15);
         final MonitorActiveTasks monitorTask = new MonitorActiveTasks(performanceTracker, getLogger(), maxDiskOperationMillis, maxListingMillis, millisToKeepStats);
         monitoringFuture = monitoringThreadPool.scheduleAtFixedRate(monitorTask, 15, 15, TimeUnit.SECONDS);
@@ -363,6 +419,12 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
             monitoringFuture.cancel(true);
         }
 
+        if (traversalPool != null) {
+            traversalPool.shutdownNow();
+            traversalPool = null;
+        }
+        directoryListingCache.clear();
+
         final boolean trackPerformance = context.getProperty(TRACK_PERFORMANCE).asBoolean();
         if (trackPerformance) {
             logPerformance();
@@ -373,6 +435,11 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
         return performanceTracker;
     }
 
+    // Visible for testing
+    Set<Path> getCachedDirectories() {
+        return Collections.unmodifiableSet(directoryListingCache.keySet());
+    }
+
     public void logPerformance() {
         final ComponentLog logger = getLogger();
         if (!logger.isDebugEnabled()) {
@@ -515,7 +582,7 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
             throws IOException {
         final Path basePath = new File(getPath(context)).toPath();
         final Boolean recurse = context.getProperty(RECURSE).asBoolean();
-        final Map<Path, BasicFileAttributes> lastModifiedMap = new HashMap<>();
+        final Map<Path, BasicFileAttributes> lastModifiedMap = new ConcurrentHashMap<>();
 
         final BiPredicate<Path, BasicFileAttributes> fileFilter;
         final PerformanceTracker performanceTracker;
@@ -530,7 +597,7 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
         int maxDepth = recurse ? Integer.MAX_VALUE : 1;
 
         final BiPredicate<Path, BasicFileAttributes> matcher = new BiPredicate<Path, BasicFileAttributes>() {
-            private long lastTimestamp = System.currentTimeMillis();
+            private final AtomicLong lastTimestamp = new AtomicLong(System.currentTimeMillis());
 
             @Override
             public boolean test(final Path path, final BasicFileAttributes attributes) {
@@ -539,8 +606,7 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
                 }
 
                 final long now = System.currentTimeMillis();
-                final long timeToList = now - lastTimestamp;
-                lastTimestamp = now;
+                final long timeToList = now - lastTimestamp.getAndSet(now);
 
                 final Path relativeDirectory = basePath.relativize(path).getParent();
                 final String relativePath = relativeDirectory == null ? "" : relativeDirectory.toString();
@@ -576,6 +642,11 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
             }
         };
 
+        final ForkJoinPool pool = this.traversalPool;
+        if (pool != null && listingMode == ListingMode.EXECUTION) {
+            return performParallelListing(pool, basePath, maxDepth, minTimestamp, matcher, performanceTracker);
+        }
+
         try {
             final long start = System.currentTimeMillis();
             final List<FileInfo> result = new LinkedList<>();
@@ -594,17 +665,7 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
                 @Override
                 public FileVisitResult visitFile(final Path path, final BasicFileAttributes attributes) {
                     if (matcher.test(path, attributes)) {
-                        final File file = path.toFile();
-                        final BasicFileAttributes fileAttributes = lastModifiedMap.get(path);
-                        final FileInfo fileInfo = new FileInfo.Builder()
-                                .directory(false)
-                                .filename(file.getName())
-                                .fullPathFileName(file.getAbsolutePath())
-                                .lastModifiedTime(fileAttributes.lastModifiedTime().toMillis())
-                                .size(fileAttributes.size())
-                                .build();
-
-                        result.add(fileInfo);
+                        result.add(createFileInfo(path, lastModifiedMap.get(path)));
                     }
 
                     return FileVisitResult.CONTINUE;
@@ -645,6 +706,45 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
         }
     }
 
+    private List<FileInfo> performParallelListing(final ForkJoinPool pool, final Path basePath, final int maxDepth, final Long minTimestamp,
+                                                  final BiPredicate<Path, BasicFileAttributes> matcher, final PerformanceTracker performanceTracker) {
+        final long start = System.currentTimeMillis();
+        final ParallelListing listing = new ParallelListing(minTimestamp, matcher);
+
+        try {
+            pool.invoke(new DirectoryListingTask(basePath, 0, maxDepth, listing));
+
+            // Forget the directories that were not reached, such as those that have been deleted, so that the cache does not grow without bound.
+            // If the listing was terminated, the directories that were not reached may still exist, so they are kept.
+            if (!listing.terminated) {
+                directoryListingCache.keySet().retainAll(listing.listedDirectories);
+            }
+
+            final long millis = System.currentTimeMillis() - start;
+            getLogger().debug("Took {} milliseconds to perform listing and gather {} entries using {} threads; skipped reading {} unchanged directories",
+                millis, listing.result.size(), pool.getParallelism(), listing.skippedDirectories.get());
+            return new ArrayList<>(listing.result);
+        } catch (final ProcessorStoppedException | CancellationException e) {
+            getLogger().info("Processor was stopped so will not complete listing of Files");
+            return Collections.emptyList();
+        } finally {
+            if (performanceTracker != null) {
+                performanceTracker.completeActiveDirectory();
+            }
+        }
+    }
+
+    private FileInfo createFileInfo(final Path path, final BasicFileAttributes attributes) {
+        final File file = path.toFile();
+        return new FileInfo.Builder()
+                .directory(false)
+                .filename(file.getName())
+                .fullPathFileName(file.getAbsolutePath())
+                .lastModifiedTime(attributes.lastModifiedTime().toMillis())
+                .size(attributes.size())
+                .build();
+    }
+
     @Override
     protected String getListingContainerName(final ProcessContext context) {
         return String.format("%s Directory [%s]", context.getProperty(DIRECTORY_LOCATION).getValue(), getPath(context));
@@ -731,6 +831,164 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
         };
     }
 
+    /**
+     * The state that is shared by the tasks of a single parallel listing
+     */
+    private static class ParallelListing {
+        private final Long minTimestamp;
+        private final BiPredicate<Path, BasicFileAttributes> matcher;
+        private final Queue<FileInfo> result = new ConcurrentLinkedQueue<>();
+        private final Set<Object> visitedDirectories = ConcurrentHashMap.newKeySet();
+        private final Set<Path> listedDirectories = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger skippedDirectories = new AtomicInteger(0);
+        private volatile boolean terminated = false;
+
+        ParallelListing(final Long minTimestamp, final BiPredicate<Path, BasicFileAttributes> matcher) {
+            this.minTimestamp = minTimestamp;
+            this.matcher = matcher;
+        }
+    }
+
+    /**
+     * Lists a single directory and then lists each of its subdirectories as a separate task, so that the subdirectories of a directory tree are listed concurrently.
+     * Files are listed in the same way as {@link Files#walkFileTree(Path, Set, int, FileVisitor)} would list them, following symbolic links, but a directory
+     * that is reachable through more than one path is listed only once. As with the sequential listing, a file or directory that cannot be accessed is skipped,
+     * and any other error in reading a file or directory terminates the listing, so that only the files that were found before the error are listed.
+     */
+    private class DirectoryListingTask extends RecursiveAction {
+        private final Path directory;
+        private final int depth;
+        private final int maxDepth;
+        private final ParallelListing listing;
+
+        DirectoryListingTask(final Path directory, final int depth, final int maxDepth, final ParallelListing listing) {
+            this.directory = directory;
+            this.depth = depth;
+            this.maxDepth = maxDepth;
+            this.listing = listing;
+        }
+
+        @Override
+        protected void compute() {
+            if (!isScheduled()) {
+                throw new ProcessorStoppedException();
+            }
+
+            if (listing.terminated) {
+                return;
+            }
+
+            if (!Files.isReadable(directory)) {
+                getLogger().debug("The following directory is not readable: {}", directory);
+                return;
+            }
+
+            final BasicFileAttributes directoryAttributes;
+            try {
+                directoryAttributes = Files.readAttributes(directory, BasicFileAttributes.class);
+            } catch (final IOException e) {
+                handleFailure(directory, e);
+                return;
+            }
+
+            final Object fileKey = directoryAttributes.fileKey();
+            if (fileKey != null && !listing.visitedDirectories.add(fileKey)) {
+                getLogger().debug("Will not list {} because the directory has already been listed through another path", directory);
+                return;
+            }
+
+            listing.listedDirectories.add(directory);
+
+            final List<Path> subdirectories = listDirectory(directoryAttributes.lastModifiedTime().toMillis());
+            if (depth + 1 >= maxDepth || subdirectories.isEmpty() || listing.terminated) {
+                return;
+            }
+
+            final List<DirectoryListingTask> subtasks = new ArrayList<>(subdirectories.size());
+            for (final Path subdirectory : subdirectories) {
+                subtasks.add(new DirectoryListingTask(subdirectory, depth + 1, maxDepth, listing));
+            }
+
+            invokeAll(subtasks);
+        }
+
+        /**
+         * Adds the files of the directory that match the filters to the result, unless the directory is known not to have changed, and returns the subdirectories of the directory
+         */
+        private List<Path> listDirectory(final long directoryLastModified) {
+            final DirectoryListing previousListing = directoryListingCache.get(directory);
+            if (skipUnchangedDirectories && previousListing != null && previousListing.getLastModified() == directoryLastModified
+                    && listing.minTimestamp != null && directoryLastModified < listing.minTimestamp) {
+                listing.skippedDirectories.incrementAndGet();
+                return previousListing.getSubdirectories();
+            }
+
+            final List<Path> subdirectories = new ArrayList<>();
+            try (final DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (final Path path : stream) {
+                    if (listing.terminated) {
+                        return Collections.emptyList();
+                    }
+
+                    final BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    } catch (final IOException e) {
+                        handleFailure(path, e);
+                        continue;
+                    }
+
+                    if (attributes.isDirectory()) {
+                        subdirectories.add(path);
+                    } else if (listing.matcher.test(path, attributes)) {
+                        listing.result.add(createFileInfo(path, attributes));
+                    }
+                }
+            } catch (final DirectoryIteratorException e) {
+                // As with the sequential listing, an error while iterating over a directory is logged and the files found so far are kept, but the
+                // incomplete listing is not cached
+                getLogger().error("Error during visiting directory {}: {}", directory, e.getCause().getMessage(), e.getCause());
+                return subdirectories;
+            } catch (final IOException e) {
+                handleFailure(directory, e);
+                return Collections.emptyList();
+            }
+
+            if (skipUnchangedDirectories) {
+                directoryListingCache.put(directory, new DirectoryListing(directoryLastModified, subdirectories));
+            }
+
+            return subdirectories;
+        }
+
+        private void handleFailure(final Path path, final IOException e) {
+            if (e instanceof AccessDeniedException) {
+                getLogger().debug("The following file is not readable: {}", path);
+            } else {
+                getLogger().error("Error during visiting file {}: {}", path, e.getMessage(), e);
+                listing.terminated = true;
+            }
+        }
+    }
+
+    private static class DirectoryListing {
+        private final long lastModified;
+        private final List<Path> subdirectories;
+
+        DirectoryListing(final long lastModified, final List<Path> subdirectories) {
+            this.lastModified = lastModified;
+            this.subdirectories = subdirectories;
+        }
+
+        long getLastModified() {
+            return lastModified;
+        }
+
+        List<Path> getSubdirectories() {
+            return subdirectories;
+        }
+    }
+
     /**
      * A PerformanceTracker that is capable of tracking which disk access operation is active and which directory is actively being listed,
      * as well as timing specific operations, but does not track metrics over any amount of time. This implementation does not provide the ability
@@ -39,6 +39,7 @@ import org.apache.nifi.lookup.LookupService;
 import org.apache.nifi.processor.ProcessContext;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.processor.util.StandardValidators;
 import org.apache.nifi.record.path.FieldValue;
 import org.apache.nifi.record.path.RecordPath;
 import org.apache.nifi.record.path.RecordPathResult;
@@ -162,6 +163,21 @@ public class LookupRecord extends AbstractRouteRecord<Tuple<Map<String, RecordPa
         .required(true)
         .build();
 
+    static final PropertyDescriptor LOOKUP_BATCH_SIZE = new PropertyDescriptor.Builder()
+        .name("lookup-batch-size")
+        .displayName("Lookup Batch Size")
+        .description("The maximum number of Records whose lookup coordinates are collected and sent to the Lookup Service together. "
+            + "Coordinates that are repeated within a batch are looked up only once, and Lookup Services that support it (such as the "
+            + "database and REST lookup services) may look up all of the coordinates of a batch in a single query or concurrently. "
+            + "When replacing existing values, the values selected by each RecordPath are looked up together for the Records of a batch, one "
+            + "RecordPath at a time, so that each RecordPath sees the values replaced for the preceding ones. "
+            + "A value of 1 looks up each Record individually, as it is read.")
+        .expressionLanguageSupported(ExpressionLanguageScope.NONE)
+        .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+        .defaultValue("1000")
+        .required(true)
+        .build();
+
     static final Relationship REL_MATCHED = new Relationship.Builder()
         .name("matched")
         .description("All records for which the lookup returns a value will be routed to this relationship")
@@ -201,6 +217,7 @@ public class LookupRecord extends AbstractRouteRecord<Tuple<Map<String, RecordPa
         properties.add(ROUTING_STRATEGY);
         properties.add(RESULT_CONTENTS);
         properties.add(REPLACEMENT_STRATEGY);
+        properties.add(LOOKUP_BATCH_SIZE);
         return properties;
     }
 
@@ -291,75 +308,150 @@ public class LookupRecord extends AbstractRouteRecord<Tuple<Map<String, RecordPa
         }
     }
 
+    @Override
+    protected int getRecordBatchSize(final ProcessContext context) {
+        return context.getProperty(LOOKUP_BATCH_SIZE).asInteger();
+    }
+
     @Override
     protected Set<Relationship> route(final Record record, final RecordSchema writeSchema, final FlowFile flowFile, final ProcessContext context,
         final Tuple<Map<String, RecordPath>, RecordPath> flowFileContext) {
 
+        return route(Collections.singletonList(record), writeSchema, flowFile, context, flowFileContext).get(0);
+    }
+
+    @Override
+    protected List<Set<Relationship>> route(final List<Record> records, final RecordSchema writeSchema, final FlowFile flowFile, final ProcessContext context,
+        final Tuple<Map<String, RecordPath>, RecordPath> flowFileContext) {
+
         final boolean isInPlaceReplacement = context.getProperty(REPLACEMENT_STRATEGY).getValue().equals(REPLACE_EXISTING_VALUES.getValue());
 
-        if(isInPlaceReplacement) {
-            return doInPlaceReplacement(record, flowFile, context, flowFileContext);
-        } else {
-            return doResultPathReplacement(record, flowFile, context, flowFileContext);
+        if (isInPlaceReplacement) {
+            return doInPlaceReplacement(records, flowFile, flowFileContext);
         }
 
-    }
+        // Determine the coordinates to look up for all of the Records first, so that they can be looked up together
+        final LookupBatch lookupBatch = new LookupBatch();
+        final List<RecordLookup> recordLookups = new ArrayList<>(records.size());
+        for (final Record record : records) {
+            recordLookups.add(getResultPathReplacementLookup(record, flowFile, flowFileContext, lookupBatch));
+        }
 
-    private Set<Relationship> doInPlaceReplacement(Record record, FlowFile flowFile, ProcessContext context, Tuple<Map<String, RecordPath>, RecordPath> flowFileContext) {
-        final Map<String, RecordPath> recordPaths = flowFileContext.getKey();
-        final Map<String, Object> lookupCoordinates = new HashMap<>(recordPaths.size());
-        final String coordinateKey = lookupService.getRequiredKeys().iterator().next();
-        boolean hasUnmatchedValue = false;
+        final List<? extends Optional<?>> lookupValues = lookupBatch.lookup(flowFile);
 
-        for (final Map.Entry<String, RecordPath> entry : recordPaths.entrySet()) {
-            final RecordPath recordPath = entry.getValue();
+        final List<Set<Relationship>> relationships = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            relationships.add(doResultPathReplacement(records.get(i), recordLookups.get(i), lookupValues, context, flowFileContext));
+        }
 
-            final RecordPathResult pathResult = recordPath.evaluate(record);
-            final List<FieldValue> lookupFieldValues = pathResult.getSelectedFields()
-                .filter(fieldVal -> fieldVal.getValue() != null)
-                .collect(Collectors.toList());
+        return relationships;
+    }
 
-            if (lookupFieldValues.isEmpty()) {
-                final Set<Relationship> rels = routeToMatchedUnmatched ? UNMATCHED_COLLECTION : SUCCESS_COLLECTION;
-                getLogger().debug("RecordPath for property '{}' did not match any fields in a record for {}; routing record to {}", new Object[] {coordinateKey, flowFile, rels});
-                return rels;
+    private List<Set<Relationship>> doInPlaceReplacement(final List<Record> records, final FlowFile flowFile, final Tuple<Map<String, RecordPath>, RecordPath> flowFileContext) {
+        final String coordinateKey = lookupService.getRequiredKeys().iterator().next();
+        final List<Set<Relationship>> relationships = new ArrayList<>(Collections.nCopies(records.size(), null));
+        final boolean[] hasUnmatchedValue = new boolean[records.size()];
+
+        // Each RecordPath is evaluated against the Records as updated by the preceding RecordPaths, so the values of one RecordPath
+        // are looked up and replaced for all of the Records before the next RecordPath is evaluated.
+        for (final RecordPath recordPath : flowFileContext.getKey().values()) {
+            final LookupBatch lookupBatch = new LookupBatch();
+            final List<RecordLookup> recordLookups = new ArrayList<>(records.size());
+            for (int i = 0; i < records.size(); i++) {
+                // A Record that has already been routed is not looked up for any further RecordPaths
+                recordLookups.add(relationships.get(i) == null ? getInPlaceReplacementLookup(records.get(i), recordPath, coordinateKey, flowFile, lookupBatch) : null);
             }
 
-            for (FieldValue fieldValue : lookupFieldValues) {
-                final Object coordinateValue = DataTypeUtils.convertType(fieldValue.getValue(), fieldValue.getField().getDataType(), null, null, null, fieldValue.getField().getFieldName());
-
-                lookupCoordinates.clear();
-                lookupCoordinates.put(coordinateKey, coordinateValue);
+            final List<? extends Optional<?>> lookupValues = lookupBatch.lookup(flowFile);
 
-                final Optional<?> lookupValueOption;
-                try {
-                    lookupValueOption = lookupService.lookup(lookupCoordinates, flowFile.getAttributes());
-                } catch (final Exception e) {
-                    throw new ProcessException("Failed to lookup coordinates " + lookupCoordinates + " in Lookup Service", e);
+            for (int i = 0; i < records.size(); i++) {
+                final RecordLookup recordLookup = recordLookups.get(i);
+                if (recordLookup == null) {
+                    continue;
                 }
 
-                if (!lookupValueOption.isPresent()) {
-                    hasUnmatchedValue = true;
-                    continue;
+                if (recordLookup.relationships != null) {
+                    relationships.set(i, recordLookup.relationships);
+                } else if (!replaceValues(recordLookup, lookupValues)) {
+                    hasUnmatchedValue[i] = true;
                 }
+            }
+        }
 
-                final Object lookupValue = lookupValueOption.get();
+        for (int i = 0; i < records.size(); i++) {
+            if (relationships.get(i) != null) {
+                continue;
+            }
 
-                final DataType inferredDataType = DataTypeUtils.inferDataType(lookupValue, RecordFieldType.STRING.getDataType());
-                fieldValue.updateValue(lookupValue, inferredDataType);
+            if (hasUnmatchedValue[i]) {
+                relationships.set(i, routeToMatchedUnmatched ? UNMATCHED_COLLECTION : SUCCESS_COLLECTION);
+            } else {
+                relationships.set(i, routeToMatchedUnmatched ? MATCHED_COLLECTION : SUCCESS_COLLECTION);
             }
         }
 
-        if (hasUnmatchedValue) {
-            return routeToMatchedUnmatched ? UNMATCHED_COLLECTION : SUCCESS_COLLECTION;
-        } else {
-            return routeToMatchedUnmatched ? MATCHED_COLLECTION : SUCCESS_COLLECTION;
+        return relationships;
+    }
+
+    private RecordLookup getInPlaceReplacementLookup(final Record record, final RecordPath recordPath, final String coordinateKey, final FlowFile flowFile,
+                                                     final LookupBatch lookupBatch) {
+        final RecordLookup recordLookup = new RecordLookup();
+
+        final RecordPathResult pathResult = recordPath.evaluate(record);
+        final List<FieldValue> lookupFieldValues = pathResult.getSelectedFields()
+            .filter(fieldVal -> fieldVal.getValue() != null)
+            .collect(Collectors.toList());
+
+        if (lookupFieldValues.isEmpty()) {
+            // The values found for the preceding properties have already been replaced
+            recordLookup.relationships = routeToMatchedUnmatched ? UNMATCHED_COLLECTION : SUCCESS_COLLECTION;
+            getLogger().debug("RecordPath for property '{}' did not match any fields in a record for {}; routing record to {}",
+                new Object[] {coordinateKey, flowFile, recordLookup.relationships});
+            return recordLookup;
         }
+
+        for (FieldValue fieldValue : lookupFieldValues) {
+            final Object coordinateValue = DataTypeUtils.convertType(fieldValue.getValue(), fieldValue.getField().getDataType(), null, null, null, fieldValue.getField().getFieldName());
+
+            final Map<String, Object> lookupCoordinates = new HashMap<>(1);
+            lookupCoordinates.put(coordinateKey, coordinateValue);
+
+            recordLookup.fieldValues.add(fieldValue);
+            recordLookup.lookupIndices.add(lookupBatch.add(lookupCoordinates));
+        }
+
+        return recordLookup;
     }
 
-    private Set<Relationship> doResultPathReplacement(Record record, FlowFile flowFile, ProcessContext context, Tuple<Map<String, RecordPath>, RecordPath> flowFileContext) {
+    /**
+     * Replaces each of the field values of the given lookup with its looked up value
+     *
+     * @return <code>true</code> if a value was found for every field value, <code>false</code> otherwise
+     */
+    private boolean replaceValues(final RecordLookup recordLookup, final List<? extends Optional<?>> lookupValues) {
+        boolean allMatched = true;
+
+        for (int i = 0; i < recordLookup.fieldValues.size(); i++) {
+            final Optional<?> lookupValueOption = lookupValues.get(recordLookup.lookupIndices.get(i));
+            if (!lookupValueOption.isPresent()) {
+                allMatched = false;
+                continue;
+            }
+
+            final Object lookupValue = lookupValueOption.get();
+
+            final DataType inferredDataType = DataTypeUtils.inferDataType(lookupValue, RecordFieldType.STRING.getDataType());
+            recordLookup.fieldValues.get(i).updateValue(lookupValue, inferredDataType);
+        }
+
+        return allMatched;
+    }
+
+    private RecordLookup getResultPathReplacementLookup(final Record record, final FlowFile flowFile, final Tuple<Map<String, RecordPath>, RecordPath> flowFileContext,
+                                                        final LookupBatch lookupBatch) {
         final Map<String, RecordPath> recordPaths = flowFileContext.getKey();
         final Map<String, Object> lookupCoordinates = new HashMap<>(recordPaths.size());
+        final RecordLookup recordLookup = new RecordLookup();
 
         for (final Map.Entry<String, RecordPath> entry : recordPaths.entrySet()) {
             final String coordinateKey = entry.getKey();
@@ -371,16 +463,17 @@ public class LookupRecord extends AbstractRouteRecord<Tuple<Map<String, RecordPa
                 .collect(Collectors.toList());
 
             if (lookupFieldValues.isEmpty()) {
-                final Set<Relationship> rels = routeToMatchedUnmatched ? UNMATCHED_COLLECTION : SUCCESS_COLLECTION;
-                getLogger().debug("RecordPath for property '{}' did not match any fields in a record for {}; routing record to {}", new Object[] {coordinateKey, flowFile, rels});
-                return rels;
+                recordLookup.relationships = routeToMatchedUnmatched ? UNMATCHED_COLLECTION : SUCCESS_COLLECTION;
+                getLogger().debug("RecordPath for property '{}' did not match any fields in a record for {}; routing record to {}",
+                    new Object[] {coordinateKey, flowFile, recordLookup.relationships});
+                return recordLookup;
             }
 
             if (lookupFieldValues.size() > 1) {
-                final Set<Relationship> rels = routeToMatchedUnmatched ? UNMATCHED_COLLECTION : SUCCESS_COLLECTION;
+                recordLookup.relationships = routeToMatchedUnmatched ? UNMATCHED_COLLECTION : SUCCESS_COLLECTION;
                 getLogger().debug("RecordPath for property '{}' matched {} fields in a record for {}; routing record to {}",
-                    new Object[] {coordinateKey, lookupFieldValues.size(), flowFile, rels});
-                return rels;
+                    new Object[] {coordinateKey, lookupFieldValues.size(), flowFile, recordLookup.relationships});
+                return recordLookup;
             }
 
             final FieldValue fieldValue = lookupFieldValues.get(0);
@@ -388,22 +481,27 @@ public class LookupRecord extends AbstractRouteRecord<Tuple<Map<String, RecordPa
             lookupCoordinates.put(coordinateKey, coordinateValue);
         }
 
-        final Optional<?> lookupValueOption;
-        try {
-            lookupValueOption = lookupService.lookup(lookupCoordinates, flowFile.getAttributes());
-        } catch (final Exception e) {
-            throw new ProcessException("Failed to lookup coordinates " + lookupCoordinates + " in Lookup Service", e);
+        recordLookup.lookupIndices.add(lookupBatch.add(lookupCoordinates));
+        return recordLookup;
+    }
+
+    private Set<Relationship> doResultPathReplacement(final Record record, final RecordLookup recordLookup, final List<? extends Optional<?>> lookupValues,
+                                                      final ProcessContext context, final Tuple<Map<String, RecordPath>, RecordPath> flowFileContext) {
+        if (recordLookup.relationships != null) {
+            return recordLookup.relationships;
         }
 
+        final Optional<?> lookupValueOption = lookupValues.get(recordLookup.lookupIndices.get(0));
         if (!lookupValueOption.isPresent()) {
             final Set<Relationship> rels = routeToMatchedUnmatched ? UNMATCHED_COLLECTION : SUCCESS_COLLECTION;
             return rels;
         }
 
+        final Object lookupValue = lookupValueOption.get();
+
         // Ensure that the Record has the appropriate schema to account for the newly added values
         final RecordPath resultPath = flowFileContext.getValue();
         if (resultPath != null) {
-            final Object lookupValue = lookupValueOption.get();
             final RecordPathResult resultPathResult = flowFileContext.getValue().evaluate(record);
 
             final String resultContentsValue = context.getProperty(RESULT_CONTENTS).getValue();
@@ -484,4 +582,49 @@ public class LookupRecord extends AbstractRouteRecord<Tuple<Map<String, RecordPa
         return new Tuple<>(recordPaths, resultRecordPath);
     }
 
+    /**
+     * The values that are to be looked up for a Record, or the Relationships to which it is to be routed if it is not to be looked up
+     */
+    private static class RecordLookup {
+        private final List<FieldValue> fieldValues = new ArrayList<>();
+        private final List<Integer> lookupIndices = new ArrayList<>();
+        private Set<Relationship> relationships;
+    }
+
+    /**
+     * The distinct coordinates that are looked up for a batch of Records
+     */
+    private class LookupBatch {
+        private final Map<Map<String, Object>, Integer> coordinateIndices = new HashMap<>();
+        private final List<Map<String, Object>> coordinates = new ArrayList<>();
+
+        private int add(final Map<String, Object> lookupCoordinates) {
+            return coordinateIndices.computeIfAbsent(lookupCoordinates, key -> {
+                coordinates.add(key);
+                return coordinates.size() - 1;
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<? extends Optional<?>> lookup(final FlowFile flowFile) {
+            if (coordinates.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            final List<? extends Optional<?>> lookupValues;
+            try {
+                lookupValues = ((LookupService<Object>) lookupService).lookupAll(coordinates, flowFile.getAttributes());
+            } catch (final Exception e) {
+                final Object failedCoordinates = coordinates.size() == 1 ? coordinates.get(0) : coordinates.size() + " sets of coordinates";
+                throw new ProcessException("Failed to lookup coordinates " + failedCoordinates + " in Lookup Service", e);
+            }
+
+            if (lookupValues == null || lookupValues.size() != coordinates.size()) {
+                throw new ProcessException("Lookup Service returned " + (lookupValues == null ? "no" : lookupValues.size()) + " values for "
+                    + coordinates.size() + " sets of coordinates");
+            }
+
+            return lookupValues;
+        }
+    }
 }
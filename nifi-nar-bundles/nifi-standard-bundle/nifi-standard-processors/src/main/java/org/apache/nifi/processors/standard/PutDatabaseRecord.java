@@ -37,6 +37,7 @@ import org.apache.nifi.expression.AttributeExpression;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.logging.ComponentLog;
 import org.apache.nifi.processor.AbstractProcessor;
+import org.apache.nifi.processor.FlowFileFilter;
 import org.apache.nifi.processor.ProcessContext;
 import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.Relationship;
@@ -60,6 +61,7 @@ import org.apache.nifi.serialization.record.util.DataTypeUtils;
 import org.apache.nifi.serialization.record.util.IllegalTypeConversionException;
 
 import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
@@ -346,6 +348,18 @@ public class PutDatabaseRecord extends AbstractProcessor {
             .dependsOn(STATEMENT_TYPE, INSERT_TYPE, UPDATE_TYPE, USE_ATTR_TYPE, USE_RECORD_PATH)
             .build();
 
+    static final PropertyDescriptor FLOWFILES_PER_TRANSACTION = new Builder()
+            .name("put-db-record-flowfiles-per-transaction")
+            .displayName("FlowFiles Per Transaction")
+            .description("Specifies the maximum number of FlowFiles whose Records are put to the database in a single transaction. Records from FlowFiles that result in the same "
+                    + "SQL statement are added to the same batch, so many small FlowFiles can be put to the database with few round trips and a single commit. If the transaction "
+                    + "fails, and Rollback On Failure is false, each of the FlowFiles is then put to the database in its own transaction so that it is routed according to its own "
+                    + "outcome. A value of 1 puts each FlowFile to the database in its own transaction.")
+            .defaultValue("1")
+            .required(true)
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
     static final PropertyDescriptor DB_TYPE;
 
     protected static final Map<String, DatabaseAdapter> dbAdapters;
@@ -400,6 +414,7 @@ public class PutDatabaseRecord extends AbstractProcessor {
         pds.add(RollbackOnFailure.ROLLBACK_ON_FAILURE);
         pds.add(TABLE_SCHEMA_CACHE_SIZE);
         pds.add(MAX_BATCH_SIZE);
+        pds.add(FLOWFILES_PER_TRANSACTION);
 
         propDescriptors = Collections.unmodifiableList(pds);
     }
@@ -473,11 +488,107 @@ public class PutDatabaseRecord extends AbstractProcessor {
 
     @Override
     public void onTrigger(final ProcessContext context, final ProcessSession session) throws ProcessException {
-        FlowFile flowFile = session.get();
+        final int flowFilesPerTransaction = context.getProperty(FLOWFILES_PER_TRANSACTION).asInteger();
+        if (flowFilesPerTransaction > 1) {
+            final List<FlowFile> flowFiles = getFlowFiles(context, session, flowFilesPerTransaction);
+            if (flowFiles.size() > 1) {
+                putFlowFiles(context, session, flowFiles);
+            } else if (flowFiles.size() == 1) {
+                putFlowFile(context, session, flowFiles.get(0));
+            }
+
+            return;
+        }
+
+        final FlowFile flowFile = session.get();
         if (flowFile == null) {
             return;
         }
 
+        putFlowFile(context, session, flowFile);
+    }
+
+    private List<FlowFile> getFlowFiles(final ProcessContext context, final ProcessSession session, final int maxFlowFiles) {
+        final DBCPService dbcpService = context.getProperty(DBCP_SERVICE).asControllerService(DBCPService.class);
+        final FlowFileFilter dbcpServiceFlowFileFilter = dbcpService.getFlowFileFilter(maxFlowFiles);
+        if (dbcpServiceFlowFileFilter == null) {
+            return session.get(maxFlowFiles);
+        }
+
+        return session.get(dbcpServiceFlowFileFilter);
+    }
+
+    /**
+     * Puts the Records of all of the given FlowFiles to the database in a single transaction. If that fails, the transaction is rolled back and,
+     * unless Rollback On Failure is set, each FlowFile is put to the database in its own transaction so that it can be routed individually.
+     */
+    private void putFlowFiles(final ProcessContext context, final ProcessSession session, final List<FlowFile> flowFiles) {
+        final DBCPService dbcpService = context.getProperty(DBCP_SERVICE).asControllerService(DBCPService.class);
+        final Connection connection = dbcpService.getConnection(flowFiles.get(0).getAttributes());
+        final DMLBatch batch = new DMLBatch(getLogger());
+
+        boolean originalAutoCommit = false;
+        boolean committed = false;
+        String jdbcUrl = null;
+        try {
+            originalAutoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            for (final FlowFile flowFile : flowFiles) {
+                putToDatabase(context, session, flowFile, connection, batch);
+            }
+            batch.executePendingBatch();
+
+            connection.commit();
+            committed = true;
+            jdbcUrl = getJdbcUrl(connection);
+        } catch (final Exception e) {
+            try {
+                connection.rollback();
+            } catch (final Exception e1) {
+                getLogger().error("Failed to rollback JDBC transaction", e1);
+            }
+
+            if (context.getProperty(RollbackOnFailure.ROLLBACK_ON_FAILURE).asBoolean()) {
+                getLogger().error("Failed to put Records to database for {} FlowFiles in a single transaction. Rolling back session.", flowFiles.size(), e);
+                session.rollback();
+                return;
+            }
+
+            getLogger().warn("Failed to put Records to database for {} FlowFiles in a single transaction. Putting each FlowFile to the database in its own transaction.",
+                    flowFiles.size(), e);
+        } finally {
+            batch.close();
+
+            if (originalAutoCommit) {
+                try {
+                    connection.setAutoCommit(true);
+                } catch (final Exception e) {
+                    getLogger().warn("Failed to set auto-commit back to true on connection {} after finishing update", connection);
+                }
+            }
+
+            try {
+                connection.close();
+            } catch (final Exception e) {
+                getLogger().warn("Failed to close database connection", e);
+            }
+        }
+
+        if (committed) {
+            for (final FlowFile flowFile : flowFiles) {
+                session.transfer(flowFile, REL_SUCCESS);
+                session.getProvenanceReporter().send(flowFile, jdbcUrl);
+            }
+            batch.adjustCounters(session);
+        } else {
+            for (final FlowFile flowFile : flowFiles) {
+                putFlowFile(context, session, flowFile);
+            }
+        }
+    }
+
+    private void putFlowFile(final ProcessContext context, final ProcessSession session, FlowFile flowFile) {
         final DBCPService dbcpService = context.getProperty(DBCP_SERVICE).asControllerService(DBCPService.class);
         final Connection connection = dbcpService.getConnection(flowFile.getAttributes());
 
@@ -585,8 +696,8 @@ public class PutDatabaseRecord extends AbstractProcessor {
     }
 
 
-    private void executeDML(final ProcessContext context, final ProcessSession session, final FlowFile flowFile,
-                            final Connection con, final RecordReader recordReader, final String explicitStatementType, final DMLSettings settings)
+    private void executeDML(final ProcessContext context, final FlowFile flowFile, final Connection con, final RecordReader recordReader,
+                            final String explicitStatementType, final DMLSettings settings, final DMLBatch batch)
         throws IllegalArgumentException, MalformedRecordException, IOException, SQLException {
 
         final ComponentLog log = getLogger();
@@ -625,174 +736,141 @@ public class PutDatabaseRecord extends AbstractProcessor {
         final String fqTableName =  generateTableName(settings, catalog, schemaName, tableName, tableSchema);
 
         final Map<String, PreparedSqlAndColumns> preparedSql = new HashMap<>();
-        int currentBatchSize = 0;
-        int batchIndex = 0;
         Record outerRecord;
-        PreparedStatement lastPreparedStatement = null;
 
-        try {
-            while ((outerRecord = recordReader.nextRecord()) != null) {
-                final String statementType;
-                if (USE_RECORD_PATH.equalsIgnoreCase(explicitStatementType)) {
-                    statementType = recordPathOperationType.apply(outerRecord);
-                } else {
-                    statementType = explicitStatementType;
-                }
-
-                final List<Record> dataRecords = getDataRecords(outerRecord);
-                for (final Record currentRecord : dataRecords) {
-                    PreparedSqlAndColumns preparedSqlAndColumns = preparedSql.get(statementType);
-                    if (preparedSqlAndColumns == null) {
-                        final RecordSchema recordSchema = currentRecord.getSchema();
-
-                        final SqlAndIncludedColumns sqlHolder;
-                        if (INSERT_TYPE.equalsIgnoreCase(statementType)) {
-                            sqlHolder = generateInsert(recordSchema, fqTableName, tableSchema, settings);
-                        } else if (UPDATE_TYPE.equalsIgnoreCase(statementType)) {
-                            sqlHolder = generateUpdate(recordSchema, fqTableName, updateKeys, tableSchema, settings);
-                        } else if (DELETE_TYPE.equalsIgnoreCase(statementType)) {
-                            sqlHolder = generateDelete(recordSchema, fqTableName, tableSchema, settings);
-                        } else if (UPSERT_TYPE.equalsIgnoreCase(statementType)) {
-                            sqlHolder = generateUpsert(recordSchema, fqTableName, updateKeys, tableSchema, settings);
-                        } else if (INSERT_IGNORE_TYPE.equalsIgnoreCase(statementType)) {
-                            sqlHolder = generateInsertIgnore(recordSchema, fqTableName, updateKeys, tableSchema, settings);
-                        } else {
-                            throw new IllegalArgumentException(format("Statement Type %s is not valid, FlowFile %s", statementType, flowFile));
-                        }
-
-                        // Create the Prepared Statement
-                        final PreparedStatement preparedStatement = con.prepareStatement(sqlHolder.getSql());
+        while ((outerRecord = recordReader.nextRecord()) != null) {
+            final String statementType;
+            if (USE_RECORD_PATH.equalsIgnoreCase(explicitStatementType)) {
+                statementType = recordPathOperationType.apply(outerRecord);
+            } else {
+                statementType = explicitStatementType;
+            }
 
-                        try {
-                            preparedStatement.setQueryTimeout(timeoutMillis); // timeout in seconds
-                        } catch (final SQLException se) {
-                            // If the driver doesn't support query timeout, then assume it is "infinite". Allow a timeout of zero only
-                            if (timeoutMillis > 0) {
-                                throw se;
-                            }
-                        }
+            final List<Record> dataRecords = getDataRecords(outerRecord);
+            for (final Record currentRecord : dataRecords) {
+                PreparedSqlAndColumns preparedSqlAndColumns = preparedSql.get(statementType);
+                if (preparedSqlAndColumns == null) {
+                    final RecordSchema recordSchema = currentRecord.getSchema();
 
-                        preparedSqlAndColumns = new PreparedSqlAndColumns(sqlHolder, preparedStatement);
-                        preparedSql.put(statementType, preparedSqlAndColumns);
+                    final SqlAndIncludedColumns sqlHolder;
+                    if (INSERT_TYPE.equalsIgnoreCase(statementType)) {
+                        sqlHolder = generateInsert(recordSchema, fqTableName, tableSchema, settings);
+                    } else if (UPDATE_TYPE.equalsIgnoreCase(statementType)) {
+                        sqlHolder = generateUpdate(recordSchema, fqTableName, updateKeys, tableSchema, settings);
+                    } else if (DELETE_TYPE.equalsIgnoreCase(statementType)) {
+                        sqlHolder = generateDelete(recordSchema, fqTableName, tableSchema, settings);
+                    } else if (UPSERT_TYPE.equalsIgnoreCase(statementType)) {
+                        sqlHolder = generateUpsert(recordSchema, fqTableName, updateKeys, tableSchema, settings);
+                    } else if (INSERT_IGNORE_TYPE.equalsIgnoreCase(statementType)) {
+                        sqlHolder = generateInsertIgnore(recordSchema, fqTableName, updateKeys, tableSchema, settings);
+                    } else {
+                        throw new IllegalArgumentException(format("Statement Type %s is not valid, FlowFile %s", statementType, flowFile));
                     }
 
-                    final PreparedStatement ps = preparedSqlAndColumns.getPreparedStatement();
-                    final List<Integer> fieldIndexes = preparedSqlAndColumns.getSqlAndIncludedColumns().getFieldIndexes();
-                    final String sql = preparedSqlAndColumns.getSqlAndIncludedColumns().getSql();
+                    // Create the Prepared Statement, or reuse the one created for an earlier FlowFile in the same transaction
+                    final PreparedStatement preparedStatement = batch.getPreparedStatement(con, sqlHolder.getSql(), timeoutMillis);
+                    preparedSqlAndColumns = new PreparedSqlAndColumns(sqlHolder, preparedStatement);
+                    preparedSql.put(statementType, preparedSqlAndColumns);
+                }
 
-                    if (currentBatchSize > 0 && ps != lastPreparedStatement && lastPreparedStatement != null) {
-                        batchIndex++;
-                        log.debug("Executing query {} because Statement Type changed between Records for {}; fieldIndexes: {}; batch index: {}; batch size: {}",
-                            sql, flowFile, fieldIndexes, batchIndex, currentBatchSize);
-                        lastPreparedStatement.executeBatch();
+                final PreparedStatement ps = preparedSqlAndColumns.getPreparedStatement();
+                final List<Integer> fieldIndexes = preparedSqlAndColumns.getSqlAndIncludedColumns().getFieldIndexes();
+                final String sql = preparedSqlAndColumns.getSqlAndIncludedColumns().getSql();
 
-                        session.adjustCounter("Batches Executed", 1, false);
-                        currentBatchSize = 0;
-                    }
-                    lastPreparedStatement = ps;
+                if (batch.isStatementChanged(ps)) {
+                    log.debug("Executing query {} because Statement Type changed between Records for {}; fieldIndexes: {}; batch index: {}; batch size: {}",
+                        sql, flowFile, fieldIndexes, batch.getBatchIndex() + 1, batch.getCurrentBatchSize());
+                    batch.executePendingBatch();
+                }
 
-                    final Object[] values = currentRecord.getValues();
-                    final List<DataType> dataTypes = currentRecord.getSchema().getDataTypes();
-                    final RecordSchema recordSchema = currentRecord.getSchema();
-                    final Map<String, ColumnDescription> columns = tableSchema.getColumns();
-
-                    int deleteIndex = 0;
-                    for (int i = 0; i < fieldIndexes.size(); i++) {
-                        final int currentFieldIndex = fieldIndexes.get(i);
-                        Object currentValue = values[currentFieldIndex];
-                        final DataType dataType = dataTypes.get(currentFieldIndex);
-                        final int fieldSqlType = DataTypeUtils.getSQLTypeValue(dataType);
-                        final String fieldName = recordSchema.getField(currentFieldIndex).getFieldName();
-                        String columnName = normalizeColumnName(fieldName, settings.translateFieldNames);
-                        int sqlType;
-
-                        final ColumnDescription column = columns.get(columnName);
-                        // 'column' should not be null here as the fieldIndexes should correspond to fields that match table columns, but better to handle just in case
-                        if (column == null) {
-                            if (!settings.ignoreUnmappedFields) {
-                                throw new SQLDataException("Cannot map field '" + fieldName + "' to any column in the database\n"
-                                        + (settings.translateFieldNames ? "Normalized " : "") + "Columns: " + String.join(",", columns.keySet()));
-                            } else {
-                                sqlType = fieldSqlType;
-                            }
+                final Object[] values = currentRecord.getValues();
+                final List<DataType> dataTypes = currentRecord.getSchema().getDataTypes();
+                final RecordSchema recordSchema = currentRecord.getSchema();
+                final Map<String, ColumnDescription> columns = tableSchema.getColumns();
+
+                int deleteIndex = 0;
+                for (int i = 0; i < fieldIndexes.size(); i++) {
+                    final int currentFieldIndex = fieldIndexes.get(i);
+                    Object currentValue = values[currentFieldIndex];
+                    final DataType dataType = dataTypes.get(currentFieldIndex);
+                    final int fieldSqlType = DataTypeUtils.getSQLTypeValue(dataType);
+                    final String fieldName = recordSchema.getField(currentFieldIndex).getFieldName();
+                    String columnName = normalizeColumnName(fieldName, settings.translateFieldNames);
+                    int sqlType;
+
+                    final ColumnDescription column = columns.get(columnName);
+                    // 'column' should not be null here as the fieldIndexes should correspond to fields that match table columns, but better to handle just in case
+                    if (column == null) {
+                        if (!settings.ignoreUnmappedFields) {
+                            throw new SQLDataException("Cannot map field '" + fieldName + "' to any column in the database\n"
+                                    + (settings.translateFieldNames ? "Normalized " : "") + "Columns: " + String.join(",", columns.keySet()));
                         } else {
-                            sqlType = column.dataType;
+                            sqlType = fieldSqlType;
                         }
+                    } else {
+                        sqlType = column.dataType;
+                    }
 
-                        // Convert (if necessary) from field data type to column data type
-                        if (fieldSqlType != sqlType) {
-                            try {
-                                DataType targetDataType = DataTypeUtils.getDataTypeFromSQLTypeValue(sqlType);
-                                if (targetDataType != null) {
-                                    if (sqlType == Types.BLOB || sqlType == Types.BINARY) {
-                                        if (currentValue instanceof Object[]) {
-                                            // Convert Object[Byte] arrays to byte[]
-                                            Object[] src = (Object[]) currentValue;
-                                            if (src.length > 0) {
-                                                if (!(src[0] instanceof Byte)) {
-                                                    throw new IllegalTypeConversionException("Cannot convert value " + currentValue + " to BLOB/BINARY");
-                                                }
-                                            }
-                                            byte[] dest = new byte[src.length];
-                                            for (int j = 0; j < src.length; j++) {
-                                                dest[j] = (Byte) src[j];
+                    // Convert (if necessary) from field data type to column data type
+                    if (fieldSqlType != sqlType) {
+                        try {
+                            DataType targetDataType = DataTypeUtils.getDataTypeFromSQLTypeValue(sqlType);
+                            if (targetDataType != null) {
+                                if (sqlType == Types.BLOB || sqlType == Types.BINARY) {
+                                    if (currentValue instanceof Object[]) {
+                                        // Convert Object[Byte] arrays to byte[]
+                                        Object[] src = (Object[]) currentValue;
+                                        if (src.length > 0) {
+                                            if (!(src[0] instanceof Byte)) {
+                                                throw new IllegalTypeConversionException("Cannot convert value " + currentValue + " to BLOB/BINARY");
                                             }
-                                            currentValue = dest;
-                                        } else if (currentValue instanceof String) {
-                                            currentValue = ((String) currentValue).getBytes(StandardCharsets.UTF_8);
-                                        } else if (currentValue != null && !(currentValue instanceof byte[])) {
-                                            throw new IllegalTypeConversionException("Cannot convert value " + currentValue + " to BLOB/BINARY");
                                         }
-                                    } else {
-                                        currentValue = DataTypeUtils.convertType(
-                                                currentValue,
-                                                targetDataType,
-                                                fieldName);
+                                        byte[] dest = new byte[src.length];
+                                        for (int j = 0; j < src.length; j++) {
+                                            dest[j] = (Byte) src[j];
+                                        }
+                                        currentValue = dest;
+                                    } else if (currentValue instanceof String) {
+                                        currentValue = ((String) currentValue).getBytes(StandardCharsets.UTF_8);
+                                    } else if (currentValue != null && !(currentValue instanceof byte[])) {
+                                        throw new IllegalTypeConversionException("Cannot convert value " + currentValue + " to BLOB/BINARY");
                                     }
+                                } else {
+                                    currentValue = DataTypeUtils.convertType(
+                                            currentValue,
+                                            targetDataType,
+                                            fieldName);
                                 }
-                            } catch (IllegalTypeConversionException itce) {
-                                // If the field and column types don't match or the value can't otherwise be converted to the column datatype,
-                                // try with the original object and field datatype
-                                sqlType = DataTypeUtils.getSQLTypeValue(dataType);
                             }
+                        } catch (IllegalTypeConversionException itce) {
+                            // If the field and column types don't match or the value can't otherwise be converted to the column datatype,
+                            // try with the original object and field datatype
+                            sqlType = DataTypeUtils.getSQLTypeValue(dataType);
                         }
+                    }
 
-                        // If DELETE type, insert the object twice if the column is nullable because of the null check (see generateDelete for details)
-                        if (DELETE_TYPE.equalsIgnoreCase(statementType)) {
+                    // If DELETE type, insert the object twice if the column is nullable because of the null check (see generateDelete for details)
+                    if (DELETE_TYPE.equalsIgnoreCase(statementType)) {
+                        setParameter(ps, ++deleteIndex, currentValue, fieldSqlType, sqlType);
+                        if (column.isNullable()) {
                             setParameter(ps, ++deleteIndex, currentValue, fieldSqlType, sqlType);
-                            if (column.isNullable()) {
-                                setParameter(ps, ++deleteIndex, currentValue, fieldSqlType, sqlType);
-                            }
-                        } else if (UPSERT_TYPE.equalsIgnoreCase(statementType)) {
-                            final int timesToAddObjects = databaseAdapter.getTimesToAddColumnObjectsForUpsert();
-                            for (int j = 0; j < timesToAddObjects; j++) {
-                                setParameter(ps, i + (fieldIndexes.size() * j) + 1, currentValue, fieldSqlType, sqlType);
-                            }
-                        } else {
-                            setParameter(ps, i + 1, currentValue, fieldSqlType, sqlType);
                         }
-                    }
-
-                    ps.addBatch();
-                    session.adjustCounter(statementType + " updates performed", 1, false);
-                    if (++currentBatchSize == maxBatchSize) {
-                        batchIndex++;
-                        log.debug("Executing query {} because batch reached max size for {}; fieldIndexes: {}; batch index: {}; batch size: {}",
-                            sql, flowFile, fieldIndexes, batchIndex, currentBatchSize);
-                        session.adjustCounter("Batches Executed", 1, false);
-                        ps.executeBatch();
-                        currentBatchSize = 0;
+                    } else if (UPSERT_TYPE.equalsIgnoreCase(statementType)) {
+                        final int timesToAddObjects = databaseAdapter.getTimesToAddColumnObjectsForUpsert();
+                        for (int j = 0; j < timesToAddObjects; j++) {
+                            setParameter(ps, i + (fieldIndexes.size() * j) + 1, currentValue, fieldSqlType, sqlType);
+                        }
+                    } else {
+                        setParameter(ps, i + 1, currentValue, fieldSqlType, sqlType);
                     }
                 }
-            }
 
-            if (currentBatchSize > 0) {
-                lastPreparedStatement.executeBatch();
-                session.adjustCounter("Batches Executed", 1, false);
-            }
-        } finally {
-            for (final PreparedSqlAndColumns preparedSqlAndColumns : preparedSql.values()) {
-                preparedSqlAndColumns.getPreparedStatement().close();
+                batch.addBatch(ps, statementType);
+                if (maxBatchSize > 0 && batch.getCurrentBatchSize() >= maxBatchSize) {
+                    log.debug("Executing query {} because batch reached max size for {}; fieldIndexes: {}; batch index: {}; batch size: {}",
+                        sql, flowFile, fieldIndexes, batch.getBatchIndex() + 1, batch.getCurrentBatchSize());
+                    batch.executePendingBatch();
+                }
             }
         }
     }
@@ -918,6 +996,18 @@ public class PutDatabaseRecord extends AbstractProcessor {
     }
 
     private void putToDatabase(final ProcessContext context, final ProcessSession session, final FlowFile flowFile, final Connection connection) throws Exception {
+        final DMLBatch batch = new DMLBatch(getLogger());
+        try {
+            putToDatabase(context, session, flowFile, connection, batch);
+            batch.executePendingBatch();
+        } finally {
+            batch.close();
+            batch.adjustCounters(session);
+        }
+    }
+
+    private void putToDatabase(final ProcessContext context, final ProcessSession session, final FlowFile flowFile, final Connection connection, final DMLBatch batch)
+            throws Exception {
         final String statementType = getStatementType(context, flowFile);
 
         try (final InputStream in = session.read(flowFile)) {
@@ -925,10 +1015,12 @@ public class PutDatabaseRecord extends AbstractProcessor {
             final RecordReader recordReader = recordReaderFactory.createRecordReader(flowFile, in, getLogger());
 
             if (SQL_TYPE.equalsIgnoreCase(statementType)) {
+                // Records of earlier FlowFiles may still be waiting in the batch, and they must reach the database before these statements do
+                batch.executePendingBatch();
                 executeSQL(context, flowFile, connection, recordReader);
             } else {
                 final DMLSettings settings = new DMLSettings(context);
-                executeDML(context, session, flowFile, connection, recordReader, statementType, settings);
+                executeDML(context, flowFile, connection, recordReader, statementType, settings, batch);
             }
         }
     }
@@ -1621,6 +1713,92 @@ public class PutDatabaseRecord extends AbstractProcessor {
         }
     }
 
+    /**
+     * Holds the Prepared Statements, and the batch that is currently being built, for the Records that are put to the database in a single
+     * transaction. The Prepared Statements are keyed by their SQL so that Records from different FlowFiles that result in the same SQL are added
+     * to the same batch.
+     */
+    static class DMLBatch implements Closeable {
+        private final ComponentLog logger;
+        private final Map<String, PreparedStatement> preparedStatements = new HashMap<>();
+        private final Map<String, Long> counters = new LinkedHashMap<>();
+        private PreparedStatement lastPreparedStatement;
+        private int currentBatchSize = 0;
+        private int batchIndex = 0;
+
+        DMLBatch(final ComponentLog logger) {
+            this.logger = logger;
+        }
+
+        PreparedStatement getPreparedStatement(final Connection connection, final String sql, final int timeoutMillis) throws SQLException {
+            PreparedStatement preparedStatement = preparedStatements.get(sql);
+            if (preparedStatement != null) {
+                return preparedStatement;
+            }
+
+            preparedStatement = connection.prepareStatement(sql);
+            preparedStatements.put(sql, preparedStatement);
+
+            try {
+                preparedStatement.setQueryTimeout(timeoutMillis); // timeout in seconds
+            } catch (final SQLException se) {
+                // If the driver doesn't support query timeout, then assume it is "infinite". Allow a timeout of zero only
+                if (timeoutMillis > 0) {
+                    throw se;
+                }
+            }
+
+            return preparedStatement;
+        }
+
+        boolean isStatementChanged(final PreparedStatement preparedStatement) {
+            return currentBatchSize > 0 && lastPreparedStatement != null && preparedStatement != lastPreparedStatement;
+        }
+
+        void addBatch(final PreparedStatement preparedStatement, final String statementType) throws SQLException {
+            preparedStatement.addBatch();
+            lastPreparedStatement = preparedStatement;
+            currentBatchSize++;
+            counters.merge(statementType + " updates performed", 1L, Long::sum);
+        }
+
+        void executePendingBatch() throws SQLException {
+            if (currentBatchSize == 0) {
+                return;
+            }
+
+            batchIndex++;
+            counters.merge("Batches Executed", 1L, Long::sum);
+            currentBatchSize = 0;
+            lastPreparedStatement.executeBatch();
+        }
+
+        int getCurrentBatchSize() {
+            return currentBatchSize;
+        }
+
+        int getBatchIndex() {
+            return batchIndex;
+        }
+
+        void adjustCounters(final ProcessSession session) {
+            counters.forEach((counter, delta) -> session.adjustCounter(counter, delta, false));
+            counters.clear();
+        }
+
+        @Override
+        public void close() {
+            for (final PreparedStatement preparedStatement : preparedStatements.values()) {
+                try {
+                    preparedStatement.close();
+                } catch (final SQLException e) {
+                    logger.warn("Failed to close Prepared Statement", e);
+                }
+            }
+            preparedStatements.clear();
+        }
+    }
+
     private static class RecordPathStatementType implements Function<Record, String> {
         private final RecordPath recordPath;
 
@@ -82,8 +82,10 @@ import static org.apache.nifi.flowfile.attributes.FragmentAttributes.copyAttribu
                 description = "The number of split FlowFiles generated from the parent FlowFile"),
         @WritesAttribute(attribute = "segment.original.filename ", description = "The filename of the parent FlowFile")
 })
-@SystemResourceConsideration(resource = SystemResource.MEMORY, description = "The entirety of the FlowFile's content (as a JsonNode object) is read into memory, " +
-        "in addition to all of the generated FlowFiles representing the split JSON. If many splits are generated due to the size of the JSON, or how the JSON is " +
+@SystemResourceConsideration(resource = SystemResource.MEMORY, description = "Unless the JsonPath Expression consists only of child properties, wildcards, " +
+        "array indexes and filters that do not refer to the document root, the entirety of the FlowFile's content (as a JsonNode object) is read into memory. " +
+        "Such expressions are evaluated while streaming the content, and only one element is held in memory at a time. In either case, all of the generated " +
+        "FlowFiles representing the split JSON are held in memory. If many splits are generated due to the size of the JSON, or how the JSON is " +
         "configured to be split, a two-phase approach may be necessary to avoid excessive use of memory.")
 public class SplitJson extends AbstractJsonPathProcessor {
 
@@ -114,6 +116,7 @@ public class SplitJson extends AbstractJsonPathProcessor {
 
     private final AtomicReference<JsonPath> JSON_PATH_REF = new AtomicReference<>();
     private volatile String nullDefaultValue;
+    private volatile StreamingJsonPath streamingJsonPath;
 
     @Override
     protected void init(final ProcessorInitializationContext context) {
@@ -172,6 +175,7 @@ public class SplitJson extends AbstractJsonPathProcessor {
     @OnScheduled
     public void onScheduled(ProcessContext processContext) {
         nullDefaultValue = NULL_REPRESENTATION_MAP.get(processContext.getProperty(NULL_VALUE_DEFAULT_REPRESENTATION).getValue());
+        streamingJsonPath = StreamingJsonPath.compile(processContext.getProperty(ARRAY_JSON_PATH_EXPRESSION).getValue());
     }
 
     @Override
@@ -183,6 +187,12 @@ public class SplitJson extends AbstractJsonPathProcessor {
 
         final ComponentLog logger = getLogger();
 
+        final StreamingJsonPath streamingPath = streamingJsonPath;
+        if (streamingPath != null) {
+            splitStreaming(processSession, original, streamingPath);
+            return;
+        }
+
         DocumentContext documentContext;
         try {
             documentContext = validateAndEstablishJsonContext(processSession, original);
@@ -211,26 +221,76 @@ public class SplitJson extends AbstractJsonPathProcessor {
 
         List resultList = (List) jsonPathResult;
 
+        final List<FlowFile> splits = new ArrayList<>(resultList.size());
+        for (final Object resultSegment : resultList) {
+            splits.add(createSplit(processSession, original, resultSegment));
+        }
+
+        transferSplits(processSession, original, splits);
+    }
+
+    /**
+     * Splits the content while it is streamed, creating each split as its array element is read so that the document is never held in memory.
+     * A definite expression selects the array to split, while each match of an indefinite expression becomes a split, as with the parsed document.
+     */
+    private void splitStreaming(final ProcessSession processSession, final FlowFile original, final StreamingJsonPath streamingPath) {
+        final ComponentLog logger = getLogger();
+        final JsonPath jsonPath = JSON_PATH_REF.get();
+        final StreamingJsonPath splitPath = streamingPath.isDefinite() ? streamingPath.elements() : streamingPath;
+
+        final List<FlowFile> splits = new ArrayList<>();
+        final StreamingJsonPath.Evaluation evaluation;
+        try {
+            evaluation = evaluateStreaming(processSession, original, Collections.singletonList(splitPath),
+                    (pathIndex, resultSegment) -> splits.add(createSplit(processSession, original, resultSegment)));
+        } catch (InvalidJsonException e) {
+            processSession.remove(splits);
+            logger.error("FlowFile {} did not have valid JSON content.", new Object[]{original});
+            processSession.transfer(original, REL_FAILURE);
+            return;
+        }
+
+        final boolean found = streamingPath.isDefinite() ? evaluation.isElementsParentFound(0) : evaluation.isFound(0, splitPath);
+        if (!found) {
+            logger.warn("JsonPath {} could not be found for FlowFile {}", new Object[]{jsonPath.getPath(), original});
+            processSession.transfer(original, REL_FAILURE);
+            return;
+        }
+
+        if (streamingPath.isDefinite() && evaluation.isElementsParentNotArray(0)) {
+            processSession.remove(splits);
+            logger.error("The evaluated value of {} was not a JSON Array compatible type and cannot be split.", new Object[]{jsonPath.getPath()});
+            processSession.transfer(original, REL_FAILURE);
+            return;
+        }
+
+        transferSplits(processSession, original, splits);
+    }
+
+    private FlowFile createSplit(final ProcessSession processSession, final FlowFile original, final Object resultSegment) {
+        final FlowFile split = processSession.create(original);
+        return processSession.write(split, (out) -> {
+                    String resultSegmentContent = getResultRepresentation(resultSegment, nullDefaultValue);
+                    out.write(resultSegmentContent.getBytes(StandardCharsets.UTF_8));
+                }
+        );
+    }
+
+    private void transferSplits(final ProcessSession processSession, FlowFile original, final List<FlowFile> splits) {
         Map<String, String> attributes = new HashMap<>();
         final String fragmentId = UUID.randomUUID().toString();
         attributes.put(FRAGMENT_ID.key(), fragmentId);
-        attributes.put(FRAGMENT_COUNT.key(), Integer.toString(resultList.size()));
-
-        for (int i = 0; i < resultList.size(); i++) {
-            Object resultSegment = resultList.get(i);
-            FlowFile split = processSession.create(original);
-            split = processSession.write(split, (out) -> {
-                        String resultSegmentContent = getResultRepresentation(resultSegment, nullDefaultValue);
-                        out.write(resultSegmentContent.getBytes(StandardCharsets.UTF_8));
-                    }
-            );
+        attributes.put(FRAGMENT_COUNT.key(), Integer.toString(splits.size()));
+
+        for (int i = 0; i < splits.size(); i++) {
+            final FlowFile split = splits.get(i);
             attributes.put(SEGMENT_ORIGINAL_FILENAME.key(), split.getAttribute(CoreAttributes.FILENAME.key()));
             attributes.put(FRAGMENT_INDEX.key(), Integer.toString(i));
             processSession.transfer(processSession.putAllAttributes(split, attributes), REL_SPLIT);
         }
 
-        original = copyAttributesToOriginal(processSession, original, fragmentId, resultList.size());
+        original = copyAttributesToOriginal(processSession, original, fragmentId, splits.size());
         processSession.transfer(original, REL_ORIGINAL);
-        logger.info("Split {} into {} FlowFiles", new Object[]{original, resultList.size()});
+        getLogger().info("Split {} into {} FlowFiles", new Object[]{original, splits.size()});
     }
 }
\ No newline at end of file
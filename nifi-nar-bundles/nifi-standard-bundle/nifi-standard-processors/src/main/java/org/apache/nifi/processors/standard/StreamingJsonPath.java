@@ -0,0 +1,546 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.standard;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates the subset of JsonPath expressions that can be answered in a single pass over a stream of JSON tokens: child properties, wildcards,
+ * array indexes and filters. Only the values matched by a path, and the array elements tested by a filter, are materialized; the remainder of
+ * the document is skipped as it is read. The results are equivalent to those produced by evaluating the same path with Jayway JsonPath
+ * against the fully parsed document.
+ */
+final class StreamingJsonPath {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private enum StepType {
+        PROPERTY, INDEX, WILDCARD, ELEMENTS, FILTER
+    }
+
+    private final List<Step> steps;
+    private final int definiteLength;
+
+    private StreamingJsonPath(final List<Step> steps) {
+        this.steps = steps;
+
+        int length = 0;
+        while (length < steps.size() && steps.get(length).isDefinite()) {
+            length++;
+        }
+        this.definiteLength = length;
+    }
+
+    /**
+     * Compiles the given JsonPath expression for streaming evaluation
+     *
+     * @param path the JsonPath expression
+     * @return the compiled path, or {@code null} if the expression uses features that cannot be evaluated in a single pass, such as deep scans,
+     * slices, functions or filters that refer to the document root
+     */
+    static StreamingJsonPath compile(final String path) {
+        if (path == null || path.trim().isEmpty()) {
+            return null;
+        }
+
+        String expression = path.trim();
+        final char first = expression.charAt(0);
+        if (first != '$') {
+            if (first == '@' || first == '.' || first == '[') {
+                return null;
+            }
+            expression = "$." + expression;
+        }
+
+        final List<Step> steps = new ArrayList<>();
+        final int length = expression.length();
+        int position = 1;
+        while (position < length) {
+            final char c = expression.charAt(position);
+            if (c == '.') {
+                position++;
+                if (position >= length || expression.charAt(position) == '.') {
+                    return null;
+                }
+
+                if (expression.charAt(position) == '*') {
+                    steps.add(new Step(StepType.WILDCARD, null, -1, null));
+                    position++;
+                    continue;
+                }
+
+                int end = position;
+                while (end < length && expression.charAt(end) != '.' && expression.charAt(end) != '[') {
+                    if (!isPlainNameCharacter(expression.charAt(end))) {
+                        return null;
+                    }
+                    end++;
+                }
+                if (end == position) {
+                    return null;
+                }
+                steps.add(new Step(StepType.PROPERTY, expression.substring(position, end), -1, null));
+                position = end;
+            } else if (c == '[') {
+                final int end = findBracketEnd(expression, position);
+                if (end < 0) {
+                    return null;
+                }
+
+                final Step step = parseBracket(expression.substring(position + 1, end).trim());
+                if (step == null) {
+                    return null;
+                }
+                steps.add(step);
+                position = end + 1;
+            } else {
+                return null;
+            }
+        }
+
+        return new StreamingJsonPath(steps);
+    }
+
+    /**
+     * @return true if the path can match at most one value, in which case it is also definite according to Jayway JsonPath
+     */
+    boolean isDefinite() {
+        return definiteLength == steps.size();
+    }
+
+    /**
+     * @return a path that matches each element of the array selected by this path, used to split an array without materializing it
+     */
+    StreamingJsonPath elements() {
+        final List<Step> elementSteps = new ArrayList<>(steps);
+        elementSteps.add(new Step(StepType.ELEMENTS, null, -1, null));
+        return new StreamingJsonPath(elementSteps);
+    }
+
+    /**
+     * Evaluates all of the given paths in a single pass over the JSON content, notifying the handler of each match in document order
+     *
+     * @param in the JSON content
+     * @param paths the paths to evaluate
+     * @param configuration the configuration used to evaluate filters against individual elements
+     * @param handler the handler notified of each match
+     * @return the outcome of the evaluation for each path
+     * @throws IOException if the content cannot be read or is not valid JSON
+     */
+    static Evaluation evaluate(final InputStream in, final List<StreamingJsonPath> paths, final Configuration configuration,
+                               final MatchHandler handler) throws IOException {
+        final Evaluation evaluation = new Evaluation(paths.size(), configuration, handler);
+        try (final JsonParser parser = OBJECT_MAPPER.getFactory().createParser(in)) {
+            final JsonToken rootToken = parser.nextToken();
+            if (rootToken == null) {
+                throw new JsonParseException(parser, "No JSON content found");
+            }
+            // Jayway JsonPath cannot establish a document context for a null document, so it is treated as invalid
+            if (rootToken == JsonToken.VALUE_NULL) {
+                throw new JsonParseException(parser, "JSON content is null");
+            }
+
+            final List<Cursor> cursors = new ArrayList<>(paths.size());
+            for (int i = 0; i < paths.size(); i++) {
+                cursors.add(new Cursor(paths.get(i), i, 0, false));
+            }
+            evaluation.walk(parser, cursors);
+        }
+
+        return evaluation;
+    }
+
+    private static boolean isPlainNameCharacter(final char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-';
+    }
+
+    private static int findBracketEnd(final String expression, final int start) {
+        char quote = 0;
+        int depth = 0;
+        for (int i = start + 1; i < expression.length(); i++) {
+            final char c = expression.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']') {
+                if (depth == 0) {
+                    return i;
+                }
+                depth--;
+            }
+        }
+        return -1;
+    }
+
+    private static Step parseBracket(final String content) {
+        if (content.isEmpty()) {
+            return null;
+        }
+
+        if (content.equals("*")) {
+            return new Step(StepType.WILDCARD, null, -1, null);
+        }
+
+        final char first = content.charAt(0);
+        if (first == '?') {
+            // Filter placeholders such as [?] require predicates supplied at evaluation time
+            if (content.length() < 3 || content.charAt(1) != '(' || content.charAt(content.length() - 1) != ')') {
+                return null;
+            }
+
+            final String filter = content.substring(2, content.length() - 1);
+            if (!isRelativeFilter(filter)) {
+                return null;
+            }
+
+            try {
+                return new Step(StepType.FILTER, null, -1, JsonPath.compile("$[?(" + filter + ")]"));
+            } catch (final RuntimeException e) {
+                return null;
+            }
+        }
+
+        if ((first == '\'' || first == '"') && content.length() >= 2 && content.charAt(content.length() - 1) == first) {
+            final String name = content.substring(1, content.length() - 1);
+            // Multiple property names and escaped quotes are not supported
+            if (name.indexOf(first) >= 0 || name.indexOf('\\') >= 0) {
+                return null;
+            }
+            return new Step(StepType.PROPERTY, name, -1, null);
+        }
+
+        if (content.length() > 9) {
+            return null;
+        }
+        for (int i = 0; i < content.length(); i++) {
+            if (!Character.isDigit(content.charAt(i))) {
+                return null;
+            }
+        }
+        return new Step(StepType.INDEX, null, Integer.parseInt(content), null);
+    }
+
+    /**
+     * A filter can be evaluated against each element on its own unless it refers to the document root. Regular expressions are also
+     * excluded, as they may contain unbalanced brackets that cannot be located reliably.
+     */
+    private static boolean isRelativeFilter(final String filter) {
+        char quote = 0;
+        for (int i = 0; i < filter.length(); i++) {
+            final char c = filter.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '$' || c == '/') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Receives the values matched while evaluating paths
+     */
+    interface MatchHandler {
+        void onMatch(int pathIndex, Object value) throws IOException;
+    }
+
+    /**
+     * The outcome of evaluating a set of paths
+     */
+    static final class Evaluation {
+        private final Configuration configuration;
+        private final MatchHandler handler;
+        private final boolean[] resolved;
+        private final boolean[] definitePrefixMissing;
+        private final boolean[] nonArrayElements;
+
+        private Evaluation(final int pathCount, final Configuration configuration, final MatchHandler handler) {
+            this.configuration = configuration;
+            this.handler = handler;
+            this.resolved = new boolean[pathCount];
+            this.definitePrefixMissing = new boolean[pathCount];
+            this.nonArrayElements = new boolean[pathCount];
+        }
+
+        /**
+         * Jayway JsonPath reports a missing path if a definite path has no match, or if the definite leading portion of an indefinite path
+         * could not be followed because a property was missing or a value had an unexpected type.
+         *
+         * @param pathIndex the index of the path
+         * @param path the path that was evaluated
+         * @return true if the path was found
+         */
+        boolean isFound(final int pathIndex, final StreamingJsonPath path) {
+            return path.isDefinite() ? resolved[pathIndex] : !definitePrefixMissing[pathIndex];
+        }
+
+        /**
+         * @param pathIndex the index of a path created by {@link StreamingJsonPath#elements()}
+         * @return true if the path selected a value, whether or not the value was an array
+         */
+        boolean isElementsParentFound(final int pathIndex) {
+            return resolved[pathIndex];
+        }
+
+        /**
+         * @param pathIndex the index of a path created by {@link StreamingJsonPath#elements()}
+         * @return true if the path selected a value that was not an array
+         */
+        boolean isElementsParentNotArray(final int pathIndex) {
+            return nonArrayElements[pathIndex];
+        }
+
+        private void walk(final JsonParser parser, final List<Cursor> cursors) throws IOException {
+            if (cursors.isEmpty()) {
+                parser.skipChildren();
+                return;
+            }
+
+            final JsonToken token = parser.currentToken();
+            boolean materialize = false;
+            for (final Cursor cursor : cursors) {
+                markResolved(cursor);
+                if (cursor.filterPending || cursor.isComplete() || (token == JsonToken.START_OBJECT && cursor.nextStep().type == StepType.FILTER)) {
+                    materialize = true;
+                }
+            }
+
+            if (materialize) {
+                final Object value = OBJECT_MAPPER.readValue(parser, Object.class);
+                for (final Cursor cursor : cursors) {
+                    navigate(value, cursor);
+                }
+                return;
+            }
+
+            if (token == JsonToken.START_OBJECT) {
+                final boolean[] matched = new boolean[cursors.size()];
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String name = parser.getCurrentName();
+                    parser.nextToken();
+
+                    List<Cursor> children = Collections.emptyList();
+                    for (int i = 0; i < cursors.size(); i++) {
+                        final Cursor cursor = cursors.get(i);
+                        final Step step = cursor.nextStep();
+                        if (step.type == StepType.WILDCARD || (step.type == StepType.PROPERTY && step.name.equals(name))) {
+                            matched[i] = true;
+                            children = add(children, cursor.advance());
+                        }
+                    }
+                    walk(parser, children);
+                }
+
+                for (int i = 0; i < cursors.size(); i++) {
+                    if (!matched[i]) {
+                        mismatch(cursors.get(i));
+                    }
+                }
+            } else if (token == JsonToken.START_ARRAY) {
+                int index = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    List<Cursor> children = Collections.emptyList();
+                    for (final Cursor cursor : cursors) {
+                        final Step step = cursor.nextStep();
+                        if (step.type == StepType.WILDCARD || step.type == StepType.ELEMENTS || (step.type == StepType.INDEX && step.index == index)) {
+                            children = add(children, cursor.advance());
+                        } else if (step.type == StepType.FILTER) {
+                            children = add(children, cursor.filter());
+                        }
+                    }
+                    walk(parser, children);
+                    index++;
+                }
+
+                for (final Cursor cursor : cursors) {
+                    if (cursor.nextStep().type == StepType.PROPERTY) {
+                        mismatch(cursor);
+                    }
+                }
+            } else {
+                for (final Cursor cursor : cursors) {
+                    mismatch(cursor);
+                }
+            }
+        }
+
+        private void navigate(final Object node, final Cursor cursor) throws IOException {
+            Cursor current = cursor;
+            if (current.filterPending) {
+                if (!accepts(current.nextStep(), node)) {
+                    return;
+                }
+                current = current.advance();
+            }
+
+            markResolved(current);
+            if (current.isComplete()) {
+                handler.onMatch(current.pathIndex, node);
+                return;
+            }
+
+            final Step step = current.nextStep();
+            switch (step.type) {
+                case PROPERTY:
+                    if (node instanceof Map && ((Map<?, ?>) node).containsKey(step.name)) {
+                        navigate(((Map<?, ?>) node).get(step.name), current.advance());
+                    } else {
+                        mismatch(current);
+                    }
+                    break;
+                case INDEX:
+                    if (node instanceof List) {
+                        final List<?> list = (List<?>) node;
+                        if (step.index < list.size()) {
+                            navigate(list.get(step.index), current.advance());
+                        }
+                    } else {
+                        mismatch(current);
+                    }
+                    break;
+                case WILDCARD:
+                    if (node instanceof Map) {
+                        for (final Object value : ((Map<?, ?>) node).values()) {
+                            navigate(value, current.advance());
+                        }
+                    } else if (node instanceof List) {
+                        for (final Object element : (List<?>) node) {
+                            navigate(element, current.advance());
+                        }
+                    }
+                    break;
+                case ELEMENTS:
+                    if (node instanceof List) {
+                        for (final Object element : (List<?>) node) {
+                            navigate(element, current.advance());
+                        }
+                    } else {
+                        mismatch(current);
+                    }
+                    break;
+                case FILTER:
+                    if (node instanceof List) {
+                        for (final Object element : (List<?>) node) {
+                            navigate(element, current.filter());
+                        }
+                    } else if (node instanceof Map) {
+                        navigate(node, current.filter());
+                    }
+                    break;
+            }
+        }
+
+        private boolean accepts(final Step step, final Object node) {
+            final Object matches = step.filter.read(Collections.singletonList(node), configuration);
+            return matches instanceof List && !((List<?>) matches).isEmpty();
+        }
+
+        private void markResolved(final Cursor cursor) {
+            if (!cursor.filterPending && cursor.stepIndex == cursor.path.definiteLength) {
+                resolved[cursor.pathIndex] = true;
+            }
+        }
+
+        private void mismatch(final Cursor cursor) {
+            final StepType type = cursor.nextStep().type;
+            if (type == StepType.ELEMENTS) {
+                nonArrayElements[cursor.pathIndex] = true;
+            } else if ((type == StepType.PROPERTY || type == StepType.INDEX) && cursor.stepIndex < cursor.path.definiteLength) {
+                definitePrefixMissing[cursor.pathIndex] = true;
+            }
+        }
+
+        private static List<Cursor> add(final List<Cursor> cursors, final Cursor cursor) {
+            final List<Cursor> updated = cursors.isEmpty() ? new ArrayList<>(2) : cursors;
+            updated.add(cursor);
+            return updated;
+        }
+    }
+
+    private static final class Step {
+        private final StepType type;
+        private final String name;
+        private final int index;
+        private final JsonPath filter;
+
+        private Step(final StepType type, final String name, final int index, final JsonPath filter) {
+            this.type = type;
+            this.name = name;
+            this.index = index;
+            this.filter = filter;
+        }
+
+        private boolean isDefinite() {
+            return type == StepType.PROPERTY || type == StepType.INDEX;
+        }
+    }
+
+    private static final class Cursor {
+        private final StreamingJsonPath path;
+        private final int pathIndex;
+        private final int stepIndex;
+        private final boolean filterPending;
+
+        private Cursor(final StreamingJsonPath path, final int pathIndex, final int stepIndex, final boolean filterPending) {
+            this.path = path;
+            this.pathIndex = pathIndex;
+            this.stepIndex = stepIndex;
+            this.filterPending = filterPending;
+        }
+
+        private boolean isComplete() {
+            return stepIndex == path.steps.size();
+        }
+
+        private Step nextStep() {
+            return path.steps.get(stepIndex);
+        }
+
+        private Cursor advance() {
+            return new Cursor(path, pathIndex, stepIndex + 1, false);
+        }
+
+        private Cursor filter() {
+            return new Cursor(path, pathIndex, stepIndex, true);
+        }
+    }
+}
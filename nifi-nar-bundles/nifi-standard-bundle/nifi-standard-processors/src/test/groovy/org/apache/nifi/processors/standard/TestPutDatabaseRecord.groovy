@@ -17,6 +17,7 @@
 package org.apache.nifi.processors.standard
 
 import org.apache.commons.dbcp2.DelegatingConnection
+import org.apache.nifi.json.JsonTreeReader
 import org.apache.nifi.processor.exception.ProcessException
 import org.apache.nifi.processor.util.pattern.RollbackOnFailure
 import org.apache.nifi.reporting.InitializationException
@@ -1139,6 +1140,121 @@ class TestPutDatabaseRecord {
         verify(spyStmt.get(), times(3)).executeBatch()
     }
 
+    @Test
+    void testInsertMultipleFlowFilesInSingleTransaction() throws InitializationException, ProcessException, SQLException, IOException {
+        recreateTable(createPersons)
+        setupJsonReader()
+
+        runner.setProperty(PutDatabaseRecord.STATEMENT_TYPE, PutDatabaseRecord.INSERT_TYPE)
+        runner.setProperty(PutDatabaseRecord.TABLE_NAME, 'PERSONS')
+        runner.setProperty(PutDatabaseRecord.FLOWFILES_PER_TRANSACTION, '10')
+
+        Supplier<PreparedStatement> spyStmt = createPreparedStatementSpy()
+
+        (0..2).each {
+            runner.enqueue("""[{"id": ${it * 2 + 1}, "name": "rec${it * 2 + 1}", "code": ${it * 2 + 101}},
+                              {"id": ${it * 2 + 2}, "name": "rec${it * 2 + 2}", "code": ${it * 2 + 102}}]""".toString())
+        }
+        runner.run()
+
+        runner.assertAllFlowFilesTransferred(PutDatabaseRecord.REL_SUCCESS, 3)
+        assertEquals(3, runner.getProvenanceEvents().size())
+        assertEquals(6, getTableSize())
+
+        // The Records of all FlowFiles share the same statement, so they are put to the database in a single batch
+        assertNotNull(spyStmt.get())
+        verify(spyStmt.get(), times(1)).executeBatch()
+    }
+
+    @Test
+    void testInsertMultipleFlowFilesFailureRoutesEachFlowFile() throws InitializationException, ProcessException, SQLException, IOException {
+        recreateTable(createPersons)
+        setupJsonReader()
+
+        runner.setProperty(PutDatabaseRecord.STATEMENT_TYPE, PutDatabaseRecord.INSERT_TYPE)
+        runner.setProperty(PutDatabaseRecord.TABLE_NAME, 'PERSONS')
+        runner.setProperty(PutDatabaseRecord.FLOWFILES_PER_TRANSACTION, '10')
+
+        runner.enqueue('[{"id": 1, "name": "rec1", "code": 101}, {"id": 2, "name": "rec2", "code": 102}]')
+        // This record violates the constraint on the 'code' column so this FlowFile should be routed to failure
+        runner.enqueue('[{"id": 3, "name": "rec3", "code": 1000}, {"id": 4, "name": "rec4", "code": 104}]')
+        runner.enqueue('[{"id": 5, "name": "rec5", "code": 105}]')
+        runner.run()
+
+        runner.assertTransferCount(PutDatabaseRecord.REL_SUCCESS, 2)
+        runner.assertTransferCount(PutDatabaseRecord.REL_FAILURE, 1)
+        assertEquals('[{"id": 3, "name": "rec3", "code": 1000}, {"id": 4, "name": "rec4", "code": 104}]',
+                runner.getFlowFilesForRelationship(PutDatabaseRecord.REL_FAILURE)[0].getContent())
+        assertEquals(3, getTableSize())
+    }
+
+    @Test
+    void testInsertMultipleFlowFilesRollbackOnFailure() throws InitializationException, ProcessException, SQLException, IOException {
+        recreateTable(createPersons)
+        setupJsonReader()
+
+        runner.setProperty(PutDatabaseRecord.STATEMENT_TYPE, PutDatabaseRecord.INSERT_TYPE)
+        runner.setProperty(PutDatabaseRecord.TABLE_NAME, 'PERSONS')
+        runner.setProperty(PutDatabaseRecord.FLOWFILES_PER_TRANSACTION, '10')
+        runner.setProperty(RollbackOnFailure.ROLLBACK_ON_FAILURE, 'true')
+
+        runner.enqueue('[{"id": 1, "name": "rec1", "code": 101}]')
+        runner.enqueue('[{"id": 2, "name": "rec2", "code": 1000}]')
+        runner.run()
+
+        runner.assertTransferCount(PutDatabaseRecord.REL_SUCCESS, 0)
+        runner.assertTransferCount(PutDatabaseRecord.REL_FAILURE, 0)
+        assertEquals(2, runner.getQueueSize().getObjectCount())
+        assertEquals(0, getTableSize())
+    }
+
+    @Test
+    void testMultipleFlowFilesMixedStatementTypesKeepOrder() throws InitializationException, ProcessException, SQLException, IOException {
+        recreateTable(createPersons)
+        setupJsonReader()
+
+        runner.setProperty(PutDatabaseRecord.STATEMENT_TYPE, PutDatabaseRecord.USE_ATTR_TYPE)
+        runner.setProperty(PutDatabaseRecord.TABLE_NAME, 'PERSONS')
+        runner.setProperty(PutDatabaseRecord.FIELD_CONTAINING_SQL, 'sql')
+        runner.setProperty(PutDatabaseRecord.FLOWFILES_PER_TRANSACTION, '10')
+
+        runner.enqueue('[{"id": 1, "name": "rec1", "code": 101}, {"id": 2, "name": "rec2", "code": 102}]',
+                [(PutDatabaseRecord.STATEMENT_TYPE_ATTRIBUTE): 'INSERT'])
+        // The SQL statement must see the Records inserted by the previous FlowFile, even though they are still waiting in a batch
+        runner.enqueue('''[{"sql": "UPDATE PERSONS SET name = 'updated' WHERE id = 1"}]''',
+                [(PutDatabaseRecord.STATEMENT_TYPE_ATTRIBUTE): 'SQL'])
+        runner.enqueue('[{"id": 1}]', [(PutDatabaseRecord.STATEMENT_TYPE_ATTRIBUTE): 'DELETE'])
+        runner.enqueue('[{"id": 3, "name": "rec3", "code": 103}]', [(PutDatabaseRecord.STATEMENT_TYPE_ATTRIBUTE): 'INSERT'])
+        runner.enqueue('''[{"sql": "UPDATE PERSONS SET code = 110 WHERE id = 3"}]''',
+                [(PutDatabaseRecord.STATEMENT_TYPE_ATTRIBUTE): 'SQL'])
+        runner.run()
+
+        runner.assertAllFlowFilesTransferred(PutDatabaseRecord.REL_SUCCESS, 5)
+
+        final Connection conn = dbcp.getConnection()
+        final Statement stmt = conn.createStatement()
+        final ResultSet rs = stmt.executeQuery('SELECT * FROM PERSONS ORDER BY id')
+        assertTrue(rs.next())
+        assertEquals(2, rs.getInt(1))
+        assertEquals('rec2', rs.getString(2))
+        assertEquals(102, rs.getInt(3))
+        assertTrue(rs.next())
+        assertEquals(3, rs.getInt(1))
+        assertEquals('rec3', rs.getString(2))
+        assertEquals(110, rs.getInt(3))
+        assertFalse(rs.next())
+
+        stmt.close()
+        conn.close()
+    }
+
+    private void setupJsonReader() {
+        final JsonTreeReader jsonReader = new JsonTreeReader()
+        runner.addControllerService("reader", jsonReader)
+        runner.enableControllerService(jsonReader)
+        runner.setProperty(PutDatabaseRecord.RECORD_READER_FACTORY, 'reader')
+    }
+
     @Test
     void testInsertWithDefaultMaxBatchSize() throws InitializationException, ProcessException, SQLException, IOException {
         recreateTable(createPersons)
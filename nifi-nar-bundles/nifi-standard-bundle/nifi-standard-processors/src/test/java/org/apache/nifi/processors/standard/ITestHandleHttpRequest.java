@@ -414,6 +414,7 @@ public class ITestHandleHttpRequest {
         runner.assertAllFlowFilesTransferred(HandleHttpRequest.REL_SUCCESS, 0);
         assertEquals(0, contextMap.size());
         Assert.assertEquals(503, responseCode.get());
+        assertEquals(Long.valueOf(1L), runner.getCounterValue("Requests Rejected: HTTP Context Map Full"));
     }
 
     private byte[] generateRandomBinaryData() {
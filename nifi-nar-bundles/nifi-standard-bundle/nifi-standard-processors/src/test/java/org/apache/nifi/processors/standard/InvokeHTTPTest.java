@@ -692,6 +692,49 @@ public class InvokeHTTPTest {
         assertEquals("chunked", transferEncoding);
     }
 
+    @Test
+    public void testRunPostHttp200SuccessRequestBatchSize() throws InterruptedException {
+        final int batchSize = 3;
+        runner.setProperty(InvokeHTTP.PROP_METHOD, POST_METHOD);
+        runner.setProperty(InvokeHTTP.REQUEST_BATCH_SIZE, Integer.toString(batchSize));
+        setUrlProperty();
+
+        for (int i = 0; i < batchSize; i++) {
+            mockWebServer.enqueue(new MockResponse().setResponseCode(HTTP_OK).setBody(Integer.toString(i)));
+            runner.enqueue(FLOW_FILE_CONTENT);
+        }
+        runner.run();
+
+        runner.assertTransferCount(InvokeHTTP.REL_RESPONSE, batchSize);
+        runner.assertTransferCount(InvokeHTTP.REL_SUCCESS_REQ, batchSize);
+        runner.assertTransferCount(InvokeHTTP.REL_FAILURE, 0);
+        assertRelationshipStatusCodeEquals(InvokeHTTP.REL_RESPONSE, HTTP_OK);
+
+        for (int i = 0; i < batchSize; i++) {
+            final RecordedRequest request = takeRequestCompleted();
+            assertEquals(POST_METHOD, request.getMethod());
+            assertEquals(FLOW_FILE_CONTENT, request.getBody().readUtf8());
+        }
+    }
+
+    @Test
+    public void testRunPostRequestBatchSizeRoutesEachResponse() {
+        runner.setProperty(InvokeHTTP.PROP_METHOD, POST_METHOD);
+        runner.setProperty(InvokeHTTP.REQUEST_BATCH_SIZE, "2");
+        setUrlProperty();
+
+        mockWebServer.enqueue(new MockResponse().setResponseCode(HTTP_OK));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(HTTP_INTERNAL_ERROR));
+        runner.enqueue(FLOW_FILE_CONTENT);
+        runner.enqueue(FLOW_FILE_CONTENT);
+        runner.run();
+
+        runner.assertTransferCount(InvokeHTTP.REL_RESPONSE, 1);
+        runner.assertTransferCount(InvokeHTTP.REL_SUCCESS_REQ, 1);
+        runner.assertTransferCount(InvokeHTTP.REL_RETRY, 1);
+        assertRelationshipStatusCodeEquals(InvokeHTTP.REL_RETRY, HTTP_INTERNAL_ERROR);
+    }
+
     @Test
     public void testRunPostHttp200SuccessFormData() throws InterruptedException {
         runner.setProperty(InvokeHTTP.PROP_METHOD, POST_METHOD);
@@ -46,6 +46,7 @@ import org.slf4j.LoggerFactory;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.nio.ByteBuffer;
 import java.sql.Connection;
 import java.sql.DriverManager;
@@ -53,9 +54,13 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
@@ -385,6 +390,132 @@ public class TestExecuteSQLRecord {
         lastFlowFile.assertAttributeEquals(AbstractExecuteSQL.RESULTSET_INDEX, "0");
     }
 
+    @Test
+    public void testPartitionedFetch() throws Exception {
+        // load test data to database
+        final Connection con = ((DBCPService) runner.getControllerService("dbcp")).getConnection();
+        Statement stmt = con.createStatement();
+
+        try {
+            stmt.execute("drop table TEST_PARTITIONED");
+        } catch (final SQLException sqle) {
+        }
+
+        stmt.execute("create table TEST_PARTITIONED (id integer not null, val1 integer, constraint partitioned_pk primary key (id))");
+
+        for (int i = 0; i < 1000; i++) {
+            stmt.execute("insert into TEST_PARTITIONED (id, val1) VALUES (" + i + ", " + (i % 100 == 0 ? "NULL" : i) + ")");
+        }
+
+        runner.setIncomingConnection(false);
+        runner.setProperty(AbstractExecuteSQL.MAX_ROWS_PER_FLOW_FILE, "100");
+        runner.setProperty(AbstractExecuteSQL.SQL_SELECT_QUERY, "SELECT * FROM TEST_PARTITIONED");
+        runner.setProperty(ExecuteSQLRecord.PARTITION_COLUMN, "VAL1");
+        runner.setProperty(ExecuteSQLRecord.PARTITION_COUNT, "4");
+        MockRecordWriter recordWriter = new MockRecordWriter(null, false, -1);
+        runner.addControllerService("writer", recordWriter);
+        runner.setProperty(ExecuteSQLRecord.RECORD_WRITER_FACTORY, "writer");
+        runner.enableControllerService(recordWriter);
+        runner.run();
+
+        runner.assertTransferCount(AbstractExecuteSQL.REL_FAILURE, 0);
+        final List<MockFlowFile> flowFiles = runner.getFlowFilesForRelationship(AbstractExecuteSQL.REL_SUCCESS);
+        final Set<String> ids = new HashSet<>();
+        final Set<String> partitions = new HashSet<>();
+        final Set<String> fragmentIndexes = new HashSet<>();
+        for (final MockFlowFile flowFile : flowFiles) {
+            flowFile.assertAttributeEquals(FragmentAttributes.FRAGMENT_ID.key(), flowFiles.get(0).getAttribute(FragmentAttributes.FRAGMENT_ID.key()));
+            flowFile.assertAttributeEquals(FragmentAttributes.FRAGMENT_COUNT.key(), String.valueOf(flowFiles.size()));
+            fragmentIndexes.add(flowFile.getAttribute(FragmentAttributes.FRAGMENT_INDEX.key()));
+            partitions.add(flowFile.getAttribute(ExecuteSQLRecord.RESULT_PARTITION_INDEX));
+
+            final String[] lines = new String(flowFile.toByteArray()).split("\n");
+            assertEquals(flowFile.getAttribute(AbstractExecuteSQL.RESULT_ROW_COUNT), String.valueOf(lines.length));
+            for (final String line : lines) {
+                ids.add(line.split(",")[0]);
+            }
+        }
+
+        // Every row is fetched exactly once, including the rows with a null partition value
+        assertEquals(1000, ids.size());
+        assertEquals(flowFiles.size(), fragmentIndexes.size());
+        assertEquals(4, partitions.size());
+    }
+
+    @Test
+    public void testPartitionedFetchNoRows() throws Exception {
+        // load test data to database
+        final Connection con = ((DBCPService) runner.getControllerService("dbcp")).getConnection();
+        Statement stmt = con.createStatement();
+
+        try {
+            stmt.execute("drop table TEST_PARTITIONED");
+        } catch (final SQLException sqle) {
+        }
+
+        stmt.execute("create table TEST_PARTITIONED (id integer not null, val1 integer, constraint partitioned_pk primary key (id))");
+
+        runner.setIncomingConnection(true);
+        runner.setProperty(AbstractExecuteSQL.MAX_ROWS_PER_FLOW_FILE, "100");
+        runner.setProperty(AbstractExecuteSQL.SQL_SELECT_QUERY, "SELECT * FROM TEST_PARTITIONED");
+        runner.setProperty(ExecuteSQLRecord.PARTITION_COLUMN, "ID");
+        runner.setProperty(ExecuteSQLRecord.PARTITION_COUNT, "4");
+        MockRecordWriter recordWriter = new MockRecordWriter(null, true, -1);
+        runner.addControllerService("writer", recordWriter);
+        runner.setProperty(ExecuteSQLRecord.RECORD_WRITER_FACTORY, "writer");
+        runner.enableControllerService(recordWriter);
+        runner.enqueue("Hello".getBytes());
+        runner.run();
+
+        runner.assertAllFlowFilesTransferred(AbstractExecuteSQL.REL_SUCCESS, 1);
+        runner.getFlowFilesForRelationship(AbstractExecuteSQL.REL_SUCCESS).get(0).assertAttributeEquals(AbstractExecuteSQL.RESULT_ROW_COUNT, "0");
+    }
+
+    @Test
+    public void testPartitionedFetchFailure() throws Exception {
+        runner.setIncomingConnection(true);
+        runner.setProperty(AbstractExecuteSQL.MAX_ROWS_PER_FLOW_FILE, "100");
+        runner.setProperty(AbstractExecuteSQL.SQL_SELECT_QUERY, "SELECT * FROM TEST_DOES_NOT_EXIST");
+        runner.setProperty(ExecuteSQLRecord.PARTITION_COLUMN, "ID");
+        runner.setProperty(ExecuteSQLRecord.PARTITION_COUNT, "4");
+        MockRecordWriter recordWriter = new MockRecordWriter(null, true, -1);
+        runner.addControllerService("writer", recordWriter);
+        runner.setProperty(ExecuteSQLRecord.RECORD_WRITER_FACTORY, "writer");
+        runner.enableControllerService(recordWriter);
+        runner.enqueue("Hello".getBytes());
+        runner.run();
+
+        runner.assertAllFlowFilesTransferred(AbstractExecuteSQL.REL_FAILURE, 1);
+    }
+
+    @Test
+    public void testPartitionedFetchRequiresMaxRowsPerFlowFile() throws Exception {
+        runner.setProperty(AbstractExecuteSQL.SQL_SELECT_QUERY, "SELECT * FROM TEST_PARTITIONED");
+        MockRecordWriter recordWriter = new MockRecordWriter(null, true, -1);
+        runner.addControllerService("writer", recordWriter);
+        runner.setProperty(ExecuteSQLRecord.RECORD_WRITER_FACTORY, "writer");
+        runner.enableControllerService(recordWriter);
+        runner.setProperty(ExecuteSQLRecord.PARTITION_COLUMN, "ID");
+        runner.setProperty(ExecuteSQLRecord.PARTITION_COUNT, "4");
+        runner.assertNotValid();
+
+        runner.setProperty(AbstractExecuteSQL.MAX_ROWS_PER_FLOW_FILE, "100");
+        runner.assertValid();
+    }
+
+    @Test
+    public void testGetPartitionConditions() {
+        assertEquals(Arrays.asList("(ID < 25 OR ID IS NULL)", "ID >= 25 AND ID < 50", "ID >= 50 AND ID < 75", "ID >= 75"),
+                ExecuteSQLRecord.getPartitionConditions("ID", new BigDecimal(0), new BigDecimal(100), 4));
+        assertEquals(Arrays.asList("(ID < -4 OR ID IS NULL)", "ID >= -4"),
+                ExecuteSQLRecord.getPartitionConditions("ID", new BigDecimal("-10.5"), new BigDecimal("2.5"), 2));
+        // A range smaller than the partition count results in fewer partitions
+        assertEquals(Arrays.asList("(ID < 1 OR ID IS NULL)", "ID >= 1"),
+                ExecuteSQLRecord.getPartitionConditions("ID", new BigDecimal(0), new BigDecimal(2), 8));
+        assertEquals(Collections.singletonList(null), ExecuteSQLRecord.getPartitionConditions("ID", new BigDecimal(5), new BigDecimal(5), 4));
+        assertEquals(Collections.singletonList("ID IS NULL"), ExecuteSQLRecord.getPartitionConditions("ID", null, null, 4));
+    }
+
     @Test
     public void testInsertStatementCreatesFlowFile() throws Exception {
         // remove previous test database, if any
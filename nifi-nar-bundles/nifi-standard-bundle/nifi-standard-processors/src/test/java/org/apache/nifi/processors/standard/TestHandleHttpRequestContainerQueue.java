@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.standard;
+
+import org.apache.nifi.processors.standard.HandleHttpRequest.ContainerQueue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestHandleHttpRequestContainerQueue {
+
+    @Test
+    public void testCapacity() {
+        final ContainerQueue<Integer> queue = new ContainerQueue<>(2);
+        assertTrue(queue.isEmpty());
+
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertFalse(queue.offer(3));
+        assertEquals(2, queue.size());
+
+        assertEquals(1, queue.poll());
+        assertTrue(queue.offer(3));
+        assertEquals(2, queue.poll());
+        assertEquals(3, queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testTimedPollReturnsNullWhenEmpty() throws InterruptedException {
+        final ContainerQueue<Integer> queue = new ContainerQueue<>(10);
+
+        final long start = System.nanoTime();
+        assertNull(queue.poll(20, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    @Timeout(10)
+    public void testTimedPollWakesWhenElementOffered() throws Exception {
+        final ContainerQueue<Integer> queue = new ContainerQueue<>(10);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final CountDownLatch polling = new CountDownLatch(1);
+            final Future<Integer> polled = executor.submit(() -> {
+                polling.countDown();
+                return queue.poll(1, TimeUnit.MINUTES);
+            });
+
+            polling.await();
+            Thread.sleep(50L);
+            assertTrue(queue.offer(42));
+
+            // Returns as soon as the element is offered rather than when the timeout elapses
+            assertEquals(42, polled.get(5, TimeUnit.SECONDS));
+            assertTrue(queue.isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void testConcurrentOfferAndPoll() throws Exception {
+        final int capacity = 16;
+        final int producers = 4;
+        final int consumers = 4;
+        final int elementsPerProducer = 10_000;
+        final ContainerQueue<Integer> queue = new ContainerQueue<>(capacity);
+        final AtomicInteger maxSize = new AtomicInteger(0);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(producers + consumers);
+        try {
+            final List<Future<?>> producerFutures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                final int producer = p;
+                producerFutures.add(executor.submit(() -> {
+                    for (int i = 0; i < elementsPerProducer; i++) {
+                        final int element = producer * elementsPerProducer + i;
+                        // Retry rejected offers so that every element is eventually delivered
+                        while (!queue.offer(element)) {
+                            Thread.yield();
+                        }
+                        maxSize.accumulateAndGet(queue.size(), Math::max);
+                    }
+                }));
+            }
+
+            final AtomicInteger remaining = new AtomicInteger(producers * elementsPerProducer);
+            final List<Future<Set<Integer>>> consumerFutures = new ArrayList<>();
+            for (int c = 0; c < consumers; c++) {
+                consumerFutures.add(executor.submit(() -> {
+                    final Set<Integer> received = new HashSet<>();
+                    while (remaining.get() > 0) {
+                        final Integer element = queue.poll(2, TimeUnit.MILLISECONDS);
+                        if (element != null) {
+                            received.add(element);
+                            remaining.decrementAndGet();
+                        }
+                    }
+                    return received;
+                }));
+            }
+
+            for (final Future<?> future : producerFutures) {
+                future.get();
+            }
+
+            final Set<Integer> received = new HashSet<>();
+            int receivedCount = 0;
+            for (final Future<Set<Integer>> future : consumerFutures) {
+                final Set<Integer> consumerReceived = future.get();
+                receivedCount += consumerReceived.size();
+                received.addAll(consumerReceived);
+            }
+
+            // Every element is received exactly once, and the queue never exceeds its capacity
+            assertEquals(producers * elementsPerProducer, receivedCount);
+            assertEquals(producers * elementsPerProducer, received.size());
+            assertTrue(maxSize.get() <= capacity);
+            assertTrue(queue.isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -52,6 +52,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -728,6 +729,114 @@ public class TestListFile {
         assertEquals(1, successFiles2.size());
     }
 
+    @Test
+    public void testRecurseWithMultipleTraversalThreads() throws Exception {
+        final long now = getTestModifiedTime();
+
+        final List<File> expectedFiles = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final File subdir = new File(TESTDIR + "/subdir" + i + "/nested");
+            assertTrue(subdir.mkdirs());
+
+            final File file = new File(subdir.getParentFile(), "file" + i + ".txt");
+            assertTrue(file.createNewFile());
+            assertTrue(file.setLastModified(now));
+            expectedFiles.add(file);
+
+            final File nestedFile = new File(subdir, "nested" + i + ".txt");
+            assertTrue(nestedFile.createNewFile());
+            assertTrue(nestedFile.setLastModified(now));
+            expectedFiles.add(nestedFile);
+        }
+
+        runner.setProperty(ListFile.DIRECTORY, testDir.getAbsolutePath());
+        runner.setProperty(ListFile.RECURSE, "true");
+        runner.setProperty(ListFile.TRAVERSAL_THREADS, "4");
+        runNext();
+
+        runner.assertAllFlowFilesTransferred(ListFile.REL_SUCCESS, expectedFiles.size());
+        final List<MockFlowFile> successFiles = runner.getFlowFilesForRelationship(ListFile.REL_SUCCESS);
+        for (final File expectedFile : expectedFiles) {
+            final String expectedPath = testDir.toPath().relativize(expectedFile.getParentFile().toPath()) + File.separator;
+            assertTrue(successFiles.stream().anyMatch(mff -> mff.isAttributeEqual(CoreAttributes.FILENAME.key(), expectedFile.getName())
+                && mff.isAttributeEqual(CoreAttributes.PATH.key(), expectedPath)));
+        }
+    }
+
+    @Test
+    public void testSkipUnchangedDirectories() throws Exception {
+        final long now = getTestModifiedTime();
+        final long tenSecondsAgo = now - 10_000L;
+        final long fiveSecondsAgo = now - 5_000L;
+        final long twentySecondsAgo = now - 20_000L;
+
+        final File subdir = new File(TESTDIR + "/subdir1");
+        assertTrue(subdir.mkdirs());
+
+        final File file1 = new File(TESTDIR + "/file1.txt");
+        assertTrue(file1.createNewFile());
+        assertTrue(file1.setLastModified(tenSecondsAgo));
+
+        final File file2 = new File(subdir, "file2.txt");
+        assertTrue(file2.createNewFile());
+        assertTrue(file2.setLastModified(tenSecondsAgo));
+        assertTrue(subdir.setLastModified(twentySecondsAgo));
+
+        runner.setProperty(ListFile.DIRECTORY, testDir.getAbsolutePath());
+        runner.setProperty(ListFile.RECURSE, "true");
+        runner.setProperty(ListFile.SKIP_UNCHANGED_DIRECTORIES, "true");
+        runner.run(1, false, true);
+        runner.assertAllFlowFilesTransferred(ListFile.REL_SUCCESS, 2);
+        runner.clearTransferState();
+
+        // A file whose directory appears unchanged is not seen, whereas a file in a changed directory is listed.
+        final File file3 = new File(subdir, "file3.txt");
+        assertTrue(file3.createNewFile());
+        assertTrue(file3.setLastModified(now));
+        assertTrue(subdir.setLastModified(twentySecondsAgo));
+
+        final File file4 = new File(TESTDIR + "/file4.txt");
+        assertTrue(file4.createNewFile());
+        assertTrue(file4.setLastModified(fiveSecondsAgo));
+
+        runner.run(1, false, false);
+        runner.assertAllFlowFilesTransferred(ListFile.REL_SUCCESS, 1);
+        runner.getFlowFilesForRelationship(ListFile.REL_SUCCESS).get(0).assertAttributeEquals(CoreAttributes.FILENAME.key(), "file4.txt");
+        runner.clearTransferState();
+
+        // Once the directory's last modified time changes, its contents are read again.
+        assertTrue(subdir.setLastModified(now));
+        runner.run(1, true, false);
+        runner.assertAllFlowFilesTransferred(ListFile.REL_SUCCESS, 1);
+        runner.getFlowFilesForRelationship(ListFile.REL_SUCCESS).get(0).assertAttributeEquals(CoreAttributes.FILENAME.key(), "file3.txt");
+    }
+
+    @Test
+    public void testSkipUnchangedDirectoriesForgetsDeletedDirectories() throws Exception {
+        final long now = getTestModifiedTime();
+
+        final File subdir = new File(TESTDIR + "/subdir1");
+        assertTrue(subdir.mkdirs());
+
+        final File file1 = new File(subdir, "file1.txt");
+        assertTrue(file1.createNewFile());
+        assertTrue(file1.setLastModified(now));
+
+        runner.setProperty(ListFile.DIRECTORY, testDir.getAbsolutePath());
+        runner.setProperty(ListFile.RECURSE, "true");
+        runner.setProperty(ListFile.SKIP_UNCHANGED_DIRECTORIES, "true");
+        runner.run(1, false, true);
+        runner.assertAllFlowFilesTransferred(ListFile.REL_SUCCESS, 1);
+        final Path basePath = testDir.getAbsoluteFile().toPath();
+        assertEquals(new HashSet<>(Arrays.asList(basePath, basePath.resolve("subdir1"))), processor.getCachedDirectories());
+
+        assertTrue(file1.delete());
+        assertTrue(subdir.delete());
+
+        runner.run(1, false, false);
+        assertEquals(Collections.singleton(basePath), processor.getCachedDirectories());
+    }
+
     @Test
     public void testReadable() throws Exception {
         final long now = getTestModifiedTime();
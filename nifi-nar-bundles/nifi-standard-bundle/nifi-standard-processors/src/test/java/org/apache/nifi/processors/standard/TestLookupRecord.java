@@ -21,6 +21,7 @@ import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.controller.AbstractControllerService;
 import org.apache.nifi.json.JsonRecordSetWriter;
 import org.apache.nifi.json.JsonTreeReader;
+import org.apache.nifi.lookup.LookupFailureException;
 import org.apache.nifi.lookup.RecordLookupService;
 import org.apache.nifi.lookup.StringLookupService;
 import org.apache.nifi.reporting.InitializationException;
@@ -45,6 +46,7 @@ import java.io.File;
 import java.io.IOException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -551,8 +553,92 @@ public class TestLookupRecord {
         out.assertContentEquals(new File("src/test/resources/TestLookupRecord/lookup-array-output-unmatched.json").toPath());
     }
 
+    @Test
+    public void testLookupBatches() {
+        recordReader.addRecord("John Doe", 48, null, null);
+        recordReader.addRecord("Jane Doe", 47, null, null);
+
+        lookupService.addValue("John Doe", "Soccer");
+        lookupService.addValue("Jane Doe", "Basketball");
+
+        runner.setProperty(LookupRecord.LOOKUP_BATCH_SIZE, "3");
+        runner.enqueue("");
+        runner.run();
+
+        // The first batch contains John, Jane and Jimmy; the second contains John and Jane
+        Assert.assertEquals(Arrays.asList(3, 2), lookupService.getLookupAllSizes());
+
+        runner.assertTransferCount(LookupRecord.REL_MATCHED, 1);
+        runner.assertTransferCount(LookupRecord.REL_UNMATCHED, 1);
+        runner.getFlowFilesForRelationship(LookupRecord.REL_MATCHED).get(0)
+            .assertContentEquals("John Doe,48,Soccer\nJane Doe,47,Basketball\nJohn Doe,48,Soccer\nJane Doe,47,Basketball\n");
+        runner.getFlowFilesForRelationship(LookupRecord.REL_UNMATCHED).get(0).assertContentEquals("Jimmy Doe,14,\n");
+    }
+
+    @Test
+    public void testLookupBatchDeduplicatesCoordinates() {
+        recordReader.addRecord("John Doe", 48, null, null);
+        recordReader.addRecord("Jimmy Doe", 14, null, null);
+
+        lookupService.addValue("John Doe", "Soccer");
+        lookupService.addValue("Jane Doe", "Basketball");
+        lookupService.addValue("Jimmy Doe", "Football");
+
+        runner.enqueue("");
+        runner.run();
+
+        Assert.assertEquals(Collections.singletonList(3), lookupService.getLookupAllSizes());
+
+        runner.assertAllFlowFilesTransferred(LookupRecord.REL_MATCHED, 1);
+        final MockFlowFile out = runner.getFlowFilesForRelationship(LookupRecord.REL_MATCHED).get(0);
+        out.assertAttributeEquals("record.count", "5");
+        out.assertContentEquals("John Doe,48,Soccer\nJane Doe,47,Basketball\nJimmy Doe,14,Football\nJohn Doe,48,Soccer\nJimmy Doe,14,Football\n");
+    }
+
+    @Test
+    public void testInPlaceReplacementWithOverlappingRecordPaths() throws InitializationException {
+        TestRunner runner = TestRunners.newTestRunner(LookupRecord.class);
+        final MapLookup lookupService = new MapLookupForInPlaceReplacement();
+
+        final JsonTreeReader jsonReader = new JsonTreeReader();
+        runner.addControllerService("reader", jsonReader);
+        runner.setProperty(jsonReader, SchemaAccessUtils.SCHEMA_ACCESS_STRATEGY, SchemaInferenceUtil.INFER_SCHEMA);
+        runner.enableControllerService(jsonReader);
+
+        final JsonRecordSetWriter jsonWriter = new JsonRecordSetWriter();
+        runner.addControllerService("writer", jsonWriter);
+        runner.setProperty(jsonWriter, SchemaAccessUtils.SCHEMA_ACCESS_STRATEGY, SchemaAccessUtils.INHERIT_RECORD_SCHEMA);
+        runner.enableControllerService(jsonWriter);
+
+        runner.addControllerService("lookup", lookupService);
+        runner.enableControllerService(lookupService);
+
+        runner.setProperty(LookupRecord.ROUTING_STRATEGY, LookupRecord.ROUTE_TO_SUCCESS);
+        runner.setProperty(LookupRecord.REPLACEMENT_STRATEGY, LookupRecord.REPLACE_EXISTING_VALUES);
+        runner.setProperty(LookupRecord.RECORD_READER, "reader");
+        runner.setProperty(LookupRecord.RECORD_WRITER, "writer");
+        runner.setProperty(LookupRecord.LOOKUP_SERVICE, "lookup");
+        runner.setProperty("first", "/code");
+        runner.setProperty("second", "/code");
+
+        lookupService.addValue("a", "b");
+        lookupService.addValue("b", "c");
+        lookupService.addValue("c", "d");
+
+        runner.enqueue("[{\"code\":\"a\"},{\"code\":\"a\"},{\"code\":\"b\"}]");
+        runner.run();
+
+        // The second RecordPath selects the values that were replaced for the first, so each value is looked up twice in succession
+        runner.assertAllFlowFilesTransferred(LookupRecord.REL_SUCCESS, 1);
+        runner.getFlowFilesForRelationship(LookupRecord.REL_SUCCESS).get(0).assertContentEquals("[{\"code\":\"c\"},{\"code\":\"c\"},{\"code\":\"d\"}]");
+
+        // The values selected by each RecordPath are still looked up together for all Records
+        Assert.assertEquals(Arrays.asList(2, 2), lookupService.getLookupAllSizes());
+    }
+
     private static class MapLookup extends AbstractControllerService implements StringLookupService {
         protected final Map<String, String> values = new HashMap<>();
+        private final List<Integer> lookupAllSizes = new ArrayList<>();
         private Map<String, Object> expectedContext;
 
         public void addValue(final String key, final String value) {
@@ -570,6 +656,16 @@ public class TestLookupRecord {
             return lookup(coordinates);
         }
 
+        @Override
+        public List<Optional<String>> lookupAll(final List<Map<String, Object>> coordinates, final Map<String, String> context) throws LookupFailureException {
+            lookupAllSizes.add(coordinates.size());
+            return StringLookupService.super.lookupAll(coordinates, context);
+        }
+
+        public List<Integer> getLookupAllSizes() {
+            return lookupAllSizes;
+        }
+
         @Override
         public Optional<String> lookup(final Map<String, Object> coordinates) {
             if (coordinates == null || coordinates.get("lookup") == null) {
@@ -254,4 +254,30 @@ public class TestSplitJson {
         testRunner.run();
         testRunner.assertTransferCount(SplitJson.REL_FAILURE, 1);
     }
+
+    @Test
+    public void testSplit_filterExpression() throws Exception {
+        final TestRunner testRunner = TestRunners.newTestRunner(new SplitJson());
+        testRunner.setProperty(SplitJson.ARRAY_JSON_PATH_EXPRESSION, "$[?(@.age > 30)].name");
+
+        testRunner.enqueue(JSON_SNIPPET);
+        testRunner.run();
+
+        testRunner.assertTransferCount(SplitJson.REL_ORIGINAL, 1);
+        testRunner.assertTransferCount(SplitJson.REL_SPLIT, 4);
+        final MockFlowFile split = testRunner.getFlowFilesForRelationship(SplitJson.REL_SPLIT).get(0);
+        split.assertAttributeEquals(FRAGMENT_COUNT.key(), "4");
+        split.assertContentEquals("{\"first\":\"Frazier\",\"last\":\"Ramsey\"}");
+    }
+
+    @Test
+    public void testSplit_invalidJsonAfterSplitsCreated() throws Exception {
+        final TestRunner testRunner = TestRunners.newTestRunner(new SplitJson());
+        testRunner.setProperty(SplitJson.ARRAY_JSON_PATH_EXPRESSION, "$.values");
+
+        testRunner.enqueue("{\"values\": [1, 2, 3");
+        testRunner.run();
+
+        testRunner.assertAllFlowFilesTransferred(SplitJson.REL_FAILURE, 1);
+    }
 }
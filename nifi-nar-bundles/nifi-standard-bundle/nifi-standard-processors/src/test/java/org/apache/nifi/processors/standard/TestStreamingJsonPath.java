@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.standard;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.PathNotFoundException;
+import com.jayway.jsonpath.spi.json.JacksonJsonProvider;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestStreamingJsonPath {
+
+    private static final Configuration CONFIGURATION = Configuration.builder().jsonProvider(new JacksonJsonProvider()).build();
+
+    private static final String DOCUMENT = "{\"store\": {\"name\": \"corner\", \"open\": null, \"book\": ["
+            + "{\"title\": \"first\", \"price\": 8.95, \"tags\": [\"a\", \"b\"]},"
+            + "{\"title\": \"second\", \"price\": 12.99, \"isbn\": \"0-553\"},"
+            + "{\"title\": \"third\", \"price\": 22.99, \"isbn\": \"0-395\", \"tags\": []}"
+            + "], \"bicycle\": {\"color\": \"red\", \"price\": 19.95}}, \"count\": 3}";
+
+    @Test
+    public void testCompileUnsupportedExpressions() {
+        assertNull(StreamingJsonPath.compile("$..book"));
+        assertNull(StreamingJsonPath.compile("$.store.book[0:2]"));
+        assertNull(StreamingJsonPath.compile("$.store.book[-1]"));
+        assertNull(StreamingJsonPath.compile("$.store.book[0,1]"));
+        assertNull(StreamingJsonPath.compile("$.store.book.length()"));
+        assertNull(StreamingJsonPath.compile("$.store['name','open']"));
+        assertNull(StreamingJsonPath.compile("$.store.book[?(@.price < $.limit)]"));
+        assertNull(StreamingJsonPath.compile("$.store.book[?(@.title =~ /f.*/)]"));
+        assertNull(StreamingJsonPath.compile("$.store.book[?]"));
+    }
+
+    @Test
+    public void testCompileSupportedExpressions() {
+        assertTrue(StreamingJsonPath.compile("$").isDefinite());
+        assertTrue(StreamingJsonPath.compile("$.store.book[1].title").isDefinite());
+        assertTrue(StreamingJsonPath.compile("store.name").isDefinite());
+        assertTrue(StreamingJsonPath.compile("$['store']['bicycle']").isDefinite());
+        assertFalse(StreamingJsonPath.compile("$.store.book[*].title").isDefinite());
+        assertFalse(StreamingJsonPath.compile("$.store.*").isDefinite());
+        assertFalse(StreamingJsonPath.compile("$.store.book[?(@.price > 10 && @.isbn)]").isDefinite());
+    }
+
+    @Test
+    public void testDefinitePathsMatchParsedDocument() throws IOException {
+        assertSameResult("$");
+        assertSameResult("$.count");
+        assertSameResult("$.store.name");
+        assertSameResult("$.store.open");
+        assertSameResult("$.store.bicycle");
+        assertSameResult("$.store.book[0]");
+        assertSameResult("$.store.book[2].isbn");
+        assertSameResult("$['store']['book'][1]['title']");
+        assertSameResult("store.bicycle.color");
+    }
+
+    @Test
+    public void testIndefinitePathsMatchParsedDocument() throws IOException {
+        assertSameResult("$.*");
+        assertSameResult("$.store.*");
+        assertSameResult("$.store.book[*]");
+        assertSameResult("$.store.book[*].title");
+        assertSameResult("$.store.book[*].isbn");
+        assertSameResult("$.store.book[*].tags[*]");
+        assertSameResult("$.store.book[?(@.price > 10)]");
+        assertSameResult("$.store.book[?(@.isbn)].title");
+        assertSameResult("$.store.book[?(@.title == 'first')].tags");
+        assertSameResult("$.store.bicycle[?(@.color == 'red')].price");
+        assertSameResult("$.store.name[*]");
+    }
+
+    @Test
+    public void testMissingPathsMatchParsedDocument() throws IOException {
+        assertSameResult("$.missing");
+        assertSameResult("$.store.book[5]");
+        assertSameResult("$.store.name.first");
+        assertSameResult("$.store.book.title");
+        assertSameResult("$.missing[*]");
+        assertSameResult("$.store.missing.*");
+        assertSameResult("$.count[*].value");
+        assertSameResult("$.store.book[5][*]");
+    }
+
+    @Test
+    public void testElementsOfArray() throws IOException {
+        final List<Object> elements = new ArrayList<>();
+        final StreamingJsonPath path = StreamingJsonPath.compile("$.store.book").elements();
+        final StreamingJsonPath.Evaluation evaluation = evaluate(path, DOCUMENT, elements);
+
+        assertTrue(evaluation.isElementsParentFound(0));
+        assertFalse(evaluation.isElementsParentNotArray(0));
+        assertEquals(JsonPath.using(CONFIGURATION).parse(DOCUMENT).read("$.store.book"), elements);
+    }
+
+    @Test
+    public void testElementsOfNonArray() throws IOException {
+        final List<Object> elements = new ArrayList<>();
+        final StreamingJsonPath.Evaluation evaluation = evaluate(StreamingJsonPath.compile("$.store.bicycle").elements(), DOCUMENT, elements);
+
+        assertTrue(evaluation.isElementsParentFound(0));
+        assertTrue(evaluation.isElementsParentNotArray(0));
+        assertTrue(elements.isEmpty());
+    }
+
+    @Test
+    public void testElementsOfMissingPath() throws IOException {
+        final List<Object> elements = new ArrayList<>();
+        final StreamingJsonPath.Evaluation evaluation = evaluate(StreamingJsonPath.compile("$.store.magazine").elements(), DOCUMENT, elements);
+
+        assertFalse(evaluation.isElementsParentFound(0));
+        assertTrue(elements.isEmpty());
+    }
+
+    @Test
+    public void testSampleDocument() throws IOException {
+        final String document = new String(Files.readAllBytes(Paths.get("src/test/resources/TestJson/json-sample.json")), StandardCharsets.UTF_8);
+        assertSameResult("$[*].name.first", document);
+        assertSameResult("$[3].friends[*].name", document);
+        assertSameResult("$[?(@.age > 30)].guid", document);
+        assertSameResult("$[*].tags[0]", document);
+    }
+
+    @Test(expected = JsonProcessingException.class)
+    public void testInvalidJson() throws IOException {
+        evaluate(StreamingJsonPath.compile("$.store.book[*]"), "{\"store\": {\"book\": [1, 2", new ArrayList<>());
+    }
+
+    @Test(expected = JsonProcessingException.class)
+    public void testEmptyContent() throws IOException {
+        evaluate(StreamingJsonPath.compile("$.store"), "", new ArrayList<>());
+    }
+
+    private void assertSameResult(final String expression) throws IOException {
+        assertSameResult(expression, DOCUMENT);
+    }
+
+    private void assertSameResult(final String expression, final String document) throws IOException {
+        final StreamingJsonPath path = StreamingJsonPath.compile(expression);
+        assertNotNull("Expression not supported: " + expression, path);
+
+        Object expected;
+        try {
+            expected = JsonPath.using(CONFIGURATION).parse(document).read(expression);
+        } catch (final PathNotFoundException e) {
+            expected = e;
+        }
+
+        final List<Object> matches = new ArrayList<>();
+        final StreamingJsonPath.Evaluation evaluation = evaluate(path, document, matches);
+        if (expected instanceof PathNotFoundException) {
+            assertFalse("Expected path not found: " + expression, evaluation.isFound(0, path));
+            return;
+        }
+
+        assertTrue("Expected path found: " + expression, evaluation.isFound(0, path));
+        final Object actual = path.isDefinite() ? matches.get(0) : matches;
+        assertEquals(expression, expected, actual);
+    }
+
+    private StreamingJsonPath.Evaluation evaluate(final StreamingJsonPath path, final String document, final List<Object> matches) throws IOException {
+        final ByteArrayInputStream in = new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8));
+        return StreamingJsonPath.evaluate(in, Collections.singletonList(path), CONFIGURATION, (pathIndex, value) -> matches.add(value));
+    }
+}
@@ -75,4 +75,31 @@ public interface HttpContextMap extends ControllerService {
      * @return the configured timeout for HTTP Requests
      */
     long getRequestTimeout(TimeUnit timeUnit);
+
+    /**
+     * Returns the number of HTTP requests that are currently registered and awaiting completion
+     *
+     * @return the number of outstanding requests, or {@code -1} if the implementation does not track it
+     */
+    default int getOutstandingRequestCount() {
+        return -1;
+    }
+
+    /**
+     * Returns the number of HTTP requests that could not be registered because the map was full
+     *
+     * @return the number of rejected registrations, or {@code -1} if the implementation does not track it
+     */
+    default long getRejectedRequestCount() {
+        return -1L;
+    }
+
+    /**
+     * Returns the number of HTTP requests that were evicted because they were not completed before the request timeout
+     *
+     * @return the number of expired requests, or {@code -1} if the implementation does not track it
+     */
+    default long getExpiredRequestCount() {
+        return -1L;
+    }
 }
@@ -26,6 +26,8 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.servlet.AsyncContext;
 import javax.servlet.http.HttpServletRequest;
@@ -70,6 +72,9 @@ public class StandardHttpContextMap extends AbstractControllerService implements
     private static final long CLEANUP_MAX_DELAY_NANOS = 5_000_000_000L;
 
     private final ConcurrentMap<String, Wrapper> wrapperMap = new ConcurrentHashMap<>();
+    private final AtomicInteger outstandingCount = new AtomicInteger(0);
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder expiredCount = new LongAdder();
 
     private volatile int maxSize = 5000;
     private volatile long maxRequestNanos;
@@ -106,18 +111,30 @@ public class StandardHttpContextMap extends AbstractControllerService implements
         if (executor != null) {
             executor.shutdown();
         }
+
+        final long rejected = rejectedCount.sumThenReset();
+        final long expired = expiredCount.sumThenReset();
+        if (rejected > 0 || expired > 0) {
+            getLogger().info("Rejected {} HTTP Requests because the map was full and expired {} HTTP Requests that were not answered in time", rejected, expired);
+        }
     }
 
     @Override
     public boolean register(final String identifier, final HttpServletRequest request, final HttpServletResponse response, final AsyncContext context) {
-        // fail if there are too many already. Maybe add a configuration property for how many
-        // outstanding, with a default of say 5000
-        if (wrapperMap.size() >= maxSize) {
-            return false;
-        }
+        // reserve a slot before registering so that concurrent registrations cannot exceed the maximum
+        int current;
+        do {
+            current = outstandingCount.get();
+            if (current >= maxSize) {
+                rejectedCount.increment();
+                return false;
+            }
+        } while (!outstandingCount.compareAndSet(current, current + 1));
+
         final Wrapper wrapper = new Wrapper(request, response, context);
         final Wrapper existing = wrapperMap.putIfAbsent(identifier, wrapper);
         if (existing != null) {
+            outstandingCount.decrementAndGet();
             throw new IllegalStateException("HTTP Request already registered with identifier " + identifier);
         }
 
@@ -141,6 +158,7 @@ public class StandardHttpContextMap extends AbstractControllerService implements
             throw new IllegalStateException("No HTTP Request registered with identifier " + identifier);
         }
 
+        outstandingCount.decrementAndGet();
         wrapper.getAsync().complete();
     }
 
@@ -181,8 +199,10 @@ public class StandardHttpContextMap extends AbstractControllerService implements
             final Iterator<Map.Entry<String, Wrapper>> itr = wrapperMap.entrySet().iterator();
             while (itr.hasNext()) {
                 final Map.Entry<String, Wrapper> entry = itr.next();
-                if (entry.getValue().getNanoTimeAdded() < threshold) {
-                    itr.remove();
+                // remove by value so that a request completed concurrently is not counted twice
+                if (entry.getValue().getNanoTimeAdded() < threshold && wrapperMap.remove(entry.getKey(), entry.getValue())) {
+                    outstandingCount.decrementAndGet();
+                    expiredCount.increment();
 
                     // send SERVICE_UNAVAILABLE
                     try {
@@ -207,4 +227,19 @@ public class StandardHttpContextMap extends AbstractControllerService implements
     public long getRequestTimeout(final TimeUnit timeUnit) {
         return timeUnit.convert(maxRequestNanos, TimeUnit.NANOSECONDS);
     }
+
+    @Override
+    public int getOutstandingRequestCount() {
+        return outstandingCount.get();
+    }
+
+    @Override
+    public long getRejectedRequestCount() {
+        return rejectedCount.sum();
+    }
+
+    @Override
+    public long getExpiredRequestCount() {
+        return expiredCount.sum();
+    }
 }
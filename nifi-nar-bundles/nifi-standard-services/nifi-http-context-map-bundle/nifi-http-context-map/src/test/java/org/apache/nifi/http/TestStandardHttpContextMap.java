@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.http;
+
+import org.apache.nifi.reporting.InitializationException;
+import org.apache.nifi.util.NoOpProcessor;
+import org.apache.nifi.util.TestRunner;
+import org.apache.nifi.util.TestRunners;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TestStandardHttpContextMap {
+
+    private TestRunner runner;
+    private StandardHttpContextMap contextMap;
+
+    @BeforeEach
+    public void setup() throws InitializationException {
+        runner = TestRunners.newTestRunner(NoOpProcessor.class);
+        contextMap = new StandardHttpContextMap();
+        runner.addControllerService("context-map", contextMap);
+    }
+
+    @AfterEach
+    public void teardown() {
+        runner.disableControllerService(contextMap);
+    }
+
+    @Test
+    public void testRegisterRejectedWhenFull() {
+        runner.setProperty(contextMap, StandardHttpContextMap.MAX_OUTSTANDING_REQUESTS, "2");
+        runner.enableControllerService(contextMap);
+
+        assertTrue(register("1"));
+        assertTrue(register("2"));
+        assertFalse(register("3"));
+        assertEquals(2, contextMap.getOutstandingRequestCount());
+        assertEquals(1, contextMap.getRejectedRequestCount());
+
+        // completing a request frees its slot
+        contextMap.complete("1");
+        assertEquals(1, contextMap.getOutstandingRequestCount());
+        assertTrue(register("3"));
+        assertEquals(2, contextMap.getOutstandingRequestCount());
+        assertEquals(1, contextMap.getRejectedRequestCount());
+    }
+
+    @Test
+    public void testDuplicateRegistrationReleasesSlot() {
+        runner.enableControllerService(contextMap);
+
+        assertTrue(register("1"));
+        assertThrows(IllegalStateException.class, () -> register("1"));
+        assertEquals(1, contextMap.getOutstandingRequestCount());
+
+        contextMap.complete("1");
+        assertEquals(0, contextMap.getOutstandingRequestCount());
+        assertThrows(IllegalStateException.class, () -> contextMap.complete("1"));
+        assertEquals(0, contextMap.getOutstandingRequestCount());
+    }
+
+    @Test
+    public void testConcurrentRegistrationsDoNotExceedMaximum() throws Exception {
+        final int maxOutstanding = 50;
+        final int threads = 8;
+        final int registrationsPerThread = 100;
+        runner.setProperty(contextMap, StandardHttpContextMap.MAX_OUTSTANDING_REQUESTS, String.valueOf(maxOutstanding));
+        runner.enableControllerService(contextMap);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int registered = 0;
+                    for (int i = 0; i < registrationsPerThread; i++) {
+                        if (register(thread + "-" + i)) {
+                            registered++;
+                        }
+                    }
+                    return registered;
+                }));
+            }
+
+            start.countDown();
+            int registered = 0;
+            for (final Future<Integer> future : futures) {
+                registered += future.get(30, TimeUnit.SECONDS);
+            }
+
+            assertEquals(maxOutstanding, registered);
+            assertEquals(maxOutstanding, contextMap.getOutstandingRequestCount());
+            assertEquals(threads * registrationsPerThread - maxOutstanding, contextMap.getRejectedRequestCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExpiredRequestsRemoved() throws IOException {
+        runner.setProperty(contextMap, StandardHttpContextMap.REQUEST_EXPIRATION, "100 millis");
+        runner.enableControllerService(contextMap);
+
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final AsyncContext async = mockAsyncContext(response);
+        assertTrue(contextMap.register("1", mock(HttpServletRequest.class), response, async));
+
+        verify(async, timeout(5000)).complete();
+        verify(response).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Timeout occurred");
+        assertEquals(0, contextMap.getOutstandingRequestCount());
+        assertEquals(1, contextMap.getExpiredRequestCount());
+
+        // the expired request can no longer be completed, and completing it does not change the counts
+        assertThrows(IllegalStateException.class, () -> contextMap.complete("1"));
+        assertEquals(0, contextMap.getOutstandingRequestCount());
+    }
+
+    private boolean register(final String identifier) {
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        return contextMap.register(identifier, mock(HttpServletRequest.class), response, mockAsyncContext(response));
+    }
+
+    private AsyncContext mockAsyncContext(final HttpServletResponse response) {
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRemoteAddr()).thenReturn("127.0.0.1");
+
+        final AsyncContext async = mock(AsyncContext.class);
+        when(async.getRequest()).thenReturn(request);
+        when(async.getResponse()).thenReturn(response);
+        return async;
+    }
+}
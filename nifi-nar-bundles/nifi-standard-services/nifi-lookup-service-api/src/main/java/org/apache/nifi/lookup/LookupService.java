@@ -17,6 +17,8 @@
 
 package org.apache.nifi.lookup;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -48,6 +50,26 @@ public interface LookupService<T> extends ControllerService {
         return lookup(coordinates);
     }
 
+    /**
+     * Looks up the values that correspond to each of the given lookup coordinates. Additional contextual information, which applies to all of the
+     * coordinates, will also be passed into the map labeled context from sources such as flowfile attributes.
+     *
+     * The default implementation calls {@link #lookup(Map, Map)} for each of the coordinates in turn. Lookup Services that are able to look up many
+     * values more efficiently than this, such as with a single query or with concurrent requests, should override this method.
+     *
+     * @param coordinates a List of Maps of key/value pairs, each of which indicates the information that should be looked up
+     * @param context a Map of additional information
+     * @return a List containing the value that corresponds to each of the given coordinates, in the same order as the coordinates
+     * @throws LookupFailureException if unable to lookup a value for any of the given coordinates
+     */
+    default List<Optional<T>> lookupAll(List<Map<String, Object>> coordinates, Map<String, String> context) throws LookupFailureException {
+        final List<Optional<T>> values = new ArrayList<>(coordinates.size());
+        for (final Map<String, Object> lookupCoordinates : coordinates) {
+            values.add(lookup(lookupCoordinates, context));
+        }
+        return values;
+    }
+
     /**
      * @return the Class that represents the type of value that will be returned by {@link #lookup(Map)}
      */
@@ -17,6 +17,7 @@
 package org.apache.nifi.lookup;
 
 import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
 import org.apache.nifi.components.AllowableValue;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.components.resource.ResourceCardinality;
@@ -26,16 +27,24 @@ import org.apache.nifi.controller.ConfigurationContext;
 import org.apache.nifi.controller.ControllerServiceInitializationContext;
 import org.apache.nifi.csv.CSVUtils;
 import org.apache.nifi.expression.ExpressionLanguageScope;
+import org.apache.nifi.logging.ComponentLog;
 import org.apache.nifi.processor.util.StandardValidators;
 import org.apache.nifi.reporting.InitializationException;
 import org.apache.nifi.util.file.monitor.LastModifiedMonitor;
 import org.apache.nifi.util.file.monitor.SynchronousFileWatcher;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Stream;
 
@@ -47,6 +56,13 @@ public abstract class AbstractCSVLookupService extends AbstractControllerService
     public static final AllowableValue DEFAULT = new AllowableValue("default", "Default Format",
             "Same as custom format. Available for compatibility reasons.");
 
+    public static final AllowableValue STORAGE_IN_MEMORY = new AllowableValue("in-memory", "In Memory",
+            "The rows of the CSV file are held on the heap. The file is reloaded when a lookup finds that it has changed.");
+    public static final AllowableValue STORAGE_MEMORY_MAPPED_INDEX = new AllowableValue("memory-mapped-index", "Memory-Mapped Index",
+            "The rows of the CSV file are written to an index file, sorted by key, that is memory-mapped so that the rows are not held on the heap. "
+                    + "When a lookup finds that the CSV file has changed, a new index is built in the background and replaces the current one once complete; "
+                    + "lookups are served from the current index in the meantime.");
+
     public static final PropertyDescriptor CSV_FILE =
             new PropertyDescriptor.Builder()
                     .name("csv-file")
@@ -96,6 +112,27 @@ public abstract class AbstractCSVLookupService extends AbstractControllerService
                     .required(true)
                     .build();
 
+    public static final PropertyDescriptor STORAGE_MODE =
+            new PropertyDescriptor.Builder()
+                    .name("csv-storage-mode")
+                    .displayName("Storage Mode")
+                    .description("Specifies how the contents of the CSV file are stored for lookups.")
+                    .allowableValues(STORAGE_IN_MEMORY, STORAGE_MEMORY_MAPPED_INDEX)
+                    .defaultValue(STORAGE_IN_MEMORY.getValue())
+                    .required(true)
+                    .build();
+
+    public static final PropertyDescriptor INDEX_DIRECTORY =
+            new PropertyDescriptor.Builder()
+                    .name("csv-index-directory")
+                    .displayName("Index Directory")
+                    .description("The directory in which to write the index of the CSV file. If not specified, the temporary directory of the JVM is used.")
+                    .required(false)
+                    .addValidator(StandardValidators.createDirectoryExistsValidator(true, true))
+                    .expressionLanguageSupported(ExpressionLanguageScope.VARIABLE_REGISTRY)
+                    .dependsOn(STORAGE_MODE, STORAGE_MEMORY_MAPPED_INDEX)
+                    .build();
+
     protected List<PropertyDescriptor> properties;
 
     protected volatile String csvFile;
@@ -112,8 +149,28 @@ public abstract class AbstractCSVLookupService extends AbstractControllerService
 
     protected final ReentrantLock lock = new ReentrantLock();
 
+    protected volatile CSVLookupIndex index;
+
+    private volatile boolean indexed;
+
+    private volatile File indexDirectory;
+
+    private volatile ExecutorService indexBuilder;
+
     protected abstract void loadCache() throws IllegalStateException, IOException;
 
+    /**
+     * Returns the columns whose values are stored in the index for each key. By default, these are all columns other than the key column.
+     *
+     * @param headerColumns the columns named in the header of the CSV file
+     * @return the columns to index
+     */
+    protected List<String> getIndexedColumns(final List<String> headerColumns) {
+        final List<String> columns = new ArrayList<>(headerColumns);
+        columns.remove(lookupKeyColumn);
+        return columns;
+    }
+
     @Override
     protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
         return properties;
@@ -127,6 +184,8 @@ public abstract class AbstractCSVLookupService extends AbstractControllerService
         properties.add(CHARSET);
         properties.add(LOOKUP_KEY_COLUMN);
         properties.add(IGNORE_DUPLICATES);
+        properties.add(STORAGE_MODE);
+        properties.add(INDEX_DIRECTORY);
 
         properties.add(CSVUtils.VALUE_SEPARATOR);
         properties.add(CSVUtils.QUOTE_CHAR);
@@ -147,6 +206,108 @@ public abstract class AbstractCSVLookupService extends AbstractControllerService
         this.lookupKeyColumn = context.getProperty(LOOKUP_KEY_COLUMN).evaluateAttributeExpressions().getValue();
         this.ignoreDuplicates = context.getProperty(IGNORE_DUPLICATES).asBoolean();
         this.watcher = new SynchronousFileWatcher(Paths.get(csvFile), new LastModifiedMonitor(), 30000L);
+
+        this.indexed = STORAGE_MEMORY_MAPPED_INDEX.getValue().equals(context.getProperty(STORAGE_MODE).getValue());
+        if (indexed) {
+            final String directory = context.getProperty(INDEX_DIRECTORY).evaluateAttributeExpressions().getValue();
+            this.indexDirectory = new File(directory == null ? System.getProperty("java.io.tmpdir") : directory);
+            this.indexBuilder = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "CSV Lookup Index Builder for " + getIdentifier());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * @return <code>true</code> if lookups are served from a {@link CSVLookupIndex} rather than from the heap
+     */
+    protected boolean isIndexed() {
+        return indexed;
+    }
+
+    /**
+     * Reloads the CSV file if it has changed. If lookups are served from an index, the new index is built in the background, and
+     * lookups continue to be served from the current index until it is complete.
+     */
+    protected void reloadIfModified() throws IllegalStateException, IOException {
+        if (watcher == null || !watcher.checkAndReset()) {
+            return;
+        }
+
+        if (!indexed) {
+            loadCache();
+            return;
+        }
+
+        indexBuilder.submit(() -> {
+            try {
+                loadIndex();
+            } catch (final Exception e) {
+                getLogger().error("Failed to rebuild the index of {}; lookups will continue to use the previous contents", new Object[]{csvFile, e});
+            }
+        });
+    }
+
+    /**
+     * Builds an index of the CSV file and, once it is complete, replaces the current index with it.
+     */
+    protected void loadIndex() throws IllegalStateException, IOException {
+        if (!lock.tryLock()) {
+            return;
+        }
+
+        try {
+            final ComponentLog logger = getLogger();
+            if (logger.isDebugEnabled()) {
+                logger.debug("Building lookup index from file: " + csvFile);
+            }
+
+            final File indexFile = File.createTempFile("csv-lookup-" + getIdentifier() + "-", ".index", indexDirectory);
+            final CSVLookupIndex newIndex;
+            try (final InputStream is = new FileInputStream(csvFile);
+                 final InputStreamReader reader = new InputStreamReader(is, charset);
+                 final CSVParser records = csvFormat.withFirstRecordAsHeader().parse(reader)) {
+                final List<String> columns = getIndexedColumns(new ArrayList<>(records.getHeaderMap().keySet()));
+                newIndex = CSVLookupIndex.build(indexFile, records, lookupKeyColumn, columns, ignoreDuplicates, csvFile, logger);
+            } catch (final Exception e) {
+                Files.deleteIfExists(indexFile.toPath());
+                throw e;
+            }
+
+            final CSVLookupIndex previousIndex = this.index;
+            this.index = newIndex;
+            if (previousIndex != null) {
+                previousIndex.close();
+            }
+
+            if (newIndex.size() == 0) {
+                logger.warn("Lookup table is empty after reading file: " + csvFile);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops building any index and deletes the current index.
+     */
+    protected void closeIndex() {
+        if (indexBuilder != null) {
+            indexBuilder.shutdownNow();
+            indexBuilder = null;
+        }
+
+        // Wait for any build in progress so that its index is not left behind
+        lock.lock();
+        try {
+            if (index != null) {
+                index.close();
+                index = null;
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 }
 
@@ -0,0 +1,481 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.lookup;
+
+import org.apache.commons.csv.CSVRecord;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.stream.io.ByteCountingOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * A read-only index of the rows of a CSV file, stored in a file that is memory-mapped so that looking up a key does not
+ * require the rows to be held on the heap.
+ * </p>
+ *
+ * <p>
+ * The file consists of the rows, each encoded as the key followed by the value of each indexed column, followed by the names of
+ * the indexed columns, the offsets of the rows sorted by key, and a fixed-length footer that locates these sections. A key is
+ * found by a binary search of the sorted offsets. Strings are encoded as their length followed by their UTF-8 bytes, with a
+ * length of -1 denoting a missing value.
+ * </p>
+ *
+ * <p>
+ * The mapping is released only once the index has been garbage collected, so {@link #close()} deletes the file but leaves any
+ * lookup that is in progress unaffected.
+ * </p>
+ */
+class CSVLookupIndex {
+
+    private static final int MAGIC = 0x4E435349;
+    private static final int FOOTER_LENGTH = 24;
+    private static final int NULL_LENGTH = -1;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final File file;
+    private final MappedRegion region;
+    private final List<String> columns;
+    private final long tableOffset;
+    private final int entryCount;
+
+    private CSVLookupIndex(final File file) throws IOException {
+        this.file = file;
+        this.region = MappedRegion.map(file, file.length());
+
+        final long footerOffset = region.length() - FOOTER_LENGTH;
+        if (footerOffset < 0 || region.getInt(footerOffset + 20) != MAGIC) {
+            throw new IOException("File " + file + " is not a CSV lookup index");
+        }
+
+        final long columnsOffset = region.getLong(footerOffset);
+        this.tableOffset = region.getLong(footerOffset + 8);
+        this.entryCount = region.getInt(footerOffset + 16);
+
+        final int columnCount = region.getInt(columnsOffset);
+        final List<String> columns = new ArrayList<>(columnCount);
+        long position = columnsOffset + 4;
+        for (int i = 0; i < columnCount; i++) {
+            final int length = region.getInt(position);
+            columns.add(region.getString(position + 4, length));
+            position += 4 + length;
+        }
+        this.columns = Collections.unmodifiableList(columns);
+    }
+
+    /**
+     * Builds an index of the given rows and writes it to the given file
+     *
+     * @param file the file to write the index to; it must not already exist
+     * @param records the rows of the CSV file, which must have a header
+     * @param keyColumn the name of the column whose value is the lookup key
+     * @param columns the names of the columns whose values are stored for each key
+     * @param ignoreDuplicates whether to keep the last row for a key that appears more than once, rather than failing
+     * @param csvFile the name of the CSV file, for error and log messages
+     * @param logger the logger to warn of duplicate keys
+     * @return the index
+     * @throws IllegalStateException if a key is blank, or a key appears more than once and duplicates are not ignored
+     * @throws IOException if the index cannot be written
+     */
+    static CSVLookupIndex build(final File file, final Iterable<CSVRecord> records, final String keyColumn, final List<String> columns,
+                                final boolean ignoreDuplicates, final String csvFile, final ComponentLog logger) throws IOException {
+        long[] offsets = new long[1024];
+        int entryCount = 0;
+        final long dataLength;
+
+        try (final ByteCountingOutputStream counter = new ByteCountingOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536));
+             final DataOutputStream out = new DataOutputStream(counter)) {
+            for (final CSVRecord record : records) {
+                final String key = record.get(keyColumn);
+                if (StringUtils.isBlank(key)) {
+                    throw new IllegalStateException("Empty lookup key encountered in: " + csvFile);
+                }
+
+                if (entryCount == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length + (offsets.length >> 1));
+                }
+                offsets[entryCount++] = counter.getBytesWritten();
+
+                writeString(out, key);
+                for (final String column : columns) {
+                    writeString(out, record.isSet(column) ? record.get(column) : null);
+                }
+            }
+
+            out.flush();
+            dataLength = counter.getBytesWritten();
+        }
+
+        final MappedRegion data = MappedRegion.map(file, dataLength);
+        sort(data, offsets, entryCount);
+        final int uniqueCount = removeDuplicates(data, offsets, entryCount, ignoreDuplicates, csvFile, logger);
+
+        try (final ByteCountingOutputStream counter = new ByteCountingOutputStream(new BufferedOutputStream(new FileOutputStream(file, true), 65536), dataLength);
+             final DataOutputStream out = new DataOutputStream(counter)) {
+            out.writeInt(columns.size());
+            for (final String column : columns) {
+                writeString(out, column);
+            }
+
+            final long tableOffset = counter.getBytesWritten();
+            for (int i = 0; i < uniqueCount; i++) {
+                out.writeLong(offsets[i]);
+            }
+
+            out.writeLong(dataLength);
+            out.writeLong(tableOffset);
+            out.writeInt(uniqueCount);
+            out.writeInt(MAGIC);
+        }
+
+        return new CSVLookupIndex(file);
+    }
+
+    /**
+     * @return the names of the columns whose values are returned for a key
+     */
+    List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return the number of distinct keys in the index
+     */
+    int size() {
+        return entryCount;
+    }
+
+    /**
+     * Looks up the given key
+     *
+     * @param key the key
+     * @return the value of each column, in the order of {@link #getColumns()}, or <code>null</code> if the key is not in the index
+     */
+    String[] get(final String key) {
+        final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+
+        int low = 0;
+        int high = entryCount - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final long offset = region.getLong(tableOffset + 8L * mid);
+            final int comparison = compareKey(region, offset, keyBytes);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return readValues(offset);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Deletes the file containing the index. Lookups that are in progress may still complete, as the file remains mapped until the
+     * index is garbage collected.
+     */
+    void close() {
+        if (!file.delete() && file.exists()) {
+            // Some platforms do not allow a mapped file to be deleted
+            file.deleteOnExit();
+        }
+    }
+
+    private String[] readValues(final long offset) {
+        long position = offset + 4 + region.getInt(offset);
+        final String[] values = new String[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            final int length = region.getInt(position);
+            position += 4;
+            if (length != NULL_LENGTH) {
+                values[i] = region.getString(position, length);
+                position += length;
+            }
+        }
+        return values;
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Compares the key of the row at the given offset to the given key, using the unsigned order of their UTF-8 bytes
+     */
+    private static int compareKey(final MappedRegion region, final long offset, final byte[] key) {
+        final int length = region.getInt(offset);
+        final int commonLength = Math.min(length, key.length);
+        for (int i = 0; i < commonLength; i++) {
+            final int comparison = Integer.compare(region.get(offset + 4 + i) & 0xFF, key[i] & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private static int compareKeys(final MappedRegion region, final long offset1, final long offset2) {
+        final int length1 = region.getInt(offset1);
+        final int length2 = region.getInt(offset2);
+        final int commonLength = Math.min(length1, length2);
+        for (int i = 0; i < commonLength; i++) {
+            final int comparison = Integer.compare(region.get(offset1 + 4 + i) & 0xFF, region.get(offset2 + 4 + i) & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length1, length2);
+    }
+
+    /**
+     * Sorts the offsets by the keys of their rows, and rows with the same key by their position in the file. As the offset of a row
+     * increases with its position, ties are broken by comparing the offsets themselves, which makes the order total so that an
+     * unstable sort may be used. This is an in-place introsort, so that the offsets need not be boxed or copied: a quicksort that
+     * falls back to a heapsort if its recursion becomes too deep, and that finishes short ranges with an insertion sort.
+     */
+    private static void sort(final MappedRegion region, final long[] offsets, final int count) {
+        final int depthLimit = 2 * (32 - Integer.numberOfLeadingZeros(Math.max(count, 1)));
+        introsort(region, offsets, 0, count, depthLimit);
+    }
+
+    private static void introsort(final MappedRegion region, final long[] offsets, int start, int end, int depthLimit) {
+        while (end - start > INSERTION_SORT_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                heapsort(region, offsets, start, end);
+                return;
+            }
+
+            final int pivotIndex = partition(region, offsets, start, end);
+
+            // Recurse into the smaller side so that the depth of the stack is logarithmic
+            if (pivotIndex - start < end - pivotIndex - 1) {
+                introsort(region, offsets, start, pivotIndex, depthLimit);
+                start = pivotIndex + 1;
+            } else {
+                introsort(region, offsets, pivotIndex + 1, end, depthLimit);
+                end = pivotIndex;
+            }
+        }
+
+        insertionSort(region, offsets, start, end);
+    }
+
+    /**
+     * Partitions the range around the median of its first, middle and last offsets.
+     *
+     * @return the index at which the pivot is placed
+     */
+    private static int partition(final MappedRegion region, final long[] offsets, final int start, final int end) {
+        final int last = end - 1;
+        final int middle = (start + last) >>> 1;
+        if (compare(region, offsets[middle], offsets[start]) < 0) {
+            swap(offsets, middle, start);
+        }
+        if (compare(region, offsets[last], offsets[start]) < 0) {
+            swap(offsets, last, start);
+        }
+        if (compare(region, offsets[last], offsets[middle]) < 0) {
+            swap(offsets, last, middle);
+        }
+
+        // The median is moved to the end of the range, and the first and last offsets already lie on the correct side of it
+        swap(offsets, middle, last);
+        final long pivot = offsets[last];
+        int store = start;
+        for (int i = start; i < last; i++) {
+            if (compare(region, offsets[i], pivot) < 0) {
+                swap(offsets, i, store++);
+            }
+        }
+        swap(offsets, store, last);
+        return store;
+    }
+
+    private static void heapsort(final MappedRegion region, final long[] offsets, final int start, final int end) {
+        final int length = end - start;
+        for (int i = length / 2 - 1; i >= 0; i--) {
+            siftDown(region, offsets, start, i, length);
+        }
+        for (int heapLength = length - 1; heapLength > 0; heapLength--) {
+            swap(offsets, start, start + heapLength);
+            siftDown(region, offsets, start, 0, heapLength);
+        }
+    }
+
+    private static void siftDown(final MappedRegion region, final long[] offsets, final int start, int root, final int length) {
+        while (true) {
+            int child = 2 * root + 1;
+            if (child >= length) {
+                return;
+            }
+            if (child + 1 < length && compare(region, offsets[start + child], offsets[start + child + 1]) < 0) {
+                child++;
+            }
+            if (compare(region, offsets[start + root], offsets[start + child]) >= 0) {
+                return;
+            }
+            swap(offsets, start + root, start + child);
+            root = child;
+        }
+    }
+
+    private static void insertionSort(final MappedRegion region, final long[] offsets, final int start, final int end) {
+        for (int i = start + 1; i < end; i++) {
+            final long offset = offsets[i];
+            int j = i - 1;
+            while (j >= start && compare(region, offsets[j], offset) > 0) {
+                offsets[j + 1] = offsets[j];
+                j--;
+            }
+            offsets[j + 1] = offset;
+        }
+    }
+
+    private static int compare(final MappedRegion region, final long offset1, final long offset2) {
+        final int comparison = compareKeys(region, offset1, offset2);
+        return comparison == 0 ? Long.compare(offset1, offset2) : comparison;
+    }
+
+    private static void swap(final long[] offsets, final int i, final int j) {
+        final long offset = offsets[i];
+        offsets[i] = offsets[j];
+        offsets[j] = offset;
+    }
+
+    /**
+     * Removes all but the last row of each key from the sorted offsets, as loading the rows into a Map would
+     *
+     * @return the number of offsets that remain
+     */
+    private static int removeDuplicates(final MappedRegion region, final long[] sortedOffsets, final int count, final boolean ignoreDuplicates,
+                                        final String csvFile, final ComponentLog logger) {
+        int uniqueCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (uniqueCount > 0 && compareKeys(region, sortedOffsets[uniqueCount - 1], sortedOffsets[i]) == 0) {
+                final String key = region.getString(sortedOffsets[i] + 4, region.getInt(sortedOffsets[i]));
+                if (!ignoreDuplicates) {
+                    throw new IllegalStateException("Duplicate lookup key encountered: " + key + " in " + csvFile);
+                }
+
+                logger.warn("Duplicate lookup key encountered: {} in {}", new Object[]{key, csvFile});
+                sortedOffsets[uniqueCount - 1] = sortedOffsets[i];
+            } else {
+                sortedOffsets[uniqueCount++] = sortedOffsets[i];
+            }
+        }
+        return uniqueCount;
+    }
+
+    /**
+     * A read-only mapping of a file that may be larger than a single {@link MappedByteBuffer} allows.
+     */
+    private static class MappedRegion {
+        private static final int CHUNK_SHIFT = 30;
+        private static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+        private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+        private final MappedByteBuffer[] chunks;
+        private final long length;
+
+        private MappedRegion(final MappedByteBuffer[] chunks, final long length) {
+            this.chunks = chunks;
+            this.length = length;
+        }
+
+        private static MappedRegion map(final File file, final long length) throws IOException {
+            final MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((length + CHUNK_SIZE - 1) >>> CHUNK_SHIFT)];
+            try (final RandomAccessFile raf = new RandomAccessFile(file, "r");
+                 final FileChannel channel = raf.getChannel()) {
+                for (int i = 0; i < chunks.length; i++) {
+                    final long position = (long) i << CHUNK_SHIFT;
+                    chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CHUNK_SIZE, length - position));
+                }
+            }
+            return new MappedRegion(chunks, length);
+        }
+
+        private long length() {
+            return length;
+        }
+
+        private byte get(final long position) {
+            return chunks[(int) (position >>> CHUNK_SHIFT)].get((int) (position & CHUNK_MASK));
+        }
+
+        private int getInt(final long position) {
+            final int index = (int) (position & CHUNK_MASK);
+            if (index + 4 <= CHUNK_SIZE) {
+                return chunks[(int) (position >>> CHUNK_SHIFT)].getInt(index);
+            }
+            return (int) getBigEndian(position, 4);
+        }
+
+        private long getLong(final long position) {
+            final int index = (int) (position & CHUNK_MASK);
+            if (index + 8 <= CHUNK_SIZE) {
+                return chunks[(int) (position >>> CHUNK_SHIFT)].getLong(index);
+            }
+            return getBigEndian(position, 8);
+        }
+
+        private long getBigEndian(final long position, final int length) {
+            long value = 0;
+            for (int i = 0; i < length; i++) {
+                value = (value << 8) | (get(position + i) & 0xFF);
+            }
+            return value;
+        }
+
+        private String getString(final long position, final int length) {
+            final byte[] bytes = new byte[length];
+            int copied = 0;
+            while (copied < length) {
+                final long current = position + copied;
+                // Duplicate the buffer so that concurrent lookups do not share its position
+                final ByteBuffer chunk = chunks[(int) (current >>> CHUNK_SHIFT)].duplicate();
+                chunk.position((int) (current & CHUNK_MASK));
+                final int count = Math.min(length - copied, chunk.remaining());
+                chunk.get(bytes, copied, count);
+                copied += count;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -67,8 +67,15 @@ public class CSVRecordLookupService extends AbstractCSVLookupService implements
 
     private volatile ConcurrentMap<String, Record> cache;
 
+    private volatile IndexSchema indexSchema;
+
     @Override
     protected void loadCache() throws IllegalStateException, IOException {
+        if (isIndexed()) {
+            loadIndex();
+            return;
+        }
+
         if (lock.tryLock()) {
             try {
                 final ComponentLog logger = getLogger();
@@ -145,16 +152,48 @@ public class CSVRecordLookupService extends AbstractCSVLookupService implements
         }
 
         try {
-            if (watcher.checkAndReset()) {
-                loadCache();
-            }
+            reloadIfModified();
         } catch (final IllegalStateException | IOException e) {
             throw new LookupFailureException(e.getMessage(), e);
         }
 
+        if (isIndexed()) {
+            return lookupIndex(key);
+        }
+
         return Optional.ofNullable(cache.get(key));
     }
 
+    private Optional<Record> lookupIndex(final String key) {
+        final CSVLookupIndex currentIndex = index;
+        final String[] values = currentIndex.get(key);
+        if (values == null) {
+            return Optional.empty();
+        }
+
+        final List<String> columns = currentIndex.getColumns();
+        final Map<String, Object> properties = new HashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                properties.put(columns.get(i), values[i]);
+            }
+        }
+
+        return Optional.of(new MapRecord(getIndexSchema(columns), properties));
+    }
+
+    private RecordSchema getIndexSchema(final List<String> columns) {
+        // The columns only change if the header of the CSV file changes, so reuse the schema until then
+        IndexSchema current = indexSchema;
+        if (current == null || !current.columns.equals(columns)) {
+            final List<RecordField> recordFields = new ArrayList<>(columns.size());
+            columns.forEach(column -> recordFields.add(new RecordField(column, RecordFieldType.STRING.getDataType())));
+            current = new IndexSchema(columns, new SimpleRecordSchema(recordFields));
+            indexSchema = current;
+        }
+        return current.schema;
+    }
+
     @Override
     public Set<String> getRequiredKeys() {
         return REQUIRED_KEYS;
@@ -163,11 +202,22 @@ public class CSVRecordLookupService extends AbstractCSVLookupService implements
     @OnDisabled
     public void onDisabled() {
         cache = null;
+        indexSchema = null;
+        closeIndex();
     }
 
     // VisibleForTesting
     boolean isCaching() {
-        return cache != null;
+        return cache != null || index != null;
     }
 
+    private static class IndexSchema {
+        private final List<String> columns;
+        private final RecordSchema schema;
+
+        private IndexSchema(final List<String> columns, final RecordSchema schema) {
+            this.columns = columns;
+            this.schema = schema;
+        }
+    }
 }
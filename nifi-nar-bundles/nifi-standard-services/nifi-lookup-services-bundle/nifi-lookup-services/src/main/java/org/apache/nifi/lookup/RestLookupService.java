@@ -65,6 +65,7 @@ import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.Proxy;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -73,7 +74,12 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -171,6 +177,16 @@ public class RestLookupService extends AbstractControllerService implements Reco
         .addValidator(StandardValidators.TIME_PERIOD_VALIDATOR)
         .build();
 
+    public static final PropertyDescriptor PROP_MAX_CONCURRENT_REQUESTS = new PropertyDescriptor.Builder()
+        .name("rest-lookup-max-concurrent-requests")
+        .displayName("Maximum Concurrent Requests")
+        .description("The maximum number of requests that are made concurrently when many values are looked up together, such as for the Records "
+                + "of a FlowFile in LookupRecord. A single lookup is always made on the calling thread.")
+        .required(true)
+        .defaultValue("10")
+        .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+        .build();
+
     private static final ProxySpec[] PROXY_SPECS = {ProxySpec.HTTP_AUTH, ProxySpec.SOCKS};
     public static final PropertyDescriptor PROXY_CONFIGURATION_SERVICE
             = ProxyConfiguration.createProxyConfigPropertyDescriptor(true, PROXY_SPECS);
@@ -195,7 +211,8 @@ public class RestLookupService extends AbstractControllerService implements Reco
             PROP_BASIC_AUTH_PASSWORD,
             PROP_DIGEST_AUTH,
             PROP_CONNECT_TIMEOUT,
-            PROP_READ_TIMEOUT
+            PROP_READ_TIMEOUT,
+            PROP_MAX_CONCURRENT_REQUESTS
         ));
         KEYS = Collections.emptySet();
     }
@@ -213,6 +230,7 @@ public class RestLookupService extends AbstractControllerService implements Reco
     private volatile String basicUser;
     private volatile String basicPass;
     private volatile boolean isDigest;
+    private volatile ExecutorService requestExecutor;
 
     @OnEnabled
     public void onEnabled(final ConfigurationContext context) {
@@ -250,12 +268,25 @@ public class RestLookupService extends AbstractControllerService implements Reco
         buildHeaders(context);
 
         urlTemplate = context.getProperty(URL);
+
+        final int maxConcurrentRequests = context.getProperty(PROP_MAX_CONCURRENT_REQUESTS).asInteger();
+        final AtomicInteger threadCounter = new AtomicInteger();
+        requestExecutor = Executors.newFixedThreadPool(maxConcurrentRequests, runnable -> {
+            final Thread thread = new Thread(runnable, "RestLookupService " + getIdentifier() + " Request-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     @OnDisabled
     public void onDisabled() {
         this.recordPath = null;
         this.urlTemplate = null;
+
+        if (requestExecutor != null) {
+            requestExecutor.shutdownNow();
+            requestExecutor = null;
+        }
     }
 
     private void buildHeaders(ConfigurationContext context) {
@@ -343,6 +374,39 @@ public class RestLookupService extends AbstractControllerService implements Reco
         }
     }
 
+    @Override
+    public List<Optional<Record>> lookupAll(final List<Map<String, Object>> coordinates, final Map<String, String> context) throws LookupFailureException {
+        final List<Optional<Record>> results = new ArrayList<>(coordinates.size());
+        if (coordinates.size() == 1) {
+            results.add(lookup(coordinates.get(0), context));
+            return results;
+        }
+
+        final List<Future<Optional<Record>>> futures = new ArrayList<>(coordinates.size());
+        for (final Map<String, Object> lookupCoordinates : coordinates) {
+            futures.add(requestExecutor.submit(() -> lookup(lookupCoordinates, context)));
+        }
+
+        try {
+            for (final Future<Optional<Record>> future : futures) {
+                results.add(future.get());
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LookupFailureException("Interrupted while waiting for lookups to complete", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof LookupFailureException) {
+                throw (LookupFailureException) e.getCause();
+            }
+            throw new LookupFailureException(e.getCause());
+        } finally {
+            // Do not make any further requests once one has failed
+            futures.forEach(future -> future.cancel(true));
+        }
+
+        return results;
+    }
+
     protected void validateVerb(String method) throws LookupFailureException {
         if (!VALID_VERBS.contains(method)) {
             throw new LookupFailureException(String.format("%s is not a supported HTTP verb.", method));
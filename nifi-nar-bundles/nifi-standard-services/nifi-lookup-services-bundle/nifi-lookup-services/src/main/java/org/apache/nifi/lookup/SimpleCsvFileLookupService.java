@@ -36,6 +36,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -67,6 +68,11 @@ public class SimpleCsvFileLookupService extends AbstractCSVLookupService impleme
 
     @Override
     protected void loadCache() throws IllegalStateException, IOException {
+        if (isIndexed()) {
+            loadIndex();
+            return;
+        }
+
         if (lock.tryLock()) {
             try {
                 final ComponentLog logger = getLogger();
@@ -104,6 +110,11 @@ public class SimpleCsvFileLookupService extends AbstractCSVLookupService impleme
         }
     }
 
+    @Override
+    protected List<String> getIndexedColumns(final List<String> headerColumns) {
+        return Collections.singletonList(lookupValueColumn);
+    }
+
     @Override
     protected void init(final ControllerServiceInitializationContext context) {
         super.init(context);
@@ -133,13 +144,16 @@ public class SimpleCsvFileLookupService extends AbstractCSVLookupService impleme
         }
 
         try {
-            if (watcher != null && watcher.checkAndReset()) {
-                loadCache();
-            }
+            reloadIfModified();
         } catch (final IllegalStateException | IOException e) {
             throw new LookupFailureException(e.getMessage(), e);
         }
 
+        if (isIndexed()) {
+            final String[] values = index.get(key);
+            return values == null ? Optional.empty() : Optional.ofNullable(values[0]);
+        }
+
         return Optional.ofNullable(cache.get(key));
     }
 
@@ -151,10 +165,11 @@ public class SimpleCsvFileLookupService extends AbstractCSVLookupService impleme
     @OnDisabled
     public void onDisabled() {
         cache = null;
+        closeIndex();
     }
 
     // VisibleForTesting
     boolean isCaching() {
-        return cache != null;
+        return cache != null || index != null;
     }
 }
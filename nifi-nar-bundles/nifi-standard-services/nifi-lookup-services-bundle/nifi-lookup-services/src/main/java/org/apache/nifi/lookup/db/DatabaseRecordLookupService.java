@@ -31,7 +31,11 @@ import org.apache.nifi.expression.ExpressionLanguageScope;
 import org.apache.nifi.lookup.LookupFailureException;
 import org.apache.nifi.lookup.RecordLookupService;
 import org.apache.nifi.processor.util.StandardValidators;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.MapRecord;
 import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordSchema;
 import org.apache.nifi.serialization.record.ResultSetRecordSet;
 import org.apache.nifi.util.Tuple;
 
@@ -43,6 +47,8 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -60,6 +66,8 @@ import static org.apache.nifi.util.db.JdbcProperties.DEFAULT_SCALE;
         + "will be returned for each lookup, duplicate database entries are ignored.")
 public class DatabaseRecordLookupService extends AbstractDatabaseLookupService implements RecordLookupService {
 
+    private static final int MAX_KEYS_PER_QUERY = 1000;
+
     private volatile Cache<Tuple<String, Object>, Record> cache;
 
     static final PropertyDescriptor LOOKUP_VALUE_COLUMNS = new PropertyDescriptor.Builder()
@@ -139,19 +147,10 @@ public class DatabaseRecordLookupService extends AbstractDatabaseLookupService i
         }
 
         final String tableName = getProperty(TABLE_NAME).evaluateAttributeExpressions(context).getValue();
-        final String lookupValueColumnsList = getProperty(LOOKUP_VALUE_COLUMNS).evaluateAttributeExpressions(context).getValue();
         final Integer defaultPrecision = getProperty(DEFAULT_PRECISION).evaluateAttributeExpressions(context).asInteger();
         final Integer defaultScale = getProperty(DEFAULT_SCALE).evaluateAttributeExpressions(context).asInteger();
 
-        Set<String> lookupValueColumnsSet = new LinkedHashSet<>();
-        if (lookupValueColumnsList != null) {
-            Stream.of(lookupValueColumnsList)
-                    .flatMap(path -> Arrays.stream(path.split(",")))
-                    .filter(DatabaseRecordLookupService::isNotBlank)
-                    .map(String::trim)
-                    .forEach(lookupValueColumnsSet::add);
-        }
-
+        final Set<String> lookupValueColumnsSet = getLookupValueColumns(context);
         final String lookupValueColumns = lookupValueColumnsSet.isEmpty() ? "*" : String.join(",", lookupValueColumnsSet);
 
         Tuple<String, Object> cacheLookupKey = new Tuple<>(tableName, key);
@@ -186,6 +185,138 @@ public class DatabaseRecordLookupService extends AbstractDatabaseLookupService i
         return Optional.ofNullable(foundRecord);
     }
 
+    /**
+     * Looks up the Records for all of the given coordinates with as few queries as possible. Keys that are not in the cache are queried
+     * in groups of up to {@value #MAX_KEYS_PER_QUERY} with a <code>WHERE key IN (...)</code> clause, and the rows returned are matched to the keys by
+     * their string representations. Should the database return a row that cannot be matched in this way, for instance because it compares
+     * keys without regard to case, the keys that were not matched are looked up individually instead.
+     */
+    @Override
+    public List<Optional<Record>> lookupAll(final List<Map<String, Object>> coordinates, final Map<String, String> context) throws LookupFailureException {
+        final List<Optional<Record>> results = new ArrayList<>(Collections.nCopies(coordinates.size(), Optional.empty()));
+
+        final String tableName = getProperty(TABLE_NAME).evaluateAttributeExpressions(context).getValue();
+        final Map<String, List<Integer>> uncachedKeyIndices = new LinkedHashMap<>();
+        final Map<String, Object> uncachedKeys = new LinkedHashMap<>();
+        for (int i = 0; i < coordinates.size(); i++) {
+            final Map<String, Object> lookupCoordinates = coordinates.get(i);
+            final Object key = lookupCoordinates == null ? null : lookupCoordinates.get(KEY);
+            if (key == null || StringUtils.isBlank(key.toString())) {
+                continue;
+            }
+
+            final Record cachedRecord = cache.getIfPresent(new Tuple<>(tableName, key));
+            if (cachedRecord != null) {
+                results.set(i, Optional.of(cachedRecord));
+                continue;
+            }
+
+            final String keyString = key.toString();
+            uncachedKeys.putIfAbsent(keyString, key);
+            uncachedKeyIndices.computeIfAbsent(keyString, k -> new ArrayList<>()).add(i);
+        }
+
+        if (uncachedKeys.isEmpty()) {
+            return results;
+        }
+
+        final Integer defaultPrecision = getProperty(DEFAULT_PRECISION).evaluateAttributeExpressions(context).asInteger();
+        final Integer defaultScale = getProperty(DEFAULT_SCALE).evaluateAttributeExpressions(context).asInteger();
+
+        // The key column must be selected in order to match the rows to the keys, but is only returned if it would be for a single lookup
+        final Set<String> lookupValueColumnsSet = getLookupValueColumns(context);
+        final boolean keyColumnSelected = lookupValueColumnsSet.isEmpty() || lookupValueColumnsSet.stream().anyMatch(lookupKeyColumn::equalsIgnoreCase);
+        final String lookupValueColumns = lookupValueColumnsSet.isEmpty() ? "*" : String.join(",", lookupValueColumnsSet) + (keyColumnSelected ? "" : "," + lookupKeyColumn);
+
+        final List<Object> keys = new ArrayList<>(uncachedKeys.values());
+        final Map<String, Record> foundRecords = new HashMap<>();
+        boolean unmatchedRows = false;
+        try (final Connection con = dbcpService.getConnection(context)) {
+            for (int start = 0; start < keys.size(); start += MAX_KEYS_PER_QUERY) {
+                final List<Object> queryKeys = keys.subList(start, Math.min(start + MAX_KEYS_PER_QUERY, keys.size()));
+                final String selectQuery = "SELECT " + lookupValueColumns + " FROM " + tableName + " WHERE " + lookupKeyColumn
+                        + " IN (" + String.join(",", Collections.nCopies(queryKeys.size(), "?")) + ")";
+
+                try (final PreparedStatement st = con.prepareStatement(selectQuery)) {
+                    for (int i = 0; i < queryKeys.size(); i++) {
+                        st.setObject(i + 1, queryKeys.get(i));
+                    }
+
+                    final ResultSet resultSet = st.executeQuery();
+                    final ResultSetRecordSet resultSetRecordSet = new ResultSetRecordSet(resultSet, null, defaultPrecision, defaultScale);
+                    final String keyFieldName = resultSetRecordSet.getSchema().getFieldNames().stream()
+                            .filter(lookupKeyColumn::equalsIgnoreCase)
+                            .findFirst()
+                            .orElseThrow(() -> new LookupFailureException("Key column " + lookupKeyColumn + " was not found in the result of SQL statement: " + selectQuery));
+                    final RecordSchema resultSchema = keyColumnSelected ? null : removeField(resultSetRecordSet.getSchema(), keyFieldName);
+
+                    Record record;
+                    while ((record = resultSetRecordSet.next()) != null) {
+                        final Object rowKey = record.getValue(keyFieldName);
+                        final String rowKeyString = rowKey == null ? null : rowKey.toString();
+                        if (!uncachedKeys.containsKey(rowKeyString)) {
+                            unmatchedRows = true;
+                            continue;
+                        }
+
+                        if (resultSchema != null) {
+                            final Map<String, Object> values = new HashMap<>(record.toMap());
+                            values.remove(keyFieldName);
+                            record = new MapRecord(resultSchema, values);
+                        }
+
+                        // Only one row is returned for each lookup, so ignore any further rows for the same key
+                        foundRecords.putIfAbsent(rowKeyString, record);
+                    }
+                } catch (final SQLException se) {
+                    throw new LookupFailureException("Error executing SQL statement: " + selectQuery + " for " + queryKeys.size() + " values"
+                            + " : " + (se.getCause() == null ? se.getMessage() : se.getCause().getMessage()), se);
+                } catch (final IOException ioe) {
+                    throw new LookupFailureException("Error retrieving result set for SQL statement: " + selectQuery + " for " + queryKeys.size() + " values"
+                            + " : " + (ioe.getCause() == null ? ioe.getMessage() : ioe.getCause().getMessage()), ioe);
+                }
+            }
+        } catch (final SQLException se) {
+            throw new LookupFailureException("Error obtaining database connection : " + (se.getCause() == null ? se.getMessage() : se.getCause().getMessage()), se);
+        }
+
+        for (final Map.Entry<String, List<Integer>> entry : uncachedKeyIndices.entrySet()) {
+            final Object key = uncachedKeys.get(entry.getKey());
+            Record foundRecord = foundRecords.get(entry.getKey());
+            if (foundRecord != null) {
+                cache.put(new Tuple<>(tableName, key), foundRecord);
+            } else if (unmatchedRows) {
+                foundRecord = lookup(Collections.singletonMap(KEY, key), context).orElse(null);
+            }
+
+            for (final Integer index : entry.getValue()) {
+                results.set(index, Optional.ofNullable(foundRecord));
+            }
+        }
+
+        return results;
+    }
+
+    private Set<String> getLookupValueColumns(final Map<String, String> context) {
+        final String lookupValueColumnsList = getProperty(LOOKUP_VALUE_COLUMNS).evaluateAttributeExpressions(context).getValue();
+
+        Set<String> lookupValueColumnsSet = new LinkedHashSet<>();
+        if (lookupValueColumnsList != null) {
+            Stream.of(lookupValueColumnsList)
+                    .flatMap(path -> Arrays.stream(path.split(",")))
+                    .filter(DatabaseRecordLookupService::isNotBlank)
+                    .map(String::trim)
+                    .forEach(lookupValueColumnsSet::add);
+        }
+        return lookupValueColumnsSet;
+    }
+
+    private static RecordSchema removeField(final RecordSchema schema, final String fieldName) {
+        final List<RecordField> fields = new ArrayList<>(schema.getFields());
+        fields.removeIf(field -> field.getFieldName().equals(fieldName));
+        return new SimpleRecordSchema(fields);
+    }
+
     private static boolean isNotBlank(final String value) {
         return value != null && !value.trim().isEmpty();
     }
@@ -17,6 +17,8 @@
 
 package org.apache.nifi.lookup.maxmind;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.maxmind.db.InvalidDatabaseException;
 import com.maxmind.geoip2.model.AnonymousIpResponse;
 import com.maxmind.geoip2.model.CityResponse;
@@ -40,6 +42,7 @@ import org.apache.nifi.controller.ConfigurationContext;
 import org.apache.nifi.expression.ExpressionLanguageScope;
 import org.apache.nifi.lookup.LookupFailureException;
 import org.apache.nifi.lookup.RecordLookupService;
+import org.apache.nifi.processor.util.StandardValidators;
 import org.apache.nifi.serialization.record.MapRecord;
 import org.apache.nifi.serialization.record.Record;
 import org.apache.nifi.util.StopWatch;
@@ -66,7 +69,8 @@ import java.util.stream.Stream;
 @CapabilityDescription("A lookup service that provides several types of enrichment information for IP addresses. The service is configured by providing a MaxMind "
     + "Database file and specifying which types of enrichment should be provided for an IP Address or Hostname. Each type of enrichment is a separate lookup, so configuring the "
     + "service to provide all of the available enrichment data may be slower than returning only a portion of the available enrichments. In order to use this service, a lookup "
-    + "must be performed using key of 'ip' and a value that is a valid IP address or hostname. View the Usage of this component "
+    + "must be performed using key of 'ip' and a value that is a valid IP address or hostname. The results of the most recent lookups may be cached, so that "
+    + "IP addresses that are looked up repeatedly do not need to be read from the database each time. View the Usage of this component "
     + "and choose to view Additional Details for more information, such as the Schema that pertains to the information that is returned.")
 public class IPLookupService extends AbstractControllerService implements RecordLookupService {
 
@@ -77,6 +81,8 @@ public class IPLookupService extends AbstractControllerService implements Record
     private volatile DatabaseReader databaseReader = null;
     private volatile String databaseChecksum = null;
     private volatile long databaseLastRefreshAttempt = -1;
+    private volatile int cacheSize = 0;
+    private volatile Cache<InetAddress, Optional<Record>> lookupCache = null;
 
     private final Lock dbWriteLock = new ReentrantLock();
 
@@ -138,6 +144,18 @@ public class IPLookupService extends AbstractControllerService implements Record
         .required(true)
         .build();
 
+    static final PropertyDescriptor CACHE_SIZE = new PropertyDescriptor.Builder()
+        .name("cache-size")
+        .displayName("Cache Size")
+        .description("Specifies how many IP addresses to cache the results of looking up. Looking up an IP address whose results are cached returns them without "
+            + "reading the database, which greatly improves throughput when the same IP addresses are looked up repeatedly. The cache is cleared whenever the "
+            + "database is reloaded. Setting this property to zero means no caching will be done.")
+        .expressionLanguageSupported(ExpressionLanguageScope.NONE)
+        .addValidator(StandardValidators.NON_NEGATIVE_INTEGER_VALIDATOR)
+        .defaultValue("0")
+        .required(true)
+        .build();
+
     @Override
     protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
         final List<PropertyDescriptor> properties = new ArrayList<>();
@@ -147,12 +165,14 @@ public class IPLookupService extends AbstractControllerService implements Record
         properties.add(LOOKUP_DOMAIN);
         properties.add(LOOKUP_CONNECTION_TYPE);
         properties.add(LOOKUP_ANONYMOUS_IP_INFO);
+        properties.add(CACHE_SIZE);
         return properties;
     }
 
     @OnEnabled
     public void onEnabled(final ConfigurationContext context) throws IOException {
         databaseFile = context.getProperty(GEO_DATABASE_FILE).evaluateAttributeExpressions().getValue();
+        cacheSize = context.getProperty(CACHE_SIZE).asInteger();
 
         final File dbFile = new File(databaseFile);
         final String dbFileChecksum = getChecksum(dbFile);
@@ -182,6 +202,7 @@ public class IPLookupService extends AbstractControllerService implements Record
         databaseReader = null;
         databaseChecksum = null;
         databaseLastRefreshAttempt = -1;
+        lookupCache = null;
     }
 
     @Override
@@ -207,8 +228,7 @@ public class IPLookupService extends AbstractControllerService implements Record
         // If an external process changes the underlying file before we have a chance to reload the reader, then we'll get an
         // InvalidDatabaseException, so force a reload and then retry the lookup one time, if we still get an error then throw it
         try {
-            final DatabaseReader databaseReader = this.databaseReader;
-            return doLookup(databaseReader, coordinates);
+            return lookupAddress(coordinates);
         } catch (InvalidDatabaseException idbe) {
             if (dbWriteLock.tryLock()) {
                 try {
@@ -224,8 +244,7 @@ public class IPLookupService extends AbstractControllerService implements Record
 
                     getLogger().debug("Attempting to retry lookup after InvalidDatabaseException");
                     try {
-                        final DatabaseReader databaseReader = this.databaseReader;
-                        return doLookup(databaseReader, coordinates);
+                        return lookupAddress(coordinates);
                     } catch (final Exception e) {
                         throw new LookupFailureException("Error performing look up: " + e.getMessage(), e);
                     }
@@ -238,7 +257,7 @@ public class IPLookupService extends AbstractControllerService implements Record
         }
     }
 
-    private Optional<Record> doLookup(final DatabaseReader databaseReader, final Map<String, Object> coordinates) throws LookupFailureException, InvalidDatabaseException {
+    private Optional<Record> lookupAddress(final Map<String, Object> coordinates) throws LookupFailureException, InvalidDatabaseException {
         if (coordinates.get(IP_KEY) == null) {
             return Optional.empty();
         }
@@ -255,6 +274,25 @@ public class IPLookupService extends AbstractControllerService implements Record
             return Optional.empty();
         }
 
+        // The cache is read before the reader because a reload replaces the reader before the cache, so that the results of the
+        // previous database are never added to the cache of the new one
+        final Cache<InetAddress, Optional<Record>> cache = this.lookupCache;
+        final DatabaseReader databaseReader = this.databaseReader;
+        if (cache == null) {
+            return doLookup(databaseReader, inetAddress);
+        }
+
+        final Optional<Record> cached = cache.getIfPresent(inetAddress);
+        if (cached != null) {
+            return cached;
+        }
+
+        final Optional<Record> result = doLookup(databaseReader, inetAddress);
+        cache.put(inetAddress, result);
+        return result;
+    }
+
+    private Optional<Record> doLookup(final DatabaseReader databaseReader, final InetAddress inetAddress) throws LookupFailureException, InvalidDatabaseException {
         final Record geoRecord;
         if (getProperty(LOOKUP_CITY).asBoolean()) {
             final CityResponse cityResponse;
@@ -382,11 +420,22 @@ public class IPLookupService extends AbstractControllerService implements Record
 
     private void loadDatabase(final File dbFile, final String dbFileChecksum) throws IOException {
         final StopWatch stopWatch = new StopWatch(true);
-        final DatabaseReader reader = new DatabaseReader.Builder(dbFile).build();
+        final DatabaseReader reader = createDatabaseReader(dbFile);
         stopWatch.stop();
         getLogger().info("Completed loading of Maxmind Database.  Elapsed time was {} milliseconds.", new Object[]{stopWatch.getDuration(TimeUnit.MILLISECONDS)});
         databaseReader = reader;
         databaseChecksum = dbFileChecksum;
+        lookupCache = cacheSize > 0 ? Caffeine.newBuilder().maximumSize(cacheSize).build() : null;
+    }
+
+    // VisibleForTesting
+    DatabaseReader createDatabaseReader(final File dbFile) throws IOException {
+        return new DatabaseReader.Builder(dbFile).build();
+    }
+
+    // VisibleForTesting
+    Cache<InetAddress, Optional<Record>> getLookupCache() {
+        return lookupCache;
     }
 
     private Record createRecord(final CityResponse city) {
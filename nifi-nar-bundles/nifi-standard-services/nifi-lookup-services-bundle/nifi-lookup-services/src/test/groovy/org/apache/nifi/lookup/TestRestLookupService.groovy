@@ -35,6 +35,9 @@ import org.junit.Assert
 import org.junit.Before
 import org.junit.Test
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
 import static groovy.json.JsonOutput.toJson
 import static org.junit.Assert.assertNotNull
 
@@ -137,6 +140,48 @@ class TestRestLookupService {
         Assert.assertEquals("Soccer", record.getAsString("sport"))
     }
 
+    @Test
+    void testLookupAll() {
+        runner.disableControllerService(lookupService)
+        runner.setProperty(lookupService, RestLookupService.URL, 'http://localhost:8080/${id}')
+        runner.setProperty(lookupService, RestLookupService.PROP_MAX_CONCURRENT_REQUESTS, "2")
+        runner.enableControllerService(lookupService)
+
+        recordReader.addSchemaField("name", RecordFieldType.STRING)
+        recordReader.addRecord("John Doe")
+
+        // Each request waits until another is in progress, so the lookups only complete if they are made concurrently
+        final CountDownLatch concurrentRequests = new CountDownLatch(2)
+        final Set<String> urls = Collections.synchronizedSet(new HashSet<String>())
+        lookupService.responder = { Request request ->
+            urls.add(request.url().toString())
+            concurrentRequests.countDown()
+            Assert.assertTrue(concurrentRequests.await(10, TimeUnit.SECONDS))
+            buildResponse(toJson([ simpleTest: true]), JSON_TYPE)
+        }
+
+        def coordinates = (1..4).collect { id ->
+            def retVal = getCoordinates(JSON_TYPE, "get")
+            retVal["id"] = id.toString()
+            retVal
+        }
+        def results = lookupService.lookupAll(coordinates, [:])
+
+        Assert.assertEquals(4, results.size())
+        results.each { Assert.assertEquals("John Doe", it.get().getAsString("name")) }
+        Assert.assertEquals((1..4).collect { "http://localhost:8080/${it}".toString() } as Set, urls)
+    }
+
+    @Test(expected = LookupFailureException.class)
+    void testLookupAllFailure() {
+        recordReader.addSchemaField("name", RecordFieldType.STRING)
+        recordReader.addRecord("John Doe")
+
+        lookupService.responder = { Request request -> throw new IOException("Connection refused") }
+
+        lookupService.lookupAll([getCoordinates(JSON_TYPE, "get"), getCoordinates(JSON_TYPE, "get")], [:])
+    }
+
     private static Map<String, Object> getCoordinates(String mimeType, String method) {
         def retVal = [:] as Map<String, Object>
         retVal[RestLookupService.MIME_TYPE_KEY] = mimeType
@@ -205,6 +205,61 @@ class TestDatabaseRecordLookupService {
         assertEquals("Hello", property4.get().getAsString("VAL2"))
     }
 
+    @Test
+    void testLookupAll() {
+        // remove previous test database, if any
+        final File dbLocation = new File(DB_LOCATION)
+        dbLocation.delete()
+
+        // load test data to database
+        final Connection con = ((DBCPService) runner.getControllerService("dbcp")).connection
+        final Statement stmt = con.createStatement()
+
+        try {
+            stmt.execute("drop table TEST")
+        } catch (final SQLException sqle) {
+        }
+
+        stmt.execute("create table TEST (id integer not null, val1 integer, val2 varchar(10), constraint my_pk primary key (id))")
+        stmt.execute("insert into TEST (id, val1, val2) VALUES (0, NULL, 'Hello')")
+        stmt.execute("insert into TEST (id, val1, val2) VALUES (1, 1, 'World')")
+        stmt.execute("insert into TEST (id, val1, val2) VALUES (2, 2, 'Again')")
+
+        final DatabaseRecordLookupService service = new DatabaseRecordLookupService()
+
+        runner.addControllerService("db-lookup-service", service)
+        runner.setProperty(service, DatabaseRecordLookupService.DBCP_SERVICE, "dbcp")
+        runner.setProperty(service, DatabaseRecordLookupService.TABLE_NAME, "TEST")
+        runner.setProperty(service, DatabaseRecordLookupService.LOOKUP_KEY_COLUMN, "id")
+        runner.setProperty(service, DatabaseRecordLookupService.LOOKUP_VALUE_COLUMNS, "val1,val2")
+        runner.setProperty(service, DatabaseRecordLookupService.CACHE_SIZE, "10")
+        runner.enableControllerService(service)
+        runner.assertValid(service)
+
+        def lookupService = (DatabaseRecordLookupService) runner.processContext.controllerServiceLookup.getControllerService("db-lookup-service")
+
+        // Look up a value first so that the batch is served partly from the cache
+        assertEquals("Again", lookupService.lookup(Collections.singletonMap("key", "2")).get().getAsString("VAL2"))
+
+        final List<Map<String, Object>> coordinates = ["1", "3", "0", "2", "1"].collect { Collections.singletonMap("key", it) as Map<String, Object> }
+        final List<Optional<Record>> results = lookupService.lookupAll(coordinates, Collections.emptyMap())
+
+        assertEquals(5, results.size())
+        assertEquals(1, results[0].get().getAsInt("VAL1"))
+        assertEquals("World", results[0].get().getAsString("VAL2"))
+        assertEquals(["VAL1", "VAL2"], results[0].get().schema.fieldNames)
+        assertEquals(EMPTY_RECORD, results[1])
+        assertNull(results[2].get().getAsInt("VAL1"))
+        assertEquals("Hello", results[2].get().getAsString("VAL2"))
+        assertEquals("Again", results[3].get().getAsString("VAL2"))
+        assertEquals("World", results[4].get().getAsString("VAL2"))
+
+        // The values that were found should now be cached
+        stmt.execute("delete from TEST")
+        final List<Optional<Record>> cachedResults = lookupService.lookupAll(coordinates, Collections.emptyMap())
+        assertEquals(["World", null, "Hello", "Again", "World"], cachedResults.collect { it.isPresent() ? it.get().getAsString("VAL2") : null })
+    }
+
     /**
      * Simple implementation for component testing.
      *
@@ -24,12 +24,13 @@ import org.apache.nifi.lookup.RestLookupService
 
 class MockRestLookupService extends RestLookupService {
     Response response
+    Closure<Response> responder
     Headers headers
 
     @Override
     protected Response executeRequest(Request request) {
         this.headers = request.headers()
-        return response
+        return responder != null ? responder.call(request) : response
     }
 
     Map<String, List<String>> getHeaders() {
@@ -23,21 +23,33 @@ import org.apache.nifi.util.TestRunner;
 import org.apache.nifi.util.TestRunners;
 import org.junit.Test;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 public class TestCSVRecordLookupService {
 
     private final static Optional<Record> EMPTY_RECORD = Optional.empty();
 
+    private final static File INDEX_DIRECTORY = new File("target/csv-lookup-index");
+
     @Test
     public void testSimpleCsvRecordLookupService() throws InitializationException, IOException, LookupFailureException {
         final TestRunner runner = TestRunners.newTestRunner(TestProcessor.class);
@@ -128,4 +140,134 @@ public class TestCSVRecordLookupService {
 
         assertFalse(service.isCaching());
     }
+
+    @Test
+    public void testCsvRecordLookupServiceWithMemoryMappedIndex() throws InitializationException, LookupFailureException {
+        final TestRunner runner = TestRunners.newTestRunner(TestProcessor.class);
+        final CSVRecordLookupService service = new CSVRecordLookupService();
+
+        runner.addControllerService("csv-record-lookup-service", service);
+        runner.setProperty(service, CSVRecordLookupService.CSV_FILE, "src/test/resources/test.csv");
+        runner.setProperty(service, CSVRecordLookupService.CSV_FORMAT, "RFC4180");
+        runner.setProperty(service, CSVRecordLookupService.LOOKUP_KEY_COLUMN, "key");
+        runner.setProperty(service, CSVRecordLookupService.STORAGE_MODE, CSVRecordLookupService.STORAGE_MEMORY_MAPPED_INDEX);
+        runner.setProperty(service, CSVRecordLookupService.INDEX_DIRECTORY, INDEX_DIRECTORY.getPath());
+        runner.enableControllerService(service);
+        runner.assertValid(service);
+
+        final Optional<Record> property1 = service.lookup(Collections.singletonMap("key", "property.1"));
+        assertEquals("this is property 1", property1.get().getAsString("value"));
+        assertEquals("2017-04-01", property1.get().getAsString("created_at"));
+        assertFalse(property1.get().getSchema().getField("key").isPresent());
+
+        final Optional<Record> property2 = service.lookup(Collections.singletonMap("key", "property.2"));
+        assertEquals("this is property 2", property2.get().getAsString("value"));
+        assertEquals("2017-04-02", property2.get().getAsString("created_at"));
+
+        assertEquals(EMPTY_RECORD, service.lookup(Collections.singletonMap("key", "property.3")));
+
+        assertTrue(service.isCaching());
+        runner.disableControllerService(service);
+        assertFalse(service.isCaching());
+    }
+
+    @Test
+    public void testMemoryMappedIndexIsReplacedOnReload() throws InitializationException, IOException, LookupFailureException {
+        final File indexDirectory = new File(INDEX_DIRECTORY, "reload");
+        final File csvFile = new File(indexDirectory, "reload.csv");
+        final List<String> lines = new ArrayList<>();
+        lines.add("key,value");
+        final Random random = new Random(1L);
+        final Map<String, String> expected = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            final String key = Long.toString(random.nextInt(5_000), 36) + "\u00e9";
+            final String value = "value " + i;
+            lines.add(key + "," + value);
+            expected.put(key, value);
+        }
+        Files.createDirectories(indexDirectory.toPath());
+        Files.write(csvFile.toPath(), lines, StandardCharsets.UTF_8);
+
+        final TestRunner runner = TestRunners.newTestRunner(TestProcessor.class);
+        final CSVRecordLookupService service = new CSVRecordLookupService();
+        runner.addControllerService("csv-record-lookup-service", service);
+        runner.setProperty(service, CSVRecordLookupService.CSV_FILE, csvFile.getPath());
+        runner.setProperty(service, CSVRecordLookupService.LOOKUP_KEY_COLUMN, "key");
+        runner.setProperty(service, CSVRecordLookupService.STORAGE_MODE, CSVRecordLookupService.STORAGE_MEMORY_MAPPED_INDEX);
+        runner.setProperty(service, CSVRecordLookupService.INDEX_DIRECTORY, indexDirectory.getPath());
+        runner.enableControllerService(service);
+
+        // Duplicate keys are ignored by default, keeping the last row for each key
+        for (final Map.Entry<String, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), service.lookup(Collections.singletonMap("key", entry.getKey())).get().getAsString("value"));
+        }
+        assertEquals(EMPTY_RECORD, service.lookup(Collections.singletonMap("key", "missing")));
+
+        final File[] originalIndexFiles = indexDirectory.listFiles((dir, name) -> name.endsWith(".index"));
+        assertEquals(1, originalIndexFiles.length);
+
+        Files.write(csvFile.toPath(), Arrays.asList("key,value,extra", "new,new value,extra value"), StandardCharsets.UTF_8);
+        service.loadCache();
+
+        assertFalse(originalIndexFiles[0].exists());
+        assertEquals(EMPTY_RECORD, service.lookup(Collections.singletonMap("key", expected.keySet().iterator().next())));
+        final Record record = service.lookup(Collections.singletonMap("key", "new")).get();
+        assertEquals("new value", record.getAsString("value"));
+        assertEquals("extra value", record.getAsString("extra"));
+
+        runner.disableControllerService(service);
+        assertEquals(0, indexDirectory.listFiles((dir, name) -> name.endsWith(".index")).length);
+    }
+
+    @Test
+    public void testMemoryMappedIndexOfSortedRows() throws InitializationException, IOException, LookupFailureException {
+        final File indexDirectory = new File(INDEX_DIRECTORY, "sorted");
+        Files.createDirectories(indexDirectory.toPath());
+
+        // Rows that are already in order, or in reverse order, with every key appearing twice
+        final List<String> lines = new ArrayList<>();
+        lines.add("key,value");
+        for (int i = 0; i < 5_000; i++) {
+            lines.add(String.format("%05d,first %d", i, i));
+        }
+        for (int i = 4_999; i >= 0; i--) {
+            lines.add(String.format("%05d,second %d", i, i));
+        }
+        final File csvFile = new File(indexDirectory, "sorted.csv");
+        Files.write(csvFile.toPath(), lines, StandardCharsets.UTF_8);
+
+        final TestRunner runner = TestRunners.newTestRunner(TestProcessor.class);
+        final CSVRecordLookupService service = new CSVRecordLookupService();
+        runner.addControllerService("csv-record-lookup-service", service);
+        runner.setProperty(service, CSVRecordLookupService.CSV_FILE, csvFile.getPath());
+        runner.setProperty(service, CSVRecordLookupService.LOOKUP_KEY_COLUMN, "key");
+        runner.setProperty(service, CSVRecordLookupService.STORAGE_MODE, CSVRecordLookupService.STORAGE_MEMORY_MAPPED_INDEX);
+        runner.setProperty(service, CSVRecordLookupService.INDEX_DIRECTORY, indexDirectory.getPath());
+        runner.enableControllerService(service);
+
+        for (int i = 0; i < 5_000; i++) {
+            assertEquals("second " + i, service.lookup(Collections.singletonMap("key", String.format("%05d", i))).get().getAsString("value"));
+        }
+
+        runner.disableControllerService(service);
+    }
+
+    @Test
+    public void testMemoryMappedIndexWithDuplicateKeys() throws InitializationException, IOException {
+        final File csvFile = new File(INDEX_DIRECTORY, "duplicates.csv");
+        Files.createDirectories(INDEX_DIRECTORY.toPath());
+        Files.write(csvFile.toPath(), Arrays.asList("key,value", "a,1", "b,2", "a,3"), StandardCharsets.UTF_8);
+
+        final TestRunner runner = TestRunners.newTestRunner(TestProcessor.class);
+        final CSVRecordLookupService service = new CSVRecordLookupService();
+        runner.addControllerService("csv-record-lookup-service", service);
+        runner.setProperty(service, CSVRecordLookupService.CSV_FILE, csvFile.getPath());
+        runner.setProperty(service, CSVRecordLookupService.LOOKUP_KEY_COLUMN, "key");
+        runner.setProperty(service, CSVRecordLookupService.IGNORE_DUPLICATES, "false");
+        runner.setProperty(service, CSVRecordLookupService.STORAGE_MODE, CSVRecordLookupService.STORAGE_MEMORY_MAPPED_INDEX);
+        runner.setProperty(service, CSVRecordLookupService.INDEX_DIRECTORY, INDEX_DIRECTORY.getPath());
+
+        final AssertionError error = assertThrows(AssertionError.class, () -> runner.enableControllerService(service));
+        assertTrue(error.getMessage().contains("Duplicate lookup key encountered: a"));
+    }
 }
@@ -125,4 +125,28 @@ public class TestSimpleCsvFileLookupService {
 
         assertFalse(service.isCaching());
     }
+
+    @Test
+    public void testSimpleCsvFileLookupServiceWithMemoryMappedIndex() throws InitializationException, LookupFailureException {
+        final TestRunner runner = TestRunners.newTestRunner(TestProcessor.class);
+        final SimpleCsvFileLookupService service = new SimpleCsvFileLookupService();
+
+        runner.addControllerService("csv-file-lookup-service", service);
+        runner.setProperty(service, SimpleCsvFileLookupService.CSV_FILE, "src/test/resources/test.csv");
+        runner.setProperty(service, SimpleCsvFileLookupService.CSV_FORMAT, "RFC4180");
+        runner.setProperty(service, SimpleCsvFileLookupService.LOOKUP_KEY_COLUMN, "key");
+        runner.setProperty(service, SimpleCsvFileLookupService.LOOKUP_VALUE_COLUMN, "value");
+        runner.setProperty(service, SimpleCsvFileLookupService.STORAGE_MODE, SimpleCsvFileLookupService.STORAGE_MEMORY_MAPPED_INDEX);
+        runner.setProperty(service, SimpleCsvFileLookupService.INDEX_DIRECTORY, "target/csv-lookup-index");
+        runner.enableControllerService(service);
+        runner.assertValid(service);
+
+        assertEquals(Optional.of("this is property 1"), service.lookup(Collections.singletonMap("key", "property.1")));
+        assertEquals(Optional.of("this is property 2"), service.lookup(Collections.singletonMap("key", "property.2")));
+        assertEquals(EMPTY_STRING, service.lookup(Collections.singletonMap("key", "property.3")));
+
+        assertTrue(service.isCaching());
+        runner.disableControllerService(service);
+        assertFalse(service.isCaching());
+    }
 }
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.lookup.maxmind;
+
+import com.maxmind.geoip2.model.CityResponse;
+import com.maxmind.geoip2.record.City;
+import org.apache.nifi.lookup.TestProcessor;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.util.TestRunner;
+import org.apache.nifi.util.TestRunners;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TestIPLookupService {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private DatabaseReader databaseReader;
+    private IPLookupService service;
+    private TestRunner runner;
+
+    @Before
+    public void setup() throws Exception {
+        databaseReader = mock(DatabaseReader.class);
+        when(databaseReader.city(any(InetAddress.class))).thenAnswer(invocation -> {
+            final InetAddress address = invocation.getArgument(0);
+            final City city = new City(Collections.singletonList("en"), 80, 1, Collections.singletonMap("en", "City " + address.getHostAddress()));
+            return new CityResponse(city, null, null, null, null, null, null, null, null, null);
+        });
+
+        service = new IPLookupService() {
+            @Override
+            DatabaseReader createDatabaseReader(final File dbFile) {
+                return databaseReader;
+            }
+        };
+
+        final File databaseFile = temporaryFolder.newFile("GeoLite2-City.mmdb");
+        Files.write(databaseFile.toPath(), new byte[] {1, 2, 3});
+
+        runner = TestRunners.newTestRunner(TestProcessor.class);
+        runner.addControllerService("ip-lookup-service", service);
+        runner.setProperty(service, IPLookupService.GEO_DATABASE_FILE, databaseFile.getAbsolutePath());
+    }
+
+    @Test
+    public void testCacheHits() throws Exception {
+        runner.setProperty(service, IPLookupService.CACHE_SIZE, "10");
+        runner.enableControllerService(service);
+
+        final Optional<Record> first = lookup("1.2.3.4");
+        assertTrue(first.isPresent());
+        assertEquals("City 1.2.3.4", ((Record) first.get().getValue("geo")).getValue("city"));
+
+        assertSame(first.get(), lookup("1.2.3.4").get());
+        assertSame(first.get(), lookup("1.2.3.4").get());
+        verify(databaseReader, times(1)).city(InetAddress.getByName("1.2.3.4"));
+
+        assertEquals("City 5.6.7.8", ((Record) lookup("5.6.7.8").get().getValue("geo")).getValue("city"));
+        verify(databaseReader, times(1)).city(InetAddress.getByName("5.6.7.8"));
+    }
+
+    @Test
+    public void testCacheHitsForAddressesNotFound() throws Exception {
+        when(databaseReader.city(InetAddress.getByName("10.0.0.1"))).thenReturn(null);
+        runner.setProperty(service, IPLookupService.CACHE_SIZE, "10");
+        runner.enableControllerService(service);
+
+        assertFalse(lookup("10.0.0.1").isPresent());
+        assertFalse(lookup("10.0.0.1").isPresent());
+        verify(databaseReader, times(1)).city(InetAddress.getByName("10.0.0.1"));
+    }
+
+    @Test
+    public void testCacheEviction() throws Exception {
+        runner.setProperty(service, IPLookupService.CACHE_SIZE, "2");
+        runner.enableControllerService(service);
+
+        for (int i = 0; i < 10; i++) {
+            lookup("10.0.0." + i);
+        }
+
+        // Caffeine evicts entries asynchronously
+        service.getLookupCache().cleanUp();
+        assertTrue(service.getLookupCache().estimatedSize() <= 2);
+
+        for (int i = 0; i < 10; i++) {
+            lookup("10.0.0." + i);
+        }
+
+        int databaseLookups = 0;
+        for (int i = 0; i < 10; i++) {
+            databaseLookups += databaseLookupCount("10.0.0." + i);
+        }
+
+        // at most the two addresses still cached are returned without reading the database again
+        assertTrue("Expected at least 18 database lookups but there were " + databaseLookups, databaseLookups >= 18);
+    }
+
+    @Test
+    public void testCacheDisabled() throws Exception {
+        runner.setProperty(service, IPLookupService.CACHE_SIZE, "0");
+        runner.enableControllerService(service);
+        assertNull(service.getLookupCache());
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(lookup("1.2.3.4").isPresent());
+        }
+        verify(databaseReader, times(3)).city(InetAddress.getByName("1.2.3.4"));
+    }
+
+    @Test
+    public void testCacheDisabledByDefault() throws Exception {
+        runner.enableControllerService(service);
+        assertNull(service.getLookupCache());
+
+        lookup("1.2.3.4");
+        lookup("1.2.3.4");
+        verify(databaseReader, times(2)).city(InetAddress.getByName("1.2.3.4"));
+    }
+
+    private Optional<Record> lookup(final String ipAddress) throws Exception {
+        return service.lookup(Collections.singletonMap("ip", ipAddress));
+    }
+
+    private int databaseLookupCount(final String ipAddress) throws IOException {
+        final InetAddress address = InetAddress.getByName(ipAddress);
+        return (int) mockingDetails(databaseReader).getInvocations().stream()
+            .filter(invocation -> invocation.getMethod().getName().equals("city") && address.equals(invocation.getArgument(0)))
+            .count();
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.csv;
+
+import org.apache.commons.csv.CSVFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Splits a stream of CSV-formatted bytes into chunks that always end on a record boundary. A record boundary is a line feed
+ * that is not part of a quoted value, is not escaped, and does not terminate a comment line. As with the CSV parsers, a quote
+ * character begins a quoted value only at the start of a field; anywhere else it is a literal character. Because the splitter operates on
+ * raw bytes, it may only be used with character sets in which the line feed, quote, escape and comment characters are each
+ * encoded as the same single byte as in US-ASCII, which is verified by {@link #isSplittable(CSVFormat, Charset)}.
+ */
+class CSVChunkSplitter {
+    private static final int NONE = -1;
+    private static final byte LINE_FEED = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    private final InputStream in;
+    private final int targetChunkSize;
+    private final int quote;
+    private final int escape;
+    private final int commentMarker;
+    private final int delimiter;
+    private final boolean skipSpacesBeforeQuote;
+
+    private byte[] buffer;
+    private int length = 0;
+    private boolean endOfStream = false;
+
+    // Scan state, valid for buffer[0, scanIndex)
+    private int scanIndex = 0;
+    private int lastBoundary = 0;
+    private boolean inQuote = false;
+    private boolean quoteClosed = false;
+    private boolean atFieldStart = true;
+    private boolean escaped = false;
+    private boolean inComment = false;
+    private boolean atLineStart = true;
+    private boolean lineHasContent = false;
+
+    /**
+     * @param in the CSV content
+     * @param csvFormat the format of the CSV content
+     * @param targetChunkSize the approximate number of bytes of content in each chunk
+     * @param skipSpacesBeforeQuote whether or not the parser skips white space at the start of a field before checking for a quote character
+     */
+    CSVChunkSplitter(final InputStream in, final CSVFormat csvFormat, final int targetChunkSize, final boolean skipSpacesBeforeQuote) {
+        this.in = in;
+        this.skipSpacesBeforeQuote = skipSpacesBeforeQuote;
+        this.delimiter = csvFormat.getDelimiter();
+        this.targetChunkSize = targetChunkSize;
+        this.quote = csvFormat.getQuoteCharacter() == null ? NONE : csvFormat.getQuoteCharacter();
+        this.escape = csvFormat.getEscapeCharacter() == null ? NONE : csvFormat.getEscapeCharacter();
+        this.commentMarker = csvFormat.getCommentMarker() == null ? NONE : csvFormat.getCommentMarker();
+        this.buffer = new byte[Math.max(targetChunkSize, 8192)];
+    }
+
+    /**
+     * Determines whether or not content that is written using the given format and character set can be split safely at the byte level
+     *
+     * @param csvFormat the format of the CSV content
+     * @param charset the character set of the CSV content
+     * @return <code>true</code> if the content can be split by a {@link CSVChunkSplitter}, <code>false</code> otherwise
+     */
+    static boolean isSplittable(final CSVFormat csvFormat, final Charset charset) {
+        if (!isSingleAsciiByte('\n', charset) || !isSingleAsciiByte('\r', charset) || !isSingleAsciiByte(csvFormat.getDelimiter(), charset)) {
+            return false;
+        }
+
+        return (csvFormat.getQuoteCharacter() == null || isSingleAsciiByte(csvFormat.getQuoteCharacter(), charset))
+            && (csvFormat.getEscapeCharacter() == null || isSingleAsciiByte(csvFormat.getEscapeCharacter(), charset))
+            && (csvFormat.getCommentMarker() == null || isSingleAsciiByte(csvFormat.getCommentMarker(), charset));
+    }
+
+    private static boolean isSingleAsciiByte(final char c, final Charset charset) {
+        if (c > 127) {
+            return false;
+        }
+
+        final byte[] encoded = String.valueOf(c).getBytes(charset);
+        return encoded.length == 1 && encoded[0] == c;
+    }
+
+    /**
+     * Returns the bytes that make up the first record of the stream, including any comment lines or blank lines that precede it and the
+     * line feed that terminates it. This is used to obtain the header line so that it can be prepended to every subsequent chunk.
+     *
+     * @return the bytes of the first record, or an empty array if the stream is empty
+     * @throws IOException if unable to read from the underlying stream
+     */
+    byte[] nextRecord() throws IOException {
+        final int end = findBoundary(true);
+        return take(end);
+    }
+
+    /**
+     * Returns the next chunk of records. Each chunk consists of one or more complete records and is approximately the target chunk size,
+     * unless a single record is larger than the target chunk size, in which case the chunk contains that entire record.
+     *
+     * @return the next chunk, or <code>null</code> if the end of the stream has been reached
+     * @throws IOException if unable to read from the underlying stream
+     */
+    byte[] nextChunk() throws IOException {
+        final int end = findBoundary(false);
+        if (end == 0) {
+            return null;
+        }
+
+        return take(end);
+    }
+
+    private int findBoundary(final boolean firstRecordOnly) throws IOException {
+        while (true) {
+            scan(firstRecordOnly);
+
+            if (firstRecordOnly && lastBoundary > 0) {
+                return lastBoundary;
+            }
+
+            if (endOfStream) {
+                return length;
+            }
+
+            if (length >= targetChunkSize && lastBoundary > 0) {
+                return lastBoundary;
+            }
+
+            fill();
+        }
+    }
+
+    private void scan(final boolean stopAtFirstBoundary) {
+        for (; scanIndex < length; scanIndex++) {
+            final int b = buffer[scanIndex];
+
+            if (escaped) {
+                escaped = false;
+                continue;
+            }
+
+            if (inComment) {
+                if (b == LINE_FEED) {
+                    inComment = false;
+                    atLineStart = true;
+                }
+                continue;
+            }
+
+            if (inQuote) {
+                if (b == escape) {
+                    escaped = true;
+                } else if (b == quote) {
+                    inQuote = false;
+                    quoteClosed = true;
+                }
+                continue;
+            }
+
+            if (quoteClosed) {
+                quoteClosed = false;
+                if (b == quote) {
+                    // Two consecutive quotes within a quoted value are a literal quote, so the value continues
+                    inQuote = true;
+                    continue;
+                }
+            }
+
+            if (b == LINE_FEED) {
+                atLineStart = true;
+                atFieldStart = true;
+                if (lineHasContent) {
+                    lineHasContent = false;
+                    lastBoundary = scanIndex + 1;
+                    if (stopAtFirstBoundary) {
+                        scanIndex++;
+                        return;
+                    }
+                }
+                continue;
+            }
+
+            if (b == CARRIAGE_RETURN) {
+                continue;
+            }
+
+            if (atLineStart && b == commentMarker) {
+                inComment = true;
+                atLineStart = false;
+                continue;
+            }
+
+            atLineStart = false;
+            lineHasContent = true;
+
+            if (b == escape) {
+                escaped = true;
+            } else if (b == quote && atFieldStart) {
+                inQuote = true;
+            }
+
+            atFieldStart = b == delimiter || (atFieldStart && skipSpacesBeforeQuote && isSpace(b));
+        }
+    }
+
+    private static boolean isSpace(final int b) {
+        // Both parsers treat any control character other than a line ending as white space. Bytes of multi-byte characters are negative.
+        return b >= 0 && b <= ' ' && b != LINE_FEED && b != CARRIAGE_RETURN;
+    }
+
+    private void fill() throws IOException {
+        if (length == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        final int read = in.read(buffer, length, buffer.length - length);
+        if (read < 0) {
+            endOfStream = true;
+        } else {
+            length += read;
+        }
+    }
+
+    private byte[] take(final int end) {
+        final byte[] taken = Arrays.copyOfRange(buffer, 0, end);
+
+        System.arraycopy(buffer, end, buffer, 0, length - end);
+        length -= end;
+
+        // Every boundary leaves the scanner in its initial state, so re-scan whatever remains from the beginning.
+        scanIndex = 0;
+        lastBoundary = 0;
+        inQuote = false;
+        quoteClosed = false;
+        atFieldStart = true;
+        escaped = false;
+        inComment = false;
+        atLineStart = true;
+        lineHasContent = false;
+
+        return taken;
+    }
+}
@@ -20,6 +20,7 @@ package org.apache.nifi.csv;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnDisabled;
 import org.apache.nifi.annotation.lifecycle.OnEnabled;
 import org.apache.nifi.components.AllowableValue;
 import org.apache.nifi.components.PropertyDescriptor;
@@ -27,6 +28,8 @@ import org.apache.nifi.context.PropertyContext;
 import org.apache.nifi.controller.ConfigurationContext;
 import org.apache.nifi.expression.ExpressionLanguageScope;
 import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.processor.DataUnit;
+import org.apache.nifi.processor.util.StandardValidators;
 import org.apache.nifi.schema.access.SchemaAccessStrategy;
 import org.apache.nifi.schema.access.SchemaAccessUtils;
 import org.apache.nifi.schema.access.SchemaNotFoundException;
@@ -45,10 +48,13 @@ import org.apache.nifi.stream.io.NonCloseableInputStream;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 @Tags({"csv", "parse", "record", "row", "reader", "delimited", "comma", "separated", "values"})
 @CapabilityDescription("Parses CSV-formatted data, returning each row in the CSV file as a separate record. "
@@ -79,6 +85,30 @@ public class CSVReader extends SchemaRegistryService implements RecordReaderFact
             .required(true)
             .build();
 
+    public static final PropertyDescriptor PARSING_PARALLELISM = new PropertyDescriptor.Builder()
+            .name("csv-reader-parsing-parallelism")
+            .displayName("Parsing Parallelism")
+            .description("The number of threads to use for parsing the records of a single FlowFile. If greater than 1, the content is split into chunks "
+                    + "at record boundaries and the chunks are parsed concurrently; records are still returned in the order in which they appear in the content. "
+                    + "This is most useful for large FlowFiles. Content that is encoded with a character set in which the delimiter, quote, escape, comment "
+                    + "or line feed characters are not single ASCII bytes (such as UTF-16) is always parsed by a single thread.")
+            .expressionLanguageSupported(ExpressionLanguageScope.NONE)
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .defaultValue("1")
+            .required(true)
+            .build();
+
+    public static final PropertyDescriptor PARALLEL_CHUNK_SIZE = new PropertyDescriptor.Builder()
+            .name("csv-reader-parallel-chunk-size")
+            .displayName("Parallel Chunk Size")
+            .description("When Parsing Parallelism is greater than 1, specifies the approximate amount of content that is parsed as a single unit of work. "
+                    + "Larger values reduce coordination overhead but increase the number of records that are held in memory at once.")
+            .expressionLanguageSupported(ExpressionLanguageScope.NONE)
+            .addValidator(StandardValidators.createDataSizeBoundsValidator(1024, Integer.MAX_VALUE))
+            .defaultValue("4 MB")
+            .required(true)
+            .build();
+
     private volatile ConfigurationContext context;
 
     private volatile String csvParser;
@@ -88,6 +118,9 @@ public class CSVReader extends SchemaRegistryService implements RecordReaderFact
     private volatile boolean firstLineIsHeader;
     private volatile boolean ignoreHeader;
     private volatile String charSet;
+    private volatile int parallelChunkSize;
+    private volatile int parsingParallelism;
+    private volatile ExecutorService parsingExecutor;
 
     // it will be initialized only if there are no dynamic csv formatting properties
     private volatile CSVFormat csvFormat;
@@ -96,6 +129,8 @@ public class CSVReader extends SchemaRegistryService implements RecordReaderFact
     protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
         final List<PropertyDescriptor> properties = new ArrayList<>(super.getSupportedPropertyDescriptors());
         properties.add(CSV_PARSER);
+        properties.add(PARSING_PARALLELISM);
+        properties.add(PARALLEL_CHUNK_SIZE);
         properties.add(DateTimeUtils.DATE_FORMAT);
         properties.add(DateTimeUtils.TIME_FORMAT);
         properties.add(DateTimeUtils.TIMESTAMP_FORMAT);
@@ -125,6 +160,9 @@ public class CSVReader extends SchemaRegistryService implements RecordReaderFact
         this.firstLineIsHeader = context.getProperty(CSVUtils.FIRST_LINE_IS_HEADER).asBoolean();
         this.ignoreHeader = context.getProperty(CSVUtils.IGNORE_CSV_HEADER).asBoolean();
         this.charSet = context.getProperty(CSVUtils.CHARSET).getValue();
+        this.parsingParallelism = context.getProperty(PARSING_PARALLELISM).asInteger();
+        this.parallelChunkSize = context.getProperty(PARALLEL_CHUNK_SIZE).asDataSize(DataUnit.B).intValue();
+        this.parsingExecutor = parsingParallelism > 1 ? new ForkJoinPool(parsingParallelism) : null;
 
         // Ensure that if we are deriving schema from header that we always treat the first line as a header,
         // regardless of the 'First Line is Header' property
@@ -140,6 +178,14 @@ public class CSVReader extends SchemaRegistryService implements RecordReaderFact
         }
     }
 
+    @OnDisabled
+    public void shutdownParsingExecutor() {
+        if (parsingExecutor != null) {
+            parsingExecutor.shutdownNow();
+            parsingExecutor = null;
+        }
+    }
+
     @Override
     public RecordReader createRecordReader(final Map<String, String> variables, final InputStream in, final long inputLength, final ComponentLog logger) throws IOException, SchemaNotFoundException {
         // Use Mark/Reset of a BufferedInputStream in case we read from the Input Stream for the header.
@@ -154,6 +200,18 @@ public class CSVReader extends SchemaRegistryService implements RecordReaderFact
             format = CSVUtils.createCSVFormat(context, variables);
         }
 
+        final ExecutorService executor = this.parsingExecutor;
+        if (executor != null && CSVChunkSplitter.isSplittable(format, Charset.forName(charSet))) {
+            // Apache Commons CSV skips leading white space before a quote only when ignoring surrounding spaces, whereas Jackson does so when trimming
+            final boolean skipSpacesBeforeQuote = APACHE_COMMONS_CSV.getValue().equals(csvParser) ? format.getIgnoreSurroundingSpaces() : format.getTrim();
+            return new ParallelCSVRecordReader(in, format, parallelChunkSize, skipSpacesBeforeQuote, firstLineIsHeader, schema, executor, parsingParallelism * 2,
+                chunkIn -> createSequentialRecordReader(chunkIn, logger, schema, format));
+        }
+
+        return createSequentialRecordReader(in, logger, schema, format);
+    }
+
+    private RecordReader createSequentialRecordReader(final InputStream in, final ComponentLog logger, final RecordSchema schema, final CSVFormat format) throws IOException {
         if (APACHE_COMMONS_CSV.getValue().equals(csvParser)) {
             return new CSVRecordReader(in, logger, schema, format, firstLineIsHeader, ignoreHeader, dateFormat, timeFormat, timestampFormat, charSet);
         } else if (JACKSON_CSV.getValue().equals(csvParser)) {
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.csv;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordSchema;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * A RecordReader that splits CSV content into chunks at record boundaries and parses the chunks concurrently. Each chunk is parsed by
+ * a standard CSV Record Reader that is created by the given {@link ChunkReaderFactory}, so the records produced are the same as those that
+ * would be produced by reading the content sequentially. Records are always returned in the order in which they appear in the content.
+ */
+public class ParallelCSVRecordReader implements RecordReader {
+    private final InputStream in;
+    private final CSVChunkSplitter splitter;
+    private final ExecutorService executor;
+    private final ChunkReaderFactory readerFactory;
+    private final RecordSchema schema;
+    private final int maxChunksInFlight;
+    private final byte[] header;
+
+    private final Queue<Future<List<Record>>> pendingChunks = new ArrayDeque<>();
+    private Iterator<Record> currentChunk = Collections.emptyIterator();
+    private boolean coerceTypes;
+    private boolean dropUnknownFields;
+    private boolean splitterExhausted = false;
+
+    /**
+     * @param in the CSV content
+     * @param csvFormat the format of the CSV content
+     * @param targetChunkSize the approximate number of bytes of content in each chunk
+     * @param skipSpacesBeforeQuote whether or not the parser that reads each chunk skips white space at the start of a field before checking for a quote character
+     * @param hasHeader whether or not the first record of the content is a header
+     * @param schema the schema of the records
+     * @param executor the executor used to parse chunks
+     * @param maxChunksInFlight the maximum number of chunks that may be read ahead of the chunk that is currently being consumed
+     * @param readerFactory creates a RecordReader for each chunk of content. If the content has a header, each chunk is preceded by the header.
+     * @throws IOException if unable to read the header from the content
+     */
+    public ParallelCSVRecordReader(final InputStream in, final CSVFormat csvFormat, final int targetChunkSize, final boolean skipSpacesBeforeQuote, final boolean hasHeader, final RecordSchema schema, final ExecutorService executor,
+                                   final int maxChunksInFlight, final ChunkReaderFactory readerFactory) throws IOException {
+        this.in = in;
+        this.splitter = new CSVChunkSplitter(in, csvFormat, targetChunkSize, skipSpacesBeforeQuote);
+        this.schema = schema;
+        this.executor = executor;
+        this.maxChunksInFlight = maxChunksInFlight;
+        this.readerFactory = readerFactory;
+        this.header = hasHeader ? splitter.nextRecord() : new byte[0];
+    }
+
+    @Override
+    public Record nextRecord(final boolean coerceTypes, final boolean dropUnknownFields) throws IOException, MalformedRecordException {
+        this.coerceTypes = coerceTypes;
+        this.dropUnknownFields = dropUnknownFields;
+
+        while (!currentChunk.hasNext()) {
+            submitChunks();
+
+            final Future<List<Record>> future = pendingChunks.poll();
+            if (future == null) {
+                return null;
+            }
+
+            currentChunk = getRecords(future).iterator();
+            submitChunks();
+        }
+
+        return currentChunk.next();
+    }
+
+    private void submitChunks() throws IOException {
+        // Chunks that are submitted ahead are parsed with the flags of the most recent call to nextRecord. In practice these do not change
+        // for the lifetime of a Record Reader.
+        final boolean coerce = coerceTypes;
+        final boolean drop = dropUnknownFields;
+
+        while (!splitterExhausted && pendingChunks.size() < maxChunksInFlight) {
+            final byte[] chunk = splitter.nextChunk();
+            if (chunk == null) {
+                splitterExhausted = true;
+                return;
+            }
+
+            pendingChunks.add(executor.submit(() -> parseChunk(chunk, coerce, drop)));
+        }
+    }
+
+    private List<Record> parseChunk(final byte[] chunk, final boolean coerceTypes, final boolean dropUnknownFields) throws IOException, MalformedRecordException {
+        final InputStream chunkIn = new SequenceInputStream(new ByteArrayInputStream(header), new ByteArrayInputStream(chunk));
+
+        final List<Record> records = new ArrayList<>();
+        try (final RecordReader reader = readerFactory.createReader(chunkIn)) {
+            Record record;
+            while ((record = reader.nextRecord(coerceTypes, dropUnknownFields)) != null) {
+                records.add(record);
+            }
+        }
+
+        return records;
+    }
+
+    private List<Record> getRecords(final Future<List<Record>> future) throws IOException, MalformedRecordException {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for CSV records to be parsed", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof MalformedRecordException) {
+                throw (MalformedRecordException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+
+            throw new MalformedRecordException("Failed to parse CSV records", cause);
+        }
+    }
+
+    @Override
+    public RecordSchema getSchema() {
+        return schema;
+    }
+
+    @Override
+    public void close() throws IOException {
+        Future<List<Record>> future;
+        while ((future = pendingChunks.poll()) != null) {
+            future.cancel(true);
+        }
+
+        in.close();
+    }
+
+    /**
+     * Creates the RecordReader that is used to parse a single chunk of CSV content
+     */
+    public interface ChunkReaderFactory {
+        RecordReader createReader(InputStream in) throws IOException;
+    }
+}
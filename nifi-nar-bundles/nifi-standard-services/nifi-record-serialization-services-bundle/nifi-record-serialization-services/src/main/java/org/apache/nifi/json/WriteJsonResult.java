@@ -35,6 +35,9 @@ import org.apache.nifi.serialization.record.type.ChoiceDataType;
 import org.apache.nifi.serialization.record.type.MapDataType;
 import org.apache.nifi.serialization.record.type.RecordDataType;
 import org.apache.nifi.serialization.record.util.DataTypeUtils;
+import org.apache.nifi.serialization.record.util.RecordConversionPlan;
+import org.apache.nifi.serialization.record.util.RecordConversionPlan.FieldConversion;
+import org.apache.nifi.serialization.record.util.RecordConversionPlanCache;
 import org.codehaus.jackson.JsonFactory;
 import org.codehaus.jackson.JsonGenerator;
 import org.codehaus.jackson.map.ObjectMapper;
@@ -43,6 +46,7 @@ import org.codehaus.jackson.util.MinimalPrettyPrinter;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Map;
@@ -51,6 +55,8 @@ import java.util.Set;
 import java.util.function.Supplier;
 
 public class WriteJsonResult extends AbstractRecordSetWriter implements RecordSetWriter, RawRecordWriter {
+    private static final int MAX_CONVERSION_PLANS = 100;
+
     private final ComponentLog logger;
     private final SchemaAccessWriter schemaAccess;
     private final RecordSchema recordSchema;
@@ -60,6 +66,7 @@ public class WriteJsonResult extends AbstractRecordSetWriter implements RecordSe
     private final Supplier<DateFormat> LAZY_DATE_FORMAT;
     private final Supplier<DateFormat> LAZY_TIME_FORMAT;
     private final Supplier<DateFormat> LAZY_TIMESTAMP_FORMAT;
+    private final RecordConversionPlanCache conversionPlans;
     private String mimeType = "application/json";
 
     private static final ObjectMapper objectMapper = new ObjectMapper();
@@ -90,6 +97,9 @@ public class WriteJsonResult extends AbstractRecordSetWriter implements RecordSe
         LAZY_TIME_FORMAT = () -> tf;
         LAZY_TIMESTAMP_FORMAT = () -> tsf;
 
+        // The conversion of each field depends only on the schema of the Record and the schema that it is written with, so it is planned once per pair of schemas
+        conversionPlans = new RecordConversionPlanCache(MAX_CONVERSION_PLANS, LAZY_DATE_FORMAT, LAZY_TIME_FORMAT, LAZY_TIMESTAMP_FORMAT, StandardCharsets.UTF_8);
+
         final JsonFactory factory = new JsonFactory();
         factory.setCodec(objectMapper);
 
@@ -184,7 +194,9 @@ public class WriteJsonResult extends AbstractRecordSetWriter implements RecordSe
             startTask.apply(generator);
 
             if (schemaAware) {
-                for (final RecordField field : writeSchema.getFields()) {
+                final RecordConversionPlan conversionPlan = conversionPlans.getPlan(record.getSchema(), writeSchema);
+                for (final FieldConversion conversion : conversionPlan.getFieldConversions()) {
+                    final RecordField field = conversion.getTargetField();
                     final String fieldName = field.getFieldName();
                     final Object value = record.getValue(field);
                     if (value == null) {
@@ -196,9 +208,7 @@ public class WriteJsonResult extends AbstractRecordSetWriter implements RecordSe
                     }
 
                     generator.writeFieldName(fieldName);
-
-                    final DataType dataType = writeSchema.getDataType(fieldName).get();
-                    writeValue(generator, value, fieldName, dataType);
+                    writeValue(generator, value, fieldName, conversion.getTargetDataType(), conversion);
                 }
             } else {
                 for (final String fieldName : record.getRawFieldNames()) {
@@ -314,6 +324,10 @@ public class WriteJsonResult extends AbstractRecordSetWriter implements RecordSe
 
     @SuppressWarnings("unchecked")
     private void writeValue(final JsonGenerator generator, final Object value, final String fieldName, final DataType dataType) throws IOException {
+        writeValue(generator, value, fieldName, dataType, null);
+    }
+
+    private void writeValue(final JsonGenerator generator, final Object value, final String fieldName, final DataType dataType, final FieldConversion conversion) throws IOException {
         if (value == null) {
             generator.writeNull();
             return;
@@ -326,7 +340,13 @@ public class WriteJsonResult extends AbstractRecordSetWriter implements RecordSe
             return;
         }
 
-        final Object coercedValue = DataTypeUtils.convertType(value, chosenDataType, LAZY_DATE_FORMAT, LAZY_TIME_FORMAT, LAZY_TIMESTAMP_FORMAT, fieldName);
+        final Object coercedValue;
+        if (conversion != null && chosenDataType == dataType) {
+            coercedValue = conversion.convert(value);
+        } else {
+            coercedValue = DataTypeUtils.convertType(value, chosenDataType, LAZY_DATE_FORMAT, LAZY_TIME_FORMAT, LAZY_TIMESTAMP_FORMAT, fieldName);
+        }
+
         if (coercedValue == null) {
             generator.writeNull();
             return;
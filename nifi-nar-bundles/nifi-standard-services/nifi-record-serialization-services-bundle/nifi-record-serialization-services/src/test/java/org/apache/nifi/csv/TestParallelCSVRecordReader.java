@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.csv;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestParallelCSVRecordReader {
+    private final CSVFormat format = CSVFormat.DEFAULT.withTrim().withQuote('"').withCommentMarker('#');
+
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        executor = new ForkJoinPool(4);
+    }
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private RecordSchema getSchema() {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("id", RecordFieldType.INT.getDataType()));
+        fields.add(new RecordField("name", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("comment", RecordFieldType.STRING.getDataType()));
+        return new SimpleRecordSchema(fields);
+    }
+
+    private String createContent(final int recordCount) {
+        final StringBuilder sb = new StringBuilder("# leading comment with \"unbalanced quote\n");
+        sb.append("id,name,comment\n");
+        for (int i = 0; i < recordCount; i++) {
+            sb.append(i).append(",name-").append(i).append(',');
+            switch (i % 4) {
+                case 0:
+                    sb.append("\"multi-line\nvalue, with \"\"quotes\"\" and\ncommas\"");
+                    break;
+                case 1:
+                    sb.append("plain");
+                    break;
+                case 2:
+                    sb.append("\"\"");
+                    break;
+                default:
+                    sb.append("\"黃凱揚\"\n# interleaved comment, with \"quote");
+                    break;
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private RecordReader createSequentialReader(final InputStream in, final RecordSchema schema, final String parser) throws IOException {
+        final ComponentLog logger = Mockito.mock(ComponentLog.class);
+        if (CSVReader.JACKSON_CSV.getValue().equals(parser)) {
+            return new JacksonCSVRecordReader(in, logger, schema, format, true, false, null, null, null, StandardCharsets.UTF_8.name());
+        }
+
+        return new CSVRecordReader(in, logger, schema, format, true, false, null, null, null, StandardCharsets.UTF_8.name());
+    }
+
+    private List<Record> readAll(final RecordReader reader) throws IOException, MalformedRecordException {
+        final List<Record> records = new ArrayList<>();
+        Record record;
+        while ((record = reader.nextRecord()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    @Test
+    public void testSameRecordsAsSequentialReader() throws IOException, MalformedRecordException {
+        final RecordSchema schema = getSchema();
+        final byte[] content = createContent(1000).getBytes(StandardCharsets.UTF_8);
+
+        final List<Record> expected;
+        try (final RecordReader reader = createSequentialReader(new ByteArrayInputStream(content), schema, CSVReader.APACHE_COMMONS_CSV.getValue())) {
+            expected = readAll(reader);
+        }
+        assertEquals(1000, expected.size());
+
+        for (final int chunkSize : new int[] {1, 50, 1024, content.length * 2}) {
+            try (final RecordReader reader = new ParallelCSVRecordReader(new ByteArrayInputStream(content), format, chunkSize, false, true, schema, executor, 8,
+                    in -> createSequentialReader(in, schema, CSVReader.APACHE_COMMONS_CSV.getValue()))) {
+                assertEquals(expected, readAll(reader));
+            }
+        }
+    }
+
+    @Test
+    public void testSameRecordsAsSequentialJacksonReader() throws IOException, MalformedRecordException {
+        final RecordSchema schema = getSchema();
+        final byte[] content = ("id,name,comment\n1,a,\"x\ny\"\n2,b,c\n\n3,c,\"d,e\"\n4,d,e").getBytes(StandardCharsets.UTF_8);
+
+        final List<Record> expected;
+        try (final RecordReader reader = createSequentialReader(new ByteArrayInputStream(content), schema, CSVReader.JACKSON_CSV.getValue())) {
+            expected = readAll(reader);
+        }
+        assertEquals(4, expected.size());
+
+        try (final RecordReader reader = new ParallelCSVRecordReader(new ByteArrayInputStream(content), format, 8, true, true, schema, executor, 2,
+                in -> createSequentialReader(in, schema, CSVReader.JACKSON_CSV.getValue()))) {
+            assertEquals(expected, readAll(reader));
+        }
+    }
+
+    @Test
+    public void testQuoteWithinFieldIsLiteral() throws IOException, MalformedRecordException {
+        final byte[] content = ("id,name,comment\n1,5\" pipe,plain\n2,b,\"multi\nline, value\"\n3,\"c\"\"\nd\",e\n4,d,e\n").getBytes(StandardCharsets.UTF_8);
+
+        // Apache Commons CSV does not skip leading spaces before a quote unless ignoring surrounding spaces, so the 5" is literal for both parsers
+        assertSameRecordsAsSequential(content, CSVReader.APACHE_COMMONS_CSV.getValue(), false, 4);
+        assertSameRecordsAsSequential(content, CSVReader.JACKSON_CSV.getValue(), true, 4);
+    }
+
+    @Test
+    public void testQuoteAfterLeadingSpaces() throws IOException, MalformedRecordException {
+        final byte[] content = ("id,name,comment\n1,a,  \"x\ny\"\n2,b,c\n").getBytes(StandardCharsets.UTF_8);
+
+        // Jackson skips the leading spaces when trimming, so the quoted value spans two lines
+        assertSameRecordsAsSequential(content, CSVReader.JACKSON_CSV.getValue(), true, 2);
+    }
+
+    private void assertSameRecordsAsSequential(final byte[] content, final String parser, final boolean skipSpacesBeforeQuote, final int expectedRecordCount)
+            throws IOException, MalformedRecordException {
+        final RecordSchema schema = getSchema();
+
+        final List<Record> expected;
+        try (final RecordReader reader = createSequentialReader(new ByteArrayInputStream(content), schema, parser)) {
+            expected = readAll(reader);
+        }
+        assertEquals(expectedRecordCount, expected.size());
+
+        for (final int chunkSize : new int[] {1, 8, 20, content.length * 2}) {
+            try (final RecordReader reader = new ParallelCSVRecordReader(new ByteArrayInputStream(content), format, chunkSize, skipSpacesBeforeQuote, true, schema, executor, 4,
+                    in -> createSequentialReader(in, schema, parser))) {
+                assertEquals(expected, readAll(reader));
+            }
+        }
+    }
+
+    @Test
+    public void testHeaderOnly() throws IOException, MalformedRecordException {
+        final RecordSchema schema = getSchema();
+        final byte[] content = "id,name,comment\n".getBytes(StandardCharsets.UTF_8);
+
+        try (final RecordReader reader = new ParallelCSVRecordReader(new ByteArrayInputStream(content), format, 1024, false, true, schema, executor, 2,
+                in -> createSequentialReader(in, schema, CSVReader.APACHE_COMMONS_CSV.getValue()))) {
+            assertTrue(readAll(reader).isEmpty());
+        }
+    }
+
+    @Test
+    public void testIsSplittable() {
+        assertTrue(CSVChunkSplitter.isSplittable(format, StandardCharsets.UTF_8));
+        assertTrue(CSVChunkSplitter.isSplittable(format, StandardCharsets.ISO_8859_1));
+        assertFalse(CSVChunkSplitter.isSplittable(format, StandardCharsets.UTF_16));
+        assertFalse(CSVChunkSplitter.isSplittable(format, StandardCharsets.UTF_16LE));
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.nifi.record.NullSuppression;
 import org.apache.nifi.schema.access.SchemaNameAsAttribute;
 import org.apache.nifi.serialization.SimpleRecordSchema;
 import org.apache.nifi.serialization.record.DataType;
+import org.apache.nifi.serialization.record.ListRecordSet;
 import org.apache.nifi.serialization.record.MapRecord;
 import org.apache.nifi.serialization.record.Record;
 import org.apache.nifi.serialization.record.RecordField;
@@ -47,6 +48,7 @@ import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -191,6 +193,53 @@ public class TestWriteJsonResult {
         assertEquals(expected, output);
     }
 
+    @Test
+    public void testRecordsOfDifferentSchemaConvertedToWriteSchema() throws IOException {
+        final List<RecordField> writeFields = new ArrayList<>();
+        writeFields.add(new RecordField("id", RecordFieldType.INT.getDataType()));
+        writeFields.add(new RecordField("name", RecordFieldType.STRING.getDataType(), null, Collections.singleton("full_name")));
+        writeFields.add(new RecordField("amount", RecordFieldType.CHOICE.getChoiceDataType(RecordFieldType.INT.getDataType(), RecordFieldType.DOUBLE.getDataType())));
+        writeFields.add(new RecordField("active", RecordFieldType.BOOLEAN.getDataType()));
+        final RecordSchema writeSchema = new SimpleRecordSchema(writeFields);
+
+        final List<RecordField> stringFields = new ArrayList<>();
+        stringFields.add(new RecordField("id", RecordFieldType.STRING.getDataType()));
+        stringFields.add(new RecordField("full_name", RecordFieldType.STRING.getDataType()));
+        stringFields.add(new RecordField("amount", RecordFieldType.STRING.getDataType()));
+        stringFields.add(new RecordField("active", RecordFieldType.STRING.getDataType()));
+        final RecordSchema stringSchema = new SimpleRecordSchema(stringFields);
+
+        final Map<String, Object> stringValues = new HashMap<>();
+        stringValues.put("id", "1");
+        stringValues.put("full_name", "John");
+        stringValues.put("amount", "1.5");
+        stringValues.put("active", "true");
+
+        final Map<String, Object> typedValues = new HashMap<>();
+        typedValues.put("id", 2);
+        typedValues.put("name", "Jane");
+        typedValues.put("amount", 3);
+        typedValues.put("active", false);
+
+        // Alternate between the schemas so that each conversion plan is used more than once
+        final List<Record> records = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            records.add(new MapRecord(stringSchema, stringValues));
+            records.add(new MapRecord(writeSchema, typedValues));
+        }
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (final WriteJsonResult writer = new WriteJsonResult(Mockito.mock(ComponentLog.class), writeSchema, new SchemaNameAsAttribute(), baos, false,
+                NullSuppression.NEVER_SUPPRESS, OutputGrouping.OUTPUT_ARRAY, null, null, null)) {
+            writer.write(new ListRecordSet(writeSchema, records));
+        }
+
+        final String stringRecordJson = "{\"id\":1,\"name\":\"John\",\"amount\":1.5,\"active\":true}";
+        final String typedRecordJson = "{\"id\":2,\"name\":\"Jane\",\"amount\":3,\"active\":false}";
+        final String expected = "[" + stringRecordJson + "," + typedRecordJson + "," + stringRecordJson + "," + typedRecordJson + "]";
+        assertEquals(expected, new String(baos.toByteArray(), StandardCharsets.UTF_8));
+    }
+
     @Test
     public void testExtraFieldInWriteRecord() throws IOException {
         final List<RecordField> fields = new ArrayList<>();
@@ -24,10 +24,9 @@ import org.apache.nifi.annotation.behavior.WritesAttributes;
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.Tags;
 import org.apache.nifi.annotation.lifecycle.OnScheduled;
+import org.apache.nifi.annotation.lifecycle.OnStopped;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.components.state.Scope;
-import org.apache.nifi.components.state.StateManager;
-import org.apache.nifi.components.state.StateMap;
 import org.apache.nifi.expression.ExpressionLanguageScope;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.processor.AbstractProcessor;
@@ -48,33 +47,50 @@ import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import static org.apache.nifi.processors.stateful.analysis.AttributeRollingWindow.ROLLING_WINDOW_COUNT_KEY;
+import static org.apache.nifi.processors.stateful.analysis.AttributeRollingWindow.ROLLING_WINDOW_MAX_KEY;
 import static org.apache.nifi.processors.stateful.analysis.AttributeRollingWindow.ROLLING_WINDOW_MEAN_KEY;
+import static org.apache.nifi.processors.stateful.analysis.AttributeRollingWindow.ROLLING_WINDOW_MIN_KEY;
+import static org.apache.nifi.processors.stateful.analysis.AttributeRollingWindow.ROLLING_WINDOW_STDDEV_KEY;
 import static org.apache.nifi.processors.stateful.analysis.AttributeRollingWindow.ROLLING_WINDOW_VALUE_KEY;
+import static org.apache.nifi.processors.stateful.analysis.AttributeRollingWindow.ROLLING_WINDOW_VARIANCE_KEY;
 
 @TriggerSerially
 @InputRequirement(InputRequirement.Requirement.INPUT_REQUIRED)
 @Tags({"Attribute Expression Language", "state", "data science", "rolling", "window"})
 @CapabilityDescription("Track a Rolling Window based on evaluating an Expression Language expression on each FlowFile and add that value to the processor's state. Each FlowFile will be emitted " +
-        "with the count of FlowFiles and total aggregate value of values processed in the current time window.")
+        "with the count of FlowFiles and total aggregate value of values processed in the current time window, along with their mean, variance, standard deviation, minimum and maximum.")
 @WritesAttributes({
         @WritesAttribute(attribute = ROLLING_WINDOW_VALUE_KEY, description = "The rolling window value (sum of all the values stored)."),
         @WritesAttribute(attribute = ROLLING_WINDOW_COUNT_KEY, description = "The count of the number of FlowFiles seen in the rolling window."),
-        @WritesAttribute(attribute = ROLLING_WINDOW_MEAN_KEY, description = "The mean of the FlowFiles seen in the rolling window.")
+        @WritesAttribute(attribute = ROLLING_WINDOW_MEAN_KEY, description = "The mean of the FlowFiles seen in the rolling window."),
+        @WritesAttribute(attribute = ROLLING_WINDOW_VARIANCE_KEY, description = "The (population) variance of the values of the FlowFiles seen in the rolling window."),
+        @WritesAttribute(attribute = ROLLING_WINDOW_STDDEV_KEY, description = "The (population) standard deviation of the values of the FlowFiles seen in the rolling window."),
+        @WritesAttribute(attribute = ROLLING_WINDOW_MIN_KEY, description = "The minimum of the values of the FlowFiles seen in the rolling window."),
+        @WritesAttribute(attribute = ROLLING_WINDOW_MAX_KEY, description = "The maximum of the values of the FlowFiles seen in the rolling window.")
 })
-@Stateful(scopes = {Scope.LOCAL}, description = "Store the values backing the rolling window. This includes storing the individual values and their time-stamps or the batches of values and their " +
-        "counts.")
+@Stateful(scopes = {Scope.LOCAL}, description = "Store the values backing the rolling window. The values are aggregated into sub-windows, and the count, sum, variance, minimum and maximum " +
+        "of the values in each sub-window are stored, along with the time at which the sub-window started.")
 public class AttributeRollingWindow extends AbstractProcessor {
 
     public static final String COUNT_KEY = "count";
     public static final String ROLLING_WINDOW_VALUE_KEY = "rolling_window_value";
     public static final String ROLLING_WINDOW_COUNT_KEY = "rolling_window_count";
     public static final String ROLLING_WINDOW_MEAN_KEY = "rolling_window_mean";
+    public static final String ROLLING_WINDOW_VARIANCE_KEY = "rolling_window_variance";
+    public static final String ROLLING_WINDOW_STDDEV_KEY = "rolling_window_stddev";
+    public static final String ROLLING_WINDOW_MIN_KEY = "rolling_window_min";
+    public static final String ROLLING_WINDOW_MAX_KEY = "rolling_window_max";
 
     public static final String CURRENT_MICRO_BATCH_STATE_TS_KEY = "start_curr_batch_ts";
     public static final String BATCH_APPEND_KEY = "_batch";
     public static final String COUNT_APPEND_KEY = "_count";
     public static final int COUNT_APPEND_KEY_LENGTH = 6;
 
+    /**
+     * The number of sub-windows into which the time window is divided when the sub-window length is not set
+     */
+    static final int DEFAULT_SUB_WINDOW_COUNT = 100;
+
     static final PropertyDescriptor VALUE_TO_TRACK = new PropertyDescriptor.Builder()
             .displayName("Value to track")
             .name("Value to track")
@@ -93,21 +109,36 @@ public class AttributeRollingWindow extends AbstractProcessor {
     static final PropertyDescriptor SUB_WINDOW_LENGTH = new PropertyDescriptor.Builder()
             .displayName("Sub-window length")
             .name("Sub-window length")
-            .description("When set, values will be batched into sub-windows of the set length. This allows for much larger length total windows to be set but sacrifices some precision. If this is " +
-                    "not set (or is 0) then each value is stored in state with the timestamp of when it was received. After the length of time stated in " + TIME_WINDOW.getDisplayName() +
-                    " elaspes the value will be removed. If this is set, values will be batched together every X amount of time (where X is the time period set for this property) and removed " +
-                    "all at once.")
+            .description("Values are batched into sub-windows of the set length, and all of the values in a sub-window are removed at once after the length of time stated in " +
+                    TIME_WINDOW.getDisplayName() + " has elapsed since the sub-window started. Longer sub-windows require less state but sacrifice some precision. If this is " +
+                    "not set (or is 0) then the " + TIME_WINDOW.getDisplayName() + " is divided into " + DEFAULT_SUB_WINDOW_COUNT + " sub-windows. Changing the sub-window length " +
+                    "discards the values that are currently in the window.")
             .addValidator(StandardValidators.TIME_PERIOD_VALIDATOR)
             .required(false)
             .build();
+    static final PropertyDescriptor STATE_PERSISTENCE_INTERVAL = new PropertyDescriptor.Builder()
+            .displayName("State persistence interval")
+            .name("State persistence interval")
+            .description("The rolling window is held in memory and is stored in the processor's state at most once in this amount of time, as well as when the processor is " +
+                    "stopped. Values that were added since the state was last stored will be lost if NiFi is not shut down gracefully. If set to 0, the state is stored " +
+                    "for every FlowFile, and a FlowFile is routed to 'set state fail' if its value could not be stored.")
+            .addValidator(StandardValidators.TIME_PERIOD_VALIDATOR)
+            .defaultValue("1 sec")
+            .required(true)
+            .build();
 
 
     private final Set<Relationship> relationships;
     private final List<PropertyDescriptor> properties;
     private Long timeWindow;
     private Long microBatchTime;
+    private long persistenceInterval;
     private static final Scope SCOPE = Scope.LOCAL;
 
+    private volatile RollingWindow rollingWindow;
+    private volatile boolean stateChanged;
+    private long lastPersisted;
+
     // relationships
     public static final Relationship REL_SUCCESS = new Relationship.Builder()
             .description("All FlowFiles are successfully processed are routed here")
@@ -133,6 +164,7 @@ public class AttributeRollingWindow extends AbstractProcessor {
         properties.add(VALUE_TO_TRACK);
         properties.add(TIME_WINDOW);
         properties.add(SUB_WINDOW_LENGTH);
+        properties.add(STATE_PERSISTENCE_INTERVAL);
         this.properties = Collections.unmodifiableList(properties);
     }
 
@@ -150,221 +182,96 @@ public class AttributeRollingWindow extends AbstractProcessor {
     public void onScheduled(final ProcessContext context) throws IOException {
         timeWindow = context.getProperty(TIME_WINDOW).asTimePeriod(TimeUnit.MILLISECONDS);
         microBatchTime = context.getProperty(SUB_WINDOW_LENGTH).asTimePeriod(TimeUnit.MILLISECONDS);
-
-        if(microBatchTime == null || microBatchTime == 0) {
-            StateManager stateManager = context.getStateManager();
-            StateMap state = stateManager.getState(SCOPE);
-            HashMap<String, String> tempMap = new HashMap<>();
-            tempMap.putAll(state.toMap());
-            if (!tempMap.containsKey(COUNT_KEY)) {
-                tempMap.put(COUNT_KEY, "0");
-                context.getStateManager().setState(tempMap, SCOPE);
-            }
+        if (microBatchTime == null || microBatchTime == 0) {
+            microBatchTime = Math.max(1L, timeWindow / DEFAULT_SUB_WINDOW_COUNT);
         }
+        persistenceInterval = context.getProperty(STATE_PERSISTENCE_INTERVAL).asTimePeriod(TimeUnit.MILLISECONDS);
+
+        // The window is restored from state when the first FlowFile is processed
+        rollingWindow = null;
+        stateChanged = false;
+        lastPersisted = 0L;
     }
 
-    @Override
-    public void onTrigger(ProcessContext context, ProcessSession session) throws ProcessException {
-        FlowFile flowFile = session.get();
-        if (flowFile == null) {
+    @OnStopped
+    public void onStopped(final ProcessContext context) {
+        final RollingWindow window = rollingWindow;
+        if (window == null || !stateChanged) {
             return;
         }
 
         try {
-            Long currTime = System.currentTimeMillis();
-            if(microBatchTime == null){
-                noMicroBatch(context, session, flowFile, currTime);
-            } else{
-                microBatch(context, session, flowFile, currTime);
-            }
-
-        } catch (Exception e) {
-            getLogger().error("Ran into an error while processing {}.", new Object[] { flowFile}, e);
-            session.transfer(flowFile, REL_FAILURE);
+            context.getStateManager().setState(window.toState(), SCOPE);
+            stateChanged = false;
+        } catch (final IOException e) {
+            getLogger().warn("Failed to store the rolling window in state when stopping; values that were added to the window in the last {} may be lost",
+                    new Object[] {context.getProperty(STATE_PERSISTENCE_INTERVAL).getValue()}, e);
         }
     }
 
-    private void noMicroBatch(ProcessContext context, ProcessSession session, FlowFile flowFile, Long currTime) {
-        Map<String, String> state = null;
-        try {
-            state = new HashMap<>(session.getState(SCOPE).toMap());
-        } catch (IOException e) {
-            getLogger().error("Failed to get the initial state when processing {}; transferring FlowFile back to its incoming queue", new Object[]{flowFile}, e);
-            session.transfer(flowFile);
-            context.yield();
+    @Override
+    public void onTrigger(ProcessContext context, ProcessSession session) throws ProcessException {
+        FlowFile flowFile = session.get();
+        if (flowFile == null) {
             return;
         }
 
-        Long count = Long.valueOf(state.get(COUNT_KEY));
-        count ++;
-
-        Set<String> keysToRemove = new HashSet<>();
-
-        for(String key: state.keySet()){
-            if(!key.equals(COUNT_KEY)){
-                Long timeStamp = Long.decode(key);
-
-                if(currTime - timeStamp > timeWindow) {
-                    keysToRemove.add(key);
-                    count --;
-
-                }
-            }
-        }
-        String countString = String.valueOf(count);
-
-        for(String key: keysToRemove){
-            state.remove(key);
-        }
-
-        Double aggregateValue = 0.0D;
-
-        for(Map.Entry<String,String> entry: state.entrySet()){
-            if(!entry.getKey().equals(COUNT_KEY)){
-                aggregateValue += Double.valueOf(entry.getValue());
+        final long currTime = System.currentTimeMillis();
+        if (rollingWindow == null) {
+            try {
+                rollingWindow = RollingWindow.fromState(session.getState(SCOPE).toMap(), timeWindow, microBatchTime, currTime);
+            } catch (IOException e) {
+                getLogger().error("Failed to get the initial state when processing {}; transferring FlowFile back to its incoming queue", new Object[]{flowFile}, e);
+                session.transfer(flowFile);
+                context.yield();
+                return;
             }
         }
 
-
-        final Double currentFlowFileValue = context.getProperty(VALUE_TO_TRACK).evaluateAttributeExpressions(flowFile).asDouble();
-
-        aggregateValue += currentFlowFileValue;
-
-        state.put(String.valueOf(currTime), String.valueOf(currentFlowFileValue));
-        state.put(COUNT_KEY, countString);
-
-        try {
-            session.setState(state, SCOPE);
-        } catch (IOException e) {
-            getLogger().error("Failed to set the state after successfully processing {} due a failure when setting the state. Transferring to '{}'",
-                    new Object[]{flowFile, REL_FAILED_SET_STATE.getName()}, e);
-
-            session.transfer(flowFile, REL_FAILED_SET_STATE);
-            context.yield();
-            return;
-        }
-
-        Double mean = aggregateValue / count;
-
-        Map<String, String> attributesToAdd = new HashMap<>();
-        attributesToAdd.put(ROLLING_WINDOW_VALUE_KEY, String.valueOf(aggregateValue));
-        attributesToAdd.put(ROLLING_WINDOW_COUNT_KEY, String.valueOf(count));
-        attributesToAdd.put(ROLLING_WINDOW_MEAN_KEY, String.valueOf(mean));
-
-        flowFile = session.putAllAttributes(flowFile, attributesToAdd);
-
-        session.transfer(flowFile, REL_SUCCESS);
-    }
-
-    private void microBatch(ProcessContext context, ProcessSession session, FlowFile flowFile, Long currTime) {
-        Map<String, String> state = null;
+        final Double currentFlowFileValue;
         try {
-            state = new HashMap<>(session.getState(SCOPE).toMap());
-        } catch (IOException e) {
-            getLogger().error("Failed to get the initial state when processing {}; transferring FlowFile back to its incoming queue", new Object[]{flowFile}, e);
-            session.transfer(flowFile);
-            context.yield();
+            currentFlowFileValue = context.getProperty(VALUE_TO_TRACK).evaluateAttributeExpressions(flowFile).asDouble();
+            if (currentFlowFileValue == null) {
+                throw new ProcessException("The value to track for " + flowFile + " is empty");
+            }
+        } catch (Exception e) {
+            getLogger().error("Ran into an error while processing {}.", new Object[] { flowFile}, e);
+            session.transfer(flowFile, REL_FAILURE);
             return;
         }
 
-        String currBatchStart = state.get(CURRENT_MICRO_BATCH_STATE_TS_KEY);
-        boolean newBatch = false;
-        if(currBatchStart != null){
-            if (currTime - Long.valueOf(currBatchStart) > microBatchTime) {
-                newBatch = true;
-                currBatchStart = String.valueOf(currTime);
-                state.put(CURRENT_MICRO_BATCH_STATE_TS_KEY, currBatchStart);
+        final RollingWindow window = rollingWindow;
+        window.add(currTime, currentFlowFileValue);
+
+        if (currTime - lastPersisted >= persistenceInterval) {
+            try {
+                session.setState(window.toState(), SCOPE);
+                lastPersisted = currTime;
+                stateChanged = false;
+            } catch (IOException e) {
+                getLogger().error("Failed to set the state after successfully processing {} due a failure when setting the state. Transferring to '{}'",
+                        new Object[]{flowFile, REL_FAILED_SET_STATE.getName()}, e);
+
+                // The value has been added to the window, so restore the window from the state that was last stored
+                rollingWindow = null;
+                session.transfer(flowFile, REL_FAILED_SET_STATE);
+                context.yield();
+                return;
             }
         } else {
-            newBatch = true;
-            currBatchStart = String.valueOf(currTime);
-            state.put(CURRENT_MICRO_BATCH_STATE_TS_KEY, currBatchStart);
-        }
-
-        Long count = 0L;
-        count += 1;
-
-        Set<String> keysToRemove = new HashSet<>();
-
-        for(String key: state.keySet()){
-            String timeStampString;
-            if (key.endsWith(BATCH_APPEND_KEY)) {
-                timeStampString = key.substring(0, key.length() - COUNT_APPEND_KEY_LENGTH);
-                Long timeStamp = Long.decode(timeStampString);
-
-                if (currTime - timeStamp  > timeWindow) {
-                    keysToRemove.add(key);
-                }
-            } else if(key.endsWith(COUNT_APPEND_KEY)) {
-                timeStampString = key.substring(0, key.length() - COUNT_APPEND_KEY_LENGTH);
-                Long timeStamp = Long.decode(timeStampString);
-
-                if (currTime - timeStamp > timeWindow) {
-                    keysToRemove.add(key);
-                } else {
-                    count += Long.valueOf(state.get(key));
-                }
-            }
-        }
-
-        for(String key:keysToRemove){
-            state.remove(key);
-        }
-        keysToRemove.clear();
-
-        Double aggregateValue = 0.0D;
-        Double currentBatchValue =  0.0D;
-        Long currentBatchCount = 0L;
-
-        for(Map.Entry<String,String> entry: state.entrySet()){
-            String key = entry.getKey();
-            if (key.endsWith(BATCH_APPEND_KEY)) {
-                String timeStampString = key.substring(0, key.length() - COUNT_APPEND_KEY_LENGTH);
-
-                Double batchValue = Double.valueOf(entry.getValue());
-                Long batchCount = Long.valueOf(state.get(timeStampString+COUNT_APPEND_KEY));
-                if (!newBatch && timeStampString.equals(currBatchStart)) {
-
-                    final Double currentFlowFileValue = context.getProperty(VALUE_TO_TRACK).evaluateAttributeExpressions(flowFile).asDouble();
-                    batchCount++;
-
-                    batchValue += currentFlowFileValue;
-                    currentBatchValue = batchValue;
-                    currentBatchCount = batchCount;
-                }
-
-                aggregateValue += batchValue;
-
-            }
-        }
-
-        if(newBatch) {
-            final Double currentFlowFileValue = context.getProperty(VALUE_TO_TRACK).evaluateAttributeExpressions(flowFile).asDouble();
-
-            currentBatchValue += currentFlowFileValue;
-            currentBatchCount = 1L;
-
-            aggregateValue += currentBatchValue;
-        }
-
-        state.put(currBatchStart + BATCH_APPEND_KEY, String.valueOf(currentBatchValue));
-        state.put(currBatchStart + COUNT_APPEND_KEY, String.valueOf(currentBatchCount));
-
-        try {
-            session.setState(state, SCOPE);
-        } catch (IOException e) {
-            getLogger().error("Failed to get the initial state when processing {}; transferring FlowFile back to its incoming queue", new Object[]{flowFile}, e);
-            session.transfer(flowFile);
-            context.yield();
-            return;
+            stateChanged = true;
         }
 
-        Double mean = aggregateValue / count;
+        final double variance = window.getVariance();
 
         Map<String, String> attributesToAdd = new HashMap<>();
-        attributesToAdd.put(ROLLING_WINDOW_VALUE_KEY, String.valueOf(aggregateValue));
-        attributesToAdd.put(ROLLING_WINDOW_COUNT_KEY, String.valueOf(count));
-        attributesToAdd.put(ROLLING_WINDOW_MEAN_KEY, String.valueOf(mean));
+        attributesToAdd.put(ROLLING_WINDOW_VALUE_KEY, String.valueOf(window.getSum()));
+        attributesToAdd.put(ROLLING_WINDOW_COUNT_KEY, String.valueOf(window.getCount()));
+        attributesToAdd.put(ROLLING_WINDOW_MEAN_KEY, String.valueOf(window.getMean()));
+        attributesToAdd.put(ROLLING_WINDOW_VARIANCE_KEY, String.valueOf(variance));
+        attributesToAdd.put(ROLLING_WINDOW_STDDEV_KEY, String.valueOf(Math.sqrt(variance)));
+        attributesToAdd.put(ROLLING_WINDOW_MIN_KEY, String.valueOf(window.getMin()));
+        attributesToAdd.put(ROLLING_WINDOW_MAX_KEY, String.valueOf(window.getMax()));
 
         flowFile = session.putAllAttributes(flowFile, attributesToAdd);
 
@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.stateful.analysis;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.apache.nifi.processors.stateful.analysis.AttributeRollingWindow.BATCH_APPEND_KEY;
+import static org.apache.nifi.processors.stateful.analysis.AttributeRollingWindow.COUNT_APPEND_KEY;
+import static org.apache.nifi.processors.stateful.analysis.AttributeRollingWindow.COUNT_KEY;
+
+/**
+ * A rolling window of values that are aggregated into fixed-width buckets of time. Each bucket holds the count, sum, mean, sum of squared
+ * differences from the mean, minimum and maximum of the values added during its time, so adding a value takes constant time regardless of
+ * how many values the window holds. The aggregates of the whole window are updated as each value is added, and are recalculated from the
+ * remaining buckets whenever a bucket expires.
+ * <p>
+ * A bucket expires, and all of its values with it, once the start of the bucket is further in the past than the length of the window.
+ * </p>
+ */
+final class RollingWindow {
+
+    static final String BUCKET_WIDTH_KEY = "bucket_width";
+    static final String SUM_OF_SQUARES_APPEND_KEY = "_m2";
+    static final String MIN_APPEND_KEY = "_min";
+    static final String MAX_APPEND_KEY = "_max";
+
+    private final long windowMillis;
+    private final long bucketMillis;
+    private final ArrayDeque<Bucket> buckets = new ArrayDeque<>();
+    private final Bucket total = new Bucket(0L);
+
+    RollingWindow(final long windowMillis, final long bucketMillis) {
+        if (bucketMillis <= 0) {
+            throw new IllegalArgumentException("Bucket width must be positive but was " + bucketMillis);
+        }
+
+        this.windowMillis = windowMillis;
+        this.bucketMillis = bucketMillis;
+    }
+
+    /**
+     * Adds a value to the window, first expiring any buckets that are no longer within the window as of the given time.
+     *
+     * @param timestamp the time at which the value was observed, in milliseconds since the epoch
+     * @param value the value
+     */
+    void add(final long timestamp, final double value) {
+        expire(timestamp);
+
+        final long bucketStart = timestamp - Math.floorMod(timestamp, bucketMillis);
+        Bucket bucket = buckets.peekLast();
+        if (bucket == null || bucket.start < bucketStart) {
+            bucket = new Bucket(bucketStart);
+            buckets.addLast(bucket);
+        }
+
+        // If the clock went backwards, the value is added to the latest bucket
+        bucket.add(value);
+        total.add(value);
+    }
+
+    /**
+     * Removes the buckets that are no longer within the window as of the given time.
+     *
+     * @param now the current time, in milliseconds since the epoch
+     */
+    void expire(final long now) {
+        boolean expired = false;
+        while (!buckets.isEmpty() && now - buckets.peekFirst().start > windowMillis) {
+            buckets.removeFirst();
+            expired = true;
+        }
+
+        if (expired) {
+            total.clear();
+            for (final Bucket bucket : buckets) {
+                total.merge(bucket);
+            }
+        }
+    }
+
+    long getCount() {
+        return total.count;
+    }
+
+    double getSum() {
+        return total.sum;
+    }
+
+    double getMean() {
+        return total.count == 0 ? Double.NaN : total.sum / total.count;
+    }
+
+    /**
+     * @return the population variance of the values in the window
+     */
+    double getVariance() {
+        return total.count == 0 ? Double.NaN : total.sumOfSquares / total.count;
+    }
+
+    double getMin() {
+        return total.count == 0 ? Double.NaN : total.min;
+    }
+
+    double getMax() {
+        return total.count == 0 ? Double.NaN : total.max;
+    }
+
+    int getBucketCount() {
+        return buckets.size();
+    }
+
+    /**
+     * @return a representation of the window that may be stored in a StateMap and restored with {@link #fromState(Map, long, long, long)}
+     */
+    Map<String, String> toState() {
+        final Map<String, String> state = new HashMap<>(buckets.size() * 5 + 1);
+        state.put(BUCKET_WIDTH_KEY, String.valueOf(bucketMillis));
+        for (final Bucket bucket : buckets) {
+            final String start = String.valueOf(bucket.start);
+            state.put(start + BATCH_APPEND_KEY, String.valueOf(bucket.sum));
+            state.put(start + COUNT_APPEND_KEY, String.valueOf(bucket.count));
+            state.put(start + SUM_OF_SQUARES_APPEND_KEY, String.valueOf(bucket.sumOfSquares));
+            state.put(start + MIN_APPEND_KEY, String.valueOf(bucket.min));
+            state.put(start + MAX_APPEND_KEY, String.valueOf(bucket.max));
+        }
+        return state;
+    }
+
+    /**
+     * Restores a window from the representation created by {@link #toState()}, dropping any buckets that have expired as of the given time. If the
+     * state was stored with a different bucket width, an empty window is returned. State that was stored by earlier versions of AttributeRollingWindow,
+     * which held either each value keyed by its timestamp or the sum and count of each sub-window, is aggregated into buckets; as the minimum, maximum
+     * and variance of the values in a sub-window were not stored, they are taken from the sub-window's mean.
+     */
+    static RollingWindow fromState(final Map<String, String> state, final long windowMillis, final long bucketMillis, final long now) {
+        final RollingWindow window = new RollingWindow(windowMillis, bucketMillis);
+
+        final String bucketWidth = state.get(BUCKET_WIDTH_KEY);
+        if (bucketWidth != null && Long.parseLong(bucketWidth) != bucketMillis) {
+            return window;
+        }
+
+        final Map<Long, Bucket> restored = new TreeMap<>();
+        for (final Map.Entry<String, String> entry : state.entrySet()) {
+            final String key = entry.getKey();
+            if (key.endsWith(COUNT_APPEND_KEY)) {
+                final String start = key.substring(0, key.length() - COUNT_APPEND_KEY.length());
+                final String sum = state.get(start + BATCH_APPEND_KEY);
+                if (sum == null) {
+                    continue;
+                }
+
+                final Bucket bucket = new Bucket(Long.parseLong(start));
+                bucket.count = Long.parseLong(entry.getValue());
+                bucket.sum = Double.parseDouble(sum);
+                if (bucket.count == 0) {
+                    continue;
+                }
+
+                final double mean = bucket.sum / bucket.count;
+                bucket.mean = mean;
+                bucket.sumOfSquares = parseDouble(state.get(start + SUM_OF_SQUARES_APPEND_KEY), 0D);
+                bucket.min = parseDouble(state.get(start + MIN_APPEND_KEY), mean);
+                bucket.max = parseDouble(state.get(start + MAX_APPEND_KEY), mean);
+                restore(restored, bucket, bucketMillis);
+            } else if (bucketWidth == null && !key.equals(COUNT_KEY) && isTimestamp(key)) {
+                final Bucket bucket = new Bucket(Long.parseLong(key));
+                bucket.add(Double.parseDouble(entry.getValue()));
+                restore(restored, bucket, bucketMillis);
+            }
+        }
+
+        for (final Bucket bucket : restored.values()) {
+            if (now - bucket.start <= windowMillis) {
+                window.buckets.addLast(bucket);
+                window.total.merge(bucket);
+            }
+        }
+
+        return window;
+    }
+
+    private static void restore(final Map<Long, Bucket> restored, final Bucket bucket, final long bucketMillis) {
+        final long bucketStart = bucket.start - Math.floorMod(bucket.start, bucketMillis);
+        restored.computeIfAbsent(bucketStart, Bucket::new).merge(bucket);
+    }
+
+    private static boolean isTimestamp(final String key) {
+        if (key.isEmpty()) {
+            return false;
+        }
+
+        for (int i = 0; i < key.length(); i++) {
+            if (!Character.isDigit(key.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double parseDouble(final String value, final double defaultValue) {
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    private static class Bucket {
+        private final long start;
+        private long count;
+        private double sum;
+        private double mean;
+        private double sumOfSquares;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        private Bucket(final long start) {
+            this.start = start;
+        }
+
+        private void add(final double value) {
+            // Welford's algorithm
+            count++;
+            sum += value;
+            final double delta = value - mean;
+            mean += delta / count;
+            sumOfSquares += delta * (value - mean);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        private void merge(final Bucket other) {
+            if (other.count == 0) {
+                return;
+            }
+
+            // Chan et al.'s method of combining the sums of squares of two sets of values
+            final long combinedCount = count + other.count;
+            final double delta = other.mean - mean;
+            mean += delta * other.count / combinedCount;
+            sumOfSquares += other.sumOfSquares + delta * delta * count * other.count / combinedCount;
+            count = combinedCount;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+
+        private void clear() {
+            count = 0;
+            sum = 0D;
+            mean = 0D;
+            sumOfSquares = 0D;
+            min = Double.POSITIVE_INFINITY;
+            max = Double.NEGATIVE_INFINITY;
+        }
+    }
+}
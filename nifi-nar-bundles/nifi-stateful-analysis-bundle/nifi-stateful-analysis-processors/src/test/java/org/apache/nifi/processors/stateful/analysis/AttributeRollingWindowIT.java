@@ -29,13 +29,18 @@ import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 import org.junit.jupiter.api.condition.OS;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 import static org.apache.nifi.processors.stateful.analysis.AttributeRollingWindow.REL_FAILED_SET_STATE;
 import static org.apache.nifi.processors.stateful.analysis.AttributeRollingWindow.ROLLING_WINDOW_COUNT_KEY;
+import static org.apache.nifi.processors.stateful.analysis.AttributeRollingWindow.ROLLING_WINDOW_MAX_KEY;
 import static org.apache.nifi.processors.stateful.analysis.AttributeRollingWindow.ROLLING_WINDOW_MEAN_KEY;
+import static org.apache.nifi.processors.stateful.analysis.AttributeRollingWindow.ROLLING_WINDOW_MIN_KEY;
+import static org.apache.nifi.processors.stateful.analysis.AttributeRollingWindow.ROLLING_WINDOW_STDDEV_KEY;
 import static org.apache.nifi.processors.stateful.analysis.AttributeRollingWindow.ROLLING_WINDOW_VALUE_KEY;
+import static org.apache.nifi.processors.stateful.analysis.AttributeRollingWindow.ROLLING_WINDOW_VARIANCE_KEY;
 
 public class AttributeRollingWindowIT {
 
@@ -141,6 +146,37 @@ public class AttributeRollingWindowIT {
     }
 
 
+    @Test
+    public void testStatisticsRestoredFromState() {
+        final TestRunner runner = TestRunners.newTestRunner(AttributeRollingWindow.class);
+
+        runner.setProperty(AttributeRollingWindow.VALUE_TO_TRACK, "${value}");
+        runner.setProperty(AttributeRollingWindow.TIME_WINDOW, "1 hour");
+        runner.setProperty(AttributeRollingWindow.STATE_PERSISTENCE_INTERVAL, "1 hour");
+
+        for (final String value : new String[] {"2", "4", "4", "4", "5", "5", "7"}) {
+            runner.enqueue(new byte[0], Collections.singletonMap("value", value));
+        }
+        runner.run(7);
+        runner.assertAllFlowFilesTransferred(AttributeRollingWindow.REL_SUCCESS, 7);
+        runner.clearTransferState();
+
+        // stopping the processor stores the values added since the state was last stored
+        runner.getStateManager().assertStateEquals(RollingWindow.BUCKET_WIDTH_KEY, "36000", Scope.LOCAL);
+
+        runner.enqueue(new byte[0], Collections.singletonMap("value", "9"));
+        runner.run(1);
+        runner.assertAllFlowFilesTransferred(AttributeRollingWindow.REL_SUCCESS, 1);
+        final MockFlowFile flowFile = runner.getFlowFilesForRelationship(AttributeRollingWindow.REL_SUCCESS).get(0);
+        flowFile.assertAttributeEquals(ROLLING_WINDOW_VALUE_KEY, "40.0");
+        flowFile.assertAttributeEquals(ROLLING_WINDOW_COUNT_KEY, "8");
+        flowFile.assertAttributeEquals(ROLLING_WINDOW_MEAN_KEY, "5.0");
+        flowFile.assertAttributeEquals(ROLLING_WINDOW_VARIANCE_KEY, "4.0");
+        flowFile.assertAttributeEquals(ROLLING_WINDOW_STDDEV_KEY, "2.0");
+        flowFile.assertAttributeEquals(ROLLING_WINDOW_MIN_KEY, "2.0");
+        flowFile.assertAttributeEquals(ROLLING_WINDOW_MAX_KEY, "9.0");
+    }
+
     @Test
     @DisabledOnOs(OS.WINDOWS)
     public void testVerifyCount() throws InterruptedException {
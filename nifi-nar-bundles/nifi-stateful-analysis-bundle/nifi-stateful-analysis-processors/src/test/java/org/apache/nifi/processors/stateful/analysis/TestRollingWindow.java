@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.stateful.analysis;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestRollingWindow {
+
+    private static final double DELTA = 1E-9;
+
+    @Test
+    public void testStatistics() {
+        final RollingWindow window = new RollingWindow(10_000L, 1_000L);
+        final double[] values = {2, 4, 4, 4, 5, 5, 7, 9};
+        for (int i = 0; i < values.length; i++) {
+            window.add(100_000L + i * 500L, values[i]);
+        }
+
+        assertEquals(8, window.getCount());
+        assertEquals(40D, window.getSum(), DELTA);
+        assertEquals(5D, window.getMean(), DELTA);
+        assertEquals(4D, window.getVariance(), DELTA);
+        assertEquals(2D, window.getMin(), DELTA);
+        assertEquals(9D, window.getMax(), DELTA);
+        assertEquals(4, window.getBucketCount());
+    }
+
+    @Test
+    public void testExpiry() {
+        final RollingWindow window = new RollingWindow(3_000L, 1_000L);
+        window.add(10_000L, 10D);
+        window.add(11_000L, 1D);
+        window.add(12_500L, 3D);
+
+        assertEquals(3, window.getCount());
+        assertEquals(10D, window.getMax(), DELTA);
+
+        // the bucket starting at 10,000 expires once it is more than 3 seconds old
+        window.expire(13_000L);
+        assertEquals(3, window.getCount());
+        window.add(13_001L, 5D);
+
+        assertEquals(3, window.getCount());
+        assertEquals(9D, window.getSum(), DELTA);
+        assertEquals(3D, window.getMean(), DELTA);
+        assertEquals(8D / 3, window.getVariance(), DELTA);
+        assertEquals(1D, window.getMin(), DELTA);
+        assertEquals(5D, window.getMax(), DELTA);
+
+        window.expire(20_000L);
+        assertEquals(0, window.getCount());
+        assertEquals(0D, window.getSum(), DELTA);
+        assertTrue(Double.isNaN(window.getMean()));
+        assertEquals(0, window.getBucketCount());
+    }
+
+    @Test
+    public void testClockGoingBackwards() {
+        final RollingWindow window = new RollingWindow(3_000L, 1_000L);
+        window.add(10_500L, 1D);
+        window.add(9_500L, 2D);
+
+        assertEquals(2, window.getCount());
+        assertEquals(1, window.getBucketCount());
+    }
+
+    @Test
+    public void testRestoreFromState() {
+        final RollingWindow window = new RollingWindow(5_000L, 1_000L);
+        window.add(10_000L, 1D);
+        window.add(12_000L, 2D);
+        window.add(12_100L, 6D);
+        window.add(14_000L, -3D);
+
+        final Map<String, String> state = window.toState();
+
+        final RollingWindow restored = RollingWindow.fromState(state, 5_000L, 1_000L, 14_500L);
+        assertEquals(window.getCount(), restored.getCount());
+        assertEquals(window.getSum(), restored.getSum(), DELTA);
+        assertEquals(window.getVariance(), restored.getVariance(), DELTA);
+        assertEquals(window.getMin(), restored.getMin(), DELTA);
+        assertEquals(window.getMax(), restored.getMax(), DELTA);
+
+        // buckets that expired while the state was stored are dropped
+        final RollingWindow later = RollingWindow.fromState(state, 5_000L, 1_000L, 16_000L);
+        assertEquals(3, later.getCount());
+        assertEquals(5D, later.getSum(), DELTA);
+        assertEquals(-3D, later.getMin(), DELTA);
+
+        // a different bucket width discards the state
+        assertEquals(0, RollingWindow.fromState(state, 5_000L, 500L, 14_500L).getCount());
+    }
+
+    @Test
+    public void testRestoreFromLegacyState() {
+        final Map<String, String> valueState = new HashMap<>();
+        valueState.put(AttributeRollingWindow.COUNT_KEY, "3");
+        valueState.put("10000", "1.0");
+        valueState.put("10400", "3.0");
+        valueState.put("11000", "5.0");
+
+        final RollingWindow values = RollingWindow.fromState(valueState, 5_000L, 1_000L, 12_000L);
+        assertEquals(3, values.getCount());
+        assertEquals(9D, values.getSum(), DELTA);
+        assertEquals(8D / 3, values.getVariance(), DELTA);
+        assertEquals(1D, values.getMin(), DELTA);
+        assertEquals(5D, values.getMax(), DELTA);
+        assertEquals(2, values.getBucketCount());
+
+        final Map<String, String> batchState = new HashMap<>();
+        batchState.put(AttributeRollingWindow.CURRENT_MICRO_BATCH_STATE_TS_KEY, "11200");
+        batchState.put("10100" + AttributeRollingWindow.BATCH_APPEND_KEY, "6.0");
+        batchState.put("10100" + AttributeRollingWindow.COUNT_APPEND_KEY, "2");
+        batchState.put("11200" + AttributeRollingWindow.BATCH_APPEND_KEY, "4.0");
+        batchState.put("11200" + AttributeRollingWindow.COUNT_APPEND_KEY, "1");
+
+        final RollingWindow batches = RollingWindow.fromState(batchState, 5_000L, 1_000L, 12_000L);
+        assertEquals(3, batches.getCount());
+        assertEquals(10D, batches.getSum(), DELTA);
+        assertEquals(3D, batches.getMin(), DELTA);
+        assertEquals(4D, batches.getMax(), DELTA);
+    }
+
+    @Test
+    @Disabled("Intended only for manual testing to determine performance before/after modifications")
+    public void testAddPerformance() {
+        final RollingWindow window = new RollingWindow(60_000L, 600L);
+        final long start = System.nanoTime();
+        for (long i = 0; i < 50_000_000L; i++) {
+            window.add(i / 100, i % 1000);
+        }
+
+        System.out.printf("Added 50,000,000 values to a window of %d values in %d millis%n", window.getCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -26,8 +26,11 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertEquals;
@@ -166,6 +169,82 @@ public class TestExecuteStateless {
         runner.assertAllFlowFilesTransferred(ExecuteStateless.REL_FAILURE, 1);
     }
 
+    @Test
+    public void testSharedDataflowWithConcurrentTasks() {
+        runner.setProperty(ExecuteStateless.DATAFLOW_FILE, "src/test/resources/passthrough-flow.json");
+        runner.setProperty(ExecuteStateless.INPUT_PORT, "In");
+        runner.setProperty(ExecuteStateless.DATAFLOW_CONCURRENCY_STRATEGY, ExecuteStateless.CONCURRENCY_SHARED_DATAFLOW);
+        runner.setThreadCount(4);
+
+        final Set<String> expectedContents = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            final String contents = "FlowFile " + i;
+            expectedContents.add(contents);
+            runner.enqueue(contents, Collections.singletonMap("index", String.valueOf(i)));
+        }
+
+        runUntilQueueEmpty();
+
+        runner.assertTransferCount(ExecuteStateless.REL_OUTPUT, 20);
+        runner.assertTransferCount(ExecuteStateless.REL_ORIGINAL, 20);
+        runner.assertTransferCount(ExecuteStateless.REL_FAILURE, 0);
+
+        // Each invocation of the shared dataflow must output only the FlowFile that it was given
+        for (final MockFlowFile output : runner.getFlowFilesForRelationship(ExecuteStateless.REL_OUTPUT)) {
+            output.assertContentEquals("FlowFile " + output.getAttribute("index"));
+        }
+
+        final Set<String> outputContents = runner.getFlowFilesForRelationship(ExecuteStateless.REL_OUTPUT).stream()
+            .map(flowFile -> new String(flowFile.toByteArray()))
+            .collect(Collectors.toSet());
+        assertEquals(expectedContents, outputContents);
+    }
+
+    @Test
+    public void testSharedDataflowProcessorExceptionRoutesToFailure() {
+        runner.setProperty(ExecuteStateless.DATAFLOW_FILE, "src/test/resources/throw-exception.json");
+        runner.setProperty(ExecuteStateless.INPUT_PORT, "In");
+        runner.setProperty(ExecuteStateless.DATAFLOW_CONCURRENCY_STRATEGY, ExecuteStateless.CONCURRENCY_SHARED_DATAFLOW);
+        runner.setThreadCount(4);
+
+        for (int i = 0; i < 5; i++) {
+            runner.enqueue("Hello World " + i);
+        }
+
+        runUntilQueueEmpty();
+
+        // The shared dataflow is rolled back after each failure and is then reused for the next FlowFile
+        runner.assertAllFlowFilesTransferred(ExecuteStateless.REL_FAILURE, 5);
+    }
+
+    @Test
+    public void testSharedDataflowTimeout() {
+        runner.setProperty(ExecuteStateless.DATAFLOW_FILE, "src/test/resources/sleep.json");
+        runner.setProperty(ExecuteStateless.INPUT_PORT, "In");
+        runner.setProperty(ExecuteStateless.DATAFLOW_TIMEOUT, "100 millis");
+        runner.setProperty(ExecuteStateless.DATAFLOW_CONCURRENCY_STRATEGY, ExecuteStateless.CONCURRENCY_SHARED_DATAFLOW);
+        runner.setProperty("Duration", "5 sec"); // Have DebugFlow sleep for 5 seconds
+        runner.setThreadCount(4);
+
+        runner.enqueue("Hello World");
+        runner.enqueue("Hello Again");
+
+        runUntilQueueEmpty();
+
+        runner.assertAllFlowFilesTransferred(ExecuteStateless.REL_TIMEOUT, 2);
+    }
+
+    private void runUntilQueueEmpty() {
+        // A concurrent task that finds the shared dataflow in use returns without pulling a FlowFile, so a single run may leave FlowFiles queued
+        runner.run(4, false, true);
+        for (int i = 0; i < 100 && !runner.isQueueEmpty(); i++) {
+            runner.run(4, false, false);
+        }
+
+        runner.run(1, true, false);
+        assertTrue(runner.isQueueEmpty());
+    }
+
     @Test
     public void testInfoBulletinNotSurfaced() {
         testBulletinSurfaced("INFO", false, MockComponentLog::getInfoMessages);
@@ -106,6 +106,8 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static org.apache.nifi.expression.ExpressionLanguageScope.FLOWFILE_ATTRIBUTES;
 import static org.apache.nifi.expression.ExpressionLanguageScope.NONE;
@@ -148,6 +150,16 @@ public class ExecuteStateless extends AbstractProcessor implements Searchable {
     public static final AllowableValue CONTENT_STORAGE_DISK = new AllowableValue("Store Content on Disk", "Store Content on Disk",
         "The FlowFile content will be stored on disk, within the configured Work Directory. The content will still be cleared between invocations and will not be persisted across restarts.");
 
+    public static final AllowableValue CONCURRENCY_DATAFLOW_PER_TASK = new AllowableValue("Dataflow per Concurrent Task", "Dataflow per Concurrent Task",
+        "Each concurrent task runs its own instance of the dataflow, with its own Controller Services, Processors and caches. Invocations of the dataflow are fully independent, " +
+        "but the heap that is used grows with the number of concurrent tasks.");
+    public static final AllowableValue CONCURRENCY_SHARED_DATAFLOW = new AllowableValue("Shared Dataflow", "Shared Dataflow",
+        "A single instance of the dataflow is shared by all concurrent tasks, so its Controller Services, Processors and caches are created only once. The dataflow is run one " +
+        "invocation at a time by one of the concurrent tasks, while the others yield. Within an invocation, the Processors of the dataflow are triggered as a pipeline by a " +
+        "separate pool of threads that belongs to the dataflow and has as many threads as there are concurrent tasks. Because each Processor is still triggered by only one " +
+        "thread at a time, this does not increase throughput for a dataflow whose time is spent mostly in a single Processor. This requires that the components in the " +
+        "dataflow are thread-safe, as they are when running in a traditional NiFi instance.");
+
     public static final PropertyDescriptor DATAFLOW_SPECIFICATION_STRATEGY = new Builder()
         .name("Dataflow Specification Strategy")
         .displayName("Dataflow Specification Strategy")
@@ -330,6 +342,17 @@ public class ExecuteStateless extends AbstractProcessor implements Searchable {
         .defaultValue("1 MB")
         .build();
 
+    public static final PropertyDescriptor DATAFLOW_CONCURRENCY_STRATEGY = new Builder()
+        .name("Dataflow Concurrency Strategy")
+        .displayName("Dataflow Concurrency Strategy")
+        .description("Specifies how the Processor's concurrent tasks make use of the dataflow when more than one concurrent task is configured. When the dataflow is shared, " +
+            "only one incoming FlowFile is processed at a time, regardless of the number of concurrent tasks, so the throughput is at most that of a single invocation of the " +
+            "dataflow. If throughput matters more than heap usage, use a dataflow per concurrent task.")
+        .required(true)
+        .allowableValues(CONCURRENCY_DATAFLOW_PER_TASK, CONCURRENCY_SHARED_DATAFLOW)
+        .defaultValue(CONCURRENCY_DATAFLOW_PER_TASK.getValue())
+        .build();
+
     public static final PropertyDescriptor STATUS_TASK_INTERVAL = new Builder()
             .name("Status Task Interval")
             .displayName("Status Task Interval")
@@ -361,6 +384,9 @@ public class ExecuteStateless extends AbstractProcessor implements Searchable {
 
     private final BlockingQueue<StatelessDataflow> dataflows = new LinkedBlockingDeque<>();
     private final AtomicInteger dataflowCreationCount = new AtomicInteger(0);
+    private final Lock sharedDataflowLock = new ReentrantLock();
+    private volatile StatelessDataflow sharedDataflow;
+    private volatile boolean shareDataflow;
     private volatile Set<String> failurePortNames;
     private volatile VersionedFlowSnapshot flowSnapshot;
     private volatile AbortableTriggerContext triggerContext;
@@ -381,6 +407,7 @@ public class ExecuteStateless extends AbstractProcessor implements Searchable {
             CONTENT_STORAGE_STRATEGY,
             MAX_INPUT_FLOWFILE_SIZE,
             DATAFLOW_TIMEOUT,
+            DATAFLOW_CONCURRENCY_STRATEGY,
             LIB_DIRECTORY,
             WORKING_DIRECTORY,
             MAX_INGEST_FLOWFILES,
@@ -437,6 +464,7 @@ public class ExecuteStateless extends AbstractProcessor implements Searchable {
         }
 
         this.failurePortNames = failurePorts;
+        this.shareDataflow = context.getProperty(DATAFLOW_CONCURRENCY_STRATEGY).getValue().equalsIgnoreCase(CONCURRENCY_SHARED_DATAFLOW.getValue());
     }
 
     @OnUnscheduled
@@ -454,6 +482,12 @@ public class ExecuteStateless extends AbstractProcessor implements Searchable {
         }
 
         dataflows.clear();
+
+        if (sharedDataflow != null) {
+            sharedDataflow.shutdown();
+            sharedDataflow = null;
+        }
+
         dataflowCreationCount.set(0);
     }
 
@@ -478,8 +512,22 @@ public class ExecuteStateless extends AbstractProcessor implements Searchable {
         return dataflow;
     }
 
+    private StatelessDataflow getSharedDataflow(final ProcessContext context) throws IOException, StatelessConfigurationException {
+        // Only called while holding the shared dataflow lock
+        if (sharedDataflow == null) {
+            sharedDataflow = createDataflow(context);
+        }
+
+        return sharedDataflow;
+    }
+
     @Override
     public void onTrigger(final ProcessContext context, final ProcessSession session) throws ProcessException {
+        if (shareDataflow) {
+            onTriggerSharedDataflow(context, session);
+            return;
+        }
+
         // Fetch a FlowFile, if appropriate
         FlowFile flowFile = null;
         if (context.hasIncomingConnection()) {
@@ -508,6 +556,39 @@ public class ExecuteStateless extends AbstractProcessor implements Searchable {
     }
 
 
+    private void onTriggerSharedDataflow(final ProcessContext context, final ProcessSession session) {
+        // The shared dataflow runs a single invocation at a time. If another concurrent task is currently running it, there's no need to
+        // hold a thread waiting for it, as that task will be triggered again to process any remaining data. Yield so that the framework
+        // does not immediately trigger this task again only to find the dataflow still busy.
+        if (!sharedDataflowLock.tryLock()) {
+            context.yield();
+            return;
+        }
+
+        try {
+            FlowFile flowFile = null;
+            if (context.hasIncomingConnection()) {
+                flowFile = session.get();
+                if (flowFile == null) {
+                    return;
+                }
+            }
+
+            final StatelessDataflow dataflow;
+            try {
+                dataflow = getSharedDataflow(context);
+            } catch (final Exception e) {
+                getLogger().error("Could not create dataflow from snapshot", e);
+                session.rollback();
+                return;
+            }
+
+            runDataflow(dataflow, flowFile, context, session);
+        } finally {
+            sharedDataflowLock.unlock();
+        }
+    }
+
     private void runDataflow(final StatelessDataflow dataflow, final FlowFile flowFile, final ProcessContext context, final ProcessSession session) {
         // Ensure that we get a legitimate timeout value
         final long timeoutMillis;
@@ -766,6 +847,10 @@ public class ExecuteStateless extends AbstractProcessor implements Searchable {
         final Double maxBytes = context.getProperty(MAX_INGEST_DATA_SIZE).asDataSize(DataUnit.B);
         final long maxTimeNanos = context.getProperty(DATAFLOW_TIMEOUT).asTimePeriod(TimeUnit.NANOSECONDS);
 
+        // When the dataflow is shared, it triggers its Processors as a pipeline using its own pool of threads, sized by the Processor's concurrent tasks.
+        // The concurrent tasks themselves only wait for the invocation to complete or yield while another task is running it.
+        final int maxConcurrentTasks = shareDataflow ? Math.max(1, context.getMaxConcurrentTasks()) : 1;
+
         final TransactionThresholds transactionThresholds = new TransactionThresholds() {
             @Override
             public OptionalLong getMaxFlowFiles() {
@@ -828,6 +913,11 @@ public class ExecuteStateless extends AbstractProcessor implements Searchable {
             public TransactionThresholds getTransactionThresholds() {
                 return transactionThresholds;
             }
+
+            @Override
+            public int getMaxConcurrentTasks() {
+                return maxConcurrentTasks;
+            }
         };
     }
 
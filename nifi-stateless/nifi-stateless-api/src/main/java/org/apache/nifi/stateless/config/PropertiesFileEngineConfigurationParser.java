@@ -17,6 +17,7 @@
 
 package org.apache.nifi.stateless.config;
 
+import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.stateless.engine.StatelessEngineConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,6 +52,8 @@ public class PropertiesFileEngineConfigurationParser {
     private static final String READONLY_EXTENSIONS_DIRECTORY = PREFIX + "readonly.extensions.directory.";
     private static final String WORKING_DIRECTORY = PREFIX + "working.directory";
     private static final String CONTENT_REPO_DIRECTORY = PREFIX + "content.repository.directory";
+    private static final String CONTENT_REPO_MEMORY_BUDGET = PREFIX + "content.repository.memory.budget";
+    private static final String CONTENT_REPO_MAX_IN_MEMORY_CLAIM_SIZE = PREFIX + "content.repository.memory.max.claim.size";
     private static final String STATUS_TASK_INTERVAL = PREFIX + "status.task.interval";
 
     private static final String TRUSTSTORE_FILE = PREFIX + "security.truststore";
@@ -100,6 +103,8 @@ public class PropertiesFileEngineConfigurationParser {
 
         final String contentRepoDirectoryFilename = properties.getProperty(CONTENT_REPO_DIRECTORY, "");
         final File contentRepoDirectory = contentRepoDirectoryFilename.isEmpty() ? null : new File(contentRepoDirectoryFilename);
+        final long contentRepoMemoryBudget = getDataSize(properties, CONTENT_REPO_MEMORY_BUDGET, "0 B");
+        final long contentRepoMaxInMemoryClaimSize = getDataSize(properties, CONTENT_REPO_MAX_IN_MEMORY_CLAIM_SIZE, "1 MB");
 
         final String krb5Filename = properties.getProperty(KRB5_FILE, DEFAULT_KRB5_FILENAME);
         final File krb5File = new File(krb5Filename);
@@ -142,6 +147,16 @@ public class PropertiesFileEngineConfigurationParser {
                 return Optional.ofNullable(contentRepoDirectory);
             }
 
+            @Override
+            public long getContentRepositoryMemoryBudget() {
+                return contentRepoMemoryBudget;
+            }
+
+            @Override
+            public long getContentRepositoryMaxInMemoryClaimSize() {
+                return contentRepoMaxInMemoryClaimSize;
+            }
+
             @Override
             public SslContextDefinition getSslContext() {
                 return sslContextDefinition;
@@ -165,6 +180,16 @@ public class PropertiesFileEngineConfigurationParser {
     }
 
 
+    private long getDataSize(final Properties properties, final String propertyName, final String defaultValue) throws StatelessConfigurationException {
+        final String propertyValue = properties.getProperty(propertyName, defaultValue).trim();
+
+        try {
+            return DataUnit.parseDataSize(propertyValue, DataUnit.B).longValue();
+        } catch (final IllegalArgumentException e) {
+            throw new StatelessConfigurationException("Configured property <" + propertyName + "> has a value of <" + propertyValue + ">, which is not a valid data size");
+        }
+    }
+
     private List<File> getReadOnlyExtensionsDirectories(final Properties properties) {
         return properties.keySet().stream()
             .map(Object::toString)
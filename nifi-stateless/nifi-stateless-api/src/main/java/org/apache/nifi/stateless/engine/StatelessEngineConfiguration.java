@@ -58,6 +58,22 @@ public interface StatelessEngineConfiguration {
      */
     Optional<File> getContentRepositoryDirectory();
 
+    /**
+     * @return the maximum number of bytes of FlowFile content that each dataflow may hold in memory when a content repository directory is configured. Content that does not
+     * fit within this budget is written to the content repository directory. A value of <code>0</code> indicates that all content is to be written to the directory.
+     */
+    default long getContentRepositoryMemoryBudget() {
+        return 0L;
+    }
+
+    /**
+     * @return the maximum size of the content of a single FlowFile that may be held in memory when a content repository memory budget is configured. The content of
+     * any larger FlowFile is written to the content repository directory.
+     */
+    default long getContentRepositoryMaxInMemoryClaimSize() {
+        return 1024 * 1024;
+    }
+
     /**
      * @return the definition needed to create an SSL Context that can be used for interacting with a Nexus Repository or retrieving a flow from the Flow Registry, etc.
      * This SSL Context will NOT be made available to extensions running in the dataflow.
@@ -42,4 +42,15 @@ public interface DataflowDefinition<T> {
     List<ParameterValueProviderDefinition> getParameterValueProviderDefinitions();
 
     TransactionThresholds getTransactionThresholds();
+
+    /**
+     * Returns the maximum number of threads that may be used to trigger the components of the dataflow concurrently. When greater than 1,
+     * the components downstream of the source components are triggered as a pipeline, so that a component may process one FlowFile while
+     * the component downstream of it processes another. The dataflow is still triggered and committed or rolled back as a single unit.
+     *
+     * @return the maximum number of threads that may be used to trigger the dataflow
+     */
+    default int getMaxConcurrentTasks() {
+        return 1;
+    }
 }
@@ -95,6 +95,7 @@ public class PropertiesFileFlowDefinitionParser implements DataflowDefinitionPar
     private static final String TRANSACTION_THRESHOLD_FLOWFILES = "nifi.stateless.transaction.thresholds.flowfiles";
     private static final String TRANSACTION_THRESHOLD_DATA_SIZE = "nifi.stateless.transaction.thresholds.bytes";
     private static final String TRANSACTION_THRESHOLD_TIME = "nifi.stateless.transaction.thresholds.time";
+    private static final String MAX_CONCURRENT_TASKS = "nifi.stateless.max.concurrent.tasks";
 
 
     public DataflowDefinition<VersionedFlowSnapshot> parseFlowDefinition(final File propertiesFile, final StatelessEngineConfiguration engineConfig, final List<ParameterOverride> parameterOverrides)
@@ -118,6 +119,7 @@ public class PropertiesFileFlowDefinitionParser implements DataflowDefinitionPar
         final List<ReportingTaskDefinition> reportingTaskDefinitions = getReportingTasks(properties);
         final List<ParameterValueProviderDefinition> parameterValueProviderDefinitions = getParameterValueProviders(properties, parameterOverrides);
         final TransactionThresholds transactionThresholds = getTransactionThresholds(properties);
+        final int maxConcurrentTasks = getMaxConcurrentTasks(properties);
 
         final String rootGroupName = flowSnapshot.getFlowContents().getName();
         final String flowName = properties.getOrDefault(FLOW_NAME, rootGroupName);
@@ -130,6 +132,7 @@ public class PropertiesFileFlowDefinitionParser implements DataflowDefinitionPar
             .reportingTasks(reportingTaskDefinitions)
             .parameterValueProviders(parameterValueProviderDefinitions)
             .transactionThresholds(transactionThresholds)
+            .maxConcurrentTasks(maxConcurrentTasks)
             .build();
     }
 
@@ -350,6 +353,19 @@ public class PropertiesFileFlowDefinitionParser implements DataflowDefinitionPar
         };
     }
 
+    private int getMaxConcurrentTasks(final Map<String, String> properties) {
+        final Long maxConcurrentTasks = getLongProperty(properties, MAX_CONCURRENT_TASKS);
+        if (maxConcurrentTasks == null) {
+            return 1;
+        }
+
+        if (maxConcurrentTasks < 1 || maxConcurrentTasks > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Configured property <" + MAX_CONCURRENT_TASKS + "> must be a positive integer");
+        }
+
+        return maxConcurrentTasks.intValue();
+    }
+
     private String getTrimmedProperty(final Map<String, String> properties, final String propertyName) {
         final String propertyValue = properties.get(propertyName);
         return (propertyValue == null || propertyValue.trim().isEmpty()) ? null : propertyValue.trim();
@@ -118,7 +118,9 @@ public class StandardExecutionProgress implements ExecutionProgress {
     }
 
     @Override
-    public CompletionAction awaitCompletionAction() throws InterruptedException {
+    public synchronized CompletionAction awaitCompletionAction() throws InterruptedException {
+        // Synchronized because, when the dataflow is pipelined, more than one stage may commit synchronously and await the completion action.
+        // Only the first may publish the result; the others must wait for, and then share, the action that is taken on it.
         if (isCanceled()) {
             return CompletionAction.CANCEL;
         }
@@ -0,0 +1,572 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.stateless.flow;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.ConnectableType;
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.repository.metrics.StandardFlowFileEvent;
+import org.apache.nifi.groups.FlowFileOutboundPolicy;
+import org.apache.nifi.processor.ProcessContext;
+import org.apache.nifi.processor.exception.TerminatedTaskException;
+import org.apache.nifi.stateless.engine.DataflowAbortedException;
+import org.apache.nifi.stateless.engine.ExecutionProgress;
+import org.apache.nifi.stateless.engine.ProcessContextFactory;
+import org.apache.nifi.stateless.repository.RepositoryContextFactory;
+import org.apache.nifi.stateless.session.AsynchronousCommitTracker;
+import org.apache.nifi.stateless.session.StatelessProcessSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * A StatelessFlowCurrent that triggers the components downstream of the root components as pipeline stages on a pool of worker threads.
+ * Each component that has data queued is triggered on a worker thread for as long as it continues to make progress, and as soon as it
+ * transfers data to a downstream component, that component is scheduled as well, so that the components of the flow process successive
+ * FlowFiles concurrently rather than one component at a time.
+ * </p>
+ *
+ * <p>
+ * The semantics of the dataflow are the same as those of the {@link StandardStatelessFlowCurrent}: a component is never triggered by more
+ * than one stage at a time, root components are triggered only on the calling thread and only while no stage is running, commit callbacks
+ * are only invoked once the entire dataflow has completed, and a failure in any stage fails the entire invocation of the dataflow once
+ * all running stages have stopped.
+ * </p>
+ *
+ * <p>
+ * A component whose Process Session is committed synchronously does not trigger its follow-on components on its own thread, as they may already be
+ * running as stages. Instead, the follow-on components are handed to their stages, and the commit waits until no running stage is able to make
+ * any further progress.
+ * </p>
+ */
+public class PipelinedStatelessFlowCurrent implements StatelessFlowCurrent {
+    private static final Logger logger = LoggerFactory.getLogger(PipelinedStatelessFlowCurrent.class);
+
+    private final TransactionThresholdMeter transactionThresholdMeter;
+    private final AsynchronousCommitTracker tracker;
+    private final ExecutionProgress executionProgress;
+    private final Set<Connectable> rootConnectables;
+    private final RepositoryContextFactory repositoryContextFactory;
+    private final ProcessContextFactory processContextFactory;
+    private final ExecutorService workerExecutor;
+
+    // Events that are published by the stages and consumed by the thread that triggers the dataflow
+    private final BlockingQueue<StageEvent> stageEvents = new LinkedBlockingQueue<>();
+    private final Set<Connectable> runningStages = new HashSet<>();
+    private final Set<Connectable> stalledStages = new HashSet<>();
+    private final Map<Connectable, CountDownLatch> waitingStages = new HashMap<>();
+    private final Map<Connectable, Thread> stageThreads = new ConcurrentHashMap<>();
+
+    private volatile boolean stagesStopped = false;
+    // The first failure of any stage. It is rethrown by every later attempt to run stages, even if a root component catches it.
+    private Throwable stageFailure = null;
+    private Connectable currentComponent = null;
+
+    private PipelinedStatelessFlowCurrent(final Builder builder) {
+        this.transactionThresholdMeter = builder.transactionThresholdMeter;
+        this.tracker = builder.tracker;
+        this.executionProgress = builder.executionProgress;
+        this.rootConnectables = builder.rootConnectables;
+        this.repositoryContextFactory = builder.repositoryContextFactory;
+        this.processContextFactory = builder.processContextFactory;
+        this.workerExecutor = builder.workerExecutor;
+    }
+
+    @Override
+    public void triggerFlow() {
+        try {
+            boolean triggerRootConnectables = true;
+            boolean completionReached = false;
+            while (!completionReached) {
+                if (triggerRootConnectables) {
+                    triggerRootConnectables();
+                }
+
+                final boolean canceled = runStages();
+                if (canceled) {
+                    return;
+                }
+
+                // If the stages that could not progress are waiting for more input, trigger the root components again unless we've reached our
+                // transaction threshold, in which case the stalled components are triggered again until they are able to make progress.
+                triggerRootConnectables = stalledStages.isEmpty() || !transactionThresholdMeter.isThresholdMet();
+                if (!triggerRootConnectables) {
+                    logger.debug("{} were triggered but unable to make progress. The transaction thresholds {} have been met (currently at {}). Will not " +
+                        "trigger source components to run.", stalledStages, transactionThresholdMeter.getThresholds(), transactionThresholdMeter);
+                }
+                stalledStages.clear();
+
+                // We have reached completion if the tracker does not know of any components ready to be triggered AND
+                // we have no data queued in the flow (with the exception of Output Ports).
+                completionReached = !isAnyReady() && isFlowQueueEmpty();
+            }
+        } catch (final Throwable t) {
+            if (t instanceof TerminatedTaskException) {
+                logger.debug("Encountered TerminatedTaskException when triggering {}", currentComponent, t);
+            } else {
+                logger.error("Failed to trigger {}", currentComponent, t);
+            }
+
+            executionProgress.notifyExecutionFailed(t);
+            tracker.triggerFailureCallbacks(t);
+            throw t;
+        }
+    }
+
+    private boolean isAnyReady() {
+        for (final Connectable connectable : tracker.getReady()) {
+            if (tracker.isReady(connectable)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns <code>true</code> if all data in the flow has been fully processed. This includes both 'internal queues'
+     * that are available via the executionProgress, as well as considering any data that has been consumed from the queues by
+     * the 'rootConnectables' that has not yet completed processing
+     *
+     * @return <code>true</code> if all FlowFiles have completed processing and no data is available, <code>false</code> otherwise
+     */
+    private boolean isFlowQueueEmpty() {
+        if (executionProgress.isDataQueued()) {
+            return false;
+        }
+
+        for (final Connectable rootConnectable : rootConnectables) {
+            for (final Connection connection : rootConnectable.getIncomingConnections()) {
+                if (connection.getFlowFileQueue().isUnacknowledgedFlowFile()) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private void triggerRootConnectables() {
+        for (final Connectable connectable : rootConnectables) {
+            currentComponent = connectable;
+
+            // Reset progress and trigger the component. This allows us to track whether or not any progress was made by the given connectable
+            // during this invocation of its onTrigger method.
+            final RootCommitTracker rootTracker = new RootCommitTracker();
+            trigger(connectable, rootTracker);
+
+            // Keep track of the output of the source component so that we can determine whether or not we've reached our transaction threshold.
+            transactionThresholdMeter.incrementFlowFiles(rootTracker.getFlowFilesProduced());
+            transactionThresholdMeter.incrementBytes(rootTracker.getBytesProduced());
+        }
+    }
+
+    /**
+     * Runs stages until no component is ready to be triggered and no stage is running, or until a stage fails
+     *
+     * @return <code>true</code> if the dataflow was canceled, <code>false</code> otherwise
+     */
+    private boolean runStages() {
+        boolean interrupted = false;
+
+        try {
+            while (true) {
+                if (stageFailure == null && !executionProgress.isCanceled()) {
+                    try {
+                        startReadyStages();
+                    } catch (final RejectedExecutionException ree) {
+                        // The worker threads have been shut down. Fail the dataflow once the stages that are already running have stopped.
+                        stageFailure = ree;
+                        stagesStopped = true;
+                    }
+                }
+
+                // Stages that committed synchronously wait for the stages downstream of them. Once every running stage is waiting, none of them
+                // is able to make any further progress, so they are released.
+                if (!waitingStages.isEmpty() && waitingStages.size() == runningStages.size()) {
+                    logger.debug("All running stages {} are waiting for their follow-on components so will release them", waitingStages.keySet());
+                    waitingStages.values().forEach(CountDownLatch::countDown);
+                    waitingStages.clear();
+                }
+
+                if (runningStages.isEmpty()) {
+                    break;
+                }
+
+                final StageEvent event;
+                try {
+                    event = stageEvents.take();
+                } catch (final InterruptedException ie) {
+                    // The dataflow has been canceled. Interrupt the running stages, which will fail to commit their sessions, and wait for them to stop.
+                    interrupted = true;
+                    executionProgress.notifyExecutionCanceled();
+                    stageThreads.values().forEach(Thread::interrupt);
+                    continue;
+                }
+
+                if (event.getReadyConnectable() != null) {
+                    addReadyConnectable(event.getReadyConnectable());
+                    continue;
+                }
+
+                if (event.getWaitingStage() != null) {
+                    waitingStages.put(event.getWaitingStage(), event.getWaitLatch());
+                    continue;
+                }
+
+                final Connectable stage = event.getCompletedStage();
+                runningStages.remove(stage);
+                waitingStages.remove(stage);
+
+                if (event.getFailure() != null) {
+                    if (stageFailure == null) {
+                        currentComponent = stage;
+                        stageFailure = event.getFailure();
+
+                        // Ensure that the other stages stop as soon as possible rather than committing more data. The failure itself
+                        // is reported once all stages have stopped, so that the dataflow is not purged while they are still running.
+                        stagesStopped = true;
+                    } else {
+                        logger.debug("{} also failed after the dataflow had already failed", stage, event.getFailure());
+                    }
+                } else if (event.isProgressed()) {
+                    // Progress anywhere in the flow may allow the stalled components to progress
+                    stalledStages.clear();
+                } else {
+                    stalledStages.add(stage);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (stageFailure instanceof RuntimeException) {
+            throw (RuntimeException) stageFailure;
+        }
+        if (stageFailure instanceof Error) {
+            throw (Error) stageFailure;
+        }
+        if (stageFailure != null) {
+            throw new RuntimeException(stageFailure);
+        }
+
+        if (executionProgress.isCanceled()) {
+            logger.info("Dataflow was canceled so will not trigger any more components");
+            return true;
+        }
+
+        return false;
+    }
+
+    private void addReadyConnectable(final Connectable connectable) {
+        // Data has been queued for the component, so it is no longer considered stalled
+        stalledStages.remove(connectable);
+        tracker.addConnectable(connectable);
+    }
+
+    private void startReadyStages() {
+        for (final Connectable connectable : tracker.getReady()) {
+            if (runningStages.contains(connectable) || stalledStages.contains(connectable)) {
+                continue;
+            }
+
+            if (!tracker.isReady(connectable)) {
+                continue;
+            }
+
+            logger.debug("Starting stage for {}", connectable);
+            workerExecutor.submit(() -> runStage(connectable));
+            runningStages.add(connectable);
+        }
+    }
+
+    private void runStage(final Connectable connectable) {
+        final StageCommitTracker stageTracker = new StageCommitTracker(connectable);
+        boolean progressed = false;
+        stageThreads.put(connectable, Thread.currentThread());
+
+        try {
+            stageTracker.markReady();
+
+            // Continually trigger the given component as long as it is ready to be triggered and makes progress
+            while (stageTracker.isReady(connectable)) {
+                if (stagesStopped || executionProgress.isCanceled()) {
+                    break;
+                }
+
+                stageTracker.resetProgress();
+                trigger(connectable, stageTracker);
+
+                if (!stageTracker.isProgress()) {
+                    // An Output Port with Batch Output makes no progress until data has been processed elsewhere in the Process Group
+                    if (connectable.getConnectableType() == ConnectableType.OUTPUT_PORT && connectable.getProcessGroup().getFlowFileOutboundPolicy() == FlowFileOutboundPolicy.BATCH_OUTPUT
+                            && connectable.getProcessGroup().isDataQueuedForProcessing()) {
+                        logger.debug("{} was triggered but unable to make progress. Data is still available for processing in its Process Group", connectable);
+                    } else {
+                        logger.debug("{} was triggered but unable to make progress", connectable);
+                    }
+                    break;
+                }
+
+                logger.debug("{} was triggered and made progress", connectable);
+                progressed = true;
+            }
+        } catch (final Throwable t) {
+            stageThreads.remove(connectable);
+            stageEvents.add(StageEvent.completed(connectable, progressed, t));
+            return;
+        }
+
+        stageThreads.remove(connectable);
+        stageEvents.add(StageEvent.completed(connectable, progressed, null));
+    }
+
+    private void trigger(final Connectable connectable, final AsynchronousCommitTracker commitTracker) {
+        final ProcessContext processContext = processContextFactory.createProcessContext(connectable);
+
+        final StatelessProcessSessionFactory sessionFactory = new StatelessProcessSessionFactory(connectable, repositoryContextFactory, processContextFactory,
+            executionProgress, false, commitTracker);
+
+        final long start = System.nanoTime();
+
+        // Trigger component
+        logger.debug("Triggering {}", connectable);
+        connectable.onTrigger(processContext, sessionFactory);
+
+        final long processingNanos = System.nanoTime() - start;
+        registerProcessEvent(connectable, 1, processingNanos);
+    }
+
+    private void registerProcessEvent(final Connectable connectable, final int invocations, final long processingNanos) {
+        try {
+            final StandardFlowFileEvent procEvent = new StandardFlowFileEvent();
+            procEvent.setProcessingNanos(processingNanos);
+            procEvent.setInvocations(invocations);
+            repositoryContextFactory.getFlowFileEventRepository().updateRepository(procEvent, connectable.getIdentifier());
+        } catch (final IOException e) {
+            logger.error("Unable to update FlowFileEvent Repository for {}; statistics may be inaccurate. Reason for failure: {}", connectable.getRunnableComponent(), e.toString(), e);
+        }
+    }
+
+    /**
+     * The commit tracker that is used when triggering a root component on the thread that triggers the dataflow. Progress is tracked per
+     * root component, while components that become ready and commit callbacks are held by the tracker of the dataflow. Because no stage
+     * runs while a root component is triggered, a synchronous commit runs the stages itself.
+     */
+    private class RootCommitTracker extends AsynchronousCommitTracker {
+        @Override
+        public void addConnectable(final Connectable connectable) {
+            addReadyConnectable(connectable);
+        }
+
+        @Override
+        public void addCallback(final Connectable connectable, final Runnable successCallback, final Consumer<Throwable> failureCallback) {
+            synchronized (tracker) {
+                tracker.addCallback(connectable, successCallback, failureCallback);
+            }
+        }
+
+        @Override
+        public boolean isPipelined() {
+            return true;
+        }
+
+        @Override
+        public void awaitFollowOnComponents() {
+            final Connectable rootComponent = currentComponent;
+            final boolean canceled = runStages();
+            if (canceled) {
+                throw new DataflowAbortedException();
+            }
+
+            currentComponent = rootComponent;
+        }
+    }
+
+    /**
+     * The commit tracker that is used by a single stage. Progress is tracked per stage, while components that become ready are
+     * published to the thread that triggers the dataflow, and commit callbacks are held by the tracker of the dataflow so that
+     * they are invoked only once the entire dataflow has completed.
+     */
+    private class StageCommitTracker extends AsynchronousCommitTracker {
+        private final Connectable stage;
+
+        StageCommitTracker(final Connectable stage) {
+            this.stage = stage;
+        }
+
+        void markReady() {
+            super.addConnectable(stage);
+        }
+
+        @Override
+        public void addConnectable(final Connectable connectable) {
+            stageEvents.add(StageEvent.ready(connectable));
+        }
+
+        @Override
+        public void addCallback(final Connectable connectable, final Runnable successCallback, final Consumer<Throwable> failureCallback) {
+            synchronized (tracker) {
+                tracker.addCallback(connectable, successCallback, failureCallback);
+            }
+        }
+
+        @Override
+        public boolean isPipelined() {
+            return true;
+        }
+
+        @Override
+        public void awaitFollowOnComponents() throws InterruptedException {
+            final CountDownLatch latch = new CountDownLatch(1);
+            stageEvents.add(StageEvent.waiting(stage, latch));
+            latch.await();
+
+            if (stagesStopped || executionProgress.isCanceled()) {
+                throw new DataflowAbortedException();
+            }
+        }
+    }
+
+    private static class StageEvent {
+        private final Connectable readyConnectable;
+        private final Connectable waitingStage;
+        private final CountDownLatch waitLatch;
+        private final Connectable completedStage;
+        private final boolean progressed;
+        private final Throwable failure;
+
+        private StageEvent(final Connectable readyConnectable, final Connectable waitingStage, final CountDownLatch waitLatch, final Connectable completedStage,
+                           final boolean progressed, final Throwable failure) {
+            this.readyConnectable = readyConnectable;
+            this.waitingStage = waitingStage;
+            this.waitLatch = waitLatch;
+            this.completedStage = completedStage;
+            this.progressed = progressed;
+            this.failure = failure;
+        }
+
+        static StageEvent ready(final Connectable connectable) {
+            return new StageEvent(connectable, null, null, null, false, null);
+        }
+
+        static StageEvent waiting(final Connectable connectable, final CountDownLatch waitLatch) {
+            return new StageEvent(null, connectable, waitLatch, null, false, null);
+        }
+
+        static StageEvent completed(final Connectable connectable, final boolean progressed, final Throwable failure) {
+            return new StageEvent(null, null, null, connectable, progressed, failure);
+        }
+
+        Connectable getReadyConnectable() {
+            return readyConnectable;
+        }
+
+        Connectable getWaitingStage() {
+            return waitingStage;
+        }
+
+        CountDownLatch getWaitLatch() {
+            return waitLatch;
+        }
+
+        Connectable getCompletedStage() {
+            return completedStage;
+        }
+
+        boolean isProgressed() {
+            return progressed;
+        }
+
+        Throwable getFailure() {
+            return failure;
+        }
+    }
+
+    public static class Builder {
+        private TransactionThresholdMeter transactionThresholdMeter;
+        private AsynchronousCommitTracker tracker;
+        private ExecutionProgress executionProgress;
+        private Set<Connectable> rootConnectables;
+        private RepositoryContextFactory repositoryContextFactory;
+        private ProcessContextFactory processContextFactory;
+        private ExecutorService workerExecutor;
+
+        public PipelinedStatelessFlowCurrent build() {
+            Objects.requireNonNull(transactionThresholdMeter, "Transaction Threshold Meter must be set");
+            Objects.requireNonNull(tracker, "Commit Tracker must be set");
+            Objects.requireNonNull(executionProgress, "Execution Progress must be set");
+            Objects.requireNonNull(rootConnectables, "Root Conectables must be set");
+            Objects.requireNonNull(repositoryContextFactory, "Repository Context Factory must be set");
+            Objects.requireNonNull(processContextFactory, "Process Context Factory must be set");
+            Objects.requireNonNull(workerExecutor, "Worker Executor must be set");
+
+            return new PipelinedStatelessFlowCurrent(this);
+        }
+
+        public Builder transactionThresholdMeter(final TransactionThresholdMeter transactionThresholdMeter) {
+            this.transactionThresholdMeter = transactionThresholdMeter;
+            return this;
+        }
+
+        public Builder commitTracker(final AsynchronousCommitTracker commitTracker) {
+            this.tracker = commitTracker;
+            return this;
+        }
+
+        public Builder executionProgress(final ExecutionProgress executionProgress) {
+            this.executionProgress = executionProgress;
+            return this;
+        }
+
+        public Builder rootConnectables(final Set<Connectable> rootConnectables) {
+            this.rootConnectables = rootConnectables;
+            return this;
+        }
+
+        public Builder repositoryContextFactory(final RepositoryContextFactory repositoryContextFactory) {
+            this.repositoryContextFactory = repositoryContextFactory;
+            return this;
+        }
+
+        public Builder processContextFactory(final ProcessContextFactory processContextFactory) {
+            this.processContextFactory = processContextFactory;
+            return this;
+        }
+
+        public Builder workerExecutor(final ExecutorService workerExecutor) {
+            this.workerExecutor = workerExecutor;
+            return this;
+        }
+    }
+}
@@ -42,6 +42,7 @@ public class StandardDataflowDefinition implements DataflowDefinition<VersionedF
     private final List<ReportingTaskDefinition> reportingTaskDefinitions;
     private final List<ParameterValueProviderDefinition> parameterValueProviderDefinitions;
     private final TransactionThresholds transactionThresholds;
+    private final int maxConcurrentTasks;
     private final String flowName;
 
     private StandardDataflowDefinition(final Builder builder) {
@@ -52,6 +53,11 @@ public class StandardDataflowDefinition implements DataflowDefinition<VersionedF
         transactionThresholds = builder.transactionThresholds == null ? TransactionThresholds.SINGLE_FLOWFILE : builder.transactionThresholds;
         parameterValueProviderDefinitions = builder.parameterValueProviderDefinitions == null ? Collections.emptyList() : builder.parameterValueProviderDefinitions;
         flowName = builder.flowName;
+        maxConcurrentTasks = builder.maxConcurrentTasks;
+
+        if (maxConcurrentTasks < 1) {
+            throw new IllegalArgumentException("Max Concurrent Tasks must be at least 1 but was " + maxConcurrentTasks);
+        }
     }
 
     @Override
@@ -103,6 +109,11 @@ public class StandardDataflowDefinition implements DataflowDefinition<VersionedF
         return transactionThresholds;
     }
 
+    @Override
+    public int getMaxConcurrentTasks() {
+        return maxConcurrentTasks;
+    }
+
     public Set<Bundle> getReferencedBundles() {
         final Set<Bundle> referenced = new HashSet<>();
         final VersionedProcessGroup rootGroup = flowSnapshot.getFlowContents();
@@ -131,6 +142,7 @@ public class StandardDataflowDefinition implements DataflowDefinition<VersionedF
         private List<ReportingTaskDefinition> reportingTaskDefinitions;
         private List<ParameterValueProviderDefinition> parameterValueProviderDefinitions;
         private TransactionThresholds transactionThresholds;
+        private int maxConcurrentTasks = 1;
         private String flowName;
 
         public Builder flowSnapshot(final VersionedFlowSnapshot flowSnapshot) {
@@ -168,6 +180,11 @@ public class StandardDataflowDefinition implements DataflowDefinition<VersionedF
             return this;
         }
 
+        public Builder maxConcurrentTasks(final int maxConcurrentTasks) {
+            this.maxConcurrentTasks = maxConcurrentTasks;
+            return this;
+        }
+
         public StandardDataflowDefinition build() {
             return new StandardDataflowDefinition(this);
         }
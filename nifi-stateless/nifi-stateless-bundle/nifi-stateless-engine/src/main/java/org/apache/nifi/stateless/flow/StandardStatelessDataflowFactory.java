@@ -71,6 +71,7 @@ import org.apache.nifi.stateless.engine.StatelessFlowManager;
 import org.apache.nifi.stateless.engine.StatelessProcessContextFactory;
 import org.apache.nifi.stateless.engine.StatelessProvenanceAuthorizableFactory;
 import org.apache.nifi.stateless.repository.ByteArrayContentRepository;
+import org.apache.nifi.stateless.repository.HybridContentRepository;
 import org.apache.nifi.stateless.repository.RepositoryContextFactory;
 import org.apache.nifi.stateless.repository.StatelessFileSystemContentRepository;
 import org.apache.nifi.stateless.repository.StatelessFlowFileRepository;
@@ -286,6 +287,11 @@ public class StandardStatelessDataflowFactory implements StatelessDataflowFactor
     private ContentRepository createContentRepository(final StatelessEngineConfiguration engineConfiguration) {
         final Optional<File> contentRepoStorageDirectory = engineConfiguration.getContentRepositoryDirectory();
         if (contentRepoStorageDirectory.isPresent()) {
+            final long memoryBudget = engineConfiguration.getContentRepositoryMemoryBudget();
+            if (memoryBudget > 0) {
+                return new HybridContentRepository(contentRepoStorageDirectory.get(), memoryBudget, engineConfiguration.getContentRepositoryMaxInMemoryClaimSize());
+            }
+
             return new StatelessFileSystemContentRepository(contentRepoStorageDirectory.get());
         } else {
             return new ByteArrayContentRepository();
@@ -112,6 +112,7 @@ public class StandardStatelessFlow implements StatelessDataflow {
     private final BulletinRepository bulletinRepository;
 
     private volatile ExecutorService runDataflowExecutor;
+    private volatile ExecutorService pipelineExecutor;
     private volatile ScheduledExecutorService backgroundTaskExecutor;
     private volatile boolean initialized = false;
 
@@ -248,6 +249,12 @@ public class StandardStatelessFlow implements StatelessDataflow {
             final String threadName = (flowName == null || flowName.trim().isEmpty()) ? "Run Dataflow" : "Run Dataflow " + flowName;
             runDataflowExecutor = Executors.newFixedThreadPool(1, createNamedThreadFactory(threadName, false));
 
+            // Create executor for the pipeline stages of the dataflow, if the dataflow may use more than one thread
+            final int maxConcurrentTasks = dataflowDefinition.getMaxConcurrentTasks();
+            if (maxConcurrentTasks > 1) {
+                pipelineExecutor = Executors.newFixedThreadPool(maxConcurrentTasks, createNamedThreadFactory(threadName + " Pipeline", true));
+            }
+
             // Periodically log component statuses
             backgroundTaskExecutor = Executors.newScheduledThreadPool(1, createNamedThreadFactory("Background Tasks", true));
             backgroundTasks.forEach(task -> backgroundTaskExecutor.scheduleWithFixedDelay(task.getTask(), task.getSchedulingPeriod(), task.getSchedulingPeriod(), task.getSchedulingUnit()));
@@ -315,6 +322,9 @@ public class StandardStatelessFlow implements StatelessDataflow {
         if (runDataflowExecutor != null) {
             runDataflowExecutor.shutdown();
         }
+        if (pipelineExecutor != null) {
+            pipelineExecutor.shutdown();
+        }
         if (backgroundTaskExecutor != null) {
             backgroundTaskExecutor.shutdown();
         }
@@ -472,11 +482,20 @@ public class StandardStatelessFlow implements StatelessDataflow {
     }
 
 
-    private void executeDataflow(final BlockingQueue<TriggerResult> resultQueue, final ExecutionProgress executionProgress, final AsynchronousCommitTracker tracker) {
-        final long startNanos = System.nanoTime();
-        transactionThresholdMeter.reset();
+    private StatelessFlowCurrent createFlowCurrent(final ExecutionProgress executionProgress, final AsynchronousCommitTracker tracker) {
+        if (pipelineExecutor != null) {
+            return new PipelinedStatelessFlowCurrent.Builder()
+                .commitTracker(tracker)
+                .executionProgress(executionProgress)
+                .processContextFactory(processContextFactory)
+                .repositoryContextFactory(repositoryContextFactory)
+                .rootConnectables(rootConnectables)
+                .transactionThresholdMeter(transactionThresholdMeter)
+                .workerExecutor(pipelineExecutor)
+                .build();
+        }
 
-        final StatelessFlowCurrent current = new StandardStatelessFlowCurrent.Builder()
+        return new StandardStatelessFlowCurrent.Builder()
             .commitTracker(tracker)
             .executionProgress(executionProgress)
             .processContextFactory(processContextFactory)
@@ -484,6 +503,13 @@ public class StandardStatelessFlow implements StatelessDataflow {
             .rootConnectables(rootConnectables)
             .transactionThresholdMeter(transactionThresholdMeter)
             .build();
+    }
+
+    private void executeDataflow(final BlockingQueue<TriggerResult> resultQueue, final ExecutionProgress executionProgress, final AsynchronousCommitTracker tracker) {
+        final long startNanos = System.nanoTime();
+        transactionThresholdMeter.reset();
+
+        final StatelessFlowCurrent current = createFlowCurrent(executionProgress, tracker);
 
         try {
             current.triggerFlow();
@@ -0,0 +1,923 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.stateless.repository;
+
+import org.apache.nifi.controller.repository.ContentRepository;
+import org.apache.nifi.controller.repository.ContentRepositoryContext;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.stream.io.ByteCountingOutputStream;
+import org.apache.nifi.stream.io.StreamUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * A Content Repository that holds the content of small FlowFiles in memory and writes the content of large FlowFiles to disk.
+ * Content is written into fixed-size, off-heap buffers that are taken from a pool that is bounded by the repository's memory budget.
+ * The content of small claims is packed into shared buffers, each claim occupying a region of a buffer, and a buffer is returned to the pool
+ * once every claim with content in it has been released. Once the content of a claim exceeds the configured maximum in-memory claim size, or the pool has no buffer available because the memory
+ * budget has been used, the content that has been written so far is moved to a file in the configured directory and the rest of the content
+ * is written directly to that file.
+ * </p>
+ *
+ * <p>
+ * A separate instance of the repository is created for each dataflow, so the memory budget applies to each dataflow individually. Content is
+ * retained until the repository is purged, which happens once the result of triggering the dataflow has been acknowledged or the trigger has failed.
+ * Content is not released as soon as its claimant count reaches zero, because the counts of output FlowFiles reach zero as they are drained from the
+ * output queues, before the caller has read their content. Claims whose counts are decremented through this repository, as those of output FlowFiles
+ * are, are therefore retained until the repository is purged. The counts of FlowFiles that are removed or whose content is modified within the dataflow
+ * are decremented directly through the Resource Claim Manager; once the memory budget has been used, the claims that are no longer referenced in this
+ * way are released so that their buffers can be reused before the repository is purged.
+ * </p>
+ */
+public class HybridContentRepository implements ContentRepository {
+    private static final Logger logger = LoggerFactory.getLogger(HybridContentRepository.class);
+    private static final String CONTENT_FILE_REGEX = "hybrid-\\d+\\.nifi\\.bin";
+
+    private static final String CONTAINER = "stateless";
+    private static final String SECTION = "hybrid";
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    // A partially filled buffer is reused for the content of other claims only if at least this much of it is free
+    private static final int MIN_PACKED_SPACE = 1024;
+
+    private final File directory;
+    private final long maxInMemoryClaimSize;
+    private final BufferPool bufferPool;
+    private final Queue<Slab> partialSlabs = new ConcurrentLinkedQueue<>();
+    private final Set<HybridResourceClaim> activeClaims = ConcurrentHashMap.newKeySet();
+    private final AtomicLong resourceClaimIndex = new AtomicLong(0L);
+    private final AtomicLong nextReleaseScanIndex = new AtomicLong(0L);
+    private ResourceClaimManager resourceClaimManager;
+
+    /**
+     * @param directory the directory to write content to once it can no longer be held in memory
+     * @param memoryBudget the maximum number of bytes of content to hold in memory at any one time
+     * @param maxInMemoryClaimSize the maximum size of the content of a single FlowFile that is held in memory
+     */
+    public HybridContentRepository(final File directory, final long memoryBudget, final long maxInMemoryClaimSize) {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("Memory budget cannot be negative");
+        }
+
+        this.directory = directory;
+        this.maxInMemoryClaimSize = Math.max(0L, maxInMemoryClaimSize);
+        this.bufferPool = new BufferPool((int) Math.min(Integer.MAX_VALUE, memoryBudget / BUFFER_SIZE));
+    }
+
+    @Override
+    public void initialize(final ContentRepositoryContext context) throws IOException {
+        this.resourceClaimManager = context.getResourceClaimManager();
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Cannot initialize Content Repository because " + directory.getAbsolutePath() + " does not exist and cannot be created");
+        }
+
+        // Check if there are any existing files and if so, purges them.
+        final File[] existingFiles = directory.listFiles(file -> file.getName().matches(CONTENT_FILE_REGEX));
+        if (existingFiles == null) {
+            throw new IOException("Cannot initialize Content Repository because failed to list contents of directory " + directory.getAbsolutePath());
+        }
+
+        for (final File existingFile : existingFiles) {
+            logger.info("Found existing file from previous run {}. Removing file.", existingFile.getName());
+            final boolean deleted = existingFile.delete();
+
+            if (!deleted) {
+                logger.warn("Failed to remove existing file from previous run {}", existingFile);
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        purge();
+        bufferPool.clear();
+    }
+
+    @Override
+    public Set<String> getContainerNames() {
+        return Collections.singleton(CONTAINER);
+    }
+
+    @Override
+    public long getContainerCapacity(final String containerName) {
+        return 0;
+    }
+
+    @Override
+    public long getContainerUsableSpace(final String containerName) {
+        return 0;
+    }
+
+    @Override
+    public String getContainerFileStoreName(final String containerName) {
+        return "container";
+    }
+
+    @Override
+    public ContentClaim create(final boolean lossTolerant) {
+        final HybridResourceClaim resourceClaim = new HybridResourceClaim(String.valueOf(resourceClaimIndex.getAndIncrement()));
+        activeClaims.add(resourceClaim);
+
+        final ContentClaim contentClaim = new HybridContentClaim(resourceClaim);
+        resourceClaimManager.incrementClaimantCount(resourceClaim);
+        return contentClaim;
+    }
+
+    @Override
+    public int incrementClaimaintCount(final ContentClaim claim) {
+        if (claim == null) {
+            return 0;
+        }
+
+        return resourceClaimManager.incrementClaimantCount(claim.getResourceClaim());
+    }
+
+    @Override
+    public int getClaimantCount(final ContentClaim claim) {
+        if (claim == null) {
+            return 0;
+        }
+
+        return resourceClaimManager.getClaimantCount(claim.getResourceClaim());
+    }
+
+    @Override
+    public int decrementClaimantCount(final ContentClaim claim) {
+        if (claim == null) {
+            return 0;
+        }
+
+        // Mark the claim before decrementing the count so that it cannot be found to be unreferenced and released in between
+        verifyResourceClaim(claim.getResourceClaim()).retainUntilPurged();
+        return resourceClaimManager.decrementClaimantCount(claim.getResourceClaim());
+    }
+
+    private void release(final HybridResourceClaim resourceClaim) {
+        if (activeClaims.remove(resourceClaim)) {
+            resourceClaim.release();
+        }
+    }
+
+    /**
+     * Releases the claims that are no longer referenced by any FlowFile and are not retained until the repository is purged. So that a dataflow
+     * whose content no longer fits into memory does not scan all of its claims for every claim that it writes, another scan is made only once the
+     * number of claims created since the last scan is at least an eighth of the number of claims that it scanned.
+     *
+     * @return <code>true</code> if any claim was released
+     */
+    private boolean releaseUnreferencedClaims() {
+        final long claimIndex = resourceClaimIndex.get();
+        final long nextScanIndex = nextReleaseScanIndex.get();
+        if (claimIndex < nextScanIndex || !nextReleaseScanIndex.compareAndSet(nextScanIndex, Long.MAX_VALUE)) {
+            return false;
+        }
+
+        int scanned = 0;
+        boolean released = false;
+        for (final HybridResourceClaim resourceClaim : activeClaims) {
+            scanned++;
+            if (resourceClaim.isUnreferenced()) {
+                logger.debug("{} is no longer referenced; releasing its content", resourceClaim);
+                release(resourceClaim);
+                released = true;
+            }
+        }
+
+        nextReleaseScanIndex.set(claimIndex + Math.max(1, scanned / 8));
+        return released;
+    }
+
+    /**
+     * @return a slab to which the caller has exclusive write access, or <code>null</code> if the memory budget does not allow for another buffer to be used
+     */
+    private Slab acquireSlab() {
+        Slab slab = pollPartialSlab();
+        if (slab != null) {
+            return slab;
+        }
+
+        ByteBuffer buffer = bufferPool.borrow();
+        if (buffer == null && releaseUnreferencedClaims()) {
+            slab = pollPartialSlab();
+            if (slab != null) {
+                return slab;
+            }
+
+            buffer = bufferPool.borrow();
+        }
+
+        if (buffer == null) {
+            return null;
+        }
+
+        slab = new Slab(buffer);
+        slab.startWriting();
+        return slab;
+    }
+
+    private Slab pollPartialSlab() {
+        Slab slab;
+        while ((slab = partialSlabs.poll()) != null) {
+            if (slab.resumeWriting()) {
+                return slab;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public boolean remove(final ContentClaim claim) {
+        return true;
+    }
+
+    @Override
+    public ContentClaim clone(final ContentClaim original, final boolean lossTolerant) throws IOException {
+        final ContentClaim clone = create(lossTolerant);
+        try (final InputStream in = read(original);
+             final OutputStream out = write(clone)) {
+            StreamUtils.copy(in, out);
+        }
+
+        return clone;
+    }
+
+    @Override
+    public long merge(final Collection<ContentClaim> claims, final ContentClaim destination, final byte[] header, final byte[] footer, final byte[] demarcator) throws IOException {
+        if (claims.contains(destination)) {
+            throw new IllegalArgumentException("destination cannot be within claims");
+        }
+
+        try (final ByteCountingOutputStream out = new ByteCountingOutputStream(write(destination))) {
+            if (header != null) {
+                out.write(header);
+            }
+
+            int i = 0;
+            for (final ContentClaim claim : claims) {
+                try (final InputStream in = read(claim)) {
+                    StreamUtils.copy(in, out);
+                }
+
+                if (++i < claims.size() && demarcator != null) {
+                    out.write(demarcator);
+                }
+            }
+
+            if (footer != null) {
+                out.write(footer);
+            }
+
+            return out.getBytesWritten();
+        }
+    }
+
+    @Override
+    public long importFrom(final Path content, final ContentClaim claim) throws IOException {
+        try (final InputStream in = Files.newInputStream(content, StandardOpenOption.READ)) {
+            return importFrom(in, claim);
+        }
+    }
+
+    @Override
+    public long importFrom(final InputStream content, final ContentClaim claim) throws IOException {
+        try (final OutputStream out = write(claim)) {
+            return StreamUtils.copy(content, out);
+        }
+    }
+
+    @Override
+    public long exportTo(final ContentClaim claim, final Path destination, final boolean append) throws IOException {
+        final OpenOption[] openOptions = append ? new StandardOpenOption[] {StandardOpenOption.CREATE, StandardOpenOption.APPEND} :
+            new StandardOpenOption[] {StandardOpenOption.CREATE};
+
+        try (final OutputStream out = Files.newOutputStream(destination, openOptions)) {
+            return exportTo(claim, out);
+        }
+    }
+
+    @Override
+    public long exportTo(final ContentClaim claim, final Path destination, final boolean append, final long offset, final long length) throws IOException {
+        final OpenOption[] openOptions = append ? new StandardOpenOption[] {StandardOpenOption.CREATE, StandardOpenOption.APPEND} :
+            new StandardOpenOption[] {StandardOpenOption.CREATE};
+
+        try (final OutputStream out = Files.newOutputStream(destination, openOptions)) {
+            return exportTo(claim, out, offset, length);
+        }
+    }
+
+    @Override
+    public long exportTo(final ContentClaim claim, final OutputStream destination) throws IOException {
+        try (final InputStream in = read(claim)) {
+            return StreamUtils.copy(in, destination);
+        }
+    }
+
+    @Override
+    public long exportTo(final ContentClaim claim, final OutputStream destination, final long offset, final long length) throws IOException {
+        try (final InputStream in = read(claim)) {
+            StreamUtils.skip(in, offset);
+            StreamUtils.copy(in, destination, length);
+        }
+
+        return length;
+    }
+
+    @Override
+    public long size(final ContentClaim claim) {
+        return claim.getLength();
+    }
+
+    @Override
+    public InputStream read(final ContentClaim claim) throws IOException {
+        if (claim == null) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        return read(claim.getResourceClaim());
+    }
+
+    @Override
+    public InputStream read(final ResourceClaim claim) throws IOException {
+        if (claim == null) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        return verifyResourceClaim(claim).read();
+    }
+
+    @Override
+    public OutputStream write(final ContentClaim claim) throws IOException {
+        Objects.requireNonNull(claim, "ContentClaim cannot be null");
+        final HybridResourceClaim resourceClaim = verifyResourceClaim(claim.getResourceClaim());
+        return resourceClaim.write();
+    }
+
+    private HybridResourceClaim verifyResourceClaim(final ResourceClaim claim) {
+        if (!(claim instanceof HybridResourceClaim)) {
+            throw new IllegalArgumentException("Cannot access Resource Claim " + claim + " because the Resource Claim does not belong to this Content Repository");
+        }
+
+        return (HybridResourceClaim) claim;
+    }
+
+    @Override
+    public void purge() {
+        for (final HybridResourceClaim resourceClaim : activeClaims) {
+            release(resourceClaim);
+        }
+
+        resourceClaimManager.purge();
+    }
+
+    @Override
+    public void cleanup() {
+        purge();
+    }
+
+    @Override
+    public boolean isAccessible(final ContentClaim contentClaim) {
+        return false;
+    }
+
+    /**
+     * @return the number of bytes of memory that are currently used to hold content
+     */
+    public long getMemoryUsed() {
+        return (long) bufferPool.getBuffersInUse() * BUFFER_SIZE;
+    }
+
+    private File getSpillFile(final HybridResourceClaim claim) {
+        return new File(directory, "hybrid-" + claim.getId() + ".nifi.bin");
+    }
+
+
+    /**
+     * A buffer from the pool into which the content of one or more claims is packed. Only one ClaimOutputStream appends to a slab at a time; once it is
+     * closed, a slab that has enough free space left is queued so that the next claim can be written into it. The buffer is returned to the pool once
+     * every claim that has content in the slab has been released and no stream is appending to it.
+     */
+    private class Slab {
+        private final ByteBuffer buffer;
+        private int claims = 0;
+        private boolean writing = false;
+        private boolean queued = false;
+
+        private Slab(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        synchronized void startWriting() {
+            writing = true;
+            claims++;
+        }
+
+        /**
+         * @return <code>false</code> if the slab was returned to the pool after it was queued and cannot be written to
+         */
+        synchronized boolean resumeWriting() {
+            if (!queued) {
+                return false;
+            }
+
+            queued = false;
+            startWriting();
+            return true;
+        }
+
+        synchronized void finishWriting() {
+            writing = false;
+            if (buffer.remaining() >= MIN_PACKED_SPACE) {
+                queued = true;
+                partialSlabs.offer(this);
+            }
+        }
+
+        synchronized void releaseClaim() {
+            if (--claims > 0 || writing) {
+                return;
+            }
+
+            if (queued) {
+                queued = false;
+                partialSlabs.remove(this);
+            }
+
+            bufferPool.release(buffer);
+        }
+    }
+
+
+    /**
+     * A pool of off-heap buffers. The number of buffers that may be in use at any one time is bounded, and buffers that are released are retained for reuse.
+     */
+    private static class BufferPool {
+        private final int maxBuffers;
+        private final AtomicInteger buffersInUse = new AtomicInteger(0);
+        private final Queue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<>();
+
+        private BufferPool(final int maxBuffers) {
+            this.maxBuffers = maxBuffers;
+        }
+
+        /**
+         * @return a cleared buffer, or <code>null</code> if the memory budget does not allow for another buffer to be used
+         */
+        ByteBuffer borrow() {
+            while (true) {
+                final int inUse = buffersInUse.get();
+                if (inUse >= maxBuffers) {
+                    return null;
+                }
+
+                if (buffersInUse.compareAndSet(inUse, inUse + 1)) {
+                    break;
+                }
+            }
+
+            final ByteBuffer buffer = freeBuffers.poll();
+            return buffer == null ? ByteBuffer.allocateDirect(BUFFER_SIZE) : buffer;
+        }
+
+        void release(final ByteBuffer buffer) {
+            buffer.clear();
+            freeBuffers.offer(buffer);
+            buffersInUse.decrementAndGet();
+        }
+
+        int getBuffersInUse() {
+            return buffersInUse.get();
+        }
+
+        void clear() {
+            freeBuffers.clear();
+        }
+    }
+
+
+    private static class HybridContentClaim implements ContentClaim {
+        private final HybridResourceClaim resourceClaim;
+
+        private HybridContentClaim(final HybridResourceClaim resourceClaim) {
+            this.resourceClaim = resourceClaim;
+        }
+
+        @Override
+        public ResourceClaim getResourceClaim() {
+            return resourceClaim;
+        }
+
+        @Override
+        public long getOffset() {
+            return 0;
+        }
+
+        @Override
+        public long getLength() {
+            return resourceClaim.getLength();
+        }
+
+        @Override
+        public int compareTo(final ContentClaim o) {
+            return resourceClaim.compareTo(o.getResourceClaim());
+        }
+
+        @Override
+        public String toString() {
+            return "HybridContentClaim[id=" + resourceClaim.getId() + ", length=" + getLength() + "]";
+        }
+    }
+
+
+    private class HybridResourceClaim implements ResourceClaim {
+        private final String id;
+
+        // Set when the OutputStream is closed. The content is either in regions of the slabs or in the spill file.
+        private volatile List<ByteBuffer> buffers;
+        private volatile File spillFile;
+        private volatile long length = 0L;
+        private List<Slab> slabs = Collections.emptyList();
+        private volatile boolean completed = false;
+        private volatile boolean retainedUntilPurged = false;
+        private boolean writeStarted = false;
+        private boolean released = false;
+
+        private HybridResourceClaim(final String id) {
+            this.id = id;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getContainer() {
+            return CONTAINER;
+        }
+
+        @Override
+        public String getSection() {
+            return SECTION;
+        }
+
+        @Override
+        public boolean isLossTolerant() {
+            return true;
+        }
+
+        @Override
+        public boolean isWritable() {
+            return !writeStarted;
+        }
+
+        @Override
+        public boolean isInUse() {
+            return true;
+        }
+
+        long getLength() {
+            return length;
+        }
+
+        synchronized OutputStream write() throws IOException {
+            if (writeStarted) {
+                throw new IOException("Cannot write to " + this + " because it has already been written to.");
+            }
+
+            writeStarted = true;
+            return new ClaimOutputStream(this);
+        }
+
+        synchronized void complete(final List<ByteBuffer> writtenBuffers, final List<Slab> writtenSlabs, final File writtenFile, final long bytesWritten) {
+            if (released) {
+                // The claim was released, typically due to the dataflow being purged, while it was being written to
+                writtenSlabs.forEach(Slab::releaseClaim);
+                deleteFile(writtenFile);
+                return;
+            }
+
+            this.buffers = writtenBuffers;
+            this.slabs = writtenSlabs;
+            this.spillFile = writtenFile;
+            this.length = bytesWritten;
+            this.completed = true;
+        }
+
+        void retainUntilPurged() {
+            retainedUntilPurged = true;
+        }
+
+        /**
+         * @return <code>true</code> if the content of this claim has been written and is no longer referenced by any FlowFile, and the claim
+         * is not retained until the repository is purged
+         */
+        boolean isUnreferenced() {
+            return completed && !retainedUntilPurged && resourceClaimManager.getClaimantCount(this) == 0;
+        }
+
+        InputStream read() throws IOException {
+            final File file = spillFile;
+            if (file != null) {
+                return new FileInputStream(file);
+            }
+
+            final List<ByteBuffer> contents = buffers;
+            if (contents == null) {
+                return new ByteArrayInputStream(new byte[0]);
+            }
+
+            return new BufferListInputStream(contents);
+        }
+
+        synchronized void release() {
+            if (released) {
+                return;
+            }
+
+            released = true;
+            slabs.forEach(Slab::releaseClaim);
+            slabs = Collections.emptyList();
+            buffers = null;
+
+            deleteFile(spillFile);
+            spillFile = null;
+            length = 0L;
+        }
+
+        private void deleteFile(final File file) {
+            if (file != null && !file.delete() && file.exists()) {
+                logger.warn("Failed to remove file from Content Repository: {}", file.getAbsolutePath());
+            }
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            final HybridResourceClaim that = (HybridResourceClaim) o;
+            return Objects.equals(id, that.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id);
+        }
+
+        @Override
+        public String toString() {
+            return "HybridResourceClaim[id=" + id + "]";
+        }
+    }
+
+
+    /**
+     * Writes content into slabs until the content becomes too large to hold in memory or no more buffers are available, at which point
+     * the content is moved to a file. Each slab holds one contiguous region of the content.
+     */
+    private class ClaimOutputStream extends OutputStream {
+        private final HybridResourceClaim resourceClaim;
+        private final byte[] singleByte = new byte[1];
+        private List<ByteBuffer> regions = new ArrayList<>();
+        private List<Slab> slabs = new ArrayList<>();
+        private Slab currentSlab;
+        private int regionStart;
+        private File file;
+        private OutputStream fileOut;
+        private long bytesWritten = 0L;
+        private boolean closed = false;
+
+        private ClaimOutputStream(final HybridResourceClaim resourceClaim) {
+            this.resourceClaim = resourceClaim;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            // Avoid the bookkeeping of a bulk write for the common case of a byte that fits into the current slab
+            if (currentSlab != null && currentSlab.buffer.hasRemaining() && bytesWritten < maxInMemoryClaimSize) {
+                currentSlab.buffer.put((byte) b);
+                bytesWritten++;
+                return;
+            }
+
+            singleByte[0] = (byte) b;
+            write(singleByte, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            if (closed) {
+                throw new IOException("OutputStream has already been closed");
+            }
+
+            if (fileOut == null && bytesWritten + len > maxInMemoryClaimSize) {
+                spill();
+            }
+
+            if (fileOut != null) {
+                fileOut.write(b, off, len);
+                bytesWritten += len;
+                return;
+            }
+
+            int offset = off;
+            int remaining = len;
+            while (remaining > 0) {
+                if (currentSlab == null || !currentSlab.buffer.hasRemaining()) {
+                    finishRegion();
+
+                    currentSlab = acquireSlab();
+                    if (currentSlab == null) {
+                        // The memory budget has been reached, so write the rest of the content to disk
+                        spill();
+                        fileOut.write(b, offset, remaining);
+                        bytesWritten += remaining;
+                        return;
+                    }
+
+                    regionStart = currentSlab.buffer.position();
+                }
+
+                final int toCopy = Math.min(remaining, currentSlab.buffer.remaining());
+                currentSlab.buffer.put(b, offset, toCopy);
+                offset += toCopy;
+                remaining -= toCopy;
+                bytesWritten += toCopy;
+            }
+        }
+
+        /**
+         * Records the region of the current slab that holds content of this claim and gives up write access to the slab.
+         */
+        private void finishRegion() {
+            if (currentSlab == null) {
+                return;
+            }
+
+            final ByteBuffer region = currentSlab.buffer.duplicate();
+            region.limit(currentSlab.buffer.position());
+            region.position(regionStart);
+            regions.add(region.slice());
+            slabs.add(currentSlab);
+
+            currentSlab.finishWriting();
+            currentSlab = null;
+        }
+
+        private void spill() throws IOException {
+            finishRegion();
+
+            file = getSpillFile(resourceClaim);
+            final FileOutputStream fos = new FileOutputStream(file);
+            logger.debug("Content of {} can no longer be held in memory after {} bytes; writing content to {}", resourceClaim, bytesWritten, file);
+
+            try {
+                final FileChannel channel = fos.getChannel();
+                for (final ByteBuffer region : regions) {
+                    while (region.hasRemaining()) {
+                        channel.write(region);
+                    }
+                }
+            } catch (final IOException e) {
+                fos.close();
+                throw e;
+            }
+
+            fileOut = new BufferedOutputStream(fos, BUFFER_SIZE);
+
+            slabs.forEach(Slab::releaseClaim);
+            regions = Collections.emptyList();
+            slabs = Collections.emptyList();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (fileOut != null) {
+                fileOut.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            if (fileOut != null) {
+                fileOut.close();
+                resourceClaim.complete(Collections.emptyList(), Collections.emptyList(), file, bytesWritten);
+                return;
+            }
+
+            finishRegion();
+            resourceClaim.complete(regions, slabs, null, bytesWritten);
+        }
+    }
+
+
+    private static class BufferListInputStream extends InputStream {
+        private final List<ByteBuffer> buffers;
+        private int bufferIndex = 0;
+        private ByteBuffer current;
+
+        private BufferListInputStream(final List<ByteBuffer> buffers) {
+            this.buffers = buffers;
+        }
+
+        private ByteBuffer nextBuffer() {
+            while (current == null || !current.hasRemaining()) {
+                if (bufferIndex >= buffers.size()) {
+                    return null;
+                }
+
+                // Each reader uses its own view of the buffer so that content can be read multiple times and concurrently
+                current = buffers.get(bufferIndex++).duplicate();
+            }
+
+            return current;
+        }
+
+        @Override
+        public int read() {
+            final ByteBuffer buffer = nextBuffer();
+            if (buffer == null) {
+                return -1;
+            }
+
+            return buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+
+            final ByteBuffer buffer = nextBuffer();
+            if (buffer == null) {
+                return -1;
+            }
+
+            final int toRead = Math.min(len, buffer.remaining());
+            buffer.get(b, off, toRead);
+            return toRead;
+        }
+
+        @Override
+        public int available() {
+            return current == null ? 0 : current.remaining();
+        }
+    }
+}
@@ -246,6 +246,26 @@ public class AsynchronousCommitTracker {
         return bytesProduced;
     }
 
+    /**
+     * Indicates whether the components that are added to this tracker are triggered by other threads as stages of a pipeline. If so, a Process Session
+     * that is committed synchronously must not trigger its follow-on components itself, as they may already be running on another thread. Instead, it
+     * adds them to this tracker and then calls {@link #awaitFollowOnComponents()}.
+     *
+     * @return <code>true</code> if the components added to this tracker are triggered by other threads, <code>false</code> otherwise
+     */
+    public boolean isPipelined() {
+        return false;
+    }
+
+    /**
+     * Waits for the components that have been added to this tracker to process the data that is available to them. Trackers that are not
+     * {@link #isPipelined() pipelined} leave their components to be triggered by the caller, so there is nothing to wait for and this returns immediately.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitFollowOnComponents() throws InterruptedException {
+    }
+
     private static class CommitCallbacks {
         private final Connectable connectable;
         private final Runnable successCallback;
@@ -138,7 +138,12 @@ public class StatelessProcessSession extends StandardProcessSession {
 
         // Trigger each of the follow-on components.
         final long followOnStart = System.nanoTime();
-        triggerFollowOnComponents();
+        if (tracker.isPipelined()) {
+            // The follow-on components may already be running on other threads, so they must not be triggered on this one. Hand the data to them instead.
+            awaitPipelinedFollowOnComponents();
+        } else {
+            triggerFollowOnComponents();
+        }
 
         // When this component finishes running, the flowfile event repo will be updated to include the number of nanoseconds it took to
         // trigger this component. But that will include the amount of time that it took to trigger follow-on components as well.
@@ -260,6 +265,34 @@ public class StatelessProcessSession extends StandardProcessSession {
         }
     }
 
+    private void awaitPipelinedFollowOnComponents() {
+        // As with #triggerFollowOnComponents, keep going until the follow-on components have consumed all created FlowFiles.
+        do {
+            queueFollowOnComponents();
+            awaitFollowOnComponents();
+        } while (isFollowOnDataQueued());
+    }
+
+    private boolean isFollowOnDataQueued() {
+        for (final Connection connection : connectable.getConnections()) {
+            if (!connection.getFlowFileQueue().isEmpty() && !StandardStatelessFlow.isTerminalPort(connection.getDestination())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void awaitFollowOnComponents() {
+        try {
+            tracker.awaitFollowOnComponents();
+        } catch (final InterruptedException e) {
+            logger.warn("Interrupted while waiting for follow-on components of {} to complete. Will roll back session.", connectable);
+            abortProcessing(e);
+            throw new DataflowAbortedException();
+        }
+    }
+
     private void awaitAcknowledgment() {
         if (executionProgress.isDataQueued()) {
             logger.debug("Completed processing for {} but data is queued for processing so will allow Process Session to complete without waiting for acknowledgment", connectable);
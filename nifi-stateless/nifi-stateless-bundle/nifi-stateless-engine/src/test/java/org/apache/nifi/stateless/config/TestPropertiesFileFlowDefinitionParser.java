@@ -75,6 +75,8 @@ public class TestPropertiesFileFlowDefinitionParser {
         assertEquals(1000, transactionThresholds.getMaxFlowFiles().getAsLong());
         assertEquals(4L, transactionThresholds.getMaxContentSize(DataUnit.KB).getAsLong());
         assertEquals(1000L, transactionThresholds.getMaxTime(TimeUnit.MILLISECONDS).getAsLong());
+
+        assertEquals(4, dataflowDefinition.getMaxConcurrentTasks());
     }
 
     private StatelessEngineConfiguration createStatelessEngineConfiguration() {
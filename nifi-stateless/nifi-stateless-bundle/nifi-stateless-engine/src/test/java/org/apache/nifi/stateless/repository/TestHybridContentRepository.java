@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.stateless.repository;
+
+import org.apache.nifi.controller.repository.ContentRepositoryContext;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.stream.io.StreamUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestHybridContentRepository {
+    private static final int MEMORY_BUDGET = 4 * HybridContentRepository.BUFFER_SIZE;
+    private static final int MAX_IN_MEMORY_CLAIM_SIZE = 2 * HybridContentRepository.BUFFER_SIZE;
+
+    private final File repoDirectory = new File("target/test-hybrid-repository");
+    private final ResourceClaimManager claimManager = new StandardResourceClaimManager();
+    private HybridContentRepository repository;
+
+    private final ContentRepositoryContext contentRepositoryContext = new ContentRepositoryContext() {
+        @Override
+        public ResourceClaimManager getResourceClaimManager() {
+            return claimManager;
+        }
+
+        @Override
+        public EventReporter getEventReporter() {
+            return EventReporter.NO_OP;
+        }
+    };
+
+    @BeforeEach
+    public void setup() throws IOException {
+        repository = new HybridContentRepository(repoDirectory, MEMORY_BUDGET, MAX_IN_MEMORY_CLAIM_SIZE);
+        repository.initialize(contentRepositoryContext);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        repository.shutdown();
+    }
+
+    @Test
+    public void testSmallContentHeldInMemory() throws IOException {
+        final byte[] contents = "Hello, World!".getBytes();
+        final ContentClaim claim = write(contents);
+
+        assertEquals(contents.length, claim.getLength());
+        assertEquals(HybridContentRepository.BUFFER_SIZE, repository.getMemoryUsed());
+        assertEquals(0, getSpillFileCount());
+
+        // Ensure we can read multiple times.
+        for (int i = 0; i < 5; i++) {
+            assertArrayEquals(contents, read(claim));
+        }
+
+        repository.purge();
+        assertEquals(0, repository.getMemoryUsed());
+    }
+
+    @Test
+    public void testLargeContentSpilledToDisk() throws IOException {
+        final byte[] contents = createContents(MAX_IN_MEMORY_CLAIM_SIZE + 1);
+        final ContentClaim claim = write(contents);
+
+        assertEquals(contents.length, claim.getLength());
+        assertEquals(0, repository.getMemoryUsed());
+        assertEquals(1, getSpillFileCount());
+        assertArrayEquals(contents, read(claim));
+
+        repository.purge();
+        assertEquals(0, getSpillFileCount());
+    }
+
+    @Test
+    public void testContentSpilledWhenMemoryBudgetReached() throws IOException {
+        final byte[] first = createContents(MAX_IN_MEMORY_CLAIM_SIZE);
+        final byte[] second = createContents(MAX_IN_MEMORY_CLAIM_SIZE - 10);
+        final byte[] third = createContents(100);
+
+        final ContentClaim firstClaim = write(first);
+        final ContentClaim secondClaim = write(second);
+        assertEquals(MEMORY_BUDGET, repository.getMemoryUsed());
+        assertEquals(0, getSpillFileCount());
+
+        final ContentClaim thirdClaim = write(third);
+        assertEquals(1, getSpillFileCount());
+
+        assertArrayEquals(first, read(firstClaim));
+        assertArrayEquals(second, read(secondClaim));
+        assertArrayEquals(third, read(thirdClaim));
+
+        repository.purge();
+        assertEquals(0, repository.getMemoryUsed());
+        assertEquals(0, getSpillFileCount());
+
+        final byte[] fourth = createContents(200);
+        final ContentClaim fourthClaim = write(fourth);
+        assertEquals(HybridContentRepository.BUFFER_SIZE, repository.getMemoryUsed());
+        assertArrayEquals(fourth, read(fourthClaim));
+    }
+
+    @Test
+    public void testContentRetainedUntilPurged() throws IOException {
+        final byte[] contents = "Hello, World!".getBytes();
+        final ContentClaim claim = write(contents);
+
+        // Output FlowFiles are no longer referenced once they have been drained from the output queues, but their content is yet to be read
+        assertEquals(0, repository.decrementClaimantCount(claim));
+        assertEquals(HybridContentRepository.BUFFER_SIZE, repository.getMemoryUsed());
+        assertArrayEquals(contents, read(claim));
+
+        // Content is retained even if the memory budget is reached
+        write(createContents(MAX_IN_MEMORY_CLAIM_SIZE));
+        write(createContents(MAX_IN_MEMORY_CLAIM_SIZE));
+        assertEquals(1, getSpillFileCount());
+        assertArrayEquals(contents, read(claim));
+
+        repository.purge();
+        assertEquals(0, repository.getMemoryUsed());
+    }
+
+    @Test
+    public void testSmallContentPackedIntoSharedBuffer() throws IOException {
+        final List<byte[]> contents = new ArrayList<>();
+        final List<ContentClaim> claims = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final byte[] content = createContents(100 + i);
+            contents.add(content);
+            claims.add(write(content));
+        }
+
+        assertEquals(HybridContentRepository.BUFFER_SIZE, repository.getMemoryUsed());
+        for (int i = 0; i < claims.size(); i++) {
+            assertArrayEquals(contents.get(i), read(claims.get(i)));
+        }
+
+        repository.purge();
+        assertEquals(0, repository.getMemoryUsed());
+    }
+
+    @Test
+    public void testContentWrittenOneByteAtATime() throws IOException {
+        final byte[] contents = createContents(HybridContentRepository.BUFFER_SIZE + 100);
+        final ContentClaim claim = repository.create(true);
+        try (final OutputStream out = repository.write(claim)) {
+            for (final byte b : contents) {
+                out.write(b);
+            }
+        }
+
+        assertEquals(contents.length, claim.getLength());
+        assertEquals(2 * HybridContentRepository.BUFFER_SIZE, repository.getMemoryUsed());
+        assertArrayEquals(contents, read(claim));
+    }
+
+    @Test
+    public void testUnreferencedContentReleasedWhenMemoryBudgetReached() throws IOException {
+        final byte[] first = createContents(MAX_IN_MEMORY_CLAIM_SIZE);
+        final byte[] second = createContents(MAX_IN_MEMORY_CLAIM_SIZE);
+        final ContentClaim firstClaim = write(first);
+        final ContentClaim secondClaim = write(second);
+        assertEquals(MEMORY_BUDGET, repository.getMemoryUsed());
+
+        // The FlowFile Repository decrements the count of a FlowFile that is removed within the dataflow through the Resource Claim Manager
+        claimManager.decrementClaimantCount(firstClaim.getResourceClaim());
+
+        final byte[] third = createContents(100);
+        final ContentClaim thirdClaim = write(third);
+        assertEquals(0, getSpillFileCount());
+        assertEquals(MEMORY_BUDGET - HybridContentRepository.BUFFER_SIZE, repository.getMemoryUsed());
+        assertArrayEquals(second, read(secondClaim));
+        assertArrayEquals(third, read(thirdClaim));
+    }
+
+    @Test
+    public void testOverwriteFails() throws IOException {
+        final ContentClaim claim = write("Hello, World!".getBytes());
+
+        // An attempt to write to a content claim multiple times should fail
+        assertThrows(IOException.class, () -> repository.write(claim));
+    }
+
+    @Test
+    public void testClone() throws IOException {
+        final byte[] contents = createContents(HybridContentRepository.BUFFER_SIZE + 17);
+        final ContentClaim claim = write(contents);
+
+        final ContentClaim clone = repository.clone(claim, true);
+        assertEquals(contents.length, clone.getLength());
+        assertArrayEquals(contents, read(clone));
+    }
+
+    private ContentClaim write(final byte[] contents) throws IOException {
+        final ContentClaim claim = repository.create(true);
+        try (final OutputStream out = repository.write(claim)) {
+            out.write(contents);
+        }
+
+        return claim;
+    }
+
+    private byte[] read(final ContentClaim claim) throws IOException {
+        try (final InputStream in = repository.read(claim);
+             final ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            StreamUtils.copy(in, baos);
+            return baos.toByteArray();
+        }
+    }
+
+    private byte[] createContents(final int length) {
+        final byte[] contents = new byte[length];
+        new Random(length).nextBytes(contents);
+        return contents;
+    }
+
+    private int getSpillFileCount() {
+        final File[] files = repoDirectory.listFiles();
+        assertNotNull(files);
+        return files.length;
+    }
+}
@@ -107,6 +107,11 @@ public class StatelessSystemIT {
                 return getContentRepoDirectory();
             }
 
+            @Override
+            public long getContentRepositoryMemoryBudget() {
+                return getContentRepoMemoryBudget();
+            }
+
             @Override
             public SslContextDefinition getSslContext() {
                 return null;
@@ -133,6 +138,14 @@ public class StatelessSystemIT {
         return Optional.empty();
     }
 
+    protected long getContentRepoMemoryBudget() {
+        return 0L;
+    }
+
+    protected int getMaxConcurrentTasks() {
+        return 1;
+    }
+
     protected StatelessDataflow loadDataflow(final File versionedFlowSnapshot, final List<ParameterContextDefinition> parameterContexts) throws IOException, StatelessConfigurationException {
         final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -216,6 +229,11 @@ public class StatelessSystemIT {
             public TransactionThresholds getTransactionThresholds() {
                 return transactionThresholds;
             }
+
+            @Override
+            public int getMaxConcurrentTasks() {
+                return StatelessSystemIT.this.getMaxConcurrentTasks();
+            }
         };
 
         final StatelessBootstrap bootstrap = StatelessBootstrap.bootstrap(getEngineConfiguration());
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.stateless.basics;
+
+import org.apache.nifi.flow.VersionedPort;
+import org.apache.nifi.flow.VersionedProcessor;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.registry.flow.VersionedFlowSnapshot;
+import org.apache.nifi.stateless.StatelessSystemIT;
+import org.apache.nifi.stateless.VersionedFlowBuilder;
+import org.apache.nifi.stateless.config.StatelessConfigurationException;
+import org.apache.nifi.stateless.flow.StatelessDataflow;
+import org.apache.nifi.stateless.flow.TriggerResult;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HybridContentRepositoryIT extends StatelessSystemIT {
+    private static final int MEMORY_BUDGET = 64 * 1024;
+
+    @Override
+    protected Optional<File> getContentRepoDirectory() {
+        return Optional.of(new File("target/hybrid-content-repo"));
+    }
+
+    @Override
+    protected long getContentRepoMemoryBudget() {
+        return MEMORY_BUDGET;
+    }
+
+    @Test
+    public void testOutputContentReadableFromMemory() throws IOException, StatelessConfigurationException, InterruptedException {
+        final StatelessDataflow dataflow = loadDataflow(createFlow("ReverseContents"), Collections.emptyList());
+
+        dataflow.enqueue("hello world".getBytes(StandardCharsets.UTF_8), Collections.emptyMap(), "In");
+        final TriggerResult result = dataflow.trigger().getResult();
+        assertTrue(result.isSuccessful());
+
+        final List<FlowFile> outputFlowFiles = result.getOutputFlowFiles("Out");
+        assertEquals(1, outputFlowFiles.size());
+        assertEquals("dlrow olleh", new String(result.readContentAsByteArray(outputFlowFiles.get(0)), StandardCharsets.UTF_8));
+
+        result.acknowledge();
+    }
+
+    @Test
+    public void testUnmodifiedContentReadable() throws IOException, StatelessConfigurationException, InterruptedException {
+        // The content is not modified, so the output FlowFile references the content claim created when the input was enqueued,
+        // and no FlowFile in the dataflow references that claim once the output queue has been drained.
+        final StatelessDataflow dataflow = loadDataflow(createFlow("SetAttribute"), Collections.emptyList());
+
+        dataflow.enqueue("hello world".getBytes(StandardCharsets.UTF_8), Collections.emptyMap(), "In");
+        final TriggerResult result = dataflow.trigger().getResult();
+        assertTrue(result.isSuccessful());
+
+        final List<FlowFile> outputFlowFiles = result.getOutputFlowFiles("Out");
+        assertEquals(1, outputFlowFiles.size());
+        assertEquals("hello world", new String(result.readContentAsByteArray(outputFlowFiles.get(0)), StandardCharsets.UTF_8));
+
+        result.acknowledge();
+    }
+
+    @Test
+    public void testOutputContentReadableWhenSpilledToDisk() throws IOException, StatelessConfigurationException, InterruptedException {
+        final StatelessDataflow dataflow = loadDataflow(createFlow("ReverseContents"), Collections.emptyList());
+
+        // Larger than the memory budget, so both the input and the output content are written to the content repository directory
+        final byte[] content = new byte[MEMORY_BUDGET * 2];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+
+        dataflow.enqueue(content, Collections.emptyMap(), "In");
+        final TriggerResult result = dataflow.trigger().getResult();
+        assertTrue(result.isSuccessful());
+
+        final List<FlowFile> outputFlowFiles = result.getOutputFlowFiles("Out");
+        assertEquals(1, outputFlowFiles.size());
+        assertArrayEquals(reverse(content), result.readContentAsByteArray(outputFlowFiles.get(0)));
+
+        result.acknowledge();
+    }
+
+    @Test
+    public void testOutputContentReadableAcrossTriggers() throws IOException, StatelessConfigurationException, InterruptedException {
+        final StatelessDataflow dataflow = loadDataflow(createFlow("ReverseContents"), Collections.emptyList());
+
+        // The input and output content of each trigger together use two thirds of the memory budget, so the content of one trigger
+        // must be released on acknowledgment for the next trigger to be held in memory. Either way, the output content must be
+        // readable until it is acknowledged.
+        for (int i = 0; i < 5; i++) {
+            final byte[] content = new byte[MEMORY_BUDGET / 3];
+            Arrays.fill(content, (byte) ('0' + i));
+
+            dataflow.enqueue(content, Collections.emptyMap(), "In");
+            final TriggerResult result = dataflow.trigger().getResult();
+            assertTrue(result.isSuccessful());
+
+            final List<FlowFile> outputFlowFiles = result.getOutputFlowFiles("Out");
+            assertEquals(1, outputFlowFiles.size());
+            assertArrayEquals(content, result.readContentAsByteArray(outputFlowFiles.get(0)));
+
+            result.acknowledge();
+        }
+    }
+
+    private VersionedFlowSnapshot createFlow(final String processorType) {
+        final VersionedFlowBuilder flowBuilder = new VersionedFlowBuilder();
+        final VersionedPort inPort = flowBuilder.createInputPort("In");
+        final VersionedPort outPort = flowBuilder.createOutputPort("Out");
+        final VersionedProcessor processor = flowBuilder.createSimpleProcessor(processorType);
+
+        flowBuilder.createConnection(inPort, processor, Relationship.ANONYMOUS.getName());
+        flowBuilder.createConnection(processor, outPort, "success");
+
+        return flowBuilder.getFlowSnapshot();
+    }
+
+    private byte[] reverse(final byte[] content) {
+        final byte[] reversed = new byte[content.length];
+        for (int i = 0; i < content.length; i++) {
+            reversed[i] = content[content.length - 1 - i];
+        }
+        return reversed;
+    }
+}
@@ -0,0 +1,356 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.stateless.basics;
+
+import org.apache.nifi.flow.VersionedPort;
+import org.apache.nifi.flow.VersionedProcessor;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.processor.DataUnit;
+import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.stateless.StatelessSystemIT;
+import org.apache.nifi.stateless.VersionedFlowBuilder;
+import org.apache.nifi.stateless.config.StatelessConfigurationException;
+import org.apache.nifi.stateless.flow.DataflowTrigger;
+import org.apache.nifi.stateless.flow.StatelessDataflow;
+import org.apache.nifi.stateless.flow.TransactionThresholds;
+import org.apache.nifi.stateless.flow.TriggerResult;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PipelinedDataflowIT extends StatelessSystemIT {
+    private static final int MAX_CONCURRENT_TASKS = 4;
+
+    @Override
+    protected int getMaxConcurrentTasks() {
+        return MAX_CONCURRENT_TASKS;
+    }
+
+    @Test
+    public void testOrderPreservedAcrossStages() throws IOException, StatelessConfigurationException, InterruptedException {
+        final VersionedFlowBuilder flowBuilder = new VersionedFlowBuilder();
+        final VersionedPort inPort = flowBuilder.createInputPort("In");
+        final VersionedPort outPort = flowBuilder.createOutputPort("Out");
+
+        final VersionedProcessor split = flowBuilder.createSimpleProcessor("SplitByLine");
+
+        // The slow stage means that the stages downstream of it are always waiting for data rather than the other way around
+        final VersionedProcessor sleep = flowBuilder.createSimpleProcessor("Sleep");
+        sleep.setProperties(Collections.singletonMap("onTrigger Sleep Time", "5 millis"));
+        final VersionedProcessor reverse = flowBuilder.createSimpleProcessor("ReverseContents");
+        final VersionedProcessor verifySerial = flowBuilder.createSimpleProcessor("VerifySerialTriggering");
+        verifySerial.setProperties(Collections.singletonMap("Trigger Duration", "1 millis"));
+
+        flowBuilder.createConnection(inPort, split, Relationship.ANONYMOUS.getName());
+        flowBuilder.createConnection(split, sleep, "success");
+        flowBuilder.createConnection(sleep, reverse, "success");
+        flowBuilder.createConnection(reverse, verifySerial, "success");
+        flowBuilder.createConnection(verifySerial, outPort, "success");
+
+        final int flowFileCount = 100;
+        final StatelessDataflow dataflow = loadDataflow(flowBuilder.getFlowSnapshot());
+        dataflow.enqueue(createLines(flowFileCount).getBytes(StandardCharsets.UTF_8), Collections.emptyMap(), "In");
+
+        final TriggerResult result = dataflow.trigger().getResult();
+        assertTrue(result.isSuccessful());
+
+        final List<FlowFile> outputFlowFiles = result.getOutputFlowFiles("Out");
+        assertEquals(flowFileCount, outputFlowFiles.size());
+        for (int i = 0; i < flowFileCount; i++) {
+            final String expected = new StringBuilder(String.format("%03d", i)).reverse().toString();
+            assertEquals(expected, new String(result.readContentAsByteArray(outputFlowFiles.get(i)), StandardCharsets.UTF_8));
+        }
+
+        result.acknowledge();
+        assertFalse(dataflow.isFlowFileQueued());
+    }
+
+    @Test
+    public void testTransactionThresholdsHoldBackSource() throws IOException, StatelessConfigurationException, InterruptedException {
+        final VersionedFlowBuilder flowBuilder = new VersionedFlowBuilder();
+        final VersionedPort outPort = flowBuilder.createOutputPort("Out");
+
+        final VersionedProcessor generate = flowBuilder.createSimpleProcessor("GenerateFlowFile");
+        generate.setProperties(Collections.singletonMap("Text", "abc"));
+
+        final VersionedProcessor levelOne = flowBuilder.createSimpleProcessor("ConcatenateFlowFiles");
+        levelOne.setProperties(Collections.singletonMap("FlowFile Count", "3"));
+        levelOne.setAutoTerminatedRelationships(Collections.singleton("original"));
+
+        final VersionedProcessor levelTwo = flowBuilder.createSimpleProcessor("ConcatenateFlowFiles");
+        levelTwo.setProperties(Collections.singletonMap("FlowFile Count", "4"));
+        levelTwo.setAutoTerminatedRelationships(Collections.singleton("original"));
+
+        flowBuilder.createConnection(generate, levelOne, "success");
+        flowBuilder.createConnection(levelOne, levelTwo, "merged");
+        flowBuilder.createConnection(levelTwo, outPort, "merged");
+
+        // While the stages are waiting for more input, the source is triggered only up to the threshold, so a threshold that is too low never completes
+        final StatelessDataflow timeoutDataflow = loadDataflow(flowBuilder.getFlowSnapshot(), Collections.emptyList(), Collections.emptySet(), createTransactionThresholds(11));
+        final DataflowTrigger timeoutTrigger = timeoutDataflow.trigger();
+        assertFalse(timeoutTrigger.getResult(1, TimeUnit.SECONDS).isPresent());
+        timeoutTrigger.cancel();
+
+        // A threshold that is large enough produces exactly one merged FlowFile
+        final StatelessDataflow dataflow = loadDataflow(flowBuilder.getFlowSnapshot(), Collections.emptyList(), Collections.emptySet(), createTransactionThresholds(12));
+        final TriggerResult result = dataflow.trigger().getResult();
+        assertTrue(result.isSuccessful());
+
+        final List<FlowFile> outputFlowFiles = result.getOutputFlowFiles("Out");
+        assertEquals(1, outputFlowFiles.size());
+        assertEquals(String.join("", Collections.nCopies(12, "abc")), new String(result.readContentAsByteArray(outputFlowFiles.get(0)), StandardCharsets.UTF_8));
+
+        result.acknowledge();
+    }
+
+    @Test
+    public void testFailureInStageRollsBackDataflow() throws IOException, StatelessConfigurationException, InterruptedException {
+        final VersionedFlowBuilder flowBuilder = new VersionedFlowBuilder();
+        final VersionedPort inPort = flowBuilder.createInputPort("In");
+        final VersionedPort outPort = flowBuilder.createOutputPort("Out");
+
+        final VersionedProcessor split = flowBuilder.createSimpleProcessor("SplitByLine");
+        final VersionedProcessor reverse = flowBuilder.createSimpleProcessor("ReverseContents");
+        final VersionedProcessor throwException = flowBuilder.createSimpleProcessor("ThrowProcessException");
+
+        // One branch completes while the other fails
+        flowBuilder.createConnection(inPort, split, Relationship.ANONYMOUS.getName());
+        flowBuilder.createConnection(split, reverse, "success");
+        flowBuilder.createConnection(split, throwException, "success");
+        flowBuilder.createConnection(reverse, outPort, "success");
+
+        final StatelessDataflow dataflow = loadDataflow(flowBuilder.getFlowSnapshot());
+        dataflow.enqueue(createLines(20).getBytes(StandardCharsets.UTF_8), Collections.emptyMap(), "In");
+
+        final TriggerResult result = dataflow.trigger().getResult();
+        assertFalse(result.isSuccessful());
+        assertTrue(result.getFailureCause().isPresent());
+        assertTrue(result.getOutputFlowFiles().isEmpty());
+
+        // The data that the other stages processed is purged along with the data that was queued for them
+        assertFalse(dataflow.isFlowFileQueued());
+    }
+
+    @Test
+    public void testCommitFailureCallbackWhenStageFails() throws IOException, StatelessConfigurationException, InterruptedException {
+        final File failureOutputFile = new File("target/pipelined-failure-output.txt");
+        Files.deleteIfExists(failureOutputFile.toPath());
+
+        final VersionedFlowBuilder flowBuilder = new VersionedFlowBuilder();
+        final VersionedProcessor generate = flowBuilder.createSimpleProcessor("GenerateFlowFile");
+        generate.setProperties(Collections.singletonMap("File to Write on Commit Failure", failureOutputFile.getAbsolutePath()));
+
+        final VersionedProcessor passThrough = flowBuilder.createSimpleProcessor("PassThrough");
+        final VersionedProcessor throwException = flowBuilder.createSimpleProcessor("ThrowProcessException");
+
+        flowBuilder.createConnection(generate, passThrough, "success");
+        flowBuilder.createConnection(passThrough, throwException, "success");
+
+        final StatelessDataflow dataflow = loadDataflow(flowBuilder.getFlowSnapshot());
+        final TriggerResult result = dataflow.trigger().getResult();
+        assertFalse(result.isSuccessful());
+        assertTrue(failureOutputFile.exists());
+    }
+
+    @Test
+    public void testSynchronousCommitInStageDoesNotTriggerFollowOnComponentConcurrently() throws IOException, StatelessConfigurationException, InterruptedException {
+        final VersionedFlowBuilder flowBuilder = new VersionedFlowBuilder();
+        final VersionedPort inPort = flowBuilder.createInputPort("In");
+        final VersionedPort outPort = flowBuilder.createOutputPort("Out");
+
+        final VersionedProcessor split = flowBuilder.createSimpleProcessor("SplitByLine");
+
+        // Both branches deliver to the same component, one of them with synchronous commits
+        final VersionedProcessor synchronousCommit = flowBuilder.createSimpleProcessor("PassThrough");
+        synchronousCommit.setProperties(Collections.singletonMap("Commit Mode", "synchronous"));
+        final VersionedProcessor asynchronousCommit = flowBuilder.createSimpleProcessor("PassThrough");
+        final VersionedProcessor verifySerial = flowBuilder.createSimpleProcessor("VerifySerialTriggering");
+
+        flowBuilder.createConnection(inPort, split, Relationship.ANONYMOUS.getName());
+        flowBuilder.createConnection(split, synchronousCommit, "success");
+        flowBuilder.createConnection(split, asynchronousCommit, "success");
+        flowBuilder.createConnection(synchronousCommit, verifySerial, "success");
+        flowBuilder.createConnection(asynchronousCommit, verifySerial, "success");
+        flowBuilder.createConnection(verifySerial, outPort, "success");
+
+        final int flowFileCount = 20;
+        final StatelessDataflow dataflow = loadDataflow(flowBuilder.getFlowSnapshot());
+        dataflow.enqueue(createLines(flowFileCount).getBytes(StandardCharsets.UTF_8), Collections.emptyMap(), "In");
+
+        final TriggerResult result = dataflow.trigger().getResult();
+        assertTrue(result.getFailureCause().toString(), result.isSuccessful());
+        assertEquals(flowFileCount * 2, result.getOutputFlowFiles("Out").size());
+
+        result.acknowledge();
+    }
+
+    @Test(timeout = 10_000)
+    public void testSynchronousCommitOfSourceWaitsForFollowOnStages() throws IOException, StatelessConfigurationException, InterruptedException {
+        final File inputFile = new File("target/pipelined-input.txt");
+        final File replacementFile = new File("target/pipelined-replacement.txt");
+        Files.write(inputFile.toPath(), "Hello World".getBytes(), StandardOpenOption.CREATE);
+        Files.deleteIfExists(replacementFile.toPath());
+
+        final VersionedFlowBuilder flowBuilder = new VersionedFlowBuilder();
+        final VersionedProcessor ingestFile = flowBuilder.createSimpleProcessor("IngestFile");
+        final Map<String, String> ingestProperties = new HashMap<>();
+        ingestProperties.put("Filename", inputFile.getAbsolutePath());
+        ingestProperties.put("Commit Mode", "synchronous");
+        ingestFile.setProperties(ingestProperties);
+
+        final VersionedProcessor replace = flowBuilder.createSimpleProcessor("ReplaceWithFile");
+        replace.setProperties(Collections.singletonMap("Filename", replacementFile.getAbsolutePath()));
+
+        final VersionedPort outPort = flowBuilder.createOutputPort("Out");
+        flowBuilder.createConnection(ingestFile, replace, "success");
+        flowBuilder.createConnection(replace, outPort, "success");
+
+        final StatelessDataflow dataflow = loadDataflow(flowBuilder.getFlowSnapshot());
+        final DataflowTrigger trigger = dataflow.trigger();
+
+        // The follow-on stage cannot make progress yet, so the commit of the source must not have returned
+        Thread.sleep(1000L);
+        assertFalse(trigger.getResultNow().isPresent());
+        assertTrue(inputFile.exists());
+
+        Files.write(replacementFile.toPath(), "Good-bye World".getBytes(), StandardOpenOption.CREATE);
+
+        final TriggerResult result = trigger.getResult();
+        assertTrue(result.isSuccessful());
+        assertTrue(inputFile.exists());
+
+        final List<FlowFile> outputFlowFiles = result.getOutputFlowFiles("Out");
+        assertEquals(1, outputFlowFiles.size());
+        assertEquals("Good-bye World", new String(result.readContentAsByteArray(outputFlowFiles.get(0))));
+
+        // The source's commit returns, and it deletes the file, only once the output has been acknowledged
+        result.acknowledge();
+        while (inputFile.exists()) {
+            Thread.sleep(10L);
+        }
+    }
+
+    @Test
+    public void testCancelWhileStagesRunning() throws IOException, StatelessConfigurationException, InterruptedException {
+        final VersionedFlowBuilder flowBuilder = new VersionedFlowBuilder();
+        final VersionedPort inPort = flowBuilder.createInputPort("In");
+        final VersionedPort outPort = flowBuilder.createOutputPort("Out");
+
+        final VersionedProcessor split = flowBuilder.createSimpleProcessor("SplitByLine");
+        final VersionedProcessor reverse = flowBuilder.createSimpleProcessor("ReverseContents");
+        final VersionedProcessor sleep = flowBuilder.createSimpleProcessor("Sleep");
+        sleep.setProperties(Collections.singletonMap("onTrigger Sleep Time", "1 sec"));
+
+        flowBuilder.createConnection(inPort, split, Relationship.ANONYMOUS.getName());
+        flowBuilder.createConnection(split, reverse, "success");
+        flowBuilder.createConnection(reverse, sleep, "success");
+        flowBuilder.createConnection(sleep, outPort, "success");
+
+        final StatelessDataflow dataflow = loadDataflow(flowBuilder.getFlowSnapshot());
+        dataflow.enqueue(createLines(10).getBytes(StandardCharsets.UTF_8), Collections.emptyMap(), "In");
+
+        final DataflowTrigger trigger = dataflow.trigger();
+        assertFalse(trigger.getResult(250, TimeUnit.MILLISECONDS).isPresent());
+
+        trigger.cancel();
+        final TriggerResult result = trigger.getResult();
+        assertFalse(result.isSuccessful());
+        assertTrue(result.isCanceled());
+        assertTrue(result.getOutputFlowFiles().isEmpty());
+        assertFalse(dataflow.isFlowFileQueued());
+
+        // The canceled result is made available before the stages have stopped, but the next trigger does not run until they have
+        final TriggerResult emptyResult = dataflow.trigger().getResult();
+        assertTrue(emptyResult.isSuccessful());
+        emptyResult.acknowledge();
+
+        dataflow.enqueue("hello".getBytes(StandardCharsets.UTF_8), Collections.emptyMap(), "In");
+        final TriggerResult secondResult = dataflow.trigger().getResult();
+        assertTrue(secondResult.isSuccessful());
+        assertEquals(1, secondResult.getOutputFlowFiles("Out").size());
+        secondResult.acknowledge();
+    }
+
+    @Test
+    public void testShutdownWhileStagesRunning() throws IOException, StatelessConfigurationException, InterruptedException {
+        final VersionedFlowBuilder flowBuilder = new VersionedFlowBuilder();
+        final VersionedPort inPort = flowBuilder.createInputPort("In");
+        final VersionedPort outPort = flowBuilder.createOutputPort("Out");
+
+        final VersionedProcessor sleep = flowBuilder.createSimpleProcessor("Sleep");
+        sleep.setProperties(Collections.singletonMap("onTrigger Sleep Time", "1 sec"));
+        final VersionedProcessor reverse = flowBuilder.createSimpleProcessor("ReverseContents");
+
+        flowBuilder.createConnection(inPort, sleep, Relationship.ANONYMOUS.getName());
+        flowBuilder.createConnection(sleep, reverse, "success");
+        flowBuilder.createConnection(reverse, outPort, "success");
+
+        final StatelessDataflow dataflow = loadDataflow(flowBuilder.getFlowSnapshot());
+        dataflow.enqueue("hello".getBytes(StandardCharsets.UTF_8), Collections.emptyMap(), "In");
+
+        final DataflowTrigger trigger = dataflow.trigger();
+        assertFalse(trigger.getResult(250, TimeUnit.MILLISECONDS).isPresent());
+
+        // Once the running stage completes, no further stage can be started, so the invocation fails rather than hanging
+        dataflow.shutdown();
+        final Optional<TriggerResult> result = trigger.getResult(10, TimeUnit.SECONDS);
+        assertTrue(result.isPresent());
+        assertFalse(result.get().isSuccessful());
+    }
+
+    private String createLines(final int lineCount) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lineCount; i++) {
+            sb.append(String.format("%03d", i)).append("\n");
+        }
+        return sb.toString();
+    }
+
+    private TransactionThresholds createTransactionThresholds(final int maxFlowFiles) {
+        return new TransactionThresholds() {
+            @Override
+            public OptionalLong getMaxFlowFiles() {
+                return OptionalLong.of(maxFlowFiles);
+            }
+
+            @Override
+            public OptionalLong getMaxContentSize(final DataUnit dataUnit) {
+                return OptionalLong.empty();
+            }
+
+            @Override
+            public OptionalLong getMaxTime(final TimeUnit timeUnit) {
+                return OptionalLong.empty();
+            }
+        };
+    }
+}
@@ -17,6 +17,8 @@
 
 package org.apache.nifi.processors.tests.system;
 
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.components.PropertyDescriptor.Builder;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.processor.AbstractProcessor;
 import org.apache.nifi.processor.ProcessContext;
@@ -25,15 +27,31 @@ import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.ProcessException;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 public class PassThrough extends AbstractProcessor {
+    private static final String COMMIT_SYNCHRONOUS = "synchronous";
+    private static final String COMMIT_ASYNC = "asynchronous";
+
+    static final PropertyDescriptor COMMIT_MODE = new Builder()
+        .name("Commit Mode")
+        .displayName("Commit Mode")
+        .description("How to commit the process session")
+        .allowableValues(COMMIT_ASYNC, COMMIT_SYNCHRONOUS)
+        .defaultValue(COMMIT_ASYNC)
+        .build();
 
     private static final Relationship REL_SUCCESS = new Relationship.Builder()
         .name("success")
         .description("Everything goes here")
         .build();
 
+    @Override
+    protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
+        return Collections.singletonList(COMMIT_MODE);
+    }
+
     @Override
     public Set<Relationship> getRelationships() {
         return Collections.singleton(REL_SUCCESS);
@@ -47,5 +65,10 @@ public class PassThrough extends AbstractProcessor {
         }
 
         session.transfer(flowFile, REL_SUCCESS);
+
+        final String commitMode = context.getProperty(COMMIT_MODE).getValue();
+        if (COMMIT_SYNCHRONOUS.equalsIgnoreCase(commitMode)) {
+            session.commit();
+        }
     }
 }